@@ -3,6 +3,8 @@ package study.datajpa;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
@@ -13,8 +15,13 @@ import javax.annotation.PostConstruct;
 import java.util.Optional;
 import java.util.UUID;
 
-@SpringBootApplication
+/**
+ * R2DBC 자동 설정 제외: ConnectionFactory 빈이 생기면 JDBC DataSource 자동 설정이 빠진다.
+ * R2DBC 는 조회 전용 경로(ReactiveMemberRepository)에서 직접 만든다.
+ */
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
 @EnableJpaAuditing
+@ConfigurationPropertiesScan
 public class DataJpaApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,25 @@
+package study.datajpa.archive;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 회원 보관: GET /members/archive (상태), POST /members/archive/run (지금 한 번 실행)
+ */
+@RestController
+@RequiredArgsConstructor
+public class ArchiveController {
+    private final MemberArchiver memberArchiver;
+
+    @GetMapping("/members/archive")
+    public ArchiveStatus status(){
+        return memberArchiver.status();
+    }
+
+    @PostMapping("/members/archive/run")
+    public ArchiveResult run(){
+        return memberArchiver.archive();
+    }
+}
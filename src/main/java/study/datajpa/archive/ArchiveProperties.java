@@ -0,0 +1,27 @@
+package study.datajpa.archive;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * datajpa.archive.*
+ */
+@ConfigurationProperties(prefix = "datajpa.archive")
+@Getter @Setter
+public class ArchiveProperties {
+    /** false 면 주기 실행만 하지 않는다 (POST /members/archive/run 은 동작) */
+    private boolean enabled = false;
+    /** updated_date 가 이 기간보다 오래된 회원을 옮긴다 */
+    private Duration olderThan = Duration.ofDays(365);
+    /** 한 트랜잭션에서 옮길 회원 수 */
+    private int batchSize = 500;
+    /** 주기 실행 간격 */
+    private Duration interval = Duration.ofMinutes(10);
+    /** 옮기는 데 쓰는 시간 비율, 배치 사이에 (배치 시간 * (1 - 비율) / 비율) 만큼 쉰다 */
+    private double dutyCycle = 0.2;
+    /** 배치 사이 최소 대기 */
+    private Duration minPause = Duration.ofMillis(20);
+}
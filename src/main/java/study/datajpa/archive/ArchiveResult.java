@@ -0,0 +1,21 @@
+package study.datajpa.archive;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class ArchiveResult {
+    private final long moved;
+    private final int batches;
+    private final long elapsedMillis;
+    /** 배치 사이에 쉰 시간 */
+    private final long pausedMillis;
+
+    public ArchiveResult(long moved, int batches, long elapsedMillis, long pausedMillis) {
+        this.moved = moved;
+        this.batches = batches;
+        this.elapsedMillis = elapsedMillis;
+        this.pausedMillis = pausedMillis;
+    }
+}
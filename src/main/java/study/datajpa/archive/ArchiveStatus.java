@@ -0,0 +1,25 @@
+package study.datajpa.archive;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+public class ArchiveStatus {
+    private final boolean enabled;
+    private final LocalDateTime cutoff;
+    private final long archivedMembers;
+    private final long totalMoved;
+    private final ArchiveResult lastRun;
+    private final LocalDateTime lastRunAt;
+
+    public ArchiveStatus(boolean enabled, LocalDateTime cutoff, long archivedMembers, long totalMoved,
+                         ArchiveResult lastRun, LocalDateTime lastRunAt) {
+        this.enabled = enabled;
+        this.cutoff = cutoff;
+        this.archivedMembers = archivedMembers;
+        this.totalMoved = totalMoved;
+        this.lastRun = lastRun;
+        this.lastRunAt = lastRunAt;
+    }
+}
@@ -0,0 +1,35 @@
+package study.datajpa.archive;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * 오래 변경되지 않은 회원 (member_archive), 쓰기는 MemberArchiver 의 JDBC
+ * member 와 같은 컬럼 + 옮긴 시각, 팀은 외래키 없이 id 만 남긴다.
+ */
+@Entity
+@Table(name = "member_archive", indexes = @Index(name = "idx_member_archive_username", columnList = "username"))
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class MemberArchive {
+    @Id
+    @Column(name = "member_id")
+    private Long id;
+    private String username;
+    private int age;
+    @Column(name = "team_id")
+    private Long teamId;
+    private LocalDateTime createdDate;
+    private LocalDateTime updatedDate;
+    private String createBy;
+    private String lastModifiedBy;
+    private LocalDateTime archivedAt;
+}
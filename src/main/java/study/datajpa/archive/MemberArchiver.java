@@ -0,0 +1,226 @@
+package study.datajpa.archive;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.domain.Member;
+import study.datajpa.domain.Team;
+import study.datajpa.event.EntityChange;
+import study.datajpa.event.EntityChangePublisher;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 오래 변경되지 않은 회원을 member 에서 member_archive 로 옮긴다.
+ *
+ * - updated_date 가 olderThan 보다 오래된 회원을 batchSize 씩, 배치마다 별도 트랜잭션으로
+ *   select ... for update > member_archive insert > member delete
+ * - 같은 트랜잭션에서 회원 DELETE(JDBC) 변경을 발행한다. 팀 요약, username 검색, 조회 캐시, 다른 노드가 삭제로 처리한다.
+ * - 커밋 후 옮긴 회원과 그 팀의 Team.members 를 2차 캐시에서 지운다.
+ * - 배치 사이에 쉬어서 옮기는 데 쓰는 시간을 dutyCycle 이하로 둔다. (짧은 트랜잭션, 잠금도 배치 크기만큼만)
+ *
+ * 보관된 회원은 Member 로 읽을 수 없다. 함께 읽으려면 MemberIncludingArchivedRepository 를 쓴다.
+ */
+@Slf4j
+@Component
+public class MemberArchiver implements SmartLifecycle {
+    private static final String SELECT_BATCH = "select member_id, username, age, team_id, created_date, updated_date," +
+            " create_by, last_modified_by from member where updated_date < ?" +
+            " order by updated_date, member_id limit ? for update";
+    private static final String INSERT_ARCHIVE = "insert into member_archive" +
+            " (member_id, username, age, team_id, created_date, updated_date, create_by, last_modified_by, archived_at)" +
+            " values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_MEMBER = "delete from member where member_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory emf;
+    private final EntityChangePublisher changePublisher;
+    private final ArchiveProperties properties;
+    private final Object runLock = new Object();
+
+    private final AtomicLong totalMoved = new AtomicLong();
+    private volatile ArchiveResult lastRun;
+    private volatile LocalDateTime lastRunAt;
+    private volatile boolean stopping;
+    private ScheduledExecutorService executor;
+
+    public MemberArchiver(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                          EntityManagerFactory emf, EntityChangePublisher changePublisher,
+                          ArchiveProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.emf = emf;
+        this.changePublisher = changePublisher;
+        this.properties = properties;
+    }
+
+    /**
+     * 옮길 회원이 없을 때까지 배치를 반복한다. 이미 실행 중이면 끝날 때까지 기다렸다가 실행한다.
+     */
+    public ArchiveResult archive() {
+        synchronized (runLock) {
+            Timestamp cutoff = Timestamp.valueOf(cutoff());
+            long start = System.nanoTime();
+            long moved = 0;
+            long pausedNanos = 0;
+            int batches = 0;
+            while (!stopping) {
+                long batchStart = System.nanoTime();
+                int count = moveBatch(cutoff);
+                long batchNanos = System.nanoTime() - batchStart;
+                moved += count;
+                batches++;
+                if (count < properties.getBatchSize()) {
+                    break;
+                }
+                long pause = pauseNanos(batchNanos);
+                try {
+                    TimeUnit.NANOSECONDS.sleep(pause);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                pausedNanos += pause;
+            }
+            ArchiveResult result = new ArchiveResult(moved, batches,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), TimeUnit.NANOSECONDS.toMillis(pausedNanos));
+            totalMoved.addAndGet(moved);
+            lastRun = result;
+            lastRunAt = LocalDateTime.now();
+            if (moved > 0) {
+                log.info("member archive {}", result);
+            }
+            return result;
+        }
+    }
+
+    public ArchiveStatus status() {
+        Long archived = jdbcTemplate.queryForObject("select count(*) from member_archive", Long.class);
+        return new ArchiveStatus(properties.isEnabled(), cutoff(), archived, totalMoved.get(), lastRun, lastRunAt);
+    }
+
+    private LocalDateTime cutoff() {
+        return LocalDateTime.now().minus(properties.getOlderThan());
+    }
+
+    private long pauseNanos(long batchNanos) {
+        double dutyCycle = Math.min(1, Math.max(0.01, properties.getDutyCycle()));
+        long pause = (long) (batchNanos * (1 - dutyCycle) / dutyCycle);
+        return Math.max(properties.getMinPause().toNanos(), pause);
+    }
+
+    private int moveBatch(Timestamp cutoff) {
+        List<Long> ids = new ArrayList<>();
+        List<Map<String, Object>> states = new ArrayList<>();
+        transactionTemplate.execute(status -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object[]> inserts = new ArrayList<>();
+            List<Object[]> deletes = new ArrayList<>();
+            jdbcTemplate.query(SELECT_BATCH, rs -> {
+                long id = rs.getLong("member_id");
+                Long teamId = rs.getObject("team_id", Long.class);
+                Timestamp createdDate = rs.getTimestamp("created_date");
+                Timestamp updatedDate = rs.getTimestamp("updated_date");
+                inserts.add(new Object[]{id, rs.getString("username"), rs.getInt("age"), teamId, createdDate, updatedDate,
+                        rs.getString("create_by"), rs.getString("last_modified_by"), now});
+                deletes.add(new Object[]{id});
+
+                Map<String, Object> state = new LinkedHashMap<>();
+                state.put("username", rs.getString("username"));
+                state.put("age", rs.getInt("age"));
+                state.put("team", teamId);
+                state.put("createdDate", createdDate == null ? null : createdDate.toLocalDateTime());
+                state.put("updatedDate", updatedDate == null ? null : updatedDate.toLocalDateTime());
+                ids.add(id);
+                states.add(state);
+            }, cutoff, properties.getBatchSize());
+            if (ids.isEmpty()) {
+                return null;
+            }
+            jdbcTemplate.batchUpdate(INSERT_ARCHIVE, inserts);
+            jdbcTemplate.batchUpdate(DELETE_MEMBER, deletes);
+            for (int i = 0; i < ids.size(); i++) {
+                changePublisher.publish(EntityChange.deleted(EntityChange.Origin.JDBC, Member.class, ids.get(i), states.get(i)));
+            }
+            return null;
+        });
+        evict(ids, states);
+        return ids.size();
+    }
+
+    private void evict(List<Long> ids, List<Map<String, Object>> states) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Cache cache = emf.getCache().unwrap(Cache.class);
+        for (Long id : ids) {
+            cache.evictEntityData(Member.class, id);
+        }
+        Set<Long> teamIds = new HashSet<>();
+        for (Map<String, Object> state : states) {
+            Long teamId = (Long) state.get("team");
+            if (teamId != null) {
+                teamIds.add(teamId);
+            }
+        }
+        for (Long teamId : teamIds) {
+            cache.evictCollectionData(Team.class.getName() + ".members", teamId);
+        }
+    }
+
+    private void archiveQuietly() {
+        try {
+            archive();
+        } catch (RuntimeException e) {
+            log.warn("member archive failed", e);
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        stopping = false;
+        if (!properties.isEnabled()) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "member-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::archiveQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        stopping = true;
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return executor != null;
+    }
+}
@@ -0,0 +1,50 @@
+package study.datajpa.archive;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Subselect;
+import org.hibernate.annotations.Synchronize;
+import study.datajpa.domain.Team;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import java.time.LocalDateTime;
+
+/**
+ * 보관된 회원까지 포함한 읽기 전용 회원 (member union all member_archive)
+ *
+ * Member 리포지토리는 member 테이블만 본다. 보관된 회원도 필요할 때만 MemberIncludingArchivedRepository 로 읽는다.
+ * 조건이 union 안으로 들어가지 않는 DB(H2)에서는 두 테이블을 모두 훑으므로 자주 쓰는 조회에는 쓰지 않는다.
+ * @Synchronize 때문에 member 를 바꾸는 JPQL 벌크 update 는 이 엔티티도 바꾼 것으로 보고 경고(HHH000487)한다.
+ * member 벌크 update 는 테이블을 지정한 네이티브 쿼리로 한다. (MemberRepository.bulkAgePlus)
+ */
+@Entity
+@Immutable
+@Subselect("select member_id, username, age, team_id, created_date, updated_date, false as archived from member" +
+        " union all" +
+        " select member_id, username, age, team_id, created_date, updated_date, true as archived from member_archive")
+@Synchronize({"member", "member_archive"})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class MemberIncludingArchived {
+    @Id
+    @Column(name = "member_id")
+    private Long id;
+    private String username;
+    private int age;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "team_id")
+    private Team team;
+
+    private LocalDateTime createdDate;
+    private LocalDateTime updatedDate;
+    /** member_archive 에 있는 회원 */
+    private boolean archived;
+}
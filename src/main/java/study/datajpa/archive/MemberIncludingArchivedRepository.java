@@ -0,0 +1,16 @@
+package study.datajpa.archive;
+
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.repository.Repository;
+
+import java.util.List;
+
+/**
+ * 읽기 전용 뷰라서 save/delete 없이 조회 메서드만 둔다.
+ */
+public interface MemberIncludingArchivedRepository extends Repository<MemberIncludingArchived, Long>,
+        JpaSpecificationExecutor<MemberIncludingArchived> {
+    List<MemberIncludingArchived> findByUsername(String username);
+
+    List<MemberIncludingArchived> findByTeamIdOrderByIdAsc(Long teamId);
+}
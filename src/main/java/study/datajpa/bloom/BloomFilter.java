@@ -0,0 +1,107 @@
+package study.datajpa.bloom;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 문자열 bloom filter
+ * mightContain 이 false 면 확실히 넣은 적 없는 값, true 면 넣었거나 오탐(false positive)
+ *
+ * 비트 수 m = -n ln p / (ln 2)^2, 해시 함수 수 k = m / n ln 2
+ * 해시 k 개는 64비트 해시 두 개로 만든다. (h1 + i * h2, Kirsch-Mitzenmacher)
+ * put/mightContain 은 여러 스레드에서 동시에 불러도 된다.
+ */
+public class BloomFilter {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final AtomicLongArray bits;
+    private final long bitSize;
+    private final int hashFunctions;
+    private final long expectedInsertions;
+
+    public BloomFilter(long expectedInsertions, double fpp) {
+        if (expectedInsertions <= 0 || fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("expectedInsertions > 0, 0 < fpp < 1");
+        }
+        long m = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, (m + 63) >>> 6);
+        this.bits = new AtomicLongArray(words);
+        this.bitSize = (long) words << 6;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+        this.expectedInsertions = expectedInsertions;
+    }
+
+    public void put(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L);
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = ((h1 + i * h2) & Long.MAX_VALUE) % bitSize;
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current;
+            while (((current = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                // 다른 비트가 동시에 켜졌으면 다시
+            }
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L);
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = ((h1 + i * h2) & Long.MAX_VALUE) % bitSize;
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 켜진 비트 비율로 본 현재 오탐 확률 (fill ratio ^ k)
+     */
+    public double expectedFpp() {
+        return Math.pow((double) bitCount() / bitSize, hashFunctions);
+    }
+
+    public long bitCount() {
+        long count = 0;
+        for (int i = 0; i < bits.length(); i++) {
+            count += Long.bitCount(bits.get(i));
+        }
+        return count;
+    }
+
+    public long bitSize() {
+        return bitSize;
+    }
+
+    public int hashFunctions() {
+        return hashFunctions;
+    }
+
+    public long expectedInsertions() {
+        return expectedInsertions;
+    }
+
+    /**
+     * char 단위 FNV-1a 후 murmur3 fmix64 로 섞는다.
+     */
+    private static long hash(String value) {
+        long h = FNV_OFFSET;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= FNV_PRIME;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
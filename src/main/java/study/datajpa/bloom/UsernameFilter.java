@@ -0,0 +1,254 @@
+package study.datajpa.bloom;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import study.datajpa.cluster.ClusterProperties;
+import study.datajpa.domain.Member;
+import study.datajpa.event.EntityChange;
+import study.datajpa.event.EntityChangeListener;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 존재하는 회원 username 의 bloom filter
+ * 없는 username 조회(@UsernameLookup)를 쿼리 없이 끝낸다. (UsernameFilterRepositoryInterceptor)
+ *
+ * - 기동시 member 테이블의 username 을 스트리밍으로 읽어서 만든다. 다 만들기 전에는 항상 DB 로 간다.
+ * - INSERT/UPDATE 변경(다른 노드 포함)의 username 을 바로 넣는다. 커밋 후에도 한 번 더 넣어서 다시 만드는 중에 빠지지 않게 한다.
+ * - 어떤 행이 바뀌었는지 모르는 벌크 변경(JDBC 적재, username 을 바꿀 수 있는 쿼리)이 있으면 다시 만들 때까지 DB 로 간다.
+ * - 삭제/이름 변경 전 값은 빼지 못하므로 rebuildInterval 마다, 또는 예상 오탐 확률이 커지면 다시 만든다.
+ *
+ * 여러 인스턴스에서 쓰면 다른 노드의 INSERT 를 알 수 있도록 datajpa.cluster.enabled 가 켜져 있어야 한다.
+ * (datajpa.username-filter.multi-instance=true 인데 꺼져 있으면 기동에 실패한다)
+ */
+@Slf4j
+@Component
+public class UsernameFilter implements SmartLifecycle, EntityChangeListener {
+    public enum Check {
+        /** 확실히 없다 */
+        ABSENT,
+        /** 있거나 오탐 */
+        MAYBE,
+        /** 필터를 쓸 수 없는 상태, DB 로 간다 */
+        BYPASS
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UsernameFilterProperties properties;
+    private final Object lock = new Object();
+    private final Object rebuildLock = new Object();
+
+    private volatile BloomFilter current;
+    /** 다시 만드는 중인 필터, 그동안의 변경도 같이 넣는다 (lock) */
+    private BloomFilter building;
+    /** 벌크 변경마다 증가, builtGeneration 과 다르면 필터를 쓰지 않는다 */
+    private final AtomicLong bulkGeneration = new AtomicLong();
+    private volatile long builtGeneration = -1;
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+
+    private final AtomicLong insertions = new AtomicLong();
+    private final LongAdder absent = new LongAdder();
+    private final LongAdder maybe = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder bypassed = new LongAdder();
+    private final AtomicLong rebuilds = new AtomicLong();
+    private volatile long lastRebuildNanos;
+    private volatile long lastRebuildMillis;
+    private volatile LocalDateTime lastRebuildAt;
+    private ScheduledExecutorService executor;
+
+    public UsernameFilter(JdbcTemplate jdbcTemplate, UsernameFilterProperties properties, ClusterProperties cluster) {
+        if (properties.isEnabled() && properties.isMultiInstance() && !cluster.isEnabled()) {
+            throw new IllegalStateException("datajpa.username-filter.multi-instance requires datajpa.cluster.enabled=true"
+                    + " to see members inserted by other instances");
+        }
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(1000);
+        this.properties = properties;
+    }
+
+    public Check check(String username) {
+        BloomFilter filter = current;
+        if (!properties.isEnabled() || filter == null || builtGeneration != bulkGeneration.get()) {
+            bypassed.increment();
+            return Check.BYPASS;
+        }
+        if (filter.mightContain(username)) {
+            maybe.increment();
+            return Check.MAYBE;
+        }
+        absent.increment();
+        return Check.ABSENT;
+    }
+
+    /**
+     * MAYBE 였는데 조회 결과가 없었다.
+     */
+    public void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    @Override
+    public void onChange(EntityChange change) {
+        apply(change);
+    }
+
+    @Override
+    public void afterCommit(EntityChange change) {
+        // 벌크: 커밋 전에 시작한 재생성은 바뀐 행을 못 봤을 수 있어서 한 번 더
+        apply(change);
+    }
+
+    private void apply(EntityChange change) {
+        if (!Member.class.isAssignableFrom(change.getEntityType())) {
+            return;
+        }
+        if (change.isBulk()) {
+            if (change.getAttribute() == null || "username".equals(change.getAttribute())) {
+                bulkGeneration.incrementAndGet();
+                requestRebuild();
+            }
+            return;
+        }
+        Object username = change.getState().get("username");
+        if (username != null) {
+            add(username.toString());
+        }
+    }
+
+    private void add(String username) {
+        synchronized (lock) {
+            if (current != null) {
+                current.put(username);
+            }
+            if (building != null) {
+                building.put(username);
+            }
+        }
+        insertions.incrementAndGet();
+    }
+
+    /**
+     * member 테이블을 다시 읽어서 새 필터로 바꾼다. 동시에 하나만 만든다.
+     */
+    public UsernameFilterStats rebuild() {
+        synchronized (rebuildLock) {
+            return doRebuild();
+        }
+    }
+
+    private UsernameFilterStats doRebuild() {
+        long generation = bulkGeneration.get();
+        long start = System.nanoTime();
+        Long count = jdbcTemplate.queryForObject("select count(*) from member", Long.class);
+        BloomFilter next = new BloomFilter(Math.max(properties.getExpectedInsertions(), count * 2), properties.getFpp());
+        synchronized (lock) {
+            building = next;
+            insertions.set(0);
+        }
+        long[] rows = {0};
+        try {
+            jdbcTemplate.query("select username from member where username is not null", (RowCallbackHandler) rs -> {
+                next.put(rs.getString(1));
+                rows[0]++;
+            });
+        } catch (RuntimeException e) {
+            synchronized (lock) {
+                building = null;
+            }
+            throw e;
+        }
+        synchronized (lock) {
+            current = next;
+            building = null;
+        }
+        insertions.addAndGet(rows[0]);
+        builtGeneration = generation;
+        rebuilds.incrementAndGet();
+        lastRebuildNanos = System.nanoTime();
+        lastRebuildMillis = TimeUnit.NANOSECONDS.toMillis(lastRebuildNanos - start);
+        lastRebuildAt = LocalDateTime.now();
+        log.info("username filter rebuilt rows={} bits={} k={} in {}ms",
+                rows[0], next.bitSize(), next.hashFunctions(), lastRebuildMillis);
+        return stats();
+    }
+
+    private void requestRebuild() {
+        ScheduledExecutorService executor = this.executor;
+        if (executor == null || !rebuildRequested.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            rebuildRequested.set(false);
+            rebuildQuietly();
+        });
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("username filter rebuild failed", e);
+        }
+    }
+
+    private void rebuildIfNeeded() {
+        BloomFilter filter = current;
+        long elapsed = System.nanoTime() - lastRebuildNanos;
+        if (filter == null || builtGeneration != bulkGeneration.get()
+                || elapsed >= properties.getRebuildInterval().toNanos()
+                || filter.expectedFpp() > properties.getFpp() * properties.getRebuildFppFactor()) {
+            rebuildQuietly();
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "username-filter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        requestRebuild();
+        long check = Math.max(1000, properties.getRebuildInterval().toMillis() / 10);
+        executor.scheduleWithFixedDelay(this::rebuildIfNeeded, check, check, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return executor != null;
+    }
+
+    public UsernameFilterStats stats() {
+        BloomFilter filter = current;
+        return new UsernameFilterStats(properties.isEnabled(),
+                filter != null && builtGeneration == bulkGeneration.get(),
+                filter == null ? 0 : filter.bitSize(),
+                filter == null ? 0 : filter.hashFunctions(),
+                filter == null ? 0 : filter.expectedInsertions(),
+                insertions.get(),
+                filter == null ? 0 : filter.expectedFpp(),
+                absent.sum(), maybe.sum(), falsePositives.sum(), bypassed.sum(),
+                rebuilds.get(), lastRebuildAt, lastRebuildMillis);
+    }
+}
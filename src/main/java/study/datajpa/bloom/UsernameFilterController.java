@@ -0,0 +1,25 @@
+package study.datajpa.bloom;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * username bloom filter 크기/오탐 통계, 수동 재생성
+ */
+@RestController
+@RequiredArgsConstructor
+public class UsernameFilterController {
+    private final UsernameFilter usernameFilter;
+
+    @GetMapping("/members/username-filter")
+    public UsernameFilterStats stats(){
+        return usernameFilter.stats();
+    }
+
+    @PostMapping("/members/username-filter/rebuild")
+    public UsernameFilterStats rebuild(){
+        return usernameFilter.rebuild();
+    }
+}
@@ -0,0 +1,33 @@
+package study.datajpa.bloom;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * datajpa.username-filter.*
+ */
+@ConfigurationProperties(prefix = "datajpa.username-filter")
+@Getter @Setter
+public class UsernameFilterProperties {
+    /**
+     * 기본은 꺼져 있다. 필터는 이 JVM 을 거친 쓰기(리포지토리, write-behind, 벌크 적재, 보관, 청크 삭제)만 안다.
+     * 다른 노드나 외부에서 member 에 쓰면 있는 회원을 없다고 답한다. (multiInstance, datajpa.cluster.enabled)
+     */
+    private boolean enabled = false;
+    /** 목표 오탐 확률 */
+    private double fpp = 0.01;
+    /** 최소 크기, 실제로는 max(이 값, 회원 수 * 2) 로 만든다 */
+    private long expectedInsertions = 100_000;
+    /** 이름 변경/삭제로 남은 값과 늘어난 회원 수를 정리하려고 주기적으로 다시 만든다 */
+    private Duration rebuildInterval = Duration.ofHours(1);
+    /** 예상 오탐 확률이 fpp 의 이 배수를 넘으면 주기를 기다리지 않고 다시 만든다 */
+    private double rebuildFppFactor = 4;
+    /**
+     * 같은 DB 를 여러 인스턴스가 쓴다. 다른 노드의 INSERT 를 entity_change_log 로 받아야 하므로
+     * datajpa.cluster.enabled 가 꺼져 있으면 기동에 실패한다. (모르는 회원을 없다고 답하게 된다)
+     */
+    private boolean multiInstance = false;
+}
@@ -0,0 +1,96 @@
+package study.datajpa.bloom;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ReflectionUtils;
+import study.datajpa.repository.support.RepositoryInterceptorFactory;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * @UsernameLookup 메서드: UsernameFilter 가 없는 username 이라고 하면 쿼리 없이 빈 결과를 돌려준다.
+ *
+ * 리포지토리 트랜잭션 바깥에서 실행해서 없는 username 은 커넥션도 쓰지 않는다.
+ * 쓰기 트랜잭션 안에서는 아직 flush 안 된 회원이 있을 수 있어서 필터를 쓰지 않는다.
+ */
+@Component
+public class UsernameFilterRepositoryInterceptor implements RepositoryInterceptorFactory {
+    private final UsernameFilter usernameFilter;
+
+    public UsernameFilterRepositoryInterceptor(UsernameFilter usernameFilter) {
+        this.usernameFilter = usernameFilter;
+    }
+
+    @Override
+    public boolean beforeTransaction() {
+        return true;
+    }
+
+    @Override
+    public MethodInterceptor forRepository(RepositoryInformation repository) {
+        Map<Method, Integer> args = new HashMap<>();
+        Map<Method, Supplier<Object>> emptyResults = new HashMap<>();
+        for (Method method : ReflectionUtils.getAllDeclaredMethods(repository.getRepositoryInterface())) {
+            UsernameLookup lookup = AnnotatedElementUtils.findMergedAnnotation(method, UsernameLookup.class);
+            if (lookup == null) {
+                continue;
+            }
+            args.put(method, lookup.arg());
+            emptyResults.put(method, emptyResult(method, repository.getDomainType()));
+        }
+        if (args.isEmpty()) {
+            return null;
+        }
+        return invocation -> {
+            Method method = invocation.getMethod();
+            Integer arg = args.get(method);
+            if (arg == null || inWriteTransaction() || !(invocation.getArguments()[arg] instanceof String)) {
+                return invocation.proceed();
+            }
+            UsernameFilter.Check check = usernameFilter.check((String) invocation.getArguments()[arg]);
+            if (check == UsernameFilter.Check.ABSENT) {
+                return emptyResults.get(method).get();
+            }
+            Object result = invocation.proceed();
+            if (check == UsernameFilter.Check.MAYBE && isEmpty(result)) {
+                usernameFilter.recordFalsePositive();
+            }
+            return result;
+        };
+    }
+
+    private static Supplier<Object> emptyResult(Method method, Class<?> domainType) {
+        Class<?> returnType = method.getReturnType();
+        if (returnType.isAssignableFrom(ArrayList.class)) {
+            return ArrayList::new;
+        }
+        if (returnType == Optional.class) {
+            return Optional::empty;
+        }
+        if (returnType.isAssignableFrom(domainType)) {
+            return () -> null;
+        }
+        throw new IllegalStateException("@UsernameLookup 은 List, Optional, 엔티티 반환 메서드에만 쓸 수 있습니다: " + method);
+    }
+
+    private static boolean isEmpty(Object result) {
+        return result == null
+                || result instanceof Collection && ((Collection<?>) result).isEmpty()
+                || result instanceof Optional && !((Optional<?>) result).isPresent();
+    }
+
+    private static boolean inWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+}
@@ -0,0 +1,53 @@
+package study.datajpa.bloom;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+public class UsernameFilterStats {
+    private final boolean enabled;
+    /** false 면 (기동 중, 벌크 변경 후 재생성 전) 모든 조회가 DB 로 간다 */
+    private final boolean ready;
+    private final long bitSize;
+    private final long bytes;
+    private final int hashFunctions;
+    private final long expectedInsertions;
+    /** 마지막 재생성 때 읽은 수 + 그 뒤에 넣은 수 */
+    private final long insertions;
+    /** 켜진 비트 비율로 계산한 오탐 확률 */
+    private final double expectedFpp;
+    /** 쿼리 없이 끝낸 조회 */
+    private final long absent;
+    /** 필터를 통과해서 DB 로 간 조회 */
+    private final long maybe;
+    /** 통과했지만 결과가 없었던 조회 */
+    private final long falsePositives;
+    /** 없는 username 조회 중 필터를 통과한 비율 */
+    private final double observedFpp;
+    private final long bypassed;
+    private final long rebuilds;
+    private final LocalDateTime lastRebuildAt;
+    private final long lastRebuildMillis;
+
+    public UsernameFilterStats(boolean enabled, boolean ready, long bitSize, int hashFunctions, long expectedInsertions,
+                               long insertions, double expectedFpp, long absent, long maybe, long falsePositives,
+                               long bypassed, long rebuilds, LocalDateTime lastRebuildAt, long lastRebuildMillis) {
+        this.enabled = enabled;
+        this.ready = ready;
+        this.bitSize = bitSize;
+        this.bytes = bitSize / 8;
+        this.hashFunctions = hashFunctions;
+        this.expectedInsertions = expectedInsertions;
+        this.insertions = insertions;
+        this.expectedFpp = expectedFpp;
+        this.absent = absent;
+        this.maybe = maybe;
+        this.falsePositives = falsePositives;
+        this.observedFpp = absent + falsePositives == 0 ? 0 : (double) falsePositives / (absent + falsePositives);
+        this.bypassed = bypassed;
+        this.rebuilds = rebuilds;
+        this.lastRebuildAt = lastRebuildAt;
+        this.lastRebuildMillis = lastRebuildMillis;
+    }
+}
@@ -0,0 +1,16 @@
+package study.datajpa.bloom;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * username 이 arg 번째 파라미터와 같은 회원만 찾는 메서드
+ * UsernameFilter 가 없는 username 이라고 확실히 말하면 쿼리 없이 빈 결과(List, Optional, null)를 돌려준다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface UsernameLookup {
+    int arg() default 0;
+}
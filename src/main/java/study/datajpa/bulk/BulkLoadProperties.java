@@ -0,0 +1,14 @@
+package study.datajpa.bulk;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "datajpa.bulk")
+@Getter @Setter
+public class BulkLoadProperties {
+    /** 한 트랜잭션, 한 JDBC 배치에 넣을 행 수 */
+    private int chunkSize = 1000;
+    /** 동시에 적재하는 청크 수 */
+    private int parallelism = 4;
+}
@@ -0,0 +1,20 @@
+package study.datajpa.bulk;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class BulkLoadResult {
+    private final long rows;
+    private final long teamsCreated;
+    private final long elapsedMillis;
+    private final long rowsPerSecond;
+
+    public BulkLoadResult(long rows, long teamsCreated, long elapsedMillis) {
+        this.rows = rows;
+        this.teamsCreated = teamsCreated;
+        this.elapsedMillis = elapsedMillis;
+        this.rowsPerSecond = elapsedMillis == 0 ? rows * 1000 : rows * 1000 / elapsedMillis;
+    }
+}
@@ -0,0 +1,25 @@
+package study.datajpa.bulk;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * datajpa.dataset.*
+ */
+@ConfigurationProperties(prefix = "datajpa.dataset")
+@Getter @Setter
+public class DatasetProperties {
+    /** 기동시 member 테이블이 비어 있으면 생성한 회원을 적재한다 (DatasetSeeder) */
+    private boolean enabled = false;
+    private long members = 1_000_000;
+    private int teams = 1_000;
+    /** 팀 크기 Zipf 지수, 0 이면 균등, 클수록 앞 순위 팀에 몰린다 */
+    private double teamSkew = 1.0;
+    /** 팀이 없는 회원 비율 */
+    private double noTeamRatio = 0.05;
+    /** 같은 seed 면 같은 데이터 */
+    private long seed = 42;
+    /** POST /members/generate 한 번에 만들 수 있는 회원 수 */
+    private long maxGenerateMembers = 10_000_000;
+}
@@ -0,0 +1,34 @@
+package study.datajpa.bulk;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 로컬에서 운영 규모 데이터로 확인할 때: --datajpa.dataset.enabled=true --datajpa.dataset.members=3000000
+ * member 테이블이 비어 있을 때만 적재한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "datajpa.dataset", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class DatasetSeeder implements ApplicationRunner {
+    private final MemberBulkLoader memberBulkLoader;
+    private final JdbcTemplate jdbcTemplate;
+    private final DatasetProperties properties;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Boolean empty = jdbcTemplate.queryForObject("select count(*) = 0 from (select 1 from member limit 1) x", Boolean.class);
+        if (!Boolean.TRUE.equals(empty)) {
+            log.info("dataset skipped, member table is not empty");
+            return;
+        }
+        BulkLoadResult result = memberBulkLoader.load(MemberDatasetGenerator.of(properties));
+        log.info("dataset loaded {}", result);
+    }
+}
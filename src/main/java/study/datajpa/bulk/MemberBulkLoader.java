@@ -0,0 +1,217 @@
+package study.datajpa.bulk;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.domain.Member;
+import study.datajpa.domain.Team;
+import study.datajpa.event.EntityChange;
+import study.datajpa.event.EntityChangePublisher;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 회원 벌크 적재
+ *
+ * MemberRepository.save 는 엔티티마다 영속성 컨텍스트 관리, AuditingEntityListener, flush 비용이 든다.
+ * 여기서는 영속성 컨텍스트를 거치지 않고 청크 단위 JDBC 배치 insert 를 여러 스레드에서 병렬로 실행한다.
+ * - 팀 이름은 메모리 Map 으로 team_id 로 바꾸고, 없는 팀은 읽는 쪽(단일 스레드)에서 먼저 만든다.
+ * - 식별자는 청크마다 hibernate_sequence 에서 한 번에 받아온다.
+ * - BaseEntity 감사 컬럼(created_date, updated_date, create_by, last_modified_by)은 직접 채운다.
+ *   작성자는 적재 한 건당 AuditorAware 를 한 번 호출한 값을 쓴다.
+ * - 대기중인 청크 수를 제한해서 입력 크기와 상관없이 메모리 사용량이 일정하다.
+ * - Hibernate 를 거치지 않았으므로 끝나면 2차 캐시의 Team.members 컬렉션 리전을 비우고 Member/Team BULK 변경을 발행한다.
+ * - 잘못된 입력 행(IllegalArgumentException)을 만나면 이미 넘긴 청크가 끝나기를 기다렸다가
+ *   커밋한 행 수를 붙여서 IllegalArgumentException 으로 다시 던진다. 커밋한 청크는 되돌리지 않는다.
+ */
+@Slf4j
+@Component
+public class MemberBulkLoader {
+    private static final String INSERT_MEMBER = "insert into member" +
+            " (member_id, username, age, team_id, created_date, updated_date, create_by, last_modified_by)" +
+            " values (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_TEAM = "insert into team (team_id, name) values (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceIdAllocator idAllocator;
+    private final TransactionTemplate transactionTemplate;
+    private final AuditorAware<String> auditorAware;
+    private final BulkLoadProperties properties;
+    private final EntityManagerFactory emf;
+    private final EntityChangePublisher changePublisher;
+
+    public MemberBulkLoader(JdbcTemplate jdbcTemplate, SequenceIdAllocator idAllocator,
+                            PlatformTransactionManager transactionManager, AuditorAware<String> auditorAware,
+                            BulkLoadProperties properties, EntityManagerFactory emf,
+                            EntityChangePublisher changePublisher) {
+        if (properties.getChunkSize() <= 0 || properties.getParallelism() <= 0) {
+            throw new IllegalArgumentException("datajpa.bulk.chunk-size and parallelism must be positive: "
+                    + properties.getChunkSize() + ", " + properties.getParallelism());
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocator = idAllocator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.auditorAware = auditorAware;
+        this.properties = properties;
+        this.emf = emf;
+        this.changePublisher = changePublisher;
+    }
+
+    public BulkLoadResult loadCsv(Reader csv) throws IOException {
+        try (MemberCsvReader reader = new MemberCsvReader(csv)) {
+            return load(reader);
+        }
+    }
+
+    public BulkLoadResult load(Iterator<MemberRow> rows) {
+        long start = System.nanoTime();
+        int chunkSize = properties.getChunkSize();
+        int parallelism = properties.getParallelism();
+        String auditor = auditorAware.getCurrentAuditor().orElse(null);
+        Map<String, Long> teamIds = loadTeamIds();
+        int existingTeams = teamIds.size();
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        Semaphore inFlight = new Semaphore(parallelism * 2);
+        List<Future<Integer>> futures = new ArrayList<>();
+        long total = 0;
+        long committed = 0;
+        try {
+            List<Object[]> chunk = new ArrayList<>(chunkSize);
+            while (rows.hasNext()) {
+                MemberRow row;
+                try {
+                    row = rows.next();
+                } catch (IllegalArgumentException e) {
+                    committed += awaitCommitted(futures);
+                    throw new IllegalArgumentException(e.getMessage() + " (" + committed + " rows committed before it)", e);
+                }
+                chunk.add(new Object[]{row.getUsername(), row.getAge(), resolveTeam(teamIds, row.getTeamName())});
+                if (chunk.size() == chunkSize) {
+                    futures.add(submit(executor, inFlight, chunk, auditor));
+                    total += chunk.size();
+                    chunk = new ArrayList<>(chunkSize);
+                    committed += completeDone(futures);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                futures.add(submit(executor, inFlight, chunk, auditor));
+                total += chunk.size();
+            }
+            for (Future<Integer> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("bulk load interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("bulk load failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+            emf.getCache().unwrap(org.hibernate.Cache.class).evictCollectionData(Team.class.getName() + ".members");
+            changePublisher.publish(EntityChange.bulk(EntityChange.Origin.JDBC, Member.class));
+            if (teamIds.size() > existingTeams) {
+                changePublisher.publish(EntityChange.bulk(EntityChange.Origin.JDBC, Team.class));
+            }
+        }
+
+        BulkLoadResult result = new BulkLoadResult(total, teamIds.size() - existingTeams, (System.nanoTime() - start) / 1_000_000);
+        log.info("bulk load {}", result);
+        return result;
+    }
+
+    private Future<Integer> submit(ExecutorService executor, Semaphore inFlight, List<Object[]> chunk, String auditor)
+            throws InterruptedException {
+        inFlight.acquire();
+        return executor.submit(() -> {
+            try {
+                return insertChunk(chunk, auditor);
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    /**
+     * @return 끝난 청크의 행 수
+     */
+    private static long completeDone(List<Future<Integer>> futures) throws InterruptedException, ExecutionException {
+        long rows = 0;
+        Iterator<Future<Integer>> it = futures.iterator();
+        while (it.hasNext()) {
+            Future<Integer> future = it.next();
+            if (future.isDone()) {
+                rows += future.get();
+                it.remove();
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * 넘긴 청크를 모두 기다린다. 실패한 청크는 커밋되지 않았으므로 세지 않는다.
+     */
+    private static long awaitCommitted(List<Future<Integer>> futures) throws InterruptedException {
+        long rows = 0;
+        for (Future<Integer> future : futures) {
+            try {
+                rows += future.get();
+            } catch (ExecutionException e) {
+                log.warn("bulk load chunk failed", e.getCause());
+            }
+        }
+        futures.clear();
+        return rows;
+    }
+
+    private int insertChunk(List<Object[]> chunk, String auditor) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return transactionTemplate.execute(status -> {
+            long[] ids = idAllocator.allocate(chunk.size());
+            List<Object[]> args = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                Object[] row = chunk.get(i);
+                args.add(new Object[]{ids[i], row[0], row[1], row[2], now, now, auditor, auditor});
+            }
+            jdbcTemplate.batchUpdate(INSERT_MEMBER, args);
+            return chunk.size();
+        });
+    }
+
+    private Long resolveTeam(Map<String, Long> teamIds, String teamName) {
+        if (teamName == null) {
+            return null;
+        }
+        return teamIds.computeIfAbsent(teamName, name -> transactionTemplate.execute(status -> {
+            long id = idAllocator.next();
+            jdbcTemplate.update(INSERT_TEAM, id, name);
+            return id;
+        }));
+    }
+
+    private Map<String, Long> loadTeamIds() {
+        Map<String, Long> teamIds = new HashMap<>();
+        jdbcTemplate.query("select team_id, name from team",
+                rs -> { teamIds.putIfAbsent(rs.getString("name"), rs.getLong("team_id")); });
+        return teamIds;
+    }
+}
@@ -0,0 +1,107 @@
+package study.datajpa.bulk;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * username,age,team CSV 를 한 줄씩 읽는다. 파일 전체를 메모리에 올리지 않는다.
+ * 첫 줄이 username 으로 시작하면 헤더로 보고 건너뛴다. 큰따옴표로 감싼 필드("a,b", "say ""hi""")를 지원한다.
+ */
+public class MemberCsvReader implements Iterator<MemberRow>, Closeable {
+    private final BufferedReader reader;
+    private MemberRow next;
+    private long lineNumber;
+
+    public MemberCsvReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader, 64 * 1024);
+        this.next = readRow(true);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    @Override
+    public MemberRow next() {
+        if (next == null) {
+            throw new NoSuchElementException();
+        }
+        MemberRow row = next;
+        next = readRow(false);
+        return row;
+    }
+
+    private MemberRow readRow(boolean first) {
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                List<String> fields = split(line);
+                if (first && "username".equalsIgnoreCase(fields.get(0).trim())) {
+                    first = false;
+                    continue;
+                }
+                return toRow(fields);
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private MemberRow toRow(List<String> fields) {
+        if (fields.size() < 2) {
+            throw new IllegalArgumentException("line " + lineNumber + ": expected username,age[,team] but was " + fields);
+        }
+        String teamName = fields.size() > 2 && !fields.get(2).isEmpty() ? fields.get(2) : null;
+        try {
+            return new MemberRow(fields.get(0), Integer.parseInt(fields.get(1).trim()), teamName);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("line " + lineNumber + ": invalid age '" + fields.get(1) + "'", e);
+        }
+    }
+
+    private static List<String> split(String line) {
+        List<String> fields = new ArrayList<>(3);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,145 @@
+package study.datajpa.bulk;
+
+import java.time.Year;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * 벌크 적재(MemberBulkLoader)용 가상 회원 데이터
+ *
+ * - 팀: team-0001 ~ team-N, 순위 k 팀에 1/k^teamSkew 비율로 배정 (Zipf), noTeamRatio 만큼은 팀 없음
+ * - 나이: 평균 34, 표준편차 12 정규분포를 14 ~ 90 으로 자른다.
+ * - username: 성(빈도 가중치) + 이름 두 음절 + 구분자/출생연도/숫자 (kimminsu, lee.jiwoo91, park_seoyeon7)
+ *   실제처럼 같은 username 이 생길 수 있다.
+ * 행을 하나씩 만들어서 회원 수와 상관없이 메모리를 쓰지 않는다. (팀 누적 확률 배열만)
+ */
+public class MemberDatasetGenerator implements Iterator<MemberRow> {
+    private static final String[] SURNAMES = {"kim", "lee", "park", "choi", "jung", "kang", "cho", "yoon", "jang", "lim",
+            "han", "oh", "seo", "shin", "kwon", "hwang", "ahn", "song", "jeon", "hong"};
+    private static final double[] SURNAME_WEIGHTS = {21.5, 14.7, 8.4, 4.7, 4.3, 2.3, 2.1, 2.1, 2.0, 1.7,
+            1.5, 1.5, 1.5, 1.5, 1.4, 1.4, 1.3, 1.3, 1.1, 1.1};
+    private static final String[] SYLLABLES = {"min", "ji", "seo", "hyun", "jun", "woo", "yeon", "su", "eun", "ha",
+            "jin", "young", "ho", "won", "hee", "sung", "yun", "jae", "hye", "do", "ye", "bin", "na", "kyung",
+            "tae", "dong", "mi", "sang", "a", "in"};
+    private static final int MIN_AGE = 14;
+    private static final int MAX_AGE = 90;
+    /** 팀 누적 확률 배열 크기 */
+    static final int MAX_TEAMS = 1_000_000;
+
+    private final long members;
+    private final int teams;
+    private final double noTeamRatio;
+    private final double[] teamCdf;
+    private final double[] surnameCdf;
+    private final Random random;
+    private final int thisYear = Year.now().getValue();
+    private long generated;
+
+    public MemberDatasetGenerator(long members, int teams, double teamSkew, double noTeamRatio, long seed) {
+        if (members < 0) {
+            throw new IllegalArgumentException("members must not be negative: " + members);
+        }
+        if (teams < 0 || teams > MAX_TEAMS) {
+            throw new IllegalArgumentException("teams must be between 0 and " + MAX_TEAMS + ": " + teams);
+        }
+        if (!(teamSkew >= 0) || Double.isInfinite(teamSkew)) {
+            throw new IllegalArgumentException("teamSkew must be a finite number >= 0: " + teamSkew);
+        }
+        if (!(noTeamRatio >= 0 && noTeamRatio <= 1)) {
+            throw new IllegalArgumentException("noTeamRatio must be between 0 and 1: " + noTeamRatio);
+        }
+        this.members = members;
+        this.teams = teams;
+        this.noTeamRatio = teams == 0 ? 1 : noTeamRatio;
+        this.teamCdf = cdf(zipf(teams, teamSkew));
+        this.surnameCdf = cdf(SURNAME_WEIGHTS);
+        this.random = new Random(seed);
+    }
+
+    public static MemberDatasetGenerator of(DatasetProperties properties) {
+        return new MemberDatasetGenerator(properties.getMembers(), properties.getTeams(), properties.getTeamSkew(),
+                properties.getNoTeamRatio(), properties.getSeed());
+    }
+
+    /**
+     * 순위(1부터)의 팀 이름
+     */
+    public static String teamName(int rank) {
+        return String.format("team-%04d", rank);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return generated < members;
+    }
+
+    @Override
+    public MemberRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        generated++;
+        int age = age();
+        return new MemberRow(username(age), age, team());
+    }
+
+    private int age() {
+        long age = Math.round(34 + random.nextGaussian() * 12);
+        return (int) Math.max(MIN_AGE, Math.min(MAX_AGE, age));
+    }
+
+    private String team() {
+        if (random.nextDouble() < noTeamRatio) {
+            return null;
+        }
+        return teamName(sample(teamCdf) + 1);
+    }
+
+    private String username(int age) {
+        StringBuilder username = new StringBuilder(20);
+        username.append(SURNAMES[sample(surnameCdf)]);
+        double separator = random.nextDouble();
+        if (separator < 0.15) {
+            username.append('.');
+        } else if (separator < 0.25) {
+            username.append('_');
+        }
+        username.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        username.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        double suffix = random.nextDouble();
+        if (suffix < 0.3) {
+            username.append(String.format("%02d", (thisYear - age) % 100));
+        } else if (suffix < 0.5) {
+            username.append(random.nextInt(1000));
+        }
+        return username.toString();
+    }
+
+    private int sample(double[] cdf) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        return Math.min(cdf.length - 1, index >= 0 ? index : -index - 1);
+    }
+
+    private static double[] zipf(int n, double exponent) {
+        double[] weights = new double[n];
+        for (int k = 0; k < n; k++) {
+            weights[k] = 1 / Math.pow(k + 1, exponent);
+        }
+        return weights;
+    }
+
+    private static double[] cdf(double[] weights) {
+        double[] cdf = new double[weights.length];
+        double sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i];
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < cdf.length; i++) {
+            cdf[i] /= sum;
+        }
+        return cdf;
+    }
+}
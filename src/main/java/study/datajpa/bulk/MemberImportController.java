@@ -0,0 +1,61 @@
+package study.datajpa.bulk;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * curl -X POST -H 'Content-Type: text/csv' --data-binary @members.csv localhost:8080/members/import
+ * 요청 본문을 스트리밍으로 읽으므로 파일 크기와 상관없이 메모리에 올리지 않는다.
+ * 잘못된 행은 400 (줄 번호, 그 전까지 커밋한 행 수), 커밋한 청크는 남는다.
+ *
+ * curl -X POST 'localhost:8080/members/generate?members=1000000&teams=1000&teamSkew=1.2'
+ * 가상 회원 데이터(MemberDatasetGenerator)를 같은 경로로 적재한다. 지정하지 않은 값은 datajpa.dataset.*
+ * 범위를 벗어난 값(members 1 ~ maxGenerateMembers, teams 0 ~ 1000000, teamSkew 0 이상)은 400
+ */
+@RestController
+@RequiredArgsConstructor
+public class MemberImportController {
+    private final MemberBulkLoader memberBulkLoader;
+    private final DatasetProperties datasetProperties;
+
+    @PostMapping(value = "/members/import", consumes = "text/csv")
+    public BulkLoadResult importCsv(HttpServletRequest request) throws IOException {
+        try {
+            return memberBulkLoader.loadCsv(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    @PostMapping("/members/generate")
+    public BulkLoadResult generate(@RequestParam(required = false) Long members,
+                                   @RequestParam(required = false) Integer teams,
+                                   @RequestParam(required = false) Double teamSkew,
+                                   @RequestParam(required = false) Long seed) {
+        long count = members == null ? datasetProperties.getMembers() : members;
+        if (count < 1 || count > datasetProperties.getMaxGenerateMembers()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "members must be between 1 and " + datasetProperties.getMaxGenerateMembers() + ": " + count);
+        }
+        MemberDatasetGenerator generator;
+        try {
+            generator = new MemberDatasetGenerator(count,
+                    teams == null ? datasetProperties.getTeams() : teams,
+                    teamSkew == null ? datasetProperties.getTeamSkew() : teamSkew,
+                    datasetProperties.getNoTeamRatio(),
+                    seed == null ? datasetProperties.getSeed() : seed);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        return memberBulkLoader.load(generator);
+    }
+}
@@ -0,0 +1,21 @@
+package study.datajpa.bulk;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 벌크 적재용 회원 한 줄 (username,age,teamName)
+ */
+@Getter
+@ToString
+public class MemberRow {
+    private final String username;
+    private final int age;
+    private final String teamName;
+
+    public MemberRow(String username, int age, String teamName) {
+        this.username = username;
+        this.age = age;
+        this.teamName = teamName;
+    }
+}
@@ -0,0 +1,34 @@
+package study.datajpa.bulk;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * @GeneratedValue 가 쓰는 hibernate_sequence 에서 식별자를 한 번에 여러 개 받아온다.
+ * 시퀀스 increment 가 1 이므로 Hibernate 가 발급하는 값과 겹치지 않는다. (H2 system_range 사용)
+ */
+@Component
+public class SequenceIdAllocator {
+    private static final String NEXT_VALUES = "select next value for hibernate_sequence from system_range(1, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SequenceIdAllocator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long next() {
+        return allocate(1)[0];
+    }
+
+    public long[] allocate(int count) {
+        List<Long> values = jdbcTemplate.queryForList(NEXT_VALUES, Long.class, count);
+        long[] ids = new long[values.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = values.get(i);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,23 @@
+package study.datajpa.cache;
+
+import lombok.Getter;
+
+@Getter
+public class CacheRegionStats {
+    private final String region;
+    private final long hits;
+    private final long misses;
+    private final long puts;
+    /** 크기/만료 정책으로 밀려난 수 (JCache 통계) */
+    private final long evictions;
+    private final double hitRatio;
+
+    public CacheRegionStats(String region, long hits, long misses, long puts, long evictions) {
+        this.region = region;
+        this.hits = hits;
+        this.misses = misses;
+        this.puts = puts;
+        this.evictions = evictions;
+        this.hitRatio = hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+}
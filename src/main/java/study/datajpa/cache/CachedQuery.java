@@ -0,0 +1,26 @@
+package study.datajpa.cache;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 리포지토리 쿼리 메서드 결과를 QueryResultCache 에 보관한다.
+ *
+ * entities: 결과가 의존하는 엔티티 (기본은 리포지토리 도메인 타입), 이 엔티티가 바뀌면 무효화
+ * keyAttribute / keyArg: 도메인 엔티티의 attribute = keyArg 번째 파라미터 조건으로만 조회하는 경우
+ * > 해당 값의 행이 바뀔 때만 무효화한다. (findByAge(20) 은 age 20 인 회원이 바뀔 때만)
+ *
+ * 엔티티 결과(단건, List, Page)는 id 만 보관하고 꺼낼 때 현재 영속성 컨텍스트/2차 캐시에서 다시 찾는다.
+ * DTO 결과는 요청끼리 같은 인스턴스를 보므로 변경할 수 없는 DTO 를 쓴다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CachedQuery {
+    Class<?>[] entities() default {};
+
+    String keyAttribute() default "";
+
+    int keyArg() default 0;
+}
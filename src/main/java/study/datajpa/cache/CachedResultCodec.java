@@ -0,0 +1,169 @@
+package study.datajpa.cache;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.metamodel.EntityType;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * QueryResultCache 에 넣는 값의 형태
+ *
+ * 엔티티 결과(단건, List, Page)는 id 만 보관하고, 꺼낼 때 현재 영속성 컨텍스트(OSIV/트랜잭션)와 2차 캐시에서 다시 찾는다.
+ * 준영속 엔티티를 요청끼리 같이 보면 지연 로딩이 실패하고(LazyInitializationException), 한 요청의 변경이 다른 요청에 보인다.
+ * 그 밖의 값(스칼라, DTO)은 그대로 두고 List 는 변경할 수 없게 감싼다.
+ */
+@Component
+class CachedResultCodec {
+    /** 사이에 지워진 엔티티가 있어서 다시 조회해야 한다 */
+    static final Object MISSING = new Object();
+
+    private final EntityManagerFactory emf;
+    private final PersistenceUnitUtil persistenceUnitUtil;
+    private final Set<Class<?>> entityTypes = new HashSet<>();
+
+    CachedResultCodec(EntityManagerFactory emf) {
+        this.emf = emf;
+        this.persistenceUnitUtil = emf.getPersistenceUnitUtil();
+        for (EntityType<?> entity : emf.getMetamodel().getEntities()) {
+            entityTypes.add(entity.getJavaType());
+        }
+    }
+
+    Object encode(Object result) {
+        if (result instanceof Page) {
+            Page<?> page = (Page<?>) result;
+            EntityIds ids = ids(page.getContent());
+            return ids == null ? page : new EntityPage(ids, page.getPageable(), page.getTotalElements());
+        }
+        if (result instanceof List) {
+            List<?> list = (List<?>) result;
+            EntityIds ids = ids(list);
+            return ids == null ? Collections.unmodifiableList(new ArrayList<>(list)) : ids;
+        }
+        if (result != null && isEntity(result)) {
+            return new EntityRef(ids(Collections.singletonList(result)));
+        }
+        return result;
+    }
+
+    Object decode(Object stored) {
+        if (stored instanceof EntityPage) {
+            EntityPage page = (EntityPage) stored;
+            List<Object> content = load(page.content);
+            return content == null ? MISSING : new PageImpl<>(content, page.pageable, page.total);
+        }
+        if (stored instanceof EntityIds) {
+            List<Object> entities = load((EntityIds) stored);
+            return entities == null ? MISSING : entities;
+        }
+        if (stored instanceof EntityRef) {
+            List<Object> entities = load(((EntityRef) stored).ids);
+            return entities == null ? MISSING : entities.get(0);
+        }
+        return stored;
+    }
+
+    private boolean isEntity(Object value) {
+        return entityTypes.contains(Hibernate.getClass(value));
+    }
+
+    /**
+     * @return 엔티티가 아닌 값이 섞여 있거나 비어 있으면 null
+     */
+    private EntityIds ids(List<?> values) {
+        if (values.isEmpty()) {
+            return null;
+        }
+        List<Class<?>> types = new ArrayList<>(values.size());
+        List<Serializable> ids = new ArrayList<>(values.size());
+        for (Object value : values) {
+            if (value == null || !isEntity(value)) {
+                return null;
+            }
+            types.add(Hibernate.getClass(value));
+            ids.add((Serializable) persistenceUnitUtil.getIdentifier(value));
+        }
+        return new EntityIds(types, ids);
+    }
+
+    /**
+     * 진행중인 영속성 컨텍스트(OSIV, 트랜잭션)가 있으면 거기서, 없으면 새 EntityManager 로 읽고 닫는다. (준영속)
+     * 리포지토리의 읽기 전용 트랜잭션처럼 스냅샷 없이 읽기 전용으로 로딩한다.
+     *
+     * @return 없어진 엔티티가 있으면 null
+     */
+    private List<Object> load(EntityIds ids) {
+        EntityManager bound = EntityManagerFactoryUtils.getTransactionalEntityManager(emf);
+        EntityManager em = bound != null ? bound : emf.createEntityManager();
+        Session session = em.unwrap(Session.class);
+        boolean readOnly = session.isDefaultReadOnly();
+        session.setDefaultReadOnly(true);
+        try {
+            List<Object> entities = new ArrayList<>(ids.ids.size());
+            int from = 0;
+            while (from < ids.ids.size()) {
+                Class<?> type = ids.types.get(from);
+                int to = from;
+                while (to < ids.ids.size() && ids.types.get(to) == type) {
+                    to++;
+                }
+                entities.addAll(session.byMultipleIds(type)
+                        .with(CacheMode.NORMAL)
+                        .enableSessionCheck(true)
+                        .multiLoad(ids.ids.subList(from, to)));
+                from = to;
+            }
+            return entities.contains(null) ? null : entities;
+        } finally {
+            session.setDefaultReadOnly(readOnly);
+            if (bound == null) {
+                em.close();
+            }
+        }
+    }
+
+    private static final class EntityIds {
+        private final List<Class<?>> types;
+        private final List<Serializable> ids;
+
+        EntityIds(List<Class<?>> types, List<Serializable> ids) {
+            this.types = types;
+            this.ids = ids;
+        }
+    }
+
+    private static final class EntityRef {
+        private final EntityIds ids;
+
+        EntityRef(EntityIds ids) {
+            this.ids = ids;
+        }
+    }
+
+    private static final class EntityPage {
+        private final EntityIds content;
+        private final Pageable pageable;
+        private final long total;
+
+        EntityPage(EntityIds content, Pageable pageable, long total) {
+            this.content = content;
+            this.pageable = pageable;
+            this.total = total;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package study.datajpa.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 쿼리 결과 캐시 메서드별 hit/miss/put/무효화/밀려남
+ */
+@RestController
+@RequiredArgsConstructor
+public class QueryCacheController {
+    private final QueryResultCache queryResultCache;
+
+    @GetMapping("/cache/queries")
+    public List<QueryCacheStats> queries(){
+        return queryResultCache.stats();
+    }
+
+    @PostMapping("/cache/queries/evict")
+    public List<QueryCacheStats> evictAll(){
+        queryResultCache.clear();
+        return queryResultCache.stats();
+    }
+}
@@ -0,0 +1,20 @@
+package study.datajpa.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * datajpa.cache.query.*
+ */
+@ConfigurationProperties(prefix = "datajpa.cache.query")
+@Getter @Setter
+public class QueryCacheProperties {
+    private boolean enabled = true;
+    /** 넘으면 가장 오래 안 쓴 결과부터 밀어낸다 */
+    private int maxEntries = 10000;
+    /** 무효화와 별개로 이 시간이 지나면 다시 조회 */
+    private Duration ttl = Duration.ofMinutes(10);
+}
@@ -0,0 +1,89 @@
+package study.datajpa.cache;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ReflectionUtils;
+import study.datajpa.repository.support.RepositoryInterceptorFactory;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @CachedQuery 메서드를 QueryResultCache 로 감싼다.
+ *
+ * 리포지토리 트랜잭션 바깥에서 실행해서 캐시 히트면 트랜잭션/커넥션을 쓰지 않는다.
+ * 쓰기 트랜잭션 안에서는 커밋 전 변경을 캐시에 넣거나 이전 결과를 읽지 않도록 캐시를 쓰지 않는다.
+ * 엔티티 결과는 id 로 보관하고 꺼낼 때마다 현재 영속성 컨텍스트/2차 캐시에서 다시 찾는다. (CachedResultCodec)
+ */
+@Component
+public class QueryCacheRepositoryInterceptor implements RepositoryInterceptorFactory {
+    private final QueryResultCache cache;
+    private final CachedResultCodec codec;
+
+    public QueryCacheRepositoryInterceptor(QueryResultCache cache, CachedResultCodec codec) {
+        this.cache = cache;
+        this.codec = codec;
+    }
+
+    @Override
+    public boolean beforeTransaction() {
+        return true;
+    }
+
+    @Override
+    public MethodInterceptor forRepository(RepositoryInformation repository) {
+        Class<?> repositoryInterface = repository.getRepositoryInterface();
+        Map<Method, QueryResultCache.Tags> cachedMethods = new HashMap<>();
+        Map<Method, Integer> keyArgs = new HashMap<>();
+        for (Method method : ReflectionUtils.getAllDeclaredMethods(repositoryInterface)) {
+            CachedQuery cachedQuery = AnnotatedElementUtils.findMergedAnnotation(method, CachedQuery.class);
+            if (cachedQuery == null) {
+                continue;
+            }
+            Set<Class<?>> entities = new LinkedHashSet<>();
+            entities.add(repository.getDomainType());
+            entities.addAll(Arrays.asList(cachedQuery.entities()));
+            boolean keyed = !cachedQuery.keyAttribute().isEmpty();
+            cachedMethods.put(method, new QueryResultCache.Tags(entities,
+                    keyed ? repository.getDomainType() : null, keyed ? cachedQuery.keyAttribute() : null));
+            keyArgs.put(method, cachedQuery.keyArg());
+        }
+        if (cachedMethods.isEmpty()) {
+            return null;
+        }
+        String prefix = repositoryInterface.getSimpleName() + ".";
+        return invocation -> {
+            Method method = invocation.getMethod();
+            QueryResultCache.Tags tags = cachedMethods.get(method);
+            if (tags == null || !cache.isEnabled() || inWriteTransaction()) {
+                return invocation.proceed();
+            }
+            Object[] args = invocation.getArguments();
+            Object keyValue = tags.isKeyed() ? args[keyArgs.get(method)] : null;
+            Object[] loaded = new Object[1];
+            boolean[] miss = new boolean[1];
+            Object stored = cache.get(prefix + method.getName(), Arrays.asList(args.clone()), tags, keyValue, () -> {
+                loaded[0] = invocation.proceed();
+                miss[0] = true;
+                return codec.encode(loaded[0]);
+            });
+            if (miss[0]) {
+                return loaded[0];
+            }
+            Object value = codec.decode(stored);
+            return value == CachedResultCodec.MISSING ? invocation.proceed() : value;
+        };
+    }
+
+    private static boolean inWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+}
@@ -0,0 +1,28 @@
+package study.datajpa.cache;
+
+import lombok.Getter;
+
+@Getter
+public class QueryCacheStats {
+    private final String method;
+    private final long hits;
+    private final long misses;
+    private final long puts;
+    /** 엔티티 변경으로 지운 수 */
+    private final long invalidations;
+    /** 크기/만료로 밀려난 수 */
+    private final long evictions;
+    private final int size;
+    private final double hitRatio;
+
+    public QueryCacheStats(String method, long hits, long misses, long puts, long invalidations, long evictions, int size) {
+        this.method = method;
+        this.hits = hits;
+        this.misses = misses;
+        this.puts = puts;
+        this.invalidations = invalidations;
+        this.evictions = evictions;
+        this.size = size;
+        this.hitRatio = hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+}
@@ -0,0 +1,243 @@
+package study.datajpa.cache;
+
+import lombok.EqualsAndHashCode;
+import org.springframework.stereotype.Component;
+import study.datajpa.event.EntityChange;
+import study.datajpa.event.EntityChangeListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 쿼리 메서드 결과 캐시 (@CachedQuery)
+ *
+ * 결과마다 의존하는 엔티티 타입(태그)과, 가능하면 키 값(attribute = value)을 색인해 둔다.
+ * 엔티티 변경(EntityChange)이 오면 해당 엔티티 태그의 결과와, 변경 전/후 값이 키와 같은 결과만 지운다.
+ * - 변경 트랜잭션 안(onChange)과 커밋 후(afterCommit) 두 번 지운다.
+ *   > 커밋 전에 다른 트랜잭션이 이전 값을 읽어 다시 넣은 결과를 커밋 후에 지운다.
+ * - 엔티티마다 변경 세대(generation)를 두고 조회 시작 후 세대가 바뀌었으면 결과를 넣지 않는다.
+ * - LRU(maxEntries) + TTL
+ */
+@Component
+public class QueryResultCache implements EntityChangeListener {
+    private final QueryCacheProperties properties;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<Class<?>, Set<Key>> byEntity = new HashMap<>();
+    private final Map<Class<?>, Map<String, Map<Object, Set<Key>>>> byKey = new HashMap<>();
+    private final Map<Class<?>, Long> generations = new HashMap<>();
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    public QueryResultCache(QueryCacheProperties properties) {
+        this.properties = properties;
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public Object get(String method, List<Object> args, Tags tags, Object keyValue, Loader loader) throws Throwable {
+        Key key = new Key(method, args);
+        Counters counter = counters(method);
+        long generation;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt - System.nanoTime() > 0) {
+                    counter.hits.increment();
+                    return entry.value;
+                }
+                remove(key);
+                counter.evictions.increment();
+            }
+            generation = generation(tags);
+        }
+        counter.misses.increment();
+        Object value = loader.load();
+        synchronized (this) {
+            if (generation(tags) == generation) {
+                put(key, new Entry(method, value, tags, keyValue, System.nanoTime() + properties.getTtl().toNanos()));
+                counter.puts.increment();
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public void onChange(EntityChange change) {
+        invalidate(change);
+    }
+
+    @Override
+    public void afterCommit(EntityChange change) {
+        invalidate(change);
+    }
+
+    public synchronized void invalidate(EntityChange change) {
+        Class<?> type = change.getEntityType();
+        generations.merge(type, 1L, Long::sum);
+        List<Key> affected = new ArrayList<>(byEntity.getOrDefault(type, Collections.emptySet()));
+        Map<String, Map<Object, Set<Key>>> attributes = byKey.getOrDefault(type, Collections.emptyMap());
+        attributes.forEach((attribute, values) -> values.forEach((value, keys) -> {
+            if (change.mayAffect(attribute, value)) {
+                affected.addAll(keys);
+            }
+        }));
+        for (Key key : affected) {
+            Entry entry = remove(key);
+            if (entry != null) {
+                counters(entry.method).invalidations.increment();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        byEntity.clear();
+        byKey.clear();
+        generations.replaceAll((type, generation) -> generation + 1);
+    }
+
+    public synchronized List<QueryCacheStats> stats() {
+        Map<String, Integer> sizes = new HashMap<>();
+        entries.values().forEach(entry -> sizes.merge(entry.method, 1, Integer::sum));
+        List<QueryCacheStats> stats = new ArrayList<>();
+        new TreeMap<>(counters).forEach((method, counter) -> stats.add(new QueryCacheStats(method,
+                counter.hits.sum(), counter.misses.sum(), counter.puts.sum(),
+                counter.invalidations.sum(), counter.evictions.sum(), sizes.getOrDefault(method, 0))));
+        return stats;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private Counters counters(String method) {
+        return counters.computeIfAbsent(method, m -> new Counters());
+    }
+
+    private long generation(Tags tags) {
+        long generation = 0;
+        for (Class<?> entity : tags.entities) {
+            generation += generations.getOrDefault(entity, 0L);
+        }
+        return generation;
+    }
+
+    private void put(Key key, Entry entry) {
+        remove(key);
+        entries.put(key, entry);
+        Tags tags = entry.tags;
+        for (Class<?> entity : tags.entities) {
+            if (entity != tags.keyEntity) {
+                byEntity.computeIfAbsent(entity, e -> new HashSet<>()).add(key);
+            }
+        }
+        if (tags.keyEntity != null) {
+            byKey.computeIfAbsent(tags.keyEntity, e -> new HashMap<>())
+                    .computeIfAbsent(tags.keyAttribute, a -> new HashMap<>())
+                    .computeIfAbsent(entry.keyValue, v -> new HashSet<>()).add(key);
+        }
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > properties.getMaxEntries()) {
+            Map.Entry<Key, Entry> evicted = eldest.next();
+            eldest.remove();
+            unindex(evicted.getKey(), evicted.getValue());
+            counters(evicted.getValue().method).evictions.increment();
+        }
+    }
+
+    private Entry remove(Key key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            unindex(key, entry);
+        }
+        return entry;
+    }
+
+    private void unindex(Key key, Entry entry) {
+        Tags tags = entry.tags;
+        for (Class<?> entity : tags.entities) {
+            Set<Key> keys = byEntity.get(entity);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                byEntity.remove(entity);
+            }
+        }
+        if (tags.keyEntity != null) {
+            Map<Object, Set<Key>> values = byKey.getOrDefault(tags.keyEntity, Collections.emptyMap())
+                    .get(tags.keyAttribute);
+            Set<Key> keys = values == null ? null : values.get(entry.keyValue);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                values.remove(entry.keyValue);
+            }
+        }
+    }
+
+    /**
+     * 쿼리 메서드 하나의 태그: 의존 엔티티 + (있으면) 키 속성
+     */
+    public static final class Tags {
+        private final Set<Class<?>> entities;
+        private final Class<?> keyEntity;
+        private final String keyAttribute;
+
+        public Tags(Set<Class<?>> entities, Class<?> keyEntity, String keyAttribute) {
+            this.entities = entities;
+            this.keyEntity = keyEntity;
+            this.keyAttribute = keyAttribute;
+        }
+
+        public boolean isKeyed() {
+            return keyEntity != null;
+        }
+    }
+
+    @FunctionalInterface
+    public interface Loader {
+        Object load() throws Throwable;
+    }
+
+    @EqualsAndHashCode
+    private static final class Key {
+        private final String method;
+        private final List<Object> args;
+
+        Key(String method, List<Object> args) {
+            this.method = method;
+            this.args = args;
+        }
+    }
+
+    private static final class Entry {
+        private final String method;
+        private final Object value;
+        private final Tags tags;
+        private final Object keyValue;
+        private final long expiresAt;
+
+        Entry(String method, Object value, Tags tags, Object keyValue, long expiresAt) {
+            this.method = method;
+            this.value = value;
+            this.tags = tags;
+            this.keyValue = keyValue;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class Counters {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder puts = new LongAdder();
+        private final LongAdder invalidations = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+    }
+}
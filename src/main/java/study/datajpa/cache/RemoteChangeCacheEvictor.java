@@ -0,0 +1,58 @@
+package study.datajpa.cache;
+
+import org.hibernate.Cache;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.type.EntityType;
+import org.springframework.stereotype.Component;
+import study.datajpa.event.EntityChange;
+import study.datajpa.event.EntityChangeListener;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.Serializable;
+
+/**
+ * 다른 노드의 변경(REMOTE)을 이 노드의 2차 캐시에 반영한다.
+ * 로컬 변경은 Hibernate 가 직접 2차 캐시를 갱신한다.
+ *
+ * - 엔티티: id 가 있으면 해당 엔티티만, 벌크면 리전 전체
+ * - 이 엔티티를 원소로 갖는 컬렉션 리전 (Team.members) 전체
+ * - 이 엔티티가 소유한 컬렉션 리전은 해당 소유자 것만
+ */
+@Component
+public class RemoteChangeCacheEvictor implements EntityChangeListener {
+    private final SessionFactoryImplementor sessionFactory;
+
+    public RemoteChangeCacheEvictor(EntityManagerFactory emf) {
+        this.sessionFactory = emf.unwrap(SessionFactoryImplementor.class);
+    }
+
+    @Override
+    public void afterCommit(EntityChange change) {
+        if (change.getOrigin() != EntityChange.Origin.REMOTE) {
+            return;
+        }
+        Cache cache = sessionFactory.getCache();
+        Class<?> type = change.getEntityType();
+        if (change.getId() == null) {
+            cache.evictEntityData(type);
+        } else {
+            cache.evictEntityData(type, (Serializable) change.getId());
+        }
+        for (CollectionPersister persister : sessionFactory.getMetamodel().collectionPersisters().values()) {
+            if (!persister.hasCache()) {
+                continue;
+            }
+            if (persister.getElementType().isEntityType()
+                    && ((EntityType) persister.getElementType()).getAssociatedEntityName().equals(type.getName())) {
+                cache.evictCollectionData(persister.getRole());
+            } else if (persister.getOwnerEntityPersister().getMappedClass() == type) {
+                if (change.getId() == null) {
+                    cache.evictCollectionData(persister.getRole());
+                } else {
+                    cache.evictCollectionData(persister.getRole(), (Serializable) change.getId());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package study.datajpa.cache;
+
+import org.ehcache.config.Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.ehcache.xml.XmlConfiguration;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.io.ClassPathResource;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.io.IOException;
+import java.net.URI;
+import java.util.UUID;
+
+/**
+ * Hibernate 2차 캐시용 JCache CacheManager
+ *
+ * classpath:ehcache.xml 을 URI 로 주면 같은 JVM 의 애플리케이션 컨텍스트들이 CacheManager 하나를 같이 쓴다.
+ * (테스트 컨텍스트, 같은 DB 를 보는 여러 노드를 한 JVM 에서 띄우는 경우 서로의 캐시를 읽게 된다)
+ * 컨텍스트마다 고유 URI 로 CacheManager 를 만들어 Hibernate 에 넘긴다.
+ * Hibernate 통계는 datajpa.cache.statistics=true 일 때만 켠다.
+ */
+@org.springframework.context.annotation.Configuration
+public class SecondLevelCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager jpaCacheManager() throws IOException {
+        ClassLoader classLoader = getClass().getClassLoader();
+        Configuration configuration = new XmlConfiguration(new ClassPathResource("ehcache.xml").getURL(), classLoader);
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(
+                EhcacheCachingProvider.class.getName(), classLoader);
+        return provider.getCacheManager(URI.create("urn:datajpa:jpa:" + UUID.randomUUID()), configuration);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer jpaCacheManagerCustomizer(CacheManager jpaCacheManager,
+                                                                   SecondLevelCacheProperties cacheProperties) {
+        return properties -> {
+            properties.put(ConfigSettings.CACHE_MANAGER, jpaCacheManager);
+            properties.put(AvailableSettings.GENERATE_STATISTICS, cacheProperties.isStatistics());
+        };
+    }
+}
@@ -0,0 +1,67 @@
+package study.datajpa.cache;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.cache.CacheManager;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.persistence.EntityManagerFactory;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 2차 캐시 리전별 hit/miss/put (Hibernate 통계) + eviction (JCache 통계)
+ * hit/miss/put 은 datajpa.cache.statistics=true 로 Hibernate 통계를 켰을 때만 집계된다.
+ */
+@RestController
+public class SecondLevelCacheController {
+    private final SessionFactory sessionFactory;
+    private final CacheManager jpaCacheManager;
+
+    public SecondLevelCacheController(EntityManagerFactory emf, CacheManager jpaCacheManager) {
+        this.sessionFactory = emf.unwrap(SessionFactory.class);
+        this.jpaCacheManager = jpaCacheManager;
+    }
+
+    @GetMapping("/cache/entities")
+    public List<CacheRegionStats> regions(){
+        Statistics statistics = sessionFactory.getStatistics();
+        List<CacheRegionStats> regions = new ArrayList<>();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics stats = statistics.getDomainDataRegionStatistics(region);
+            regions.add(new CacheRegionStats(region, stats.getHitCount(), stats.getMissCount(), stats.getPutCount(),
+                    evictions(region)));
+        }
+        return regions;
+    }
+
+    @PostMapping("/cache/entities/evict")
+    public List<CacheRegionStats> evictAll(){
+        sessionFactory.getCache().evictAllRegions();
+        return regions();
+    }
+
+    private long evictions(String region) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            // Ehcache 는 ObjectName 값의 , : = 를 . 으로 바꿔서 등록한다
+            String cacheManager = jpaCacheManager.getURI().toString().replaceAll("[,:=\\n]", ".");
+            Set<ObjectName> names = server.queryNames(new ObjectName(
+                    "javax.cache:type=CacheStatistics,CacheManager=" + cacheManager + ",Cache=" + region), null);
+            long evictions = 0;
+            for (ObjectName name : names) {
+                evictions += (Long) server.getAttribute(name, "CacheEvictions");
+            }
+            return evictions;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+}
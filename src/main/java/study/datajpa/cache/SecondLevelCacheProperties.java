@@ -0,0 +1,15 @@
+package study.datajpa.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * datajpa.cache.*
+ */
+@ConfigurationProperties(prefix = "datajpa.cache")
+@Getter @Setter
+public class SecondLevelCacheProperties {
+    /** Hibernate 통계(hibernate.generate_statistics), 켜야 GET /cache/entities 의 hit/miss/put 이 집계된다 */
+    private boolean statistics = false;
+}
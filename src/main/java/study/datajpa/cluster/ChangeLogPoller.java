@@ -0,0 +1,253 @@
+package study.datajpa.cluster;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import study.datajpa.event.EntityChange;
+import study.datajpa.event.EntityChangePublisher;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.metamodel.EntityType;
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 다른 노드가 남긴 entity_change_log 를 주기적으로 읽어서 REMOTE 변경으로 발행한다.
+ * (QueryResultCache, RemoteChangeCacheEvictor 가 로컬 캐시를 비운다)
+ *
+ * - 커서: 마지막으로 읽은 id, 기동시 max(id) 에서 시작한다. where id > ? order by id (PK 범위 조회)
+ * - identity 값은 커밋 순서와 다르게 보일 수 있다. 건너뛴 id 는 gapTimeout 동안 다시 확인한다.
+ * - 자기 node_id 로그는 건너뛴다.
+ * - retention 이 지난 로그는 지운다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "datajpa.cluster", name = "enabled", havingValue = "true")
+public class ChangeLogPoller implements SmartLifecycle {
+    private static final String COLUMNS = "select id, node_id, entity_type, entity_id, change_type," +
+            " attribute, min_value, previous_state, state from entity_change_log";
+    private static final TypeReference<Map<String, Object>> STATE = new TypeReference<Map<String, Object>>() {};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityChangePublisher publisher;
+    private final ClusterProperties properties;
+    private final ObjectMapper objectMapper;
+    private final Map<String, EntityType<?>> entityTypes = new HashMap<>();
+    private final ConversionService conversionService = DefaultConversionService.getSharedInstance();
+
+    private long cursor;
+    /** 건너뛴 id -> 처음 본 시각 (nanoTime) */
+    private final Map<Long, Long> gaps = new LinkedHashMap<>();
+    private long lastPurge = System.nanoTime();
+    private long applied;
+    private ScheduledExecutorService executor;
+
+    public ChangeLogPoller(JdbcTemplate jdbcTemplate, EntityChangePublisher publisher, ClusterProperties properties,
+                           ObjectMapper objectMapper, EntityManagerFactory emf) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.publisher = publisher;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        for (EntityType<?> entityType : emf.getMetamodel().getEntities()) {
+            entityTypes.put(entityType.getJavaType().getName(), entityType);
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        cursor = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from entity_change_log", Long.class);
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "change-log-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getPollInterval().toMillis();
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                poll();
+            } catch (RuntimeException e) {
+                log.warn("change log poll failed", e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("change log poller started node={} cursor={}", properties.getNodeId(), cursor);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return executor != null;
+    }
+
+    /**
+     * @return 이번에 반영한 다른 노드의 변경 수
+     */
+    public synchronized int poll() {
+        List<Row> rows = new ArrayList<>();
+        if (!gaps.isEmpty()) {
+            String ids = gaps.keySet().stream().map(String::valueOf).collect(Collectors.joining(","));
+            rows.addAll(jdbcTemplate.query(COLUMNS + " where id in (" + ids + ")", this::row));
+            rows.forEach(row -> gaps.remove(row.id));
+        }
+        List<Row> next = jdbcTemplate.query(COLUMNS + " where id > ? order by id limit ?",
+                this::row, cursor, properties.getBatchSize());
+        long now = System.nanoTime();
+        for (Row row : next) {
+            if (row.id - cursor - 1 <= properties.getBatchSize()) {
+                for (long gap = cursor + 1; gap < row.id; gap++) {
+                    gaps.put(gap, now);
+                }
+            }
+            cursor = row.id;
+        }
+        rows.addAll(next);
+        expireGaps(now);
+
+        int count = 0;
+        for (Row row : rows) {
+            if (properties.getNodeId().equals(row.nodeId)) {
+                continue;
+            }
+            EntityChange change = toChange(row);
+            if (change != null) {
+                publisher.publish(change);
+                count++;
+            }
+        }
+        applied += count;
+        purge(now);
+        return count;
+    }
+
+    public synchronized long getCursor() {
+        return cursor;
+    }
+
+    public synchronized long getApplied() {
+        return applied;
+    }
+
+    private void expireGaps(long now) {
+        long timeout = properties.getGapTimeout().toNanos();
+        for (Iterator<Long> it = gaps.values().iterator(); it.hasNext(); ) {
+            if (now - it.next() > timeout) {
+                it.remove();
+            }
+        }
+    }
+
+    private void purge(long now) {
+        long retention = properties.getRetention().toNanos();
+        if (now - lastPurge < retention / 10) {
+            return;
+        }
+        lastPurge = now;
+        int purged = jdbcTemplate.update("delete from entity_change_log where created_at < ?",
+                Timestamp.valueOf(LocalDateTime.now().minus(properties.getRetention())));
+        log.debug("change log purged {}", purged);
+    }
+
+    private EntityChange toChange(Row row) {
+        EntityType<?> entityType = entityTypes.get(row.entityType);
+        if (entityType == null) {
+            log.warn("unknown entity type in change log id={} type={}", row.id, row.entityType);
+            return null;
+        }
+        Class<?> type = entityType.getJavaType();
+        EntityChange.Origin origin = EntityChange.Origin.REMOTE;
+        EntityChange.Type changeType = EntityChange.Type.valueOf(row.changeType);
+        if (changeType == EntityChange.Type.BULK) {
+            return row.attribute == null
+                    ? EntityChange.bulk(origin, type)
+                    : EntityChange.bulk(origin, type, row.attribute, read(row.minValue, Object.class));
+        }
+        Object id = row.entityId == null ? null
+                : conversionService.convert(row.entityId, entityType.getIdType().getJavaType());
+        if (row.previousState == null && row.state == null) {
+            return EntityChange.bulk(origin, type);
+        }
+        Map<String, Object> previousState = read(row.previousState, STATE);
+        Map<String, Object> state = read(row.state, STATE);
+        switch (changeType) {
+            case INSERT:
+                return EntityChange.inserted(origin, type, id, state);
+            case UPDATE:
+                return EntityChange.updated(origin, type, id, previousState, state);
+            default:
+                return EntityChange.deleted(origin, type, id, previousState);
+        }
+    }
+
+    private <T> T read(String json, Class<T> type) {
+        try {
+            return json == null ? null : objectMapper.readValue(json, type);
+        } catch (IOException e) {
+            throw new IllegalStateException("cannot read change log value " + json, e);
+        }
+    }
+
+    private Map<String, Object> read(String json, TypeReference<Map<String, Object>> type) {
+        try {
+            return json == null ? Collections.emptyMap() : objectMapper.readValue(json, type);
+        } catch (IOException e) {
+            throw new IllegalStateException("cannot read change log state " + json, e);
+        }
+    }
+
+    private Row row(ResultSet rs, int rowNum) throws SQLException {
+        return new Row(rs.getLong("id"), rs.getString("node_id"), rs.getString("entity_type"),
+                rs.getString("entity_id"), rs.getString("change_type"), rs.getString("attribute"),
+                rs.getString("min_value"), rs.getString("previous_state"), rs.getString("state"));
+    }
+
+    private static final class Row {
+        private final long id;
+        private final String nodeId;
+        private final String entityType;
+        private final String entityId;
+        private final String changeType;
+        private final String attribute;
+        private final String minValue;
+        private final String previousState;
+        private final String state;
+
+        Row(long id, String nodeId, String entityType, String entityId, String changeType,
+            String attribute, String minValue, String previousState, String state) {
+            this.id = id;
+            this.nodeId = nodeId;
+            this.entityType = entityType;
+            this.entityId = entityId;
+            this.changeType = changeType;
+            this.attribute = attribute;
+            this.minValue = minValue;
+            this.previousState = previousState;
+            this.state = state;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package study.datajpa.cluster;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import study.datajpa.event.EntityChange;
+import study.datajpa.event.EntityChangeListener;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 이 노드에서 일어난 엔티티 변경을 같은 트랜잭션 안에서 entity_change_log 에 남긴다.
+ * JpaTransactionManager 가 JDBC 커넥션을 공유하므로 변경이 롤백되면 로그도 롤백된다.
+ *
+ * 상태는 키 비교에 쓰는 스칼라 값(문자, 숫자, boolean)만 남긴다.
+ * 너무 길면 상태 없이 남기고, 받는 쪽은 엔티티 전체 변경으로 본다.
+ */
+@Component
+@ConditionalOnProperty(prefix = "datajpa.cluster", name = "enabled", havingValue = "true")
+public class ChangeLogWriter implements EntityChangeListener {
+    static final int MAX_STATE_LENGTH = 4000;
+    private static final String INSERT = "insert into entity_change_log" +
+            " (node_id, entity_type, entity_id, change_type, attribute, min_value, previous_state, state, created_at)" +
+            " values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final ClusterProperties properties;
+
+    public ChangeLogWriter(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, ClusterProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    @Override
+    public void onChange(EntityChange change) {
+        if (change.getOrigin() == EntityChange.Origin.REMOTE) {
+            return;
+        }
+        String previousState = json(scalars(change.getPreviousState()));
+        String state = json(scalars(change.getState()));
+        if (previousState.length() > MAX_STATE_LENGTH || state.length() > MAX_STATE_LENGTH) {
+            previousState = null;
+            state = null;
+        }
+        jdbcTemplate.update(INSERT,
+                properties.getNodeId(),
+                change.getEntityType().getName(),
+                change.getId() == null ? null : change.getId().toString(),
+                change.getType().name(),
+                change.getAttribute(),
+                change.getMinValue() == null ? null : json(change.getMinValue()),
+                previousState,
+                state,
+                Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    private static Map<String, Object> scalars(Map<String, Object> state) {
+        Map<String, Object> scalars = new LinkedHashMap<>();
+        state.forEach((name, value) -> {
+            if (value == null || value instanceof CharSequence || value instanceof Number || value instanceof Boolean) {
+                scalars.put(name, value);
+            }
+        });
+        return scalars;
+    }
+
+    private String json(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("cannot serialize " + value, e);
+        }
+    }
+}
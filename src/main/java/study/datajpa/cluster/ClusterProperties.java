@@ -0,0 +1,30 @@
+package study.datajpa.cluster;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * datajpa.cluster.*
+ * 같은 DB 를 쓰는 여러 인스턴스의 캐시 무효화 (entity_change_log)
+ */
+@ConfigurationProperties(prefix = "datajpa.cluster")
+@Getter @Setter
+public class ClusterProperties {
+    private boolean enabled = false;
+    /** 인스턴스 식별자, 자기가 쓴 변경은 건너뛴다 */
+    private String nodeId = UUID.randomUUID().toString();
+    /** 다른 노드의 변경이 반영되기까지 최대 지연 ≒ pollInterval */
+    private Duration pollInterval = Duration.ofSeconds(1);
+    private int batchSize = 500;
+    /**
+     * id 가 건너뛴 구간(아직 커밋 안 된 트랜잭션)을 다시 확인하는 시간
+     * 이보다 오래 걸린 트랜잭션이나 롤백된 id 는 더 기다리지 않는다.
+     */
+    private Duration gapTimeout = Duration.ofSeconds(30);
+    /** 이보다 오래된 변경 로그는 지운다 */
+    private Duration retention = Duration.ofHours(1);
+}
@@ -0,0 +1,40 @@
+package study.datajpa.cluster;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 노드간 캐시 무효화용 변경 로그 (스키마 정의용, 읽기/쓰기는 ChangeLogWriter / ChangeLogPoller 의 JDBC)
+ * 폴링은 PK(id) 범위 조회, 정리는 created_at 인덱스를 쓴다.
+ */
+@Entity
+@Table(name = "entity_change_log", indexes = @Index(name = "idx_entity_change_log_created_at", columnList = "created_at"))
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class EntityChangeLog {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "node_id", nullable = false, length = 64)
+    private String nodeId;
+    @Column(name = "entity_type", nullable = false)
+    private String entityType;
+    @Column(name = "entity_id", length = 64)
+    private String entityId;
+    @Column(name = "change_type", nullable = false, length = 16)
+    private String changeType;
+    @Column(length = 64)
+    private String attribute;
+    @Column(name = "min_value", length = 64)
+    private String minValue;
+    /** 변경 전/후 스칼라 속성 (JSON) */
+    @Column(name = "previous_state", length = 4000)
+    private String previousState;
+    @Column(length = 4000)
+    private String state;
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -5,6 +5,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RestController;
@@ -34,12 +35,17 @@ public class MemberController {
      *
      * > 주의: 도메인 클래스 컨버터로 엔티티를 파라미터로 받으면, 이 엔티티는 단순 조회용으로만 사용해야 한다.
      * (트랜잭션이 없는 범위에서 엔티티를 조회했으므로, 엔티티를 변경해도 DB에 반영되지 않는다.)
+     *
+     * @Transactional(readOnly = true): 읽기만 하는 GET 이라서 ReadOnlyGetInterceptor 가 요청 세션을 읽기 전용으로 만든다.
+     * 컨버터가 찾은 회원도 스냅샷 없이 읽기 전용으로 로딩되고, 같은 요청의 다른 트랜잭션이 플러시해도 반영되지 않는다.
      */
+    @Transactional(readOnly = true)
     @GetMapping("/members/{id}")
     public String findMember(@PathVariable("id") Member member){
         return member.getUsername();
     }
 
+    @Transactional(readOnly = true)
     @GetMapping("/members")
     public Page<MemberDto> list(@PageableDefault(size = 12, sort="username",direction = Sort.Direction.DESC) Pageable pageable){
         return memberRepository.findAll(pageable)
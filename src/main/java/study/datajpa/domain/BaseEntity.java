@@ -12,6 +12,11 @@ import javax.persistence.MappedSuperclass;
 @MappedSuperclass
 @Getter
 public class BaseEntity extends BaseTimeEntity{
+    /**
+     * 작성자 컬럼은 지연 로딩(@Basic(fetch = LAZY))하지 않는다.
+     * 스프링 auditing 은 필드에 바로 값을 넣으므로 바이트코드 향상 dirty tracking 이 변경을 모르고,
+     * 로딩되지 않은 지연 속성은 플러시 때 비교 대상에서도 빠져서 lastModifiedBy 가 저장되지 않는다.
+     */
     @CreatedBy
     private String createBy;
 
@@ -4,10 +4,18 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"),
+        @Index(name = "idx_member_updated_date", columnList = "updatedDate")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "member")
 @NamedQuery(
         name="Member.findByUsername",
         query="select m from Member m where m.username = :username"
@@ -19,11 +27,11 @@ public class Member extends BaseEntity{
     @Column(name = "member_id")
     private Long id;
     private String username;
-    int age;
+    private int age;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "team_id")
-    Team team;
+    private Team team;
 
     public Member(String username) {
         this.username = username;
@@ -4,12 +4,16 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team")
 @Getter @Setter
 @NoArgsConstructor(access= AccessLevel.PROTECTED)
 public class Team {
@@ -19,7 +23,8 @@ public class Team {
     private String name;
 
     @OneToMany(mappedBy = "team")
-    List<Member> members = new ArrayList<>();
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team.members")
+    private List<Member> members = new ArrayList<>();
 
     public Team(String name) {
         this.name = name;
@@ -1,17 +1,21 @@
 package study.datajpa.dto;
 
-import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 import study.datajpa.domain.Member;
 
-@Data
+/**
+ * 조회 결과 캐시(@CachedQuery findMemberDto)가 요청끼리 같은 인스턴스를 돌려주므로 변경할 수 없게 둔다.
+ */
+@Getter @ToString @EqualsAndHashCode
 public class MemberDto {
-    private Long id;
-    private String username;
-    private String teamName;
+    private final Long id;
+    private final String username;
+    private final String teamName;
 
     public MemberDto(Member member) {
-        this.id = member.getId();
-        this.username = member.getUsername();
+        this(member.getId(), member.getUsername(), null);
     }
 
     public MemberDto(Long id, String username, String teamName) {
@@ -0,0 +1,22 @@
+package study.datajpa.event;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * @Modifying 쿼리 메서드가 바꾸는 범위
+ * 변경 전/후 attribute 값이 minArg 번째 파라미터 값 이상인 행만 바뀐다.
+ * 없으면 도메인 엔티티 전체가 바뀐 것으로 본다.
+ * increment: attribute 에 이 값을 더하는 변경이면 (set m.age = m.age + 1), 0 이면 어떻게 바뀌는지 모른다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface BulkChange {
+    String attribute();
+
+    int minArg() default 0;
+
+    int increment() default 0;
+}
@@ -0,0 +1,50 @@
+package study.datajpa.event;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+import study.datajpa.repository.support.RepositoryInterceptorFactory;
+
+import java.lang.reflect.Method;
+
+/**
+ * @Modifying 쿼리 메서드 실행 후 (리포지토리 트랜잭션 안에서) BULK 변경을 발행한다.
+ * 범위는 @BulkChange, 없으면 도메인 엔티티 전체
+ */
+@Component
+public class BulkChangeRepositoryInterceptor implements RepositoryInterceptorFactory {
+    private final EntityChangePublisher publisher;
+
+    public BulkChangeRepositoryInterceptor(EntityChangePublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @Override
+    public MethodInterceptor forRepository(RepositoryInformation repository) {
+        Class<?> domainType = repository.getDomainType();
+        boolean modifying = false;
+        for (Method method : ReflectionUtils.getAllDeclaredMethods(repository.getRepositoryInterface())) {
+            modifying |= AnnotatedElementUtils.hasAnnotation(method, Modifying.class);
+        }
+        if (!modifying) {
+            return null;
+        }
+        return invocation -> {
+            Method method = invocation.getMethod();
+            if (!AnnotatedElementUtils.hasAnnotation(method, Modifying.class)) {
+                return invocation.proceed();
+            }
+            Object result = invocation.proceed();
+            BulkChange bulkChange = AnnotatedElementUtils.findMergedAnnotation(method, BulkChange.class);
+            publisher.publish(bulkChange == null
+                    ? EntityChange.bulk(EntityChange.Origin.QUERY, domainType)
+                    : EntityChange.bulk(EntityChange.Origin.QUERY, domainType,
+                    bulkChange.attribute(), invocation.getArguments()[bulkChange.minArg()],
+                    bulkChange.increment() == 0 ? null : bulkChange.increment()));
+            return result;
+        };
+    }
+}
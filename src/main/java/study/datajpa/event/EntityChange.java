@@ -0,0 +1,123 @@
+package study.datajpa.event;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 엔티티 변경 한 건
+ *
+ * previousState / state 는 속성명 -> 값, 연관관계(ManyToOne)는 식별자 값 ("team" -> team_id), 컬렉션은 제외
+ * BULK 는 행 단위 상태를 모른다. attribute + minValue 가 있으면 변경 전/후 값이 모두 minValue 이상인 행만 바뀐 것이다.
+ * (update Member m set m.age = m.age + 1 where m.age >= :age)
+ * increment 가 있으면 그 행들의 attribute 에 increment 를 더한 것이다. (다른 노드로는 전달하지 않는다)
+ */
+@Getter
+@ToString
+public class EntityChange {
+    public enum Type {INSERT, UPDATE, DELETE, BULK}
+
+    /**
+     * HIBERNATE: 영속성 컨텍스트 flush, QUERY: JPQL 벌크 연산, JDBC: JdbcTemplate 직접 실행, REMOTE: 다른 노드
+     */
+    public enum Origin {HIBERNATE, QUERY, JDBC, REMOTE}
+
+    private final Type type;
+    private final Origin origin;
+    private final Class<?> entityType;
+    private final Object id;
+    private final Map<String, Object> previousState;
+    private final Map<String, Object> state;
+    private final String attribute;
+    private final Object minValue;
+    private final Integer increment;
+
+    private EntityChange(Type type, Origin origin, Class<?> entityType, Object id,
+                         Map<String, Object> previousState, Map<String, Object> state,
+                         String attribute, Object minValue, Integer increment) {
+        this.type = type;
+        this.origin = origin;
+        this.entityType = entityType;
+        this.id = id;
+        this.previousState = previousState == null ? Collections.emptyMap() : previousState;
+        this.state = state == null ? Collections.emptyMap() : state;
+        this.attribute = attribute;
+        this.minValue = minValue;
+        this.increment = increment;
+    }
+
+    public static EntityChange inserted(Origin origin, Class<?> entityType, Object id, Map<String, Object> state) {
+        return new EntityChange(Type.INSERT, origin, entityType, id, null, state, null, null, null);
+    }
+
+    public static EntityChange updated(Origin origin, Class<?> entityType, Object id,
+                                       Map<String, Object> previousState, Map<String, Object> state) {
+        return new EntityChange(Type.UPDATE, origin, entityType, id, previousState, state, null, null, null);
+    }
+
+    public static EntityChange deleted(Origin origin, Class<?> entityType, Object id, Map<String, Object> previousState) {
+        return new EntityChange(Type.DELETE, origin, entityType, id, previousState, null, null, null, null);
+    }
+
+    /**
+     * 범위를 모르는 벌크 변경: 해당 엔티티 전체
+     */
+    public static EntityChange bulk(Origin origin, Class<?> entityType) {
+        return new EntityChange(Type.BULK, origin, entityType, null, null, null, null, null, null);
+    }
+
+    public static EntityChange bulk(Origin origin, Class<?> entityType, String attribute, Object minValue) {
+        return new EntityChange(Type.BULK, origin, entityType, null, null, null, attribute, minValue, null);
+    }
+
+    public static EntityChange bulk(Origin origin, Class<?> entityType, String attribute, Object minValue,
+                                    Integer increment) {
+        return new EntityChange(Type.BULK, origin, entityType, null, null, null, attribute, minValue, increment);
+    }
+
+    public EntityChange withOrigin(Origin origin) {
+        return new EntityChange(type, origin, entityType, id, previousState, state, attribute, minValue, increment);
+    }
+
+    public boolean isBulk() {
+        return type == Type.BULK;
+    }
+
+    /**
+     * 이 변경으로 attribute 값이 value 인 행이 바뀌었을 수 있는지
+     */
+    public boolean mayAffect(String attribute, Object value) {
+        if (isBulk()) {
+            if (!attribute.equals(this.attribute) || minValue == null) {
+                return true;
+            }
+            return compare(value, minValue) >= 0;
+        }
+        return equals(previousState, attribute, value) || equals(state, attribute, value);
+    }
+
+    private static boolean equals(Map<String, Object> state, String attribute, Object value) {
+        return state.containsKey(attribute) && compare(state.get(attribute), value) == 0;
+    }
+
+    /**
+     * 다른 노드에서 온 변경(JSON)은 숫자 타입이 다를 수 있어서 (Integer / Long) 숫자는 값으로 비교한다.
+     * 비교할 수 없으면 0 (영향 있음)
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Object a, Object b) {
+        if (a instanceof Number && b instanceof Number) {
+            return new BigDecimal(a.toString()).compareTo(new BigDecimal(b.toString()));
+        }
+        if (a == null || b == null) {
+            return a == b ? 0 : 1;
+        }
+        if (a instanceof Comparable && a.getClass() == b.getClass()) {
+            return ((Comparable) a).compareTo(b);
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,19 @@
+package study.datajpa.event;
+
+/**
+ * EntityChangePublisher 가 변경을 전달하는 대상 (빈으로 등록하면 자동으로 받는다)
+ */
+public interface EntityChangeListener {
+
+    /**
+     * 변경을 만든 트랜잭션 안에서 (flush / 벌크 쿼리 직후) 호출된다. 예외를 던지면 트랜잭션이 롤백된다.
+     */
+    default void onChange(EntityChange change) {
+    }
+
+    /**
+     * 커밋 후 호출된다. 트랜잭션이 없으면 바로 호출된다. 롤백되면 호출되지 않는다.
+     */
+    default void afterCommit(EntityChange change) {
+    }
+}
@@ -0,0 +1,145 @@
+package study.datajpa.event;
+
+import org.hibernate.bytecode.enhance.spi.LazyPropertyInitializer;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.type.EntityType;
+import org.hibernate.type.Type;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 엔티티 변경 이벤트 발행
+ *
+ * Hibernate post insert/update/delete 이벤트를 EntityChange 로 바꿔서 EntityChangeListener 빈들에 전달한다.
+ * 영속성 컨텍스트를 거치지 않는 변경(JPQL 벌크, JdbcTemplate)은 publish 로 직접 알린다.
+ * - onChange: 같은 트랜잭션 안에서 바로
+ * - afterCommit: TransactionSynchronization 으로 커밋 후
+ */
+@Component
+public class EntityChangePublisher implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+    private final EntityManagerFactory emf;
+    private final ObjectProvider<EntityChangeListener> listenerProvider;
+    private volatile List<EntityChangeListener> listeners;
+
+    public EntityChangePublisher(EntityManagerFactory emf, ObjectProvider<EntityChangeListener> listenerProvider) {
+        this.emf = emf;
+        this.listenerProvider = listenerProvider;
+    }
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImpl.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    public void publish(EntityChange change) {
+        List<EntityChangeListener> listeners = listeners();
+        for (EntityChangeListener listener : listeners) {
+            listener.onChange(change);
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            listeners.forEach(listener -> listener.afterCommit(change));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                listeners.forEach(listener -> listener.afterCommit(change));
+            }
+        });
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        EntityPersister persister = event.getPersister();
+        publish(EntityChange.inserted(EntityChange.Origin.HIBERNATE, persister.getMappedClass(), event.getId(),
+                state(persister, event.getState(), event.getSession())));
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        EntityPersister persister = event.getPersister();
+        publish(EntityChange.updated(EntityChange.Origin.HIBERNATE, persister.getMappedClass(), event.getId(),
+                state(persister, event.getOldState(), event.getSession()),
+                state(persister, event.getState(), event.getSession())));
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        EntityPersister persister = event.getPersister();
+        publish(EntityChange.deleted(EntityChange.Origin.HIBERNATE, persister.getMappedClass(), event.getId(),
+                state(persister, event.getDeletedState(), event.getSession())));
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private List<EntityChangeListener> listeners() {
+        List<EntityChangeListener> listeners = this.listeners;
+        if (listeners == null) {
+            listeners = listenerProvider.orderedStream().collect(Collectors.toList());
+            this.listeners = listeners;
+        }
+        return listeners;
+    }
+
+    /**
+     * 컬렉션과 아직 읽지 않은 지연 로딩 속성은 제외, 연관 엔티티는 식별자로
+     */
+    private static Map<String, Object> state(EntityPersister persister, Object[] values,
+                                             SharedSessionContractImplementor session) {
+        if (values == null) {
+            return null;
+        }
+        String[] names = persister.getPropertyNames();
+        Type[] types = persister.getPropertyTypes();
+        Map<String, Object> state = new LinkedHashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            Object value = values[i];
+            if (types[i].isCollectionType() || value == LazyPropertyInitializer.UNFETCHED_PROPERTY) {
+                continue;
+            }
+            if (types[i].isEntityType()) {
+                value = identifier((EntityType) types[i], value, session);
+            }
+            state.put(names[i], value);
+        }
+        return state;
+    }
+
+    private static Object identifier(EntityType type, Object value, SharedSessionContractImplementor session) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof HibernateProxy) {
+            return ((HibernateProxy) value).getHibernateLazyInitializer().getIdentifier();
+        }
+        return session.getFactory().getMetamodel().entityPersister(type.getAssociatedEntityName())
+                .getIdentifier(value, session);
+    }
+}
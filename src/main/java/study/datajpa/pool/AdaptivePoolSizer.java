@@ -0,0 +1,139 @@
+package study.datajpa.pool;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * interval 마다 PoolMetrics.window() 를 보고 Hikari 최대 풀 크기를 [minSize, maxSize] 안에서 조정한다.
+ *
+ * - 대기 p99 가 targetWait 을 넘거나 타임아웃이 있으면 step 만큼 늘린다.
+ * - 단, 커넥션 사용 시간(DB 응답 시간)이 기준의 saturationFactor 배를 넘으면 DB 가 포화된 것이므로
+ *   커넥션을 늘려도 대기만 DB 로 옮겨갈 뿐이다. 이때는 1 줄인다.
+ * - 대기가 targetWait/4 밑이고 동시에 쓴 커넥션이 여유 있으면 1 줄인다.
+ * 기준은 지금까지 가장 짧았던 사용 시간이고, 한 번 튄 값에 묶이지 않게 조정할 때마다 1% 씩 올라간다.
+ * 기준은 minBaselineUsage(기본 1ms) 밑으로 내려가지 않는다. (빈 창이나 아주 짧은 쿼리에 묶여 항상 포화로 보지 않게)
+ */
+@Slf4j
+@Component
+public class AdaptivePoolSizer implements SmartLifecycle {
+    private static final int MAX_DECISIONS = 20;
+
+    private final PoolMetrics poolMetrics;
+    private final PoolMetricsProperties.Adaptive properties;
+    private final Deque<PoolSizeDecision> decisions = new ArrayDeque<>();
+    private long baselineUsageMicros = -1;
+    private ScheduledExecutorService executor;
+
+    public AdaptivePoolSizer(PoolMetrics poolMetrics, PoolMetricsProperties properties) {
+        this.poolMetrics = poolMetrics;
+        this.properties = properties.getAdaptive();
+    }
+
+    public List<PoolSizeDecision> decisions() {
+        synchronized (decisions) {
+            return new ArrayList<>(decisions);
+        }
+    }
+
+    private void adjust() {
+        HikariDataSource dataSource = poolMetrics.getDataSource();
+        if (dataSource == null || dataSource.getHikariPoolMXBean() == null) {
+            return;
+        }
+        HikariConfigMXBean config = dataSource.getHikariConfigMXBean();
+        PoolSizeDecision decision = decide(config.getMaximumPoolSize(), poolMetrics.window());
+        if (decision == null) {
+            return;
+        }
+        if (decision.getTo() < config.getMinimumIdle()) {
+            config.setMinimumIdle(decision.getTo());
+        }
+        config.setMaximumPoolSize(decision.getTo());
+        log.info("pool size {} -> {} ({}) {}", decision.getFrom(), decision.getTo(), decision.getReason(), decision.getWindow());
+        synchronized (decisions) {
+            if (decisions.size() >= MAX_DECISIONS) {
+                decisions.pollFirst();
+            }
+            decisions.addLast(decision);
+        }
+    }
+
+    /**
+     * @return 바꾸지 않으면 null
+     */
+    synchronized PoolSizeDecision decide(int current, PoolWindow window) {
+        if (window.getAcquisitions() == 0) {
+            return null;
+        }
+        long usage = window.getUsageMeanMicros();
+        long minBaseline = properties.getMinBaselineUsage().toNanos() / 1000;
+        baselineUsageMicros = Math.max(minBaseline, baselineUsageMicros < 0 ? usage
+                : Math.min(usage, baselineUsageMicros + Math.max(1, baselineUsageMicros / 100)));
+        long targetWait = properties.getTargetWait().toNanos() / 1000;
+        boolean waiting = window.getTimeouts() > 0 || window.getWaitP99Micros() > targetWait;
+        boolean saturated = usage > baselineUsageMicros * properties.getSaturationFactor();
+
+        int next;
+        String reason;
+        if (waiting && saturated) {
+            next = current - 1;
+            reason = "db saturated";
+        } else if (waiting) {
+            next = current + properties.getStep();
+            reason = "connection wait";
+        } else if (window.getWaitP99Micros() < targetWait / 4 && window.getPeakInUse() < current - properties.getStep()) {
+            next = current - 1;
+            reason = "idle";
+        } else {
+            return null;
+        }
+        next = Math.max(properties.getMinSize(), Math.min(properties.getMaxSize(), next));
+        return next == current ? null : new PoolSizeDecision(current, next, reason, window, baselineUsageMicros);
+    }
+
+    private void adjustQuietly() {
+        try {
+            adjust();
+        } catch (RuntimeException e) {
+            log.warn("pool size adjust failed", e);
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pool-sizer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::adjustQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return executor != null;
+    }
+}
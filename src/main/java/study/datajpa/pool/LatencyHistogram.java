@@ -0,0 +1,164 @@
+package study.datajpa.pool;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 마이크로초 단위 지연 히스토그램 (잠금 없이 기록)
+ * 2의 거듭제곱 구간을 4 개로 다시 나눈 구간이라 백분위 값의 오차는 구간 폭(최대 25%) 이내다.
+ * 0 ~ 3 us 는 1 us 단위, 약 2^40 us (12 일) 이상은 마지막 구간에 넣는다.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKETS = 4;
+    private static final int BUCKETS = 40 * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long micros) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(index(value));
+        sum.add(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // 다른 스레드가 먼저 바꿨으면 다시 비교
+        }
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new Snapshot(copy, sum.sum(), max.get());
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        sum.reset();
+        max.set(0);
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) ((value >>> (exponent - 2)) & (SUB_BUCKETS - 1));
+        return Math.min(BUCKETS - 1, (exponent - 1) * SUB_BUCKETS + sub);
+    }
+
+    /**
+     * 구간의 최댓값 (포함)
+     */
+    static long upperBound(int index) {
+        int group = index / SUB_BUCKETS;
+        int sub = index % SUB_BUCKETS;
+        if (group == 0) {
+            return sub;
+        }
+        return ((long) (SUB_BUCKETS + sub + 1) << (group - 1)) - 1;
+    }
+
+    /**
+     * 한 시점의 값, minus 로 구간 사이의 값을 구한다.
+     */
+    public static class Snapshot {
+        private final long[] counts;
+        private final long sum;
+        private final long max;
+        private final long count;
+
+        Snapshot(long[] counts, long sum, long max) {
+            this.counts = counts;
+            this.sum = sum;
+            this.max = max;
+            long count = 0;
+            for (long c : counts) {
+                count += c;
+            }
+            this.count = count;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMean() {
+            return count == 0 ? 0 : sum / count;
+        }
+
+        /**
+         * minus 로 만든 값이면 이전 시점까지의 최댓값이 섞여 있을 수 있다.
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * @param quantile 0 ~ 1
+         * @return 이 비율의 값이 들어 있는 구간의 최댓값, 기록이 없으면 0
+         */
+        public long percentile(double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(count * quantile));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), max);
+                }
+            }
+            return max;
+        }
+
+        /**
+         * 사이에 reset 됐으면 이 값을 그대로 돌려준다.
+         */
+        public Snapshot minus(Snapshot previous) {
+            long[] delta = new long[counts.length];
+            for (int i = 0; i < counts.length; i++) {
+                delta[i] = counts[i] - previous.counts[i];
+                if (delta[i] < 0) {
+                    return this;
+                }
+            }
+            return new Snapshot(delta, sum - previous.sum, max);
+        }
+
+        /**
+         * 비어 있지 않은 구간
+         */
+        public List<Bucket> buckets() {
+            List<Bucket> buckets = new ArrayList<>();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    buckets.add(new Bucket(upperBound(i), counts[i]));
+                }
+            }
+            return buckets;
+        }
+    }
+
+    @Getter
+    public static class Bucket {
+        /** 이 값 이하 (us) */
+        private final long upTo;
+        private final long count;
+
+        Bucket(long upTo, long count) {
+            this.upTo = upTo;
+            this.count = count;
+        }
+    }
+}
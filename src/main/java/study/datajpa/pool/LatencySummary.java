@@ -0,0 +1,31 @@
+package study.datajpa.pool;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * LatencyHistogram 요약, 단위는 모두 마이크로초
+ */
+@Getter
+public class LatencySummary {
+    private final long count;
+    private final long mean;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long p999;
+    private final long max;
+    private final List<LatencyHistogram.Bucket> buckets;
+
+    public LatencySummary(LatencyHistogram.Snapshot snapshot) {
+        this.count = snapshot.getCount();
+        this.mean = snapshot.getMean();
+        this.p50 = snapshot.percentile(0.5);
+        this.p90 = snapshot.percentile(0.9);
+        this.p99 = snapshot.percentile(0.99);
+        this.p999 = snapshot.percentile(0.999);
+        this.max = snapshot.getMax();
+        this.buckets = snapshot.buckets();
+    }
+}
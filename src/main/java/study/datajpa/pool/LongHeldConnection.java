@@ -0,0 +1,25 @@
+package study.datajpa.pool;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * longHeldThreshold 이상 빌려간 커넥션 한 건
+ */
+@Getter
+public class LongHeldConnection {
+    /** 커넥션을 빌린 동안 실행된 리포지토리 메서드 (Repository.method), 없으면 비어 있다 */
+    private final List<String> repositoryMethods;
+    private final long heldMillis;
+    private final String thread;
+    private final LocalDateTime releasedAt;
+
+    public LongHeldConnection(List<String> repositoryMethods, long heldMillis, String thread, LocalDateTime releasedAt) {
+        this.repositoryMethods = repositoryMethods;
+        this.heldMillis = heldMillis;
+        this.thread = thread;
+        this.releasedAt = releasedAt;
+    }
+}
@@ -0,0 +1,35 @@
+package study.datajpa.pool;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 커넥션 풀: GET /pool (게이지, 대기/사용 시간 히스토그램, 오래 잡은 커넥션), DELETE /pool (측정값 초기화)
+ * 풀 크기 조정 기록: GET /pool/sizer
+ */
+@RestController
+@RequiredArgsConstructor
+public class PoolController {
+    private final PoolMetrics poolMetrics;
+    private final AdaptivePoolSizer adaptivePoolSizer;
+
+    @GetMapping("/pool")
+    public PoolStatus status(){
+        return poolMetrics.status();
+    }
+
+    @DeleteMapping("/pool")
+    public PoolStatus reset(){
+        poolMetrics.reset();
+        return poolMetrics.status();
+    }
+
+    @GetMapping("/pool/sizer")
+    public List<PoolSizeDecision> decisions(){
+        return adaptivePoolSizer.decisions();
+    }
+}
@@ -0,0 +1,215 @@
+package study.datajpa.pool;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 애플리케이션 Hikari 풀 측정 (PoolMetricsPostProcessor 가 MetricsTrackerFactory 로 붙인다)
+ *
+ * - 커넥션 대기 시간, 사용 시간(빌려서 돌려줄 때까지) 히스토그램, 타임아웃 수
+ * - active/idle/total/pending 은 조회할 때 HikariPoolMXBean 에서 읽는다.
+ * - 오래 잡은 커넥션: 빌린 스레드의 ThreadLocal 에 빌린 동안 실행된 리포지토리 메서드를 모아두고
+ *   (PoolMetricsRepositoryInterceptor) 돌려줄 때 longHeldThreshold 를 넘었으면 남긴다.
+ *   Hikari 는 빌리고 돌려주는 스레드에서 바로 tracker 를 부른다.
+ */
+@Component
+public class PoolMetrics implements MetricsTrackerFactory {
+    private static final int MAX_METHODS_PER_LEASE = 8;
+
+    private final PoolMetricsProperties properties;
+    private final LatencyHistogram wait = new LatencyHistogram();
+    private final LatencyHistogram usage = new LatencyHistogram();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final AtomicInteger peakInUse = new AtomicInteger();
+
+    /** 실행 중인 리포지토리 메서드 */
+    private final ThreadLocal<Deque<String>> methods = ThreadLocal.withInitial(ArrayDeque::new);
+    /** 이 스레드가 빌린 커넥션 (REQUIRES_NEW 면 둘 이상) */
+    private final ThreadLocal<Deque<Lease>> leases = ThreadLocal.withInitial(ArrayDeque::new);
+    private final Deque<LongHeldConnection> longHeld = new ArrayDeque<>();
+    private final Map<String, LongAdder> longHeldByMethod = new ConcurrentHashMap<>();
+
+    private volatile HikariDataSource dataSource;
+    private volatile String poolName;
+    private LatencyHistogram.Snapshot windowWait;
+    private LatencyHistogram.Snapshot windowUsage;
+    private long windowTimeouts;
+
+    public PoolMetrics(PoolMetricsProperties properties) {
+        this.properties = properties;
+        this.windowWait = wait.snapshot();
+        this.windowUsage = usage.snapshot();
+    }
+
+    void attach(HikariDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Nullable
+    HikariDataSource getDataSource() {
+        return dataSource;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolName = poolName;
+        return new Tracker();
+    }
+
+    void enter(String method) {
+        methods.get().push(method);
+        Lease lease = leases.get().peek();
+        if (lease != null) {
+            lease.add(method);
+        }
+    }
+
+    void exit() {
+        methods.get().pop();
+    }
+
+    public PoolStatus status() {
+        HikariDataSource dataSource = this.dataSource;
+        HikariPoolMXBean pool = dataSource == null ? null : dataSource.getHikariPoolMXBean();
+        HikariConfigMXBean config = dataSource == null ? null : dataSource.getHikariConfigMXBean();
+        Map<String, Long> byMethod = new TreeMap<>();
+        longHeldByMethod.forEach((method, count) -> byMethod.put(method, count.sum()));
+        return new PoolStatus(poolName,
+                pool == null ? 0 : pool.getActiveConnections(),
+                pool == null ? 0 : pool.getIdleConnections(),
+                pool == null ? 0 : pool.getTotalConnections(),
+                pool == null ? 0 : pool.getThreadsAwaitingConnection(),
+                config == null ? 0 : config.getMaximumPoolSize(),
+                config == null ? 0 : config.getMinimumIdle(),
+                created.sum(), timeouts.sum(),
+                new LatencySummary(wait.snapshot()), new LatencySummary(usage.snapshot()),
+                longHeld(), byMethod);
+    }
+
+    public void reset() {
+        wait.reset();
+        usage.reset();
+        timeouts.reset();
+        created.reset();
+        synchronized (longHeld) {
+            longHeld.clear();
+        }
+        longHeldByMethod.clear();
+    }
+
+    /**
+     * 이전 호출 이후의 값
+     */
+    synchronized PoolWindow window() {
+        LatencyHistogram.Snapshot waitNow = wait.snapshot();
+        LatencyHistogram.Snapshot usageNow = usage.snapshot();
+        long timeoutsNow = timeouts.sum();
+        LatencyHistogram.Snapshot waitDelta = waitNow.minus(windowWait);
+        LatencyHistogram.Snapshot usageDelta = usageNow.minus(windowUsage);
+        PoolWindow window = new PoolWindow(waitDelta.getCount(), Math.max(0, timeoutsNow - windowTimeouts),
+                waitDelta.percentile(0.99), usageDelta.getMean(), peakInUse.getAndSet(inUse.get()));
+        windowWait = waitNow;
+        windowUsage = usageNow;
+        windowTimeouts = timeoutsNow;
+        return window;
+    }
+
+    private List<LongHeldConnection> longHeld() {
+        synchronized (longHeld) {
+            return new ArrayList<>(longHeld);
+        }
+    }
+
+    private void acquired(long elapsedNanos) {
+        wait.record(TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+        int current = inUse.incrementAndGet();
+        peakInUse.accumulateAndGet(current, Math::max);
+        Lease lease = new Lease();
+        String method = methods.get().peek();
+        if (method != null) {
+            lease.add(method);
+        }
+        leases.get().push(lease);
+    }
+
+    /**
+     * Hikari 는 사용 시간을 ms 로 넘겨서 1ms 미만은 0 이 된다. 같은 스레드에서 빌린 시각이 있으면 그걸로 잰다.
+     */
+    private void released(long usageMillis) {
+        Lease lease = leases.get().poll();
+        usage.record(lease == null ? TimeUnit.MILLISECONDS.toMicros(usageMillis)
+                : TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - lease.acquiredNanos));
+        inUse.decrementAndGet();
+        if (usageMillis < properties.getLongHeldThreshold().toMillis()) {
+            return;
+        }
+        List<String> heldBy = lease == null ? new ArrayList<>() : new ArrayList<>(lease.methods);
+        heldBy.forEach(method -> longHeldByMethod.computeIfAbsent(method, key -> new LongAdder()).increment());
+        if (heldBy.isEmpty()) {
+            longHeldByMethod.computeIfAbsent("(none)", key -> new LongAdder()).increment();
+        }
+        LongHeldConnection connection = new LongHeldConnection(heldBy, usageMillis,
+                Thread.currentThread().getName(), LocalDateTime.now());
+        synchronized (longHeld) {
+            if (longHeld.size() >= properties.getLongHeldSize()) {
+                longHeld.pollFirst();
+            }
+            longHeld.addLast(connection);
+        }
+    }
+
+    private static class Lease {
+        final long acquiredNanos = System.nanoTime();
+        final Set<String> methods = new LinkedHashSet<>();
+
+        void add(String method) {
+            if (methods.size() < MAX_METHODS_PER_LEASE) {
+                methods.add(method);
+            }
+        }
+    }
+
+    private class Tracker implements IMetricsTracker {
+        @Override
+        public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+            created.increment();
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquired(elapsedAcquiredNanos);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            released(elapsedBorrowedMillis);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+    }
+}
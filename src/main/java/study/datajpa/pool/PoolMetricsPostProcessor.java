@@ -0,0 +1,45 @@
+package study.datajpa.pool;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 애플리케이션 DataSource(dataSource 빈)가 Hikari 면 풀이 시작되기 전에 PoolMetrics 를 붙인다.
+ * TracingDataSourcePostProcessor 가 감싸기 전(초기화 전)에 원래 HikariDataSource 를 받는다.
+ * 풀 크기 조정을 켜면 minimumIdle 을 minSize 로, maximumPoolSize 를 [minSize, maxSize] 안으로 맞춘다.
+ */
+@Component
+public class PoolMetricsPostProcessor implements BeanPostProcessor {
+    private final ObjectProvider<PoolMetrics> poolMetrics;
+    private final ObjectProvider<PoolMetricsProperties> properties;
+
+    public PoolMetricsPostProcessor(ObjectProvider<PoolMetrics> poolMetrics, ObjectProvider<PoolMetricsProperties> properties) {
+        this.poolMetrics = poolMetrics;
+        this.properties = properties;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (!(bean instanceof HikariDataSource) || !"dataSource".equals(beanName)) {
+            return bean;
+        }
+        PoolMetricsProperties properties = this.properties.getObject();
+        if (!properties.isEnabled()) {
+            return bean;
+        }
+        HikariDataSource dataSource = (HikariDataSource) bean;
+        PoolMetrics metrics = poolMetrics.getObject();
+        dataSource.setMetricsTrackerFactory(metrics);
+        metrics.attach(dataSource);
+
+        PoolMetricsProperties.Adaptive adaptive = properties.getAdaptive();
+        if (adaptive.isEnabled()) {
+            dataSource.setMaximumPoolSize(Math.max(adaptive.getMinSize(),
+                    Math.min(adaptive.getMaxSize(), dataSource.getMaximumPoolSize())));
+            dataSource.setMinimumIdle(adaptive.getMinSize());
+        }
+        return bean;
+    }
+}
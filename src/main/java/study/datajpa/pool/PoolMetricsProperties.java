@@ -0,0 +1,42 @@
+package study.datajpa.pool;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * datajpa.pool.*
+ */
+@ConfigurationProperties(prefix = "datajpa.pool")
+@Getter @Setter
+public class PoolMetricsProperties {
+    /** false 면 Hikari 에 MetricsTrackerFactory 를 붙이지 않는다 (기동시에만 적용) */
+    private boolean enabled = true;
+    /** 이 시간 이상 빌려간 커넥션을 리포지토리 메서드와 함께 남긴다 */
+    private Duration longHeldThreshold = Duration.ofSeconds(1);
+    /** 최근 오래 잡은 커넥션 기록 수 */
+    private int longHeldSize = 50;
+    private Adaptive adaptive = new Adaptive();
+
+    /**
+     * 대기 시간/DB 응답 시간으로 풀 크기 조정 (AdaptivePoolSizer)
+     */
+    @Getter @Setter
+    public static class Adaptive {
+        private boolean enabled = false;
+        private int minSize = 5;
+        private int maxSize = 30;
+        /** 이 간격의 측정값으로 한 번 조정한다 */
+        private Duration interval = Duration.ofSeconds(5);
+        /** 커넥션 대기 p99 목표, 넘으면 늘리고 1/4 밑이면 줄인다 */
+        private Duration targetWait = Duration.ofMillis(10);
+        /** 커넥션 사용 시간이 기준(최소)의 이 배수를 넘으면 DB 가 포화된 것으로 보고 늘리지 않고 줄인다 */
+        private double saturationFactor = 1.5;
+        /** 기준 사용 시간의 하한, 1ms 미만 쿼리에서는 작은 흔들림도 기준의 몇 배가 되어 포화로 보인다 */
+        private Duration minBaselineUsage = Duration.ofMillis(1);
+        /** 한 번에 늘리는 수 (줄일 때는 1 씩) */
+        private int step = 2;
+    }
+}
@@ -0,0 +1,42 @@
+package study.datajpa.pool;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.stereotype.Component;
+import study.datajpa.repository.support.RepositoryInterceptorFactory;
+
+/**
+ * 리포지토리 메서드 실행 중에 빌린/쓴 커넥션에 메서드 이름(MemberRepository.findByUsername)을 남긴다.
+ * 리포지토리 트랜잭션이 커넥션을 빌리기 전에 메서드를 알아야 하므로 트랜잭션 바깥에 붙인다.
+ */
+@Component
+public class PoolMetricsRepositoryInterceptor implements RepositoryInterceptorFactory {
+    private final PoolMetrics poolMetrics;
+    private final PoolMetricsProperties properties;
+
+    public PoolMetricsRepositoryInterceptor(PoolMetrics poolMetrics, PoolMetricsProperties properties) {
+        this.poolMetrics = poolMetrics;
+        this.properties = properties;
+    }
+
+    @Override
+    public MethodInterceptor forRepository(RepositoryInformation repository) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        String repositoryName = repository.getRepositoryInterface().getSimpleName();
+        return invocation -> {
+            poolMetrics.enter(repositoryName + "." + invocation.getMethod().getName());
+            try {
+                return invocation.proceed();
+            } finally {
+                poolMetrics.exit();
+            }
+        };
+    }
+
+    @Override
+    public boolean beforeTransaction() {
+        return true;
+    }
+}
@@ -0,0 +1,25 @@
+package study.datajpa.pool;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+public class PoolSizeDecision {
+    private final LocalDateTime at;
+    private final int from;
+    private final int to;
+    private final String reason;
+    private final PoolWindow window;
+    /** 지금까지 가장 짧았던 커넥션 사용 시간 (DB 포화 판단 기준, minBaselineUsage 이상) */
+    private final long baselineUsageMicros;
+
+    public PoolSizeDecision(int from, int to, String reason, PoolWindow window, long baselineUsageMicros) {
+        this.at = LocalDateTime.now();
+        this.from = from;
+        this.to = to;
+        this.reason = reason;
+        this.window = window;
+        this.baselineUsageMicros = baselineUsageMicros;
+    }
+}
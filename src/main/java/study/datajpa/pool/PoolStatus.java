@@ -0,0 +1,45 @@
+package study.datajpa.pool;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+public class PoolStatus {
+    private final String poolName;
+    private final int active;
+    private final int idle;
+    private final int total;
+    /** 커넥션을 기다리는 스레드 */
+    private final int pending;
+    private final int maximumPoolSize;
+    private final int minimumIdle;
+    private final long connectionsCreated;
+    private final long timeouts;
+    /** 커넥션 대기 시간 (us) */
+    private final LatencySummary wait;
+    /** 커넥션 사용 시간 (us, Hikari 는 ms 단위로 잰다) */
+    private final LatencySummary usage;
+    private final List<LongHeldConnection> longHeld;
+    /** 리포지토리 메서드별 오래 잡은 횟수, 리포지토리 밖에서만 쓴 커넥션은 (none) */
+    private final Map<String, Long> longHeldByMethod;
+
+    public PoolStatus(String poolName, int active, int idle, int total, int pending, int maximumPoolSize,
+                      int minimumIdle, long connectionsCreated, long timeouts, LatencySummary wait,
+                      LatencySummary usage, List<LongHeldConnection> longHeld, Map<String, Long> longHeldByMethod) {
+        this.poolName = poolName;
+        this.active = active;
+        this.idle = idle;
+        this.total = total;
+        this.pending = pending;
+        this.maximumPoolSize = maximumPoolSize;
+        this.minimumIdle = minimumIdle;
+        this.connectionsCreated = connectionsCreated;
+        this.timeouts = timeouts;
+        this.wait = wait;
+        this.usage = usage;
+        this.longHeld = longHeld;
+        this.longHeldByMethod = longHeldByMethod;
+    }
+}
@@ -0,0 +1,27 @@
+package study.datajpa.pool;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 이전 PoolMetrics.window() 호출 이후의 값 (AdaptivePoolSizer 입력)
+ */
+@Getter
+@ToString
+public class PoolWindow {
+    private final long acquisitions;
+    private final long timeouts;
+    private final long waitP99Micros;
+    /** 커넥션을 빌려서 돌려줄 때까지 평균 (DB 응답 시간) */
+    private final long usageMeanMicros;
+    /** 동시에 빌려간 최대 커넥션 수 */
+    private final int peakInUse;
+
+    public PoolWindow(long acquisitions, long timeouts, long waitP99Micros, long usageMeanMicros, int peakInUse) {
+        this.acquisitions = acquisitions;
+        this.timeouts = timeouts;
+        this.waitP99Micros = waitP99Micros;
+        this.usageMeanMicros = usageMeanMicros;
+        this.peakInUse = peakInUse;
+    }
+}
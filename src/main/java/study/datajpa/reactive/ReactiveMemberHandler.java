@@ -0,0 +1,93 @@
+package study.datajpa.reactive;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.web.SpringDataWebProperties;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import study.datajpa.dto.MemberDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * MemberController 와 같은 응답을 내는 WebFlux 엔드포인트 (이벤트 루프는 막지 않고, DB 호출은 ReactiveMemberRepository 가 옮긴다)
+ * GET /members?page=&size=&sort=      Page<MemberDto> (기본 size 12, username desc)
+ * GET /members/{id}                   username
+ * GET /members/stream                 전체 회원 NDJSON, 클라이언트가 읽는 속도에 맞춰 DB 에서 읽는다
+ */
+@Component
+@ConditionalOnProperty(prefix = "datajpa.reactive", name = "enabled", havingValue = "true")
+public class ReactiveMemberHandler {
+    private static final int DEFAULT_SIZE = 12;
+    private static final Sort DEFAULT_SORT = Sort.by(Sort.Direction.DESC, "username");
+
+    private final ReactiveMemberRepository repository;
+    private final int maxPageSize;
+
+    public ReactiveMemberHandler(ReactiveMemberRepository repository,
+                                 ObjectProvider<SpringDataWebProperties> webProperties) {
+        this.repository = repository;
+        SpringDataWebProperties properties = webProperties.getIfAvailable(SpringDataWebProperties::new);
+        this.maxPageSize = properties.getPageable().getMaxPageSize();
+    }
+
+    public RouterFunction<ServerResponse> routes() {
+        return RouterFunctions.route()
+                .GET("/members/stream", this::stream)
+                .GET("/members/{id}", this::member)
+                .GET("/members", this::list)
+                // 잘못된 파라미터, 허용하지 않는 정렬 (@Repository 예외 변환 후 InvalidDataAccessApiUsageException)
+                .onError(e -> e instanceof IllegalArgumentException || e instanceof InvalidDataAccessApiUsageException,
+                        (e, request) -> ServerResponse.badRequest().bodyValue(String.valueOf(e.getMessage())))
+                .build();
+    }
+
+    Mono<ServerResponse> list(ServerRequest request) {
+        return Mono.defer(() -> repository.findAll(pageable(request)))
+                .flatMap(page -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(page));
+    }
+
+    Mono<ServerResponse> member(ServerRequest request) {
+        return Mono.defer(() -> repository.findById(Long.valueOf(request.pathVariable("id"))))
+                .flatMap(member -> ServerResponse.ok().contentType(MediaType.TEXT_PLAIN).bodyValue(member.getUsername()))
+                .switchIfEmpty(ServerResponse.notFound().build());
+    }
+
+    Mono<ServerResponse> stream(ServerRequest request) {
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_NDJSON)
+                .body(repository.streamAll(), MemberDto.class);
+    }
+
+    /**
+     * PageableHandlerMethodArgumentResolver 와 같은 규칙 (음수 page 는 0, size 는 1 ~ max-page-size)
+     */
+    private Pageable pageable(ServerRequest request) {
+        int page = request.queryParam("page").map(Integer::parseInt).map(p -> Math.max(p, 0)).orElse(0);
+        int size = request.queryParam("size").map(Integer::parseInt).filter(s -> s > 0).orElse(DEFAULT_SIZE);
+        List<Sort.Order> orders = new ArrayList<>();
+        for (String sort : request.queryParams().getOrDefault("sort", new ArrayList<>())) {
+            List<String> parts = new ArrayList<>(Arrays.asList(sort.split(",")));
+            Sort.Direction direction = Sort.Direction.fromOptionalString(parts.get(parts.size() - 1)).orElse(null);
+            if (direction != null) {
+                parts.remove(parts.size() - 1);
+            }
+            for (String property : parts) {
+                if (!property.isEmpty()) {
+                    orders.add(new Sort.Order(direction == null ? Sort.DEFAULT_DIRECTION : direction, property));
+                }
+            }
+        }
+        return PageRequest.of(page, Math.min(size, maxPageSize), orders.isEmpty() ? DEFAULT_SORT : Sort.by(orders));
+    }
+}
@@ -0,0 +1,133 @@
+package study.datajpa.reactive;
+
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import study.datajpa.dto.MemberDto;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * R2DBC 회원 조회 (JPA 를 거치지 않는 읽기 전용)
+ *
+ * 커넥션 팩토리는 스프링 빈으로 등록하지 않는다.
+ * ConnectionFactory 빈이 있으면 JDBC DataSource 자동 설정이 빠지기 때문이다.
+ * 같은 DB 를 보도록 spring.datasource.url (jdbc:h2:...) 에서 R2DBC H2 설정을 만든다.
+ *
+ * r2dbc-h2 는 블로킹이다. H2 엔진(tcp:// 면 H2 JDBC 클라이언트의 소켓 I/O)을 구독한 스레드에서 그대로 호출하므로
+ * 이벤트 루프가 막히지 않게 DB 호출은 boundedElastic 스케줄러에서 구독한다.
+ * 이 경로가 정말 논블로킹이 되려면 비동기 드라이버(r2dbc-postgresql 등)가 필요하다. 그때는 subscribeOn 을 빼면 된다.
+ */
+@Repository
+@ConditionalOnProperty(prefix = "datajpa.reactive", name = "enabled", havingValue = "true")
+public class ReactiveMemberRepository implements DisposableBean {
+    private static final String H2_PREFIX = "jdbc:h2:";
+    private static final Map<String, String> SORT_COLUMNS = new HashMap<>();
+
+    static {
+        SORT_COLUMNS.put("id", "member_id");
+        SORT_COLUMNS.put("username", "username");
+        SORT_COLUMNS.put("age", "age");
+    }
+
+    private final ConnectionPool pool;
+    private final int streamPrefetch;
+
+    public ReactiveMemberRepository(DataSourceProperties dataSourceProperties, ReactiveProperties properties) {
+        String url = dataSourceProperties.determineUrl();
+        if (url == null || !url.startsWith(H2_PREFIX)) {
+            throw new IllegalStateException("reactive read path supports H2 only: " + url);
+        }
+        H2ConnectionConfiguration.Builder h2 = H2ConnectionConfiguration.builder()
+                .url(url.substring(H2_PREFIX.length()))
+                .username(dataSourceProperties.determineUsername());
+        String password = dataSourceProperties.determinePassword();
+        if (password != null && !password.isEmpty()) {
+            h2.password(password);
+        }
+        this.pool = new ConnectionPool(ConnectionPoolConfiguration.builder(new H2ConnectionFactory(h2.build()))
+                .name("reactive-members")
+                .initialSize(properties.getPoolInitialSize())
+                .maxSize(properties.getPoolMaxSize())
+                .build());
+        this.streamPrefetch = properties.getStreamPrefetch();
+    }
+
+    /**
+     * MemberController.list 와 같은 결과 (MemberDto 는 id, username)
+     */
+    public Mono<Page<MemberDto>> findAll(Pageable pageable) {
+        String sql = "select member_id, username from member" + orderBy(pageable.getSort())
+                + " limit " + pageable.getPageSize() + " offset " + pageable.getOffset();
+        Mono<List<MemberDto>> content = query(sql, ReactiveMemberRepository::toDto).collectList();
+        Mono<Long> total = query("select count(*) from member", row -> row.get(0, Long.class)).next();
+        return Mono.zip(content, total, (members, count) -> new PageImpl<>(members, pageable, count));
+    }
+
+    public Mono<MemberDto> findById(Long id) {
+        return Flux.usingWhen(pool.create(),
+                connection -> Flux.from(connection.createStatement("select member_id, username from member where member_id = $1")
+                        .bind("$1", id).execute())
+                        .flatMap(result -> result.map((row, metadata) -> toDto(row))),
+                Connection::close).subscribeOn(Schedulers.boundedElastic()).next();
+    }
+
+    /**
+     * 전체 회원을 id 순서로 흘려보낸다. 구독자가 요청한 만큼만(prefetch 단위) 읽는다.
+     */
+    public Flux<MemberDto> streamAll() {
+        return query("select member_id, username from member order by member_id", ReactiveMemberRepository::toDto)
+                .limitRate(streamPrefetch);
+    }
+
+    @Override
+    public void destroy() {
+        pool.dispose();
+    }
+
+    private <T> Flux<T> query(String sql, Function<Row, T> mapper) {
+        return Flux.usingWhen(pool.create(),
+                connection -> Flux.from(connection.createStatement(sql).execute())
+                        .flatMap(result -> result.map((row, metadata) -> mapper.apply(row))),
+                Connection::close).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static MemberDto toDto(Row row) {
+        return new MemberDto(row.get("member_id", Long.class), row.get("username", String.class), null);
+    }
+
+    private static String orderBy(Sort sort) {
+        if (sort.isUnsorted()) {
+            return "";
+        }
+        StringBuilder orderBy = new StringBuilder(" order by ");
+        for (Sort.Order order : sort) {
+            String column = SORT_COLUMNS.get(order.getProperty());
+            if (column == null) {
+                throw new IllegalArgumentException("unsupported sort " + order.getProperty());
+            }
+            if (orderBy.length() > " order by ".length()) {
+                orderBy.append(", ");
+            }
+            orderBy.append(column).append(order.isAscending() ? " asc" : " desc");
+        }
+        return orderBy.toString();
+    }
+}
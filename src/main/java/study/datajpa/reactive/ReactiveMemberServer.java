@@ -0,0 +1,75 @@
+package study.datajpa.reactive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * ReactiveMemberHandler 를 서블릿 컨테이너와 별개의 Reactor Netty 서버로 띄운다. (datajpa.reactive.port)
+ * 애플리케이션은 서블릿 앱 그대로이고 WebFlux 자동 설정은 쓰지 않는다. JSON 은 MVC 와 같은 ObjectMapper 로 쓴다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "datajpa.reactive", name = "enabled", havingValue = "true")
+public class ReactiveMemberServer implements SmartLifecycle {
+    private final ReactiveMemberHandler handler;
+    private final ReactiveProperties properties;
+    private final ObjectMapper objectMapper;
+    private LoopResources loops;
+    private DisposableServer server;
+
+    public ReactiveMemberServer(ReactiveMemberHandler handler, ReactiveProperties properties, ObjectMapper objectMapper) {
+        this.handler = handler;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void start() {
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+        HttpHandler httpHandler = RouterFunctions.toHttpHandler(handler.routes(), strategies);
+        int threads = properties.getEventLoopThreads() > 0
+                ? properties.getEventLoopThreads() : Runtime.getRuntime().availableProcessors();
+        loops = LoopResources.create("reactive-members", threads, true);
+        server = HttpServer.create()
+                .port(properties.getPort())
+                .runOn(loops)
+                .handle(new ReactorHttpHandlerAdapter(httpHandler))
+                .bindNow();
+        log.info("reactive member server started on port {} ({} event loop threads)", server.port(), threads);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (server != null) {
+            server.disposeNow();
+            loops.dispose();
+            server = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return server != null;
+    }
+
+    public synchronized int getPort() {
+        return server.port();
+    }
+}
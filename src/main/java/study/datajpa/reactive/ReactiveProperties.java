@@ -0,0 +1,25 @@
+package study.datajpa.reactive;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * datajpa.reactive.*
+ * 서블릿(MemberController) 옆에서 별도 포트로 뜨는 WebFlux 조회 서버
+ * H2 는 블로킹 드라이버라서 DB 호출은 boundedElastic 스레드에서 한다. (ReactiveMemberRepository)
+ */
+@ConfigurationProperties(prefix = "datajpa.reactive")
+@Getter @Setter
+public class ReactiveProperties {
+    private boolean enabled = false;
+    /** 0 이면 임의 포트 */
+    private int port = 8081;
+    /** 이벤트 루프 스레드 수, 0 이면 코어 수 */
+    private int eventLoopThreads = 0;
+    /** R2DBC 커넥션 풀 */
+    private int poolInitialSize = 2;
+    private int poolMaxSize = 10;
+    /** 스트리밍 응답에서 DB 에 한 번에 요청하는 행 수 */
+    private int streamPrefetch = 256;
+}
@@ -0,0 +1,20 @@
+package study.datajpa.repository;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class ChunkIterationResult {
+    private final long elements;
+    private final long chunks;
+    private final long elapsedMillis;
+    private final long elementsPerSecond;
+
+    public ChunkIterationResult(long elements, long chunks, long elapsedMillis) {
+        this.elements = elements;
+        this.chunks = chunks;
+        this.elapsedMillis = elapsedMillis;
+        this.elementsPerSecond = elapsedMillis == 0 ? elements * 1000 : elements * 1000 / elapsedMillis;
+    }
+}
@@ -0,0 +1,26 @@
+package study.datajpa.repository;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * deleteInChunks 진행 상황 / 결과
+ */
+@Getter
+@ToString
+public class ChunkedDeleteResult {
+    private final long deleted;
+    private final long chunks;
+    /** 마지막으로 지운 회원 id, 중간에 실패하면 여기까지는 커밋됐다. */
+    private final Long lastId;
+    private final long elapsedMillis;
+    private final long deletedPerSecond;
+
+    public ChunkedDeleteResult(long deleted, long chunks, Long lastId, long elapsedMillis) {
+        this.deleted = deleted;
+        this.chunks = chunks;
+        this.lastId = lastId;
+        this.elapsedMillis = elapsedMillis;
+        this.deletedPerSecond = elapsedMillis == 0 ? deleted * 1000 : deleted * 1000 / elapsedMillis;
+    }
+}
@@ -5,6 +5,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import study.datajpa.domain.Member;
+import study.datajpa.event.EntityChange;
+import study.datajpa.event.EntityChangePublisher;
 
 import javax.persistence.EntityManager;
 import java.util.List;
@@ -14,6 +16,7 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class MemberJpaRepository {
     private final EntityManager em;
+    private final EntityChangePublisher changePublisher;
 
     public Member save(Member member){
         em.persist(member);
@@ -75,10 +78,14 @@ public class MemberJpaRepository {
     }
 
     public int bulkAgePlus(int age){
-        return em.createQuery("update Member m set m.age = m.age +1" +
-                        " where m.age >= :age")
+        // member 테이블만 바뀐 것으로 알려준다. (MemberRepository.bulkAgePlus 참고)
+        int updated = em.createNativeQuery("update member set age = age + 1" +
+                        " where age >= :age")
+                .setHint("org.hibernate.query.native.spaces", "member")
                 .setParameter("age", age)
                 .executeUpdate();
+        changePublisher.publish(EntityChange.bulk(EntityChange.Origin.QUERY, Member.class, "age", age, 1));
+        return updated;
     }
 
 }
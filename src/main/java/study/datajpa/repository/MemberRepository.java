@@ -7,14 +7,26 @@ import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.bloom.UsernameLookup;
+import study.datajpa.cache.CachedQuery;
 import study.datajpa.domain.Member;
+import study.datajpa.domain.Team;
 import study.datajpa.dto.MemberDto;
+import study.datajpa.event.BulkChange;
 
 import javax.persistence.LockModeType;
 import javax.persistence.QueryHint;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * 인터페이스에 선언한 쿼리 메서드는 기본으로 트랜잭션이 없다. (SimpleJpaRepository 의 readOnly 설정은 CRUD 메서드에만 적용)
+ * 인터페이스에 @Transactional(readOnly = true) 를 두면 모든 조회 쿼리가 읽기 전용 트랜잭션에서 실행된다.
+ * > Hibernate 세션이 defaultReadOnly + FlushMode.MANUAL 이 되어 스냅샷을 보관하지 않고 커밋시 플러시하지 않는다.
+ * 변경 쿼리(@Modifying)는 메서드에 @Transactional 을 따로 붙인다.
+ */
+@Transactional(readOnly = true)
 public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom, JpaSpecificationExecutor<Member> {
     List<Member> findByUsernameAndAgeGreaterThan(String username, int age);
 
@@ -30,12 +42,15 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     List<Member> findUser(@Param("username") String username, @Param("age") int age);
 
 //    단순히 값 하나 조회(값 타입 조회)
+    @CachedQuery
     @Query("select m.username from Member m")
     List<String> findUsernameList();
 
-    @Query("select new study.datajpa.dto.MemberDto(m.id,m.username,t.name) from Member m join Team t")
+    @CachedQuery(entities = Team.class)
+    @Query("select new study.datajpa.dto.MemberDto(m.id,m.username,t.name) from Member m join m.team t")
     List<MemberDto> findMemberDto();
 
+    @UsernameLookup
     @Query("select m from Member m where m.username = :username")
     Member findMembers(@Param("username") String username);
 
@@ -47,6 +62,7 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
      * return collection > empty()
      * return Object > 단건, null, NonUniqueResultException
      */
+    @UsernameLookup
     List<Member> findByUsername(String username);
 //    Member findByUsername(String username);
 //    Optional<Member> findByUsername(String username);
@@ -61,8 +77,9 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
      * List<Member> findTop3By();
      * Slice는 Limit+1을 조회 무한스크롤링 페이지 구현시 다음페이지 있는지 확인여부
      *
-     *
+     * 결과 캐시: age 가 같은 회원이 바뀔 때만 무효화 (@CachedQuery keyAttribute)
      */
+    @CachedQuery(keyAttribute = "age")
     Page<Member> findByAge(int age, Pageable pageable);
 //    Page<Member> findByUsername(String name, Pageable pageable); //count query o
 //    Slice<Member> findByUsernmae(String name, Pageable pageable); // x
@@ -91,9 +108,18 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
      * > 권장하는 방안
      * > 1. 영속성 컨텍스트에 엔티티가 없는 상태에서 벌크 연산을 먼저 실행한다.
      * > 2. 부득이하게 영속성 컨텍스트에 엔티티가 있으면 벌크 연산 직후 영속성 컨텍스트를 초기화 한다.
+     *
+     * @BulkChange: 쿼리 결과 캐시는 age >= :age 인 결과만 무효화한다. 팀 통계는 바뀐 행만 구간을 옮긴다. (increment)
+     *
+     * 네이티브 쿼리 + org.hibernate.query.native.spaces: JPQL 벌크 update 는 member 테이블을 쓰는 엔티티를 모두 건드린 것으로 보고
+     * 읽기 전용 뷰(@Immutable MemberIncludingArchived)까지 바꿨다고 경고(HHH000487)한다. member 테이블만 바뀐 것으로 알려준다.
+     * (2차 캐시는 member 테이블을 쓰는 엔티티 영역만 비운다)
      */
+    @Transactional
+    @BulkChange(attribute = "age", increment = 1)
     @Modifying
-    @Query("update Member m set m.age = m.age +1 where m.age >= :age")
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "member"))
+    @Query(value = "update member set age = age + 1 where age >= :age", nativeQuery = true)
     int bulkAgePlus(@Param("age") int age);
 
     @Query("select m from Member m left join fetch m.team")
@@ -142,6 +168,12 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
 
     <T> List<T> findProjectionsByUsername(String username, Class<T> type);
 
+    /**
+     * 중첩 닫힌 프로젝션은 참조하는 컬럼만 조회 (FlatProjectionRepositoryInterceptor)
+     */
+    @Query("select m from Member m where m.username = :username")
+    <T> List<T> findProjectionsByQuery(@Param("username") String username, Class<T> type);
+
     /**
      * JPQL은 위치 기반 파리미터를 1부터 시작하지만 네이티브 SQL은 0부터 시작
      * 네이티브 SQL을 엔티티가 아닌 DTO로 변환은 하려면
@@ -1,9 +1,37 @@
 package study.datajpa.repository;
 
+import org.springframework.data.jpa.domain.Specification;
 import study.datajpa.domain.Member;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface MemberRepositoryCustom {
     List<Member> findMemberCustom();
+
+    /**
+     * 조건에 맞는 회원 전체를 chunkSize 단위로 consumer 에 넘긴다.
+     * forward-only 커서로 읽고 청크마다 영속성 컨텍스트를 flush/clear 하므로 전체 건수와 상관없이 메모리 사용량이 일정하다.
+     * consumer 가 받는 엔티티는 준영속 상태다. 연관 엔티티가 필요하면 spec 에서 fetch 조인한다.
+     * 진행중인 트랜잭션 안에서 호출하면 그 트랜잭션의 영속성 컨텍스트도 비워진다. chunkSize 는 1 이상.
+     */
+    ChunkIterationResult forEachChunk(Specification<Member> spec, int chunkSize, Consumer<List<Member>> consumer);
+
+    /**
+     * parallelism 개의 작업 스레드에 청크를 나눠준다. 대기중인 청크는 parallelism 개로 제한된다.
+     */
+    ChunkIterationResult forEachChunk(Specification<Member> spec, int chunkSize, int parallelism, Consumer<List<Member>> consumer);
+
+    /**
+     * spec 에 맞는 회원을 id 순서로 chunkSize 개씩, 청크마다 별도 트랜잭션으로 삭제한다.
+     * 엔티티를 읽지 않고 id 범위(id > 이전 청크의 마지막 id)로 잠가서 JDBC 로 지운다.
+     * 같은 트랜잭션에서 회원 DELETE 변경을 발행하고(팀 요약, 검색 색인, 조회 캐시), 커밋 후 2차 캐시의 회원과 Team.members 를 지운다.
+     * 청크 사이에 pause 만큼 쉬고, 청크마다 진행 상황을 progress 에 넘긴다. 이미 커밋한 청크는 실패해도 되돌리지 않는다.
+     * chunkSize 는 1 이상.
+     */
+    ChunkedDeleteResult deleteInChunks(Specification<Member> spec, int chunkSize, Duration pause,
+                                       Consumer<ChunkedDeleteResult> progress);
+
+    ChunkedDeleteResult deleteInChunks(Specification<Member> spec, int chunkSize);
 }
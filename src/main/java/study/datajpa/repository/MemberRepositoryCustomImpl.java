@@ -1,18 +1,281 @@
 package study.datajpa.repository;
 
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import study.datajpa.domain.Member;
+import study.datajpa.domain.Team;
+import study.datajpa.event.EntityChange;
+import study.datajpa.event.EntityChangePublisher;
 
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
-@RequiredArgsConstructor
+@Slf4j
 public class MemberRepositoryCustomImpl implements MemberRepositoryCustom{
+    private static final String DELETE_MEMBER = "delete from member where member_id = ?";
+
     private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate chunkTransaction;
+    /** 리파지토리 슬라이스 테스트(@DataJpaTest)에는 없다. */
+    private final ObjectProvider<EntityChangePublisher> changePublisher;
+
+    public MemberRepositoryCustomImpl(EntityManager em, JdbcTemplate jdbcTemplate,
+                                      PlatformTransactionManager transactionManager,
+                                      ObjectProvider<EntityChangePublisher> changePublisher) {
+        this.em = em;
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.changePublisher = changePublisher;
+    }
 
     @Override
     public List<Member> findMemberCustom() {
         return em.createQuery("select m from Member m")
                 .getResultList();
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ChunkIterationResult forEachChunk(Specification<Member> spec, int chunkSize, Consumer<List<Member>> consumer) {
+        return forEachChunk(spec, chunkSize, 1, consumer);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ChunkIterationResult forEachChunk(Specification<Member> spec, int chunkSize, int parallelism, Consumer<List<Member>> consumer) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        long start = System.nanoTime();
+        long elements = 0;
+        long chunks = 0;
+
+        ExecutorService executor = parallelism > 1 ? Executors.newFixedThreadPool(parallelism) : null;
+        Semaphore inFlight = new Semaphore(parallelism);
+        List<Future<?>> futures = new ArrayList<>();
+        ScrollableResults results = scroll(spec, chunkSize);
+        try {
+            List<Member> chunk = new ArrayList<>(chunkSize);
+            while (results.next()) {
+                chunk.add((Member) results.get(0));
+                if (chunk.size() == chunkSize) {
+                    dispatch(chunk, consumer, executor, inFlight, futures);
+                    elements += chunk.size();
+                    chunks++;
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                dispatch(chunk, consumer, executor, inFlight, futures);
+                elements += chunk.size();
+                chunks++;
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("chunk iteration interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("chunk consumer failed", e.getCause());
+        } finally {
+            results.close();
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+
+        ChunkIterationResult result = new ChunkIterationResult(elements, chunks, (System.nanoTime() - start) / 1_000_000);
+        log.info("forEachChunk {}", result);
+        return result;
+    }
+
+    private ScrollableResults scroll(Specification<Member> spec, int chunkSize) {
+        CriteriaBuilder builder = em.getCriteriaBuilder();
+        CriteriaQuery<Member> query = builder.createQuery(Member.class);
+        Root<Member> root = query.from(Member.class);
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, builder);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        return em.createQuery(query)
+                .unwrap(org.hibernate.query.Query.class)
+                .setFetchSize(chunkSize)
+                .setReadOnly(true)
+                .setCacheMode(CacheMode.IGNORE)
+                .scroll(ScrollMode.FORWARD_ONLY);
+    }
+
+    private void dispatch(List<Member> chunk, Consumer<List<Member>> consumer,
+                          ExecutorService executor, Semaphore inFlight, List<Future<?>> futures)
+            throws InterruptedException, ExecutionException {
+        // 청크를 넘기기 전에 비워야 다른 스레드에서 세션을 건드리지 않는다.
+        // detach 는 청크의 회원만 분리하므로 fetch 조인/지연 로딩한 팀과 컬렉션이 청크마다 쌓인다.
+        em.flush();
+        em.clear();
+        if (executor == null) {
+            consumer.accept(chunk);
+            return;
+        }
+
+        inFlight.acquire();
+        futures.add(executor.submit(() -> {
+            try {
+                consumer.accept(chunk);
+            } finally {
+                inFlight.release();
+            }
+        }));
+        for (int i = futures.size() - 1; i >= 0; i--) {
+            if (futures.get(i).isDone()) {
+                futures.remove(i).get();
+            }
+        }
+    }
+
+    @Override
+    public ChunkedDeleteResult deleteInChunks(Specification<Member> spec, int chunkSize) {
+        return deleteInChunks(spec, chunkSize, Duration.ZERO, result -> { });
+    }
+
+    @Override
+    public ChunkedDeleteResult deleteInChunks(Specification<Member> spec, int chunkSize, Duration pause,
+                                              Consumer<ChunkedDeleteResult> progress) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        long start = System.nanoTime();
+        long deleted = 0;
+        long chunks = 0;
+        Long lastId = null;
+        while (true) {
+            List<Tuple> chunk = deleteChunk(spec, lastId, chunkSize);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            deleted += chunk.size();
+            chunks++;
+            lastId = chunk.get(chunk.size() - 1).get(0, Long.class);
+            progress.accept(new ChunkedDeleteResult(deleted, chunks, lastId, (System.nanoTime() - start) / 1_000_000));
+            if (chunk.size() < chunkSize) {
+                break;
+            }
+            if (!pause.isZero()) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(pause.toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("chunked delete interrupted after id " + lastId, e);
+                }
+            }
+        }
+
+        ChunkedDeleteResult result = new ChunkedDeleteResult(deleted, chunks, lastId, (System.nanoTime() - start) / 1_000_000);
+        log.info("deleteInChunks {}", result);
+        return result;
+    }
+
+    /**
+     * @return 지운 회원 (id, username, age, team id, createdDate, updatedDate), id 순서
+     */
+    private List<Tuple> deleteChunk(Specification<Member> spec, Long afterId, int chunkSize) {
+        List<Tuple> chunk = chunkTransaction.execute(status -> {
+            List<Tuple> rows = selectChunk(spec, afterId, chunkSize);
+            if (rows.isEmpty()) {
+                return rows;
+            }
+            List<Object[]> ids = new ArrayList<>(rows.size());
+            rows.forEach(row -> ids.add(new Object[]{row.get(0)}));
+            jdbcTemplate.batchUpdate(DELETE_MEMBER, ids);
+            EntityChangePublisher publisher = changePublisher.getIfAvailable();
+            if (publisher != null) {
+                rows.forEach(row -> publisher.publish(EntityChange.deleted(EntityChange.Origin.JDBC, Member.class,
+                        row.get(0), state(row))));
+            }
+            return rows;
+        });
+        evictSecondLevelCache(chunk);
+        return chunk;
+    }
+
+    private static Map<String, Object> state(Tuple row) {
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("username", row.get(1));
+        state.put("age", row.get(2));
+        state.put("team", row.get(3));
+        state.put("createdDate", row.get(4));
+        state.put("updatedDate", row.get(5));
+        return state;
+    }
+
+    private List<Tuple> selectChunk(Specification<Member> spec, Long afterId, int chunkSize) {
+        CriteriaBuilder builder = em.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<Member> root = query.from(Member.class);
+        query.multiselect(root.get("id"), root.get("username"), root.get("age"), root.get("team").get("id"),
+                root.get("createdDate"), root.get("updatedDate"));
+        List<Predicate> predicates = new ArrayList<>();
+        if (afterId != null) {
+            predicates.add(builder.greaterThan(root.get("id"), afterId));
+        }
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, builder);
+            if (predicate != null) {
+                predicates.add(predicate);
+            }
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+        query.orderBy(builder.asc(root.get("id")));
+        // 고른 뒤 지우기 전에 다른 트랜잭션이 조건을 바꾸지 못하게 잠근다.
+        return em.createQuery(query)
+                .setMaxResults(chunkSize)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+    }
+
+    private void evictSecondLevelCache(List<Tuple> chunk) {
+        Cache cache = em.getEntityManagerFactory().getCache().unwrap(Cache.class);
+        Set<Long> teamIds = new HashSet<>();
+        for (Tuple row : chunk) {
+            cache.evictEntityData(Member.class, row.get(0, Long.class));
+            Long teamId = row.get(3, Long.class);
+            if (teamId != null) {
+                teamIds.add(teamId);
+            }
+        }
+        teamIds.forEach(teamId -> cache.evictCollectionData(Team.class.getName() + ".members", teamId));
+    }
 }
@@ -4,6 +4,7 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.util.StringUtils;
 import study.datajpa.domain.Member;
 import study.datajpa.domain.Team;
+import study.datajpa.search.UsernameSearch;
 
 import javax.persistence.criteria.Join;
 import javax.persistence.criteria.JoinType;
@@ -22,4 +23,16 @@ public class MemberSpec {
         return (Specification<Member>) (root, query, builder) ->
                 builder.equal(root.get("username"), username);
     }
+
+    /**
+     * username 부분/접두사 검색, 대소문자 무시 (트라이그램 인덱스로 후보를 좁힌다)
+     * 예제: MemberSpec.usernameContains(usernameSearch, "kim").and(MemberSpec.teamName("teamA"))
+     */
+    public static Specification<Member> usernameContains(UsernameSearch search, String text) {
+        return search.spec(text, UsernameSearch.Mode.CONTAINS);
+    }
+
+    public static Specification<Member> usernameStartsWith(UsernameSearch search, String text) {
+        return search.spec(text, UsernameSearch.Mode.PREFIX);
+    }
 }
@@ -1,7 +1,9 @@
 package study.datajpa.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.domain.Team;
 
-public interface TeamRepository extends JpaRepository<Team,Long> {
+@Transactional(readOnly = true)
+public interface TeamRepository extends JpaRepository<Team,Long>, TeamRepositoryCustom {
 }
@@ -0,0 +1,18 @@
+package study.datajpa.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import study.datajpa.domain.Team;
+
+public interface TeamRepositoryCustom {
+
+    /**
+     * 팀 한 페이지와 각 팀의 회원 전체
+     * 팀 id 페이지를 먼저 limit 으로 읽고, 그 팀들만 회원과 함께 한 번에 읽는다. (CollectionGraphPaging)
+     * members 를 fetch join 해서 페이징하면 전체 팀/회원을 읽고 메모리에서 자른다.
+     */
+    Page<Team> findAllWithMembers(Pageable pageable);
+
+    Page<Team> findAllWithMembers(Specification<Team> spec, Pageable pageable);
+}
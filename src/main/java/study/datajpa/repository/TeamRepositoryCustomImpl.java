@@ -0,0 +1,30 @@
+package study.datajpa.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.domain.Team;
+import study.datajpa.repository.support.CollectionGraphPaging;
+
+import javax.persistence.EntityManager;
+
+public class TeamRepositoryCustomImpl implements TeamRepositoryCustom {
+    private final CollectionGraphPaging paging;
+
+    public TeamRepositoryCustomImpl(EntityManager em) {
+        this.paging = new CollectionGraphPaging(em);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Team> findAllWithMembers(Pageable pageable) {
+        return findAllWithMembers(null, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Team> findAllWithMembers(Specification<Team> spec, Pageable pageable) {
+        return paging.findPage(Team.class, spec, pageable, "members");
+    }
+}
@@ -0,0 +1,137 @@
+package study.datajpa.repository.support;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.lang.Nullable;
+
+import javax.persistence.EntityGraph;
+import javax.persistence.EntityManager;
+import javax.persistence.Subgraph;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 컬렉션 연관관계까지 같이 읽는 페이징 (2단계)
+ *
+ * 컬렉션 fetch join + 페이징은 하이버네이트가 limit 없이 전체 행을 읽고 메모리에서 자른다. (HHH000104)
+ * 1) 루트 id 만 정렬/limit 으로 한 페이지 조회
+ * 2) 그 id 들만 엔티티 그래프(attributePaths)로 한 번에 조회: where id in (:ids)
+ * 3) 1) 의 순서대로 다시 정렬
+ *
+ * 정렬은 루트 속성(또는 ToOne 경로)만 쓴다. 같은 값이면 id 순서로 고정한다.
+ * spec 은 루트 행 수를 늘리는 조인(컬렉션 조인) 대신 서브쿼리(exists)를 쓴다.
+ */
+public class CollectionGraphPaging {
+    private static final String FETCH_GRAPH = "javax.persistence.fetchgraph";
+    private static final String PASS_DISTINCT_THROUGH = "hibernate.query.passDistinctThrough";
+
+    private final EntityManager em;
+
+    public CollectionGraphPaging(EntityManager em) {
+        this.em = em;
+    }
+
+    public <T> Page<T> findPage(Class<T> domainType, @Nullable Specification<T> spec, Pageable pageable,
+                                String... attributePaths) {
+        JpaEntityInformation<T, ?> information = JpaEntityInformationSupport.getEntityInformation(domainType, em);
+        String idName = information.getRequiredIdAttribute().getName();
+
+        List<Object> ids = findIds(domainType, idName, spec, pageable);
+        List<T> content = ids.isEmpty() ? Collections.emptyList() : fetchGraph(domainType, information, idName, ids, attributePaths);
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(domainType, spec));
+    }
+
+    private <T> List<Object> findIds(Class<T> domainType, String idName, @Nullable Specification<T> spec, Pageable pageable) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Object> query = cb.createQuery(Object.class);
+        Root<T> root = query.from(domainType);
+        query.select(root.get(idName));
+        if (spec != null) {
+            query.where(spec.toPredicate(root, query, cb));
+        }
+        Sort sort = pageable.getSort();
+        List<Order> orders = new ArrayList<>(QueryUtils.toOrders(sort, root, cb));
+        if (sort.getOrderFor(idName) == null) {
+            orders.add(cb.asc(root.get(idName)));
+        }
+        query.orderBy(orders);
+
+        TypedQuery<Object> typedQuery = em.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        return typedQuery.getResultList();
+    }
+
+    private <T> List<T> fetchGraph(Class<T> domainType, JpaEntityInformation<T, ?> information, String idName,
+                                   List<Object> ids, String... attributePaths) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(domainType);
+        Root<T> root = query.from(domainType);
+        query.select(root).distinct(true).where(root.get(idName).in(ids));
+
+        List<T> fetched = em.createQuery(query)
+                .setHint(FETCH_GRAPH, entityGraph(domainType, attributePaths))
+                .setHint(PASS_DISTINCT_THROUGH, false)
+                .getResultList();
+
+        Map<Object, T> byId = new HashMap<>();
+        for (T entity : fetched) {
+            byId.put(information.getId(entity), entity);
+        }
+        List<T> ordered = new ArrayList<>(ids.size());
+        for (Object id : ids) {
+            T entity = byId.get(id);
+            if (entity != null) {
+                ordered.add(entity);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * "members", "members.team" 같은 경로로 엔티티 그래프를 만든다.
+     */
+    private <T> EntityGraph<T> entityGraph(Class<T> domainType, String... attributePaths) {
+        EntityGraph<T> graph = em.createEntityGraph(domainType);
+        for (String path : attributePaths) {
+            String[] names = path.split("\\.");
+            if (names.length == 1) {
+                graph.addAttributeNodes(names[0]);
+                continue;
+            }
+            Subgraph<Object> subgraph = graph.addSubgraph(names[0]);
+            for (int i = 1; i < names.length - 1; i++) {
+                subgraph = subgraph.addSubgraph(names[i]);
+            }
+            subgraph.addAttributeNodes(names[names.length - 1]);
+        }
+        return graph;
+    }
+
+    private <T> long count(Class<T> domainType, @Nullable Specification<T> spec) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<T> root = query.from(domainType);
+        query.select(cb.count(root));
+        if (spec != null) {
+            query.where(spec.toPredicate(root, query, cb));
+        }
+        return em.createQuery(query).getSingleResult();
+    }
+}
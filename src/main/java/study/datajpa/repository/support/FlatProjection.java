@@ -0,0 +1,195 @@
+package study.datajpa.repository.support;
+
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.ProjectionInformation;
+import org.springframework.lang.Nullable;
+
+import javax.persistence.Tuple;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.IdentifiableType;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.SingularAttribute;
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 중첩된 닫힌(closed) 인터페이스 프로젝션이 읽는 컬럼만 모은 것
+ *
+ * NestedCloseProjection { getUsername(); getTeam() { getName(); } }
+ * > select m.username, t.name, t.id from Member m left join m.team t
+ * 한 행(Tuple)을 중첩 Map 으로 바꿔서 ProjectionFactory 로 프로젝션을 만든다.
+ * 연관 엔티티 id 를 같이 읽어서 연관관계가 없으면(left join 결과 null) 중첩 프로젝션도 null 이다.
+ *
+ * 열린(SpEL) 프로젝션, 컬렉션, 임베디드, 중첩 프로젝션이 없는 경우(스프링 데이터가 이미 컬럼만 조회)는 만들지 않는다.
+ */
+class FlatProjection {
+    private final Class<?> projectionType;
+    private final Node root;
+    private final List<Column> columns = new ArrayList<>();
+    private final List<Join> joins = new ArrayList<>();
+
+    private FlatProjection(Class<?> projectionType, Node root) {
+        this.projectionType = projectionType;
+        this.root = root;
+        collect(root, null);
+    }
+
+    /**
+     * @return 평평하게 만들 수 없으면 null
+     */
+    @Nullable
+    static FlatProjection analyze(ProjectionFactory factory, ManagedType<?> domainType, Class<?> projectionType) {
+        if (!projectionType.isInterface()) {
+            return null;
+        }
+        Node root = node(factory, domainType, projectionType, null);
+        if (root == null || root.children.isEmpty()) {
+            return null;
+        }
+        return new FlatProjection(projectionType, root);
+    }
+
+    @Nullable
+    private static Node node(ProjectionFactory factory, ManagedType<?> managedType, Class<?> projectionType,
+                             @Nullable String attribute) {
+        ProjectionInformation information = factory.getProjectionInformation(projectionType);
+        if (!information.isClosed()) {
+            return null;
+        }
+        Node node = new Node(attribute);
+        for (PropertyDescriptor property : information.getInputProperties()) {
+            Attribute<?, ?> target;
+            try {
+                target = managedType.getAttribute(property.getName());
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+            if (target.isCollection() || !(target instanceof SingularAttribute)) {
+                return null;
+            }
+            SingularAttribute<?, ?> singular = (SingularAttribute<?, ?>) target;
+            if (target.getPersistentAttributeType() == Attribute.PersistentAttributeType.BASIC) {
+                node.leaves.add(property.getName());
+            } else if (target.isAssociation() && property.getPropertyType().isInterface()
+                    && singular.getType() instanceof IdentifiableType) {
+                Node child = node(factory, (ManagedType<?>) singular.getType(), property.getPropertyType(), property.getName());
+                if (child == null) {
+                    return null;
+                }
+                node.children.add(child);
+            } else {
+                return null;
+            }
+        }
+        if (attribute != null) {
+            node.idAttribute = managedType.getSingularAttributes().stream()
+                    .filter(SingularAttribute::isId)
+                    .map(Attribute::getName)
+                    .findFirst().orElse(null);
+            if (node.idAttribute == null) {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    private void collect(Node node, @Nullable Join parent) {
+        Join join = parent;
+        if (node.attribute != null) {
+            join = new Join(joins.size(), parent, node.attribute);
+            joins.add(join);
+            node.idColumn = columns.size();
+            columns.add(new Column(columns.size(), join, node.idAttribute));
+        }
+        for (String leaf : node.leaves) {
+            node.leafColumns.add(columns.size());
+            columns.add(new Column(columns.size(), join, leaf));
+        }
+        for (Node child : node.children) {
+            collect(child, join);
+        }
+    }
+
+    Class<?> getProjectionType() {
+        return projectionType;
+    }
+
+    /**
+     * 루트부터의 순서, 부모 조인이 먼저 온다.
+     */
+    List<Join> getJoins() {
+        return joins;
+    }
+
+    List<Column> getColumns() {
+        return columns;
+    }
+
+    Object toProjection(ProjectionFactory factory, Tuple tuple) {
+        return factory.createProjection(projectionType, toMap(root, tuple));
+    }
+
+    @Nullable
+    private Map<String, Object> toMap(Node node, Tuple tuple) {
+        if (node.attribute != null && tuple.get(node.idColumn) == null) {
+            return null;
+        }
+        Map<String, Object> values = new HashMap<>();
+        for (int i = 0; i < node.leaves.size(); i++) {
+            values.put(node.leaves.get(i), tuple.get(node.leafColumns.get(i)));
+        }
+        for (Node child : node.children) {
+            values.put(child.attribute, toMap(child, tuple));
+        }
+        return values;
+    }
+
+    /**
+     * left join, parent 가 null 이면 루트에서
+     */
+    static class Join {
+        final int index;
+        @Nullable
+        final Join parent;
+        final String attribute;
+
+        Join(int index, @Nullable Join parent, String attribute) {
+            this.index = index;
+            this.parent = parent;
+            this.attribute = attribute;
+        }
+    }
+
+    /**
+     * join 이 null 이면 루트의 속성
+     */
+    static class Column {
+        final int index;
+        @Nullable
+        final Join join;
+        final String attribute;
+
+        Column(int index, @Nullable Join join, String attribute) {
+            this.index = index;
+            this.join = join;
+            this.attribute = attribute;
+        }
+    }
+
+    private static class Node {
+        @Nullable
+        final String attribute;
+        final List<String> leaves = new ArrayList<>();
+        final List<Integer> leafColumns = new ArrayList<>();
+        final List<Node> children = new ArrayList<>();
+        String idAttribute;
+        int idColumn;
+
+        Node(@Nullable String attribute) {
+            this.attribute = attribute;
+        }
+    }
+}
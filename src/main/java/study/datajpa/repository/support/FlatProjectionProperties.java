@@ -0,0 +1,15 @@
+package study.datajpa.repository.support;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * datajpa.jpa.flat-projection.*
+ */
+@ConfigurationProperties(prefix = "datajpa.jpa.flat-projection")
+@Getter @Setter
+public class FlatProjectionProperties {
+    /** false 면 스프링 데이터 기본 동작 (중첩 프로젝션의 연관 엔티티 전체 조회) */
+    private boolean enabled = true;
+}
@@ -0,0 +1,423 @@
+package study.datajpa.repository.support;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
+import org.springframework.data.jpa.repository.query.JpaParameters;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.mapping.PropertyPath;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.From;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import javax.persistence.metamodel.ManagedType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.BaseStream;
+
+/**
+ * 중첩된 닫힌 인터페이스 프로젝션을 반환하는 쿼리 메서드를 읽는 컬럼만 조회하도록 바꾼다. (FlatProjection)
+ *
+ * 스프링 데이터는 루트의 컬럼만 고르고, 중첩 프로젝션(getTeam().getName())은 연관 엔티티 전체를 조인해서 읽는다.
+ * - 메서드 이름 쿼리: PartTree 로 criteria tuple 쿼리를 만든다.
+ * - @Query (JPQL): "select m from Member m ..." 형태의 select 절을 컬럼 목록 + left join 으로 바꾼다.
+ * 바꿀 수 없는 경우(네이티브/네임드 쿼리, 페이징/정렬 파라미터, 대소문자 무시 조건, fetch join, SpEL ...)는 그대로 실행한다.
+ *
+ * 끄기: datajpa.jpa.flat-projection.enabled=false
+ */
+@Component
+public class FlatProjectionRepositoryInterceptor implements RepositoryInterceptorFactory {
+    private static final Pattern ROOT_SELECT = Pattern.compile(
+            "^\\s*select\\s+(\\w+)\\s+from\\s+([\\w.]+)\\s+(?:as\\s+)?(\\w+)(\\s.*)?$",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern UNSUPPORTED_JPQL = Pattern.compile(
+            "\\bfetch\\b|#\\{|%[:?]|:[\\w]+%|\\?\\d+%|\\bgroup\\s+by\\b", Pattern.CASE_INSENSITIVE);
+    private static final Set<Part.Type> SUPPORTED_PARTS = EnumSet.of(
+            Part.Type.SIMPLE_PROPERTY, Part.Type.NEGATING_SIMPLE_PROPERTY,
+            Part.Type.GREATER_THAN, Part.Type.GREATER_THAN_EQUAL, Part.Type.LESS_THAN, Part.Type.LESS_THAN_EQUAL,
+            Part.Type.BETWEEN, Part.Type.IS_NULL, Part.Type.IS_NOT_NULL, Part.Type.TRUE, Part.Type.FALSE,
+            Part.Type.LIKE, Part.Type.NOT_LIKE, Part.Type.STARTING_WITH, Part.Type.ENDING_WITH, Part.Type.CONTAINING,
+            Part.Type.IN, Part.Type.NOT_IN);
+
+    private final EntityManager em;
+    private final EntityManagerFactory emf;
+    private final FlatProjectionProperties properties;
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
+    public FlatProjectionRepositoryInterceptor(EntityManager em, EntityManagerFactory emf, FlatProjectionProperties properties) {
+        this.em = em;
+        this.emf = emf;
+        this.properties = properties;
+    }
+
+    @Override
+    public MethodInterceptor forRepository(RepositoryInformation repository) {
+        Map<Method, FlatQuery> queries = new HashMap<>();
+        for (Method method : repository.getQueryMethods()) {
+            FlatQuery query = flatQuery(method, repository.getDomainType());
+            if (query != null) {
+                queries.put(method, query);
+            }
+        }
+        if (queries.isEmpty()) {
+            return null;
+        }
+        return invocation -> {
+            FlatQuery query = queries.get(invocation.getMethod());
+            if (query == null || !properties.isEnabled()) {
+                return invocation.proceed();
+            }
+            Prepared prepared = query.prepare(invocation.getArguments());
+            if (prepared == null) {
+                return invocation.proceed();
+            }
+            return query.execute(prepared, invocation.getArguments());
+        };
+    }
+
+    @Nullable
+    private FlatQuery flatQuery(Method method, Class<?> domainType) {
+        Class<?> returnType = method.getReturnType();
+        ResultKind resultKind;
+        if (returnType.isAssignableFrom(ArrayList.class)) {
+            resultKind = ResultKind.LIST;
+        } else if (returnType == Optional.class) {
+            resultKind = ResultKind.OPTIONAL;
+        } else if (returnType.isInterface() && !Iterable.class.isAssignableFrom(returnType)
+                && !BaseStream.class.isAssignableFrom(returnType) || returnType == Object.class) {
+            resultKind = ResultKind.SINGLE;
+        } else {
+            return null;
+        }
+        JpaParameters parameters = new JpaParameters(method);
+        if (parameters.hasPageableParameter() || parameters.hasSortParameter()) {
+            return null;
+        }
+
+        Query query = AnnotatedElementUtils.findMergedAnnotation(method, Query.class);
+        if (query != null) {
+            Matcher select = ROOT_SELECT.matcher(query.value());
+            if (query.nativeQuery() || !select.matches() || !select.group(1).equals(select.group(3))
+                    || select.group(4) != null && UNSUPPORTED_JPQL.matcher(select.group(4)).find()) {
+                return null;
+            }
+            return new FlatQuery(method, domainType, parameters, resultKind, null,
+                    new RootSelect(select.group(2), select.group(3), select.group(4) == null ? "" : select.group(4)));
+        }
+        PartTree tree;
+        try {
+            tree = new PartTree(method.getName(), domainType);
+        } catch (RuntimeException e) {
+            return null;
+        }
+        if (tree.isCountProjection() || tree.isExistsProjection() || tree.isDelete()) {
+            return null;
+        }
+        for (Part part : tree.getParts()) {
+            if (!SUPPORTED_PARTS.contains(part.getType()) || part.shouldIgnoreCase() != Part.IgnoreCaseType.NEVER) {
+                return null;
+            }
+        }
+        return new FlatQuery(method, domainType, parameters, resultKind, tree, null);
+    }
+
+    private enum ResultKind {LIST, OPTIONAL, SINGLE}
+
+    /**
+     * @Query 의 "select m from Member m ..." (rest: from 절의 나머지)
+     */
+    private static class RootSelect {
+        final String entity;
+        final String alias;
+        final String rest;
+
+        RootSelect(String entity, String alias, String rest) {
+            this.entity = entity;
+            this.alias = alias;
+            this.rest = rest;
+        }
+    }
+
+    /**
+     * 프로젝션 타입별 분석 결과 (@Query 는 바꾼 JPQL 까지)
+     */
+    private static class Prepared {
+        final FlatProjection projection;
+        @Nullable
+        final String jpql;
+
+        Prepared(FlatProjection projection, @Nullable String jpql) {
+            this.projection = projection;
+            this.jpql = jpql;
+        }
+    }
+
+    /**
+     * 쿼리 메서드 하나
+     */
+    private class FlatQuery {
+        final Method method;
+        final Class<?> domainType;
+        final JpaParameters parameters;
+        final ResultKind resultKind;
+        @Nullable
+        final PartTree tree;
+        @Nullable
+        final RootSelect select;
+        final Map<Class<?>, Optional<Prepared>> prepared = new ConcurrentHashMap<>();
+        volatile Boolean namedQuery;
+
+        private FlatQuery(Method method, Class<?> domainType, JpaParameters parameters, ResultKind resultKind,
+                          @Nullable PartTree tree, @Nullable RootSelect select) {
+            this.method = method;
+            this.domainType = domainType;
+            this.parameters = parameters;
+            this.resultKind = resultKind;
+            this.tree = tree;
+            this.select = select;
+        }
+
+        @Nullable
+        Prepared prepare(Object[] args) {
+            Class<?> projectionType = projectionType(args);
+            if (projectionType == null || isNamedQuery()) {
+                return null;
+            }
+            return prepared.computeIfAbsent(projectionType, type -> {
+                ManagedType<?> managedType = emf.getMetamodel().managedType(domainType);
+                FlatProjection projection = FlatProjection.analyze(projectionFactory, managedType, type);
+                if (projection == null) {
+                    return Optional.empty();
+                }
+                if (select != null && !select.entity.equals(entityName()) && !select.entity.equals(domainType.getName())) {
+                    return Optional.empty();
+                }
+                return Optional.of(new Prepared(projection, select == null ? null : jpql(projection)));
+            }).orElse(null);
+        }
+
+        @Nullable
+        private Class<?> projectionType(Object[] args) {
+            if (parameters.hasDynamicProjection()) {
+                Object type = args[parameters.getDynamicProjectionIndex()];
+                return type instanceof Class ? (Class<?>) type : null;
+            }
+            ResolvableType returnType = ResolvableType.forMethodReturnType(method);
+            return resultKind == ResultKind.SINGLE ? returnType.resolve() : returnType.resolveGeneric(0);
+        }
+
+        /**
+         * 메서드 이름 쿼리보다 @NamedQuery(Member.findByUsername) 가 먼저 쓰인다.
+         */
+        private boolean isNamedQuery() {
+            Boolean named = namedQuery;
+            if (named == null) {
+                named = select == null && emf.unwrap(SessionFactoryImplementor.class).getNamedQueryRepository()
+                        .getNamedQueryDefinition(entityName() + "." + method.getName()) != null;
+                namedQuery = named;
+            }
+            return named;
+        }
+
+        private String entityName() {
+            return emf.getMetamodel().entity(domainType).getName();
+        }
+
+        private String jpql(FlatProjection projection) {
+            String alias = select.alias;
+            List<String> columns = new ArrayList<>();
+            for (FlatProjection.Column column : projection.getColumns()) {
+                columns.add((column.join == null ? alias : "fp_j" + column.join.index) + "." + column.attribute
+                        + " as fp_c" + column.index);
+            }
+            StringBuilder jpql = new StringBuilder("select ").append(String.join(", ", columns))
+                    .append(" from ").append(select.entity).append(' ').append(alias);
+            for (FlatProjection.Join join : projection.getJoins()) {
+                jpql.append(" left join ").append(join.parent == null ? alias : "fp_j" + join.parent.index)
+                        .append('.').append(join.attribute).append(" fp_j").append(join.index);
+            }
+            return jpql.append(select.rest).toString();
+        }
+
+        Object execute(Prepared prepared, Object[] args) {
+            TypedQuery<Tuple> query = prepared.jpql != null ? jpqlQuery(prepared.jpql, args) : criteriaQuery(prepared.projection, args);
+            List<Object> results = new ArrayList<>();
+            for (Tuple tuple : query.getResultList()) {
+                results.add(prepared.projection.toProjection(projectionFactory, tuple));
+            }
+            switch (resultKind) {
+                case LIST:
+                    return results;
+                case OPTIONAL:
+                    return Optional.ofNullable(single(results));
+                default:
+                    return single(results);
+            }
+        }
+
+        @Nullable
+        private Object single(List<Object> results) {
+            if (results.size() > 1) {
+                throw new IncorrectResultSizeDataAccessException(1, results.size());
+            }
+            return results.isEmpty() ? null : results.get(0);
+        }
+
+        private List<Object> bindableValues(Object[] args) {
+            List<Object> values = new ArrayList<>();
+            for (JpaParameters.JpaParameter parameter : parameters.getBindableParameters()) {
+                values.add(args[parameter.getIndex()]);
+            }
+            return values;
+        }
+
+        private TypedQuery<Tuple> jpqlQuery(String jpql, Object[] args) {
+            TypedQuery<Tuple> query = em.createQuery(jpql, Tuple.class);
+            Set<String> names = new HashSet<>();
+            query.getParameters().forEach(p -> {
+                if (p.getName() != null) {
+                    names.add(p.getName());
+                }
+            });
+            int position = 1;
+            for (JpaParameters.JpaParameter parameter : parameters.getBindableParameters()) {
+                Object value = args[parameter.getIndex()];
+                Optional<String> name = parameter.getName();
+                if (name.isPresent() && names.contains(name.get())) {
+                    query.setParameter(name.get(), value);
+                } else {
+                    query.setParameter(position, value);
+                }
+                position++;
+            }
+            return query;
+        }
+
+        private TypedQuery<Tuple> criteriaQuery(FlatProjection projection, Object[] args) {
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaQuery<Tuple> query = cb.createTupleQuery();
+            Root<?> root = query.from(domainType);
+            List<From<?, ?>> joins = new ArrayList<>();
+            for (FlatProjection.Join join : projection.getJoins()) {
+                From<?, ?> parent = join.parent == null ? root : joins.get(join.parent.index);
+                joins.add(parent.join(join.attribute, JoinType.LEFT));
+            }
+            List<Selection<?>> selections = new ArrayList<>();
+            for (FlatProjection.Column column : projection.getColumns()) {
+                From<?, ?> from = column.join == null ? root : joins.get(column.join.index);
+                selections.add(from.get(column.attribute));
+            }
+            query.multiselect(selections);
+
+            Iterator<Object> values = bindableValues(args).iterator();
+            List<Predicate> or = new ArrayList<>();
+            for (PartTree.OrPart orPart : tree) {
+                List<Predicate> and = new ArrayList<>();
+                for (Part part : orPart) {
+                    and.add(predicate(cb, root, part, values));
+                }
+                or.add(cb.and(and.toArray(new Predicate[0])));
+            }
+            if (!or.isEmpty()) {
+                query.where(cb.or(or.toArray(new Predicate[0])));
+            }
+            query.distinct(tree.isDistinct());
+            query.orderBy(QueryUtils.toOrders(tree.getSort(), root, cb));
+
+            TypedQuery<Tuple> typedQuery = em.createQuery(query);
+            if (tree.isLimiting()) {
+                typedQuery.setMaxResults(tree.getMaxResults());
+            }
+            return typedQuery;
+        }
+    }
+
+    /**
+     * 스프링 데이터 JpaQueryCreator 와 같은 의미 (대소문자 무시는 제외)
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate predicate(CriteriaBuilder cb, Root<?> root, Part part, Iterator<Object> values) {
+        Path path = root;
+        for (PropertyPath property : part.getProperty()) {
+            path = path.get(property.getSegment());
+        }
+        Expression<String> string = path;
+        switch (part.getType()) {
+            case SIMPLE_PROPERTY: {
+                Object value = values.next();
+                return value == null ? cb.isNull(path) : cb.equal(path, value);
+            }
+            case NEGATING_SIMPLE_PROPERTY: {
+                Object value = values.next();
+                return value == null ? cb.isNotNull(path) : cb.notEqual(path, value);
+            }
+            case GREATER_THAN:
+                return cb.greaterThan(path, (Comparable) values.next());
+            case GREATER_THAN_EQUAL:
+                return cb.greaterThanOrEqualTo(path, (Comparable) values.next());
+            case LESS_THAN:
+                return cb.lessThan(path, (Comparable) values.next());
+            case LESS_THAN_EQUAL:
+                return cb.lessThanOrEqualTo(path, (Comparable) values.next());
+            case BETWEEN:
+                return cb.between(path, (Comparable) values.next(), (Comparable) values.next());
+            case IS_NULL:
+                return cb.isNull(path);
+            case IS_NOT_NULL:
+                return cb.isNotNull(path);
+            case TRUE:
+                return cb.isTrue(path);
+            case FALSE:
+                return cb.isFalse(path);
+            case LIKE:
+                return cb.like(string, (String) values.next());
+            case NOT_LIKE:
+                return cb.notLike(string, (String) values.next());
+            case STARTING_WITH:
+                return cb.like(string, EscapeCharacter.DEFAULT.escape((String) values.next()) + "%", '\\');
+            case ENDING_WITH:
+                return cb.like(string, "%" + EscapeCharacter.DEFAULT.escape((String) values.next()), '\\');
+            case CONTAINING:
+                return cb.like(string, "%" + EscapeCharacter.DEFAULT.escape((String) values.next()) + "%", '\\');
+            case IN:
+                return path.in((Collection<?>) values.next());
+            case NOT_IN:
+                return cb.not(path.in((Collection<?>) values.next()));
+            default:
+                throw new IllegalStateException("unsupported part " + part);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package study.datajpa.repository.support;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.data.repository.core.RepositoryInformation;
+
+/**
+ * 스프링 데이터 리포지토리 프록시에 추가할 MethodInterceptor (빈으로 등록하면 RepositoryInterceptorPostProcessor 가 붙인다)
+ */
+public interface RepositoryInterceptorFactory {
+
+    /**
+     * @return 이 리포지토리에 붙이지 않으면 null
+     */
+    MethodInterceptor forRepository(RepositoryInformation repository);
+
+    /**
+     * true 면 리포지토리 트랜잭션(TransactionInterceptor) 바깥, false 면 트랜잭션 안에서 실행된다.
+     */
+    default boolean beforeTransaction() {
+        return false;
+    }
+}
@@ -0,0 +1,63 @@
+package study.datajpa.repository.support;
+
+import org.aopalliance.aop.Advice;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+
+/**
+ * 리포지토리 팩토리 빈이 초기화(afterPropertiesSet)되기 전에 RepositoryProxyPostProcessor 를 등록해서
+ * RepositoryInterceptorFactory 빈들이 만든 인터셉터를 리포지토리 프록시에 붙인다.
+ *
+ * 인터셉터 빈은 프록시를 만들 때 찾는다. (BeanPostProcessor 가 다른 빈을 일찍 만들지 않도록)
+ */
+@Component
+public class RepositoryInterceptorPostProcessor implements BeanPostProcessor {
+    private final ObjectProvider<RepositoryInterceptorFactory> factories;
+
+    public RepositoryInterceptorPostProcessor(ObjectProvider<RepositoryInterceptorFactory> factories) {
+        this.factories = factories;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof RepositoryFactoryBeanSupport) {
+            ((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(repositoryFactory ->
+                    repositoryFactory.addRepositoryProxyPostProcessor(this::postProcess));
+        }
+        return bean;
+    }
+
+    private void postProcess(ProxyFactory proxyFactory, RepositoryInformation repository) {
+        factories.orderedStream().forEach(factory -> {
+            MethodInterceptor interceptor = factory.forRepository(repository);
+            if (interceptor == null) {
+                return;
+            }
+            int transaction = transactionAdvisorIndex(proxyFactory);
+            if (factory.beforeTransaction() && transaction >= 0) {
+                proxyFactory.addAdvice(transaction, interceptor);
+            } else {
+                proxyFactory.addAdvice(interceptor);
+            }
+        });
+    }
+
+    private static int transactionAdvisorIndex(ProxyFactory proxyFactory) {
+        Advisor[] advisors = proxyFactory.getAdvisors();
+        for (int i = 0; i < advisors.length; i++) {
+            Advice advice = advisors[i].getAdvice();
+            if (advice instanceof TransactionInterceptor) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,39 @@
+package study.datajpa.search;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.io.Serializable;
+
+/**
+ * username 트라이그램 -> 회원 (쓰기는 UsernameSearch 의 JDBC, 읽기는 검색 쿼리의 서브쿼리)
+ * PK (gram, member_id) 가 트라이그램별 회원 목록 인덱스다.
+ */
+@Entity
+@Table(name = "member_username_gram", indexes = @Index(name = "idx_member_username_gram_member", columnList = "member_id"))
+@IdClass(MemberUsernameGram.Key.class)
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class MemberUsernameGram {
+    @Id
+    @Column(length = UsernameGrams.SIZE)
+    private String gram;
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+
+    @EqualsAndHashCode
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+        private String gram;
+        private Long memberId;
+    }
+}
@@ -0,0 +1,53 @@
+package study.datajpa.search;
+
+import org.springframework.lang.Nullable;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 소문자 트라이그램
+ *
+ * 저장: 앞에 공백 두 개, 뒤에 하나를 붙여서 자른다. "kim" > "  k", " ki", "kim", "im "
+ * 앞 공백이 붙은 트라이그램 덕분에 1~2 글자 접두사도 인덱스로 찾는다.
+ */
+final class UsernameGrams {
+    static final int SIZE = 3;
+    private static final String PREFIX_PAD = "  ";
+    private static final String SUFFIX_PAD = " ";
+
+    private UsernameGrams() {
+    }
+
+    static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 저장할 트라이그램
+     */
+    static Set<String> of(@Nullable String username) {
+        if (username == null) {
+            return Collections.emptySet();
+        }
+        return split(PREFIX_PAD + normalize(username) + SUFFIX_PAD);
+    }
+
+    /**
+     * 검색어가 있는 username 은 이 트라이그램을 모두 갖는다. 인덱스로 찾을 수 없으면(부분 검색 3 글자 미만) 빈 값
+     */
+    static Set<String> query(String text, UsernameSearch.Mode mode) {
+        String normalized = normalize(text);
+        return split(mode == UsernameSearch.Mode.PREFIX ? PREFIX_PAD + normalized : normalized);
+    }
+
+    private static Set<String> split(String padded) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + SIZE <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + SIZE));
+        }
+        return grams;
+    }
+}
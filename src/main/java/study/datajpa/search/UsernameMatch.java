@@ -0,0 +1,14 @@
+package study.datajpa.search;
+
+import lombok.Getter;
+
+@Getter
+public class UsernameMatch {
+    private final Long id;
+    private final String username;
+
+    public UsernameMatch(Long id, String username) {
+        this.id = id;
+        this.username = username;
+    }
+}
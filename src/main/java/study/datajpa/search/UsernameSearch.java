@@ -0,0 +1,404 @@
+package study.datajpa.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.domain.Member;
+import study.datajpa.event.EntityChange;
+import study.datajpa.event.EntityChangeListener;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * username 접두사/부분 검색 (member_username_gram 트라이그램 테이블)
+ *
+ * like '%x%' 는 member 전체를 읽는다. 검색어의 트라이그램 중 회원이 가장 적은 것 하나로 후보를 좁히고
+ * (PK 범위 조회) 후보에만 like 를 건다.
+ * - 회원 INSERT/UPDATE(username)/DELETE: 같은 트랜잭션에서 그 회원의 트라이그램을 지우고 다시 넣는다.
+ * - 어떤 행이 바뀌었는지 모르는 벌크 변경(JDBC 적재, username 벌크 쿼리): 다시 만들 때까지 like 로 찾는다.
+ * - 트라이그램별 회원 수는 메모리에 (커밋 후 반영, 다른 노드 변경은 다시 만들 때) 가장 적은 트라이그램을 고르는 데만 쓴다.
+ * 부분 검색어가 3 글자 미만이면 인덱스를 쓸 수 없어서 like 로 찾는다.
+ * 꺼져 있으면(enabled=false) 트라이그램 테이블을 읽지도 고치지도 않는다.
+ *
+ * 기동시에는 트라이그램별 회원 수만 읽는다. 트라이그램 테이블이 비어 있는데 회원이 있거나 rebuildOnStartup 이면 다시 만든다.
+ * 꺼 둔 동안 바뀐 회원은 반영되지 않으므로 다시 켤 때는 rebuildOnStartup 또는 POST /members/search/index/rebuild 를 쓴다.
+ *
+ * 정렬: username 이 같은 회원, 검색어로 시작하는 회원, 짧은 username, id 순
+ */
+@Slf4j
+@Component
+public class UsernameSearch implements SmartLifecycle, EntityChangeListener {
+    public enum Mode {PREFIX, CONTAINS}
+
+    private static final String INSERT_GRAM = "insert into member_username_gram (gram, member_id) values (?, ?)";
+    private static final String DELETE_GRAMS = "delete from member_username_gram where member_id = ?";
+    private static final String NEXT_BOUND =
+            "select member_id from member where member_id > ? order by member_id limit 1 offset ?";
+    private static final String LOCK_RANGE =
+            "select member_id, username from member where member_id > ? and member_id <= ? for update";
+    private static final String DELETE_ORPHAN_GRAMS = "delete from member_username_gram g where g.member_id > ?" +
+            " and g.member_id <= ? and not exists (select 1 from member m where m.member_id = g.member_id)";
+    private static final String ORDER_BY = " order by case when lower(m.username) = :text then 0" +
+            " when lower(m.username) like :prefix escape '\\' then 1 else 2 end, length(m.username), m.id";
+
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UsernameSearchProperties properties;
+
+    private final Map<String, LongAdder> gramCounts = new ConcurrentHashMap<>();
+    private final AtomicLong bulkGeneration = new AtomicLong();
+    private volatile long builtGeneration = -1;
+    private volatile boolean rebuilding;
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+    private final Object rebuildLock = new Object();
+    private final LongAdder indexedSearches = new LongAdder();
+    private final LongAdder scanSearches = new LongAdder();
+    private volatile long lastRebuildMillis;
+    private volatile LocalDateTime lastRebuildAt;
+    private ExecutorService executor;
+
+    public UsernameSearch(EntityManager em, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                          UsernameSearchProperties properties) {
+        this.em = em;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+    }
+
+    /**
+     * 다시 만드는 동안에는 (트라이그램별 회원 수를 다시 셀 때까지) false
+     */
+    public boolean isReady() {
+        return properties.isEnabled() && !rebuilding && builtGeneration == bulkGeneration.get();
+    }
+
+    /**
+     * 검색어가 username 에 있는(PREFIX 면 username 이 검색어로 시작하는) 회원, 대소문자 무시
+     */
+    public Specification<Member> spec(String text, Mode mode) {
+        String gram = driverGram(text, mode);
+        String pattern = pattern(text, mode);
+        return (root, query, cb) -> {
+            Predicate like = cb.like(cb.lower(root.get("username")), pattern, EscapeCharacter.DEFAULT.getEscapeCharacter());
+            if (gram == null) {
+                return like;
+            }
+            Subquery<Long> ids = query.subquery(Long.class);
+            Root<MemberUsernameGram> g = ids.from(MemberUsernameGram.class);
+            ids.select(g.get("memberId")).where(cb.equal(g.get("gram"), gram));
+            Expression<Long> id = root.get("id");
+            return cb.and(id.in(ids), like);
+        };
+    }
+
+    @Transactional(readOnly = true)
+    public Page<UsernameMatch> search(String text, Mode mode, Pageable pageable) {
+        String gram = driverGram(text, mode);
+        String where = " from Member m where " +
+                (gram == null ? "" : "m.id in (select g.memberId from MemberUsernameGram g where g.gram = :gram) and ") +
+                "lower(m.username) like :pattern escape '\\'";
+        TypedQuery<Object[]> query = em.createQuery("select m.id, m.username" + where + ORDER_BY, Object[].class)
+                .setParameter("pattern", pattern(text, mode))
+                .setParameter("text", UsernameGrams.normalize(text))
+                .setParameter("prefix", pattern(text, Mode.PREFIX));
+        if (gram != null) {
+            query.setParameter("gram", gram);
+        }
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize());
+        }
+        List<UsernameMatch> content = query.getResultList().stream()
+                .map(row -> new UsernameMatch((Long) row[0], (String) row[1]))
+                .collect(Collectors.toList());
+        return PageableExecutionUtils.getPage(content, pageable, () -> {
+            TypedQuery<Long> count = em.createQuery("select count(m)" + where, Long.class)
+                    .setParameter("pattern", pattern(text, mode));
+            if (gram != null) {
+                count.setParameter("gram", gram);
+            }
+            return count.getSingleResult();
+        });
+    }
+
+    private static String pattern(String text, Mode mode) {
+        String escaped = EscapeCharacter.DEFAULT.escape(UsernameGrams.normalize(text));
+        return mode == Mode.PREFIX ? escaped + "%" : "%" + escaped + "%";
+    }
+
+    /**
+     * 후보를 가장 적게 만드는 트라이그램, 인덱스를 쓸 수 없으면 null
+     */
+    @Nullable
+    private String driverGram(String text, Mode mode) {
+        Collection<String> grams = UsernameGrams.query(text, mode);
+        if (grams.isEmpty() || !isReady()) {
+            scanSearches.increment();
+            return null;
+        }
+        indexedSearches.increment();
+        String driver = null;
+        long min = Long.MAX_VALUE;
+        for (String gram : grams) {
+            LongAdder counter = gramCounts.get(gram);
+            long count = counter == null ? 0 : counter.sum();
+            if (count < min) {
+                min = count;
+                driver = gram;
+            }
+        }
+        return driver;
+    }
+
+    @Override
+    public void onChange(EntityChange change) {
+        if (!properties.isEnabled() || !isLocalMemberChange(change)) {
+            return;
+        }
+        if (change.isBulk()) {
+            if (change.getAttribute() == null || "username".equals(change.getAttribute())) {
+                bulkGeneration.incrementAndGet();
+                requestRebuild();
+            }
+            return;
+        }
+        Object id = change.getId();
+        switch (change.getType()) {
+            case INSERT:
+                insert(id, UsernameGrams.of(username(change.getState())));
+                break;
+            case UPDATE:
+                if (change.getPreviousState().isEmpty() || usernameChanged(change)) {
+                    jdbcTemplate.update(DELETE_GRAMS, id);
+                    insert(id, UsernameGrams.of(username(change.getState())));
+                }
+                break;
+            case DELETE:
+                jdbcTemplate.update(DELETE_GRAMS, id);
+                break;
+            default:
+        }
+    }
+
+    @Override
+    public void afterCommit(EntityChange change) {
+        if (!properties.isEnabled() || !isLocalMemberChange(change) || change.isBulk()) {
+            return;
+        }
+        switch (change.getType()) {
+            case INSERT:
+                count(change.getState(), 1);
+                break;
+            case UPDATE:
+                if (usernameChanged(change)) {
+                    count(change.getPreviousState(), -1);
+                    count(change.getState(), 1);
+                }
+                break;
+            case DELETE:
+                count(change.getPreviousState(), -1);
+                break;
+            default:
+        }
+    }
+
+    /**
+     * 다른 노드의 변경은 그 노드가 같은 DB 의 트라이그램 테이블에 이미 반영했다.
+     */
+    private static boolean isLocalMemberChange(EntityChange change) {
+        return change.getOrigin() != EntityChange.Origin.REMOTE && Member.class.isAssignableFrom(change.getEntityType());
+    }
+
+    private static boolean usernameChanged(EntityChange change) {
+        return !Objects.equals(username(change.getPreviousState()), username(change.getState()));
+    }
+
+    @Nullable
+    private static String username(Map<String, Object> state) {
+        Object username = state.get("username");
+        return username == null ? null : username.toString();
+    }
+
+    private void insert(Object id, Collection<String> grams) {
+        List<Object[]> rows = new ArrayList<>(grams.size());
+        for (String gram : grams) {
+            rows.add(new Object[]{gram, id});
+        }
+        jdbcTemplate.batchUpdate(INSERT_GRAM, rows);
+    }
+
+    private void count(Map<String, Object> state, int delta) {
+        for (String gram : UsernameGrams.of(username(state))) {
+            gramCounts.computeIfAbsent(gram, key -> new LongAdder()).add(delta);
+        }
+    }
+
+    /**
+     * member 를 id 순으로 rebuildChunkSize 씩 나눠서 그 id 범위의 트라이그램을 바꾼다. 동시에 하나만 만든다.
+     * 범위 하나는 한 트랜잭션에서 회원 행을 잠그고 읽어서 바꾼다. (읽은 뒤 바뀐 username 으로 덮어쓰지 않는다)
+     * 지우는 트라이그램은 읽은 회원과 없는 회원의 것뿐이다. 그 사이 새로 들어온 회원은 자기 트랜잭션에서 넣는다.
+     */
+    public UsernameSearchStats rebuild() {
+        synchronized (rebuildLock) {
+            rebuilding = true;
+            try {
+                return rebuildRanges();
+            } finally {
+                rebuilding = false;
+            }
+        }
+    }
+
+    private UsernameSearchStats rebuildRanges() {
+        long generation = bulkGeneration.get();
+        long start = System.nanoTime();
+        long from = Long.MIN_VALUE;
+        long members = 0;
+        while (true) {
+            List<Long> bound = jdbcTemplate.queryForList(NEXT_BOUND, Long.class, from, properties.getRebuildChunkSize() - 1);
+            boolean last = bound.isEmpty();
+            long lower = from;
+            long upper = last ? Long.MAX_VALUE : bound.get(0);
+            members += transactionTemplate.execute(status -> rebuildRange(lower, upper));
+            if (last) {
+                break;
+            }
+            from = upper;
+        }
+
+        loadCounts();
+        builtGeneration = generation;
+        lastRebuildMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        lastRebuildAt = LocalDateTime.now();
+        log.info("username search index rebuilt members={} grams={} in {}ms", members, gramCounts.size(), lastRebuildMillis);
+        return stats();
+    }
+
+    /**
+     * (from, to] 범위
+     */
+    private int rebuildRange(long from, long to) {
+        List<Object[]> chunk = jdbcTemplate.query(LOCK_RANGE,
+                (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getString(2)}, from, to);
+        jdbcTemplate.update(DELETE_ORPHAN_GRAMS, from, to);
+        List<Object[]> ids = new ArrayList<>(chunk.size());
+        List<Object[]> rows = new ArrayList<>();
+        for (Object[] member : chunk) {
+            ids.add(new Object[]{member[0]});
+            for (String gram : UsernameGrams.of((String) member[1])) {
+                rows.add(new Object[]{gram, member[0]});
+            }
+        }
+        jdbcTemplate.batchUpdate(DELETE_GRAMS, ids);
+        jdbcTemplate.batchUpdate(INSERT_GRAM, rows);
+        return chunk.size();
+    }
+
+    public UsernameSearchStats stats() {
+        return new UsernameSearchStats(properties.isEnabled(), isReady(), gramCounts.size(),
+                indexedSearches.sum(), scanSearches.sum(), lastRebuildMillis, lastRebuildAt);
+    }
+
+    private void loadCounts() {
+        Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+        jdbcTemplate.query("select gram, count(*) from member_username_gram group by gram", rs -> {
+            LongAdder count = new LongAdder();
+            count.add(rs.getLong(2));
+            counts.put(rs.getString(1), count);
+        });
+        gramCounts.clear();
+        gramCounts.putAll(counts);
+    }
+
+    /**
+     * 트라이그램 테이블이 비어 있는데 회원이 있거나 rebuildOnStartup 이면 다시 만들고, 아니면 회원 수만 읽는다.
+     */
+    private void startup() {
+        boolean empty = jdbcTemplate.queryForList("select member_id from member_username_gram limit 1", Long.class).isEmpty()
+                && !jdbcTemplate.queryForList("select member_id from member limit 1", Long.class).isEmpty();
+        if (properties.isRebuildOnStartup() || empty) {
+            rebuild();
+            return;
+        }
+        synchronized (rebuildLock) {
+            long generation = bulkGeneration.get();
+            loadCounts();
+            builtGeneration = generation;
+        }
+    }
+
+    private void requestRebuild() {
+        ExecutorService executor = this.executor;
+        if (executor == null || !rebuildRequested.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            rebuildRequested.set(false);
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                log.warn("username search index rebuild failed", e);
+            }
+        });
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "username-search");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.execute(() -> {
+            try {
+                startup();
+            } catch (RuntimeException e) {
+                log.warn("username search index startup failed", e);
+            }
+        });
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return executor != null;
+    }
+}
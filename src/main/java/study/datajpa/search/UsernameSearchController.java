@@ -0,0 +1,36 @@
+package study.datajpa.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 관리 화면 username 검색
+ * 예제: /members/search?q=kim&mode=PREFIX&page=0&size=20
+ */
+@RestController
+@RequiredArgsConstructor
+public class UsernameSearchController {
+    private final UsernameSearch usernameSearch;
+
+    @GetMapping("/members/search")
+    public Page<UsernameMatch> search(@RequestParam("q") String text,
+                                      @RequestParam(defaultValue = "CONTAINS") UsernameSearch.Mode mode,
+                                      Pageable pageable){
+        return usernameSearch.search(text, mode, pageable);
+    }
+
+    @GetMapping("/members/search/index")
+    public UsernameSearchStats stats(){
+        return usernameSearch.stats();
+    }
+
+    @PostMapping("/members/search/index/rebuild")
+    public UsernameSearchStats rebuild(){
+        return usernameSearch.rebuild();
+    }
+}
@@ -0,0 +1,19 @@
+package study.datajpa.search;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * datajpa.username-search.*
+ */
+@ConfigurationProperties(prefix = "datajpa.username-search")
+@Getter @Setter
+public class UsernameSearchProperties {
+    /** false 면 트라이그램 테이블을 쓰지도 고치지도 않고 like 로 찾는다 */
+    private boolean enabled = true;
+    /** 다시 만들 때 한 트랜잭션에서 처리할 회원 수 */
+    private int rebuildChunkSize = 10_000;
+    /** 기동시 트라이그램 테이블 전체를 다시 만든다 (비어 있으면 이 값과 상관없이 만든다) */
+    private boolean rebuildOnStartup = false;
+}
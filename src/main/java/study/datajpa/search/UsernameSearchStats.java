@@ -0,0 +1,28 @@
+package study.datajpa.search;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+public class UsernameSearchStats {
+    private final boolean enabled;
+    /** false 면 다시 만들 때까지 like 로 찾는다 */
+    private final boolean ready;
+    private final long distinctGrams;
+    private final long indexedSearches;
+    private final long scanSearches;
+    private final long lastRebuildMillis;
+    private final LocalDateTime lastRebuildAt;
+
+    public UsernameSearchStats(boolean enabled, boolean ready, long distinctGrams, long indexedSearches,
+                               long scanSearches, long lastRebuildMillis, LocalDateTime lastRebuildAt) {
+        this.enabled = enabled;
+        this.ready = ready;
+        this.distinctGrams = distinctGrams;
+        this.indexedSearches = indexedSearches;
+        this.scanSearches = scanSearches;
+        this.lastRebuildMillis = lastRebuildMillis;
+        this.lastRebuildAt = lastRebuildAt;
+    }
+}
@@ -0,0 +1,38 @@
+package study.datajpa.stats;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+import java.io.Serializable;
+
+/**
+ * 팀별 나이 구간 회원 수, bucket = age / bucketWidth (마지막 구간은 그 이상 전부)
+ */
+@Entity
+@Table(name = "team_age_bucket")
+@IdClass(TeamAgeBucket.Key.class)
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class TeamAgeBucket {
+    @Id
+    @Column(name = "team_id")
+    private Long teamId;
+    @Id
+    private int bucket;
+    @Column(name = "member_count", nullable = false)
+    private long memberCount;
+
+    @EqualsAndHashCode
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+        private Long teamId;
+        private int bucket;
+    }
+}
@@ -0,0 +1,9 @@
+package study.datajpa.stats;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface TeamAgeBucketRepository extends JpaRepository<TeamAgeBucket, TeamAgeBucket.Key> {
+    List<TeamAgeBucket> findByTeamIdOrderByBucket(Long teamId);
+}
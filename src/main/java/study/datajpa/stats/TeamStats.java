@@ -0,0 +1,31 @@
+package study.datajpa.stats;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * 팀별 회원 수, 나이 합 (쓰기는 TeamStatsStore 의 JDBC, 읽기는 TeamStatsRepository)
+ */
+@Entity
+@Table(name = "team_stats")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class TeamStats {
+    @Id
+    @Column(name = "team_id")
+    private Long teamId;
+    @Column(name = "member_count", nullable = false)
+    private long memberCount;
+    @Column(name = "age_sum", nullable = false)
+    private long ageSum;
+
+    public double getAverageAge() {
+        return memberCount == 0 ? 0 : (double) ageSum / memberCount;
+    }
+}
@@ -0,0 +1,23 @@
+package study.datajpa.stats;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 요약 테이블과 member 테이블 집계 비교 결과, mismatches 는 최대 100 건
+ */
+@Getter
+public class TeamStatsCheck {
+    private final int teams;
+    private final boolean consistent;
+    private final List<String> mismatches;
+    private final long elapsedMillis;
+
+    public TeamStatsCheck(int teams, List<String> mismatches, long elapsedMillis) {
+        this.teams = teams;
+        this.consistent = mismatches.isEmpty();
+        this.mismatches = mismatches;
+        this.elapsedMillis = elapsedMillis;
+    }
+}
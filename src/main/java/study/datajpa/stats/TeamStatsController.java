@@ -0,0 +1,40 @@
+package study.datajpa.stats;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 팀 요약 조회: GET /teams/{id}/stats, GET /teams/stats
+ * 운영: POST /teams/stats/rebuild (전체 재계산 후 검사), GET /teams/stats/check (검사만)
+ */
+@RestController
+@RequiredArgsConstructor
+public class TeamStatsController {
+    private final TeamStatsStore teamStatsStore;
+
+    @GetMapping("/teams/{id}/stats")
+    public ResponseEntity<TeamStatsView> find(@PathVariable("id") Long teamId){
+        return ResponseEntity.of(teamStatsStore.find(teamId));
+    }
+
+    @GetMapping("/teams/stats")
+    public List<TeamStatsView> findAll(){
+        return teamStatsStore.findAll();
+    }
+
+    @PostMapping("/teams/stats/rebuild")
+    public TeamStatsCheck rebuild(){
+        return teamStatsStore.rebuild();
+    }
+
+    @GetMapping("/teams/stats/check")
+    public TeamStatsCheck check(){
+        return teamStatsStore.check();
+    }
+}
@@ -0,0 +1,23 @@
+package study.datajpa.stats;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * datajpa.team-stats.*
+ * 구간 설정을 바꾸면 다시 만들어야 한다. (rebuildOnStartup 또는 POST /teams/stats/rebuild)
+ */
+@ConfigurationProperties(prefix = "datajpa.team-stats")
+@Getter @Setter
+public class TeamStatsProperties {
+    /** 나이 구간 폭 */
+    private int bucketWidth = 10;
+    /** 구간 수, 마지막 구간은 (buckets - 1) * bucketWidth 이상 전부 */
+    private int buckets = 10;
+    /**
+     * 기동시 전체 재계산 (앱이 내려가 있는 동안 다른 곳에서 바뀐 회원, 구간 설정 변경)
+     * member 전체를 읽으므로 기본은 꺼 두고 필요할 때 켜거나 POST /teams/stats/rebuild 를 쓴다.
+     */
+    private boolean rebuildOnStartup = false;
+}
@@ -0,0 +1,6 @@
+package study.datajpa.stats;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface TeamStatsRepository extends JpaRepository<TeamStats, Long> {
+}
@@ -0,0 +1,449 @@
+package study.datajpa.stats;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.domain.Member;
+import study.datajpa.domain.Team;
+import study.datajpa.event.EntityChange;
+import study.datajpa.event.EntityChangeListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * 팀별 회원 수/평균 나이/나이 구간 요약 (team_stats, team_age_bucket)
+ *
+ * 조회마다 member 테이블을 group by 하지 않도록 변경 이벤트로 바로 고친다.
+ * - Team INSERT/DELETE: 팀의 요약 행(0)을 만들고 지운다.
+ * - Member INSERT/UPDATE/DELETE: 바뀌기 전 팀/구간에서 빼고 바뀐 팀/구간에 더한다. (같은 트랜잭션, 행 단위 update)
+ * - 나이를 더하는 벌크 변경(bulkAgePlus, age >= X 에 +1): 바뀐 행이 age >= X + 1 인 행이므로 같은 트랜잭션에서
+ *   그 행들만 팀/나이별로 세어 age_sum 에 더하고, 구간 경계를 넘은 수만큼 구간을 옮긴다.
+ * - 범위를 모르는 벌크 변경(JDBC 적재 등): 어떤 행이 바뀌었는지 모르므로 커밋 후 백그라운드 스레드에서 집합 쿼리로 다시 계산한다.
+ *   쓰는 쪽 트랜잭션에서 전체를 다시 계산하면 그 동안 요약 행 전체에 락이 걸린다. 다시 계산할 때까지는 이전 요약이 보인다.
+ *   밀린 요청은 한 번으로 합친다.
+ * 요약 행이 없으면(팀이 요약 테이블보다 먼저 있었던 경우) 그 팀만 다시 계산한다. (merge, 동시에 같은 팀을 계산해도 키가 겹치지 않는다)
+ * 다른 노드의 변경(REMOTE)은 그 노드가 같은 DB 에 이미 반영했으므로 무시한다.
+ *
+ * 전체 재계산은 POST /teams/stats/rebuild (또는 rebuildOnStartup), 어긋났는지는 check() 로 본다.
+ */
+@Slf4j
+@Component
+public class TeamStatsStore implements SmartLifecycle, EntityChangeListener {
+    private static final String ADD_STATS =
+            "update team_stats set member_count = member_count + ?, age_sum = age_sum + ? where team_id = ?";
+    private static final String ADD_BUCKET =
+            "update team_age_bucket set member_count = member_count + ? where team_id = ? and bucket = ?";
+    private static final String INSERT_STATS = "insert into team_stats (team_id, member_count, age_sum) values (?, 0, 0)";
+    private static final String INSERT_BUCKET = "insert into team_age_bucket (team_id, bucket, member_count) values (?, ?, 0)";
+    private static final String RECOMPUTE_STATS = "insert into team_stats (team_id, member_count, age_sum)" +
+            " select t.team_id, count(m.member_id), coalesce(sum(m.age), 0) from team t left join member m on m.team_id = t.team_id";
+    private static final String RECOMPUTE_EMPTY_BUCKETS =
+            "insert into team_age_bucket (team_id, bucket, member_count) select t.team_id, ?, 0 from team t";
+    private static final String MERGE_TEAM_STATS = "merge into team_stats (team_id, member_count, age_sum) key (team_id)" +
+            " select t.team_id, count(m.member_id), coalesce(sum(m.age), 0) from team t left join member m on m.team_id = t.team_id" +
+            " where t.team_id = ? group by t.team_id";
+    private static final String MERGE_EMPTY_BUCKET =
+            "merge into team_age_bucket (team_id, bucket, member_count) key (team_id, bucket) values (?, ?, 0)";
+    private static final String SHIFTED = "select team_id, age, count(*) from member" +
+            " where team_id is not null and age >= ? group by team_id, age";
+    private static final String SET_BUCKET = "update team_age_bucket set member_count = ? where team_id = ? and bucket = ?";
+    private static final int MAX_MISMATCHES = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TeamStatsRepository statsRepository;
+    private final TeamAgeBucketRepository bucketRepository;
+    private final int bucketWidth;
+    private final int buckets;
+    /** member 행의 구간 */
+    private final String countBuckets;
+    private final boolean rebuildOnStartup;
+    private final AtomicBoolean recomputeRequested = new AtomicBoolean();
+    private ExecutorService executor;
+
+    public TeamStatsStore(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                          TeamStatsRepository statsRepository, TeamAgeBucketRepository bucketRepository,
+                          TeamStatsProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.statsRepository = statsRepository;
+        this.bucketRepository = bucketRepository;
+        this.bucketWidth = properties.getBucketWidth();
+        this.buckets = properties.getBuckets();
+        this.rebuildOnStartup = properties.isRebuildOnStartup();
+        int last = buckets - 1;
+        String bucket = "case when age < 0 then 0 when age >= " + last * bucketWidth + " then " + last
+                + " else age / " + bucketWidth + " end";
+        this.countBuckets = "select team_id, bucket, count(*) from (select team_id, " + bucket + " as bucket" +
+                " from member where team_id is not null%s) x group by team_id, bucket";
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<TeamStatsView> find(Long teamId) {
+        return statsRepository.findById(teamId)
+                .map(stats -> new TeamStatsView(stats, bucketRepository.findByTeamIdOrderByBucket(teamId), bucketWidth, buckets));
+    }
+
+    @Transactional(readOnly = true)
+    public List<TeamStatsView> findAll() {
+        Map<Long, List<TeamAgeBucket>> byTeam = bucketRepository.findAll().stream()
+                .sorted((a, b) -> Integer.compare(a.getBucket(), b.getBucket()))
+                .collect(Collectors.groupingBy(TeamAgeBucket::getTeamId));
+        return statsRepository.findAll().stream()
+                .map(stats -> new TeamStatsView(stats, byTeam.getOrDefault(stats.getTeamId(), new ArrayList<>()), bucketWidth, buckets))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void onChange(EntityChange change) {
+        if (change.getOrigin() == EntityChange.Origin.REMOTE) {
+            return;
+        }
+        if (Team.class.isAssignableFrom(change.getEntityType())) {
+            applyTeam(change);
+        } else if (Member.class.isAssignableFrom(change.getEntityType())) {
+            applyMember(change);
+        }
+    }
+
+    private void applyTeam(EntityChange change) {
+        switch (change.getType()) {
+            case INSERT:
+                Long teamId = ((Number) change.getId()).longValue();
+                jdbcTemplate.update(INSERT_STATS, teamId);
+                List<Object[]> rows = new ArrayList<>();
+                for (int bucket = 0; bucket < buckets; bucket++) {
+                    rows.add(new Object[]{teamId, bucket});
+                }
+                jdbcTemplate.batchUpdate(INSERT_BUCKET, rows);
+                break;
+            case DELETE:
+                jdbcTemplate.update("delete from team_age_bucket where team_id = ?", change.getId());
+                jdbcTemplate.update("delete from team_stats where team_id = ?", change.getId());
+                break;
+            default:
+        }
+    }
+
+    @Override
+    public void afterCommit(EntityChange change) {
+        if (change.getOrigin() != EntityChange.Origin.REMOTE && needsRecompute(change)) {
+            requestRecompute();
+        }
+    }
+
+    /**
+     * 바뀐 행을 모르는 변경: 벌크 변경, 변경 전 값을 모르는 update (detached 엔티티 update)
+     */
+    private static boolean needsRecompute(EntityChange change) {
+        if (Team.class.isAssignableFrom(change.getEntityType())) {
+            return change.isBulk();
+        }
+        if (!Member.class.isAssignableFrom(change.getEntityType())) {
+            return false;
+        }
+        if (change.isBulk()) {
+            String attribute = change.getAttribute();
+            return !isAgeShift(change) && (attribute == null || "age".equals(attribute) || "team".equals(attribute));
+        }
+        return change.getType() == EntityChange.Type.UPDATE && change.getPreviousState().isEmpty();
+    }
+
+    /**
+     * age >= minValue 인 행에 increment(> 0) 를 더한 벌크 변경
+     */
+    private static boolean isAgeShift(EntityChange change) {
+        return "age".equals(change.getAttribute()) && change.getMinValue() instanceof Number
+                && change.getIncrement() != null && change.getIncrement() > 0;
+    }
+
+    private void applyMember(EntityChange change) {
+        if (change.isBulk()) {
+            if (isAgeShift(change)) {
+                shiftAge(((Number) change.getMinValue()).intValue(), change.getIncrement());
+            }
+            // 나머지는 커밋 후 전체 재계산 (afterCommit)
+            return;
+        }
+        Map<String, Object> previous = change.getPreviousState();
+        Map<String, Object> state = change.getState();
+        switch (change.getType()) {
+            case INSERT:
+                add(teamId(state), age(state), 1);
+                break;
+            case DELETE:
+                add(teamId(previous), age(previous), -1);
+                break;
+            case UPDATE:
+                if (previous.isEmpty()) {
+                    // 커밋 후 전체 재계산 (afterCommit)
+                    return;
+                }
+                if (Objects.equals(teamId(previous), teamId(state)) && age(previous) == age(state)) {
+                    return;
+                }
+                add(teamId(previous), age(previous), -1);
+                add(teamId(state), age(state), 1);
+                break;
+            default:
+        }
+    }
+
+    private void add(@Nullable Long teamId, int age, int sign) {
+        if (teamId == null) {
+            return;
+        }
+        int stats = jdbcTemplate.update(ADD_STATS, sign, (long) sign * age, teamId);
+        int bucket = jdbcTemplate.update(ADD_BUCKET, sign, teamId, bucket(age));
+        if (stats == 0 || bucket == 0) {
+            recomputeTeam(teamId);
+        }
+    }
+
+    /**
+     * 벌크 update 직후 (같은 트랜잭션): 바뀐 행은 지금 age >= minAge + increment 인 행 전부다.
+     * (바뀌지 않은 행은 age < minAge) 팀/나이별 수만 읽어서 팀마다 age_sum 과 구간을 고친다.
+     */
+    private void shiftAge(int minAge, int increment) {
+        Map<Long, Long> ageSums = new HashMap<>();
+        Map<Long, long[]> bucketCounts = new HashMap<>();
+        jdbcTemplate.query(SHIFTED, rs -> {
+            long teamId = rs.getLong(1);
+            int age = rs.getInt(2);
+            long count = rs.getLong(3);
+            ageSums.merge(teamId, count * increment, Long::sum);
+            int from = bucket(age - increment);
+            int to = bucket(age);
+            if (from != to) {
+                long[] counts = bucketCounts.computeIfAbsent(teamId, id -> new long[buckets]);
+                counts[from] -= count;
+                counts[to] += count;
+            }
+        }, minAge + increment);
+
+        List<Long> teams = new ArrayList<>(ageSums.keySet());
+        List<Object[]> stats = new ArrayList<>();
+        for (Long teamId : teams) {
+            stats.add(new Object[]{0, ageSums.get(teamId), teamId});
+        }
+        int[] updated = jdbcTemplate.batchUpdate(ADD_STATS, stats);
+        Set<Long> missing = new HashSet<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                missing.add(teams.get(i));
+            }
+        }
+
+        List<Long> bucketTeams = new ArrayList<>();
+        List<Object[]> moves = new ArrayList<>();
+        bucketCounts.forEach((teamId, counts) -> {
+            for (int bucket = 0; bucket < buckets; bucket++) {
+                if (counts[bucket] != 0) {
+                    bucketTeams.add(teamId);
+                    moves.add(new Object[]{counts[bucket], teamId, bucket});
+                }
+            }
+        });
+        updated = jdbcTemplate.batchUpdate(ADD_BUCKET, moves);
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                missing.add(bucketTeams.get(i));
+            }
+        }
+        // 요약 행이 없던 팀은 이미 바뀐 member 에서 다시 계산한다.
+        missing.forEach(this::recomputeTeam);
+    }
+
+    int bucket(int age) {
+        return age < 0 ? 0 : Math.min(age / bucketWidth, buckets - 1);
+    }
+
+    @Nullable
+    private static Long teamId(Map<String, Object> state) {
+        Object team = state.get("team");
+        return team == null ? null : ((Number) team).longValue();
+    }
+
+    private static int age(Map<String, Object> state) {
+        Object age = state.get("age");
+        return age == null ? 0 : ((Number) age).intValue();
+    }
+
+    /**
+     * 요약 테이블 전체를 member 테이블에서 다시 계산하고 검사한다.
+     */
+    public TeamStatsCheck rebuild() {
+        long start = System.nanoTime();
+        recomputeAll();
+        log.info("team stats rebuilt in {} ms", (System.nanoTime() - start) / 1_000_000);
+        return check();
+    }
+
+    /**
+     * 지우고 다시 넣는 동안 빈 요약이 보이지 않게 한 트랜잭션으로
+     */
+    private void recomputeAll() {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("delete from team_age_bucket");
+            jdbcTemplate.update("delete from team_stats");
+            jdbcTemplate.update(RECOMPUTE_STATS + " group by t.team_id");
+
+            List<Object[]> emptyBuckets = new ArrayList<>();
+            for (int bucket = 0; bucket < buckets; bucket++) {
+                emptyBuckets.add(new Object[]{bucket});
+            }
+            jdbcTemplate.batchUpdate(RECOMPUTE_EMPTY_BUCKETS, emptyBuckets);
+            jdbcTemplate.batchUpdate(SET_BUCKET, countBuckets(""));
+        });
+    }
+
+    /**
+     * 변경을 만든 트랜잭션 안에서 팀 하나만, 지우지 않고 덮어쓴다.
+     */
+    private void recomputeTeam(Long teamId) {
+        jdbcTemplate.update(MERGE_TEAM_STATS, teamId);
+        List<Object[]> emptyBuckets = new ArrayList<>();
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            emptyBuckets.add(new Object[]{teamId, bucket});
+        }
+        jdbcTemplate.batchUpdate(MERGE_EMPTY_BUCKET, emptyBuckets);
+        jdbcTemplate.batchUpdate(SET_BUCKET, countBuckets(" and team_id = ?", teamId));
+    }
+
+    /**
+     * SET_BUCKET 인자 (count, team_id, bucket)
+     */
+    private List<Object[]> countBuckets(String where, Object... args) {
+        return jdbcTemplate.query(String.format(countBuckets, where),
+                (rs, rowNum) -> new Object[]{rs.getLong(3), rs.getLong(1), rs.getInt(2)}, args);
+    }
+
+    private void requestRecompute() {
+        if (!recomputeRequested.compareAndSet(false, true)) {
+            return;
+        }
+        ExecutorService executor = this.executor;
+        if (executor != null) {
+            executor.execute(this::recomputeRequested);
+        }
+        // 시작 전이면 start() 에서
+    }
+
+    private void recomputeRequested() {
+        recomputeRequested.set(false);
+        try {
+            long start = System.nanoTime();
+            recomputeAll();
+            log.info("team stats recomputed in {} ms", (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("team stats recompute failed", e);
+        }
+    }
+
+    /**
+     * 테스트용: 지금까지 요청된 재계산이 끝날 때까지 기다린다.
+     */
+    void awaitRecompute() throws InterruptedException, ExecutionException {
+        ExecutorService executor = this.executor;
+        if (executor != null) {
+            executor.submit(() -> { }).get();
+        }
+    }
+
+    /**
+     * member 테이블을 다시 집계해서 요약 테이블과 비교한다. (변경이 없을 때 돌려야 정확하다)
+     */
+    public TeamStatsCheck check() {
+        long start = System.nanoTime();
+        return transactionTemplate.execute(status -> {
+            Map<Long, String> expectedStats = new HashMap<>();
+            jdbcTemplate.query(RECOMPUTE_STATS.substring(RECOMPUTE_STATS.indexOf("select")) + " group by t.team_id",
+                    rs -> {
+                        expectedStats.put(rs.getLong(1), rs.getLong(2) + "/" + rs.getLong(3));
+                    });
+            Map<Long, String> actualStats = new HashMap<>();
+            jdbcTemplate.query("select team_id, member_count, age_sum from team_stats",
+                    rs -> {
+                        actualStats.put(rs.getLong(1), rs.getLong(2) + "/" + rs.getLong(3));
+                    });
+            Map<String, Long> expectedBuckets = new HashMap<>();
+            jdbcTemplate.query(String.format(countBuckets, ""),
+                    rs -> {
+                        expectedBuckets.put(rs.getLong(1) + "#" + rs.getInt(2), rs.getLong(3));
+                    });
+            Map<String, Long> actualBuckets = new HashMap<>();
+            jdbcTemplate.query("select team_id, bucket, member_count from team_age_bucket",
+                    rs -> {
+                        actualBuckets.put(rs.getLong(1) + "#" + rs.getInt(2), rs.getLong(3));
+                    });
+
+            List<String> mismatches = new ArrayList<>();
+            Set<Long> teams = new HashSet<>(expectedStats.keySet());
+            teams.addAll(actualStats.keySet());
+            for (Long team : teams) {
+                if (!Objects.equals(expectedStats.get(team), actualStats.get(team))) {
+                    mismatch(mismatches, "team " + team + " count/ageSum expected " + expectedStats.get(team)
+                            + " but " + actualStats.get(team));
+                }
+                for (int bucket = 0; bucket < buckets; bucket++) {
+                    String key = team + "#" + bucket;
+                    Long expected = expectedStats.containsKey(team) ? expectedBuckets.getOrDefault(key, 0L) : null;
+                    if (!Objects.equals(expected, actualBuckets.get(key))) {
+                        mismatch(mismatches, "team " + team + " bucket " + bucket + " expected " + expected
+                                + " but " + actualBuckets.get(key));
+                    }
+                }
+            }
+            return new TeamStatsCheck(teams.size(), mismatches, (System.nanoTime() - start) / 1_000_000);
+        });
+    }
+
+    private static void mismatch(List<String> mismatches, String message) {
+        if (mismatches.size() < MAX_MISMATCHES) {
+            mismatches.add(message);
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "team-stats");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (rebuildOnStartup) {
+            rebuild();
+        } else if (recomputeRequested.get()) {
+            executor.execute(this::recomputeRequested);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return executor != null;
+    }
+}
@@ -0,0 +1,42 @@
+package study.datajpa.stats;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * GET /teams/{id}/stats 응답
+ */
+@Getter
+public class TeamStatsView {
+    private final Long teamId;
+    private final long memberCount;
+    private final double averageAge;
+    private final List<AgeBucket> histogram = new ArrayList<>();
+
+    TeamStatsView(TeamStats stats, List<TeamAgeBucket> buckets, int bucketWidth, int bucketCount) {
+        this.teamId = stats.getTeamId();
+        this.memberCount = stats.getMemberCount();
+        this.averageAge = stats.getAverageAge();
+        for (TeamAgeBucket bucket : buckets) {
+            int minAge = bucket.getBucket() * bucketWidth;
+            Integer maxAge = bucket.getBucket() == bucketCount - 1 ? null : minAge + bucketWidth - 1;
+            histogram.add(new AgeBucket(minAge, maxAge, bucket.getMemberCount()));
+        }
+    }
+
+    @Getter
+    public static class AgeBucket {
+        private final int minAge;
+        /** 마지막 구간은 null (상한 없음) */
+        private final Integer maxAge;
+        private final long memberCount;
+
+        AgeBucket(int minAge, Integer maxAge, long memberCount) {
+            this.minAge = minAge;
+            this.maxAge = maxAge;
+            this.memberCount = memberCount;
+        }
+    }
+}
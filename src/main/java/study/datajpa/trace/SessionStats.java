@@ -0,0 +1,68 @@
+package study.datajpa.trace;
+
+import lombok.Getter;
+import org.springframework.lang.Nullable;
+
+/**
+ * 요청 하나의 영속성 컨텍스트/Hibernate 세션 통계
+ *
+ * SessionStatsFilter 가 요청 스레드에 걸어두고, Hibernate 리스너(SessionStatsCollector, SessionStatsListener)가 센다.
+ * 요청 스레드에서만 쓰므로 동기화하지 않는다.
+ */
+@Getter
+public class SessionStats {
+    private static final ThreadLocal<SessionStats> CURRENT = new ThreadLocal<>();
+
+    /** 영속성 컨텍스트에 올라온 엔티티 (2차 캐시 hit 포함) */
+    private long entitiesLoaded;
+    /** 지연 로딩으로 초기화한 컬렉션 */
+    private long collectionsFetched;
+    /** flush, 쿼리 전 auto flush 포함 */
+    private long flushes;
+    private long flushNanos;
+    /** 실행한 JDBC 문 (select, dml, batch) */
+    private long statements;
+    private long statementNanos;
+    /** 영속성 컨텍스트 크기 최대값 (관리중인 엔티티, 컬렉션) */
+    private int peakEntities;
+    private int peakCollections;
+    private final long startNanos = System.nanoTime();
+    private long elapsedNanos;
+
+    static SessionStats begin() {
+        SessionStats stats = new SessionStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    void end() {
+        elapsedNanos = System.nanoTime() - startNanos;
+        CURRENT.remove();
+    }
+
+    @Nullable
+    static SessionStats current() {
+        return CURRENT.get();
+    }
+
+    void entityLoaded(int managedEntities) {
+        entitiesLoaded++;
+        peakEntities = Math.max(peakEntities, managedEntities);
+    }
+
+    void collectionFetched() {
+        collectionsFetched++;
+    }
+
+    void flushed(long nanos, int managedEntities, int managedCollections) {
+        flushes++;
+        flushNanos += nanos;
+        peakEntities = Math.max(peakEntities, managedEntities);
+        peakCollections = Math.max(peakCollections, managedCollections);
+    }
+
+    void statementExecuted(long nanos) {
+        statements++;
+        statementNanos += nanos;
+    }
+}
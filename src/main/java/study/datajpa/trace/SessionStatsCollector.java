@@ -0,0 +1,95 @@
+package study.datajpa.trace;
+
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 요청별 Hibernate 세션 통계 수집/집계
+ *
+ * - 엔티티 로딩(post load), 컬렉션 지연 로딩(init collection): 이 클래스가 Hibernate 이벤트 리스너로 센다.
+ * - flush, JDBC 문 실행시간: 세션마다 붙는 SessionStatsListener 가 잰다.
+ * 요청 스레드에 SessionStats 가 없으면(배치, 스케줄러 스레드) 아무것도 하지 않는다.
+ * 요청이 끝나면 엔드포인트(HTTP 메서드 + 매핑 패턴)별로 더한다.
+ */
+@Component
+@ConditionalOnProperty(name = "datajpa.trace.session.enabled", havingValue = "true", matchIfMissing = true)
+public class SessionStatsCollector implements PostLoadEventListener, InitializeCollectionEventListener {
+    static final String OTHER = "other";
+
+    private final EntityManagerFactory emf;
+    private final int maxEndpoints;
+    private volatile boolean headers;
+    private final Map<String, SessionStatsSummary> endpoints = new ConcurrentHashMap<>();
+
+    public SessionStatsCollector(EntityManagerFactory emf, SessionStatsProperties properties) {
+        this.emf = emf;
+        this.maxEndpoints = properties.getMaxEndpoints();
+        this.headers = properties.isHeaders();
+    }
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImpl.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_LOAD, this);
+        registry.appendListeners(EventType.INIT_COLLECTION, this);
+    }
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        SessionStats stats = SessionStats.current();
+        if (stats != null) {
+            stats.entityLoaded(event.getSession().getPersistenceContext().getNumberOfManagedEntities());
+        }
+    }
+
+    @Override
+    public void onInitializeCollection(InitializeCollectionEvent event) {
+        SessionStats stats = SessionStats.current();
+        if (stats != null) {
+            stats.collectionFetched();
+        }
+    }
+
+    public boolean isHeaders() {
+        return headers;
+    }
+
+    public void setHeaders(boolean headers) {
+        this.headers = headers;
+    }
+
+    void record(String endpoint, SessionStats stats) {
+        if (endpoints.size() >= maxEndpoints && !endpoints.containsKey(endpoint)) {
+            endpoint = OTHER;
+        }
+        endpoints.computeIfAbsent(endpoint, SessionStatsSummary::new).add(stats);
+    }
+
+    public SessionStatsStatus status() {
+        List<SessionStatsSummary> summaries = endpoints.values().stream()
+                .map(SessionStatsSummary::copy)
+                .sorted(Comparator.comparingLong(SessionStatsSummary::getEntitiesLoaded).reversed())
+                .collect(Collectors.toList());
+        return new SessionStatsStatus(headers, summaries);
+    }
+
+    public void reset() {
+        endpoints.clear();
+    }
+}
@@ -0,0 +1,20 @@
+package study.datajpa.trace;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 모든 Hibernate 세션에 SessionStatsListener 를 붙인다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datajpa.trace.session.enabled", havingValue = "true", matchIfMissing = true)
+public class SessionStatsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer sessionStatsListenerCustomizer() {
+        return properties -> properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, SessionStatsListener.class.getName());
+    }
+}
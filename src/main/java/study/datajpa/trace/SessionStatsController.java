@@ -0,0 +1,44 @@
+package study.datajpa.trace;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * 엔드포인트별 세션 통계
+ * 예제: POST /trace/session?headers=true (응답 헤더 켜기), DELETE /trace/session (집계 초기화)
+ * 응답 헤더 켜기는 datajpa.trace.session.headers-toggle=true 일 때만 받는다. (응답 본문을 버퍼링한다)
+ */
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "datajpa.trace.session.enabled", havingValue = "true", matchIfMissing = true)
+public class SessionStatsController {
+    private final SessionStatsCollector collector;
+    private final SessionStatsProperties properties;
+
+    @GetMapping("/trace/session")
+    public SessionStatsStatus status(){
+        return collector.status();
+    }
+
+    @PostMapping("/trace/session")
+    public SessionStatsStatus configure(@RequestParam boolean headers){
+        if (!properties.isHeadersToggle()) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "datajpa.trace.session.headers-toggle is off");
+        }
+        collector.setHeaders(headers);
+        return collector.status();
+    }
+
+    @DeleteMapping("/trace/session")
+    public SessionStatsStatus reset(){
+        collector.reset();
+        return collector.status();
+    }
+}
@@ -0,0 +1,65 @@
+package study.datajpa.trace;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 요청마다 SessionStats 를 걸고, 끝나면 SessionStatsCollector 에 모은다.
+ *
+ * 헤더 모드에서는 본문을 버퍼링했다가 X-Session-* 헤더를 붙인 다음 내보낸다.
+ * (응답 직렬화 중 지연 로딩까지 세려면 본문을 쓴 뒤에 헤더를 붙여야 한다)
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(name = "datajpa.trace.session.enabled", havingValue = "true", matchIfMissing = true)
+public class SessionStatsFilter extends OncePerRequestFilter {
+    private final SessionStatsCollector collector;
+
+    public SessionStatsFilter(SessionStatsCollector collector) {
+        this.collector = collector;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper buffered = collector.isHeaders() ? new ContentCachingResponseWrapper(response) : null;
+        SessionStats stats = SessionStats.begin();
+        try {
+            chain.doFilter(request, buffered != null ? buffered : response);
+        } finally {
+            stats.end();
+            collector.record(endpoint(request), stats);
+            if (buffered != null) {
+                writeHeaders(buffered, stats);
+                buffered.copyBodyToResponse();
+            }
+        }
+    }
+
+    private String endpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+    }
+
+    private void writeHeaders(HttpServletResponse response, SessionStats stats) {
+        response.setHeader("X-Session-Entities-Loaded", String.valueOf(stats.getEntitiesLoaded()));
+        response.setHeader("X-Session-Collections-Fetched", String.valueOf(stats.getCollectionsFetched()));
+        response.setHeader("X-Session-Flushes", String.valueOf(stats.getFlushes()));
+        response.setHeader("X-Session-Flush-Micros", String.valueOf(stats.getFlushNanos() / 1_000));
+        response.setHeader("X-Session-Statements", String.valueOf(stats.getStatements()));
+        response.setHeader("X-Session-Statement-Micros", String.valueOf(stats.getStatementNanos() / 1_000));
+        response.setHeader("X-Session-Peak-Entities", String.valueOf(stats.getPeakEntities()));
+        response.setHeader("X-Session-Peak-Collections", String.valueOf(stats.getPeakCollections()));
+    }
+}
@@ -0,0 +1,66 @@
+package study.datajpa.trace;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * 세션마다 만들어지는 Hibernate SessionEventListener (hibernate.session.events.auto)
+ * flush 시간과 JDBC 문 실행 시간을 현재 요청의 SessionStats 에 더한다.
+ */
+public class SessionStatsListener extends BaseSessionEventListener {
+    private long flushStart;
+    private long statementStart;
+
+    @Override
+    public void flushStart() {
+        flushStart = System.nanoTime();
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        flushed(numberOfEntities, numberOfCollections);
+    }
+
+    @Override
+    public void partialFlushStart() {
+        flushStart = System.nanoTime();
+    }
+
+    @Override
+    public void partialFlushEnd(int numberOfEntities, int numberOfCollections) {
+        flushed(numberOfEntities, numberOfCollections);
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        statementExecuted();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        statementExecuted();
+    }
+
+    private void flushed(int numberOfEntities, int numberOfCollections) {
+        SessionStats stats = SessionStats.current();
+        if (stats != null) {
+            stats.flushed(System.nanoTime() - flushStart, numberOfEntities, numberOfCollections);
+        }
+    }
+
+    private void statementExecuted() {
+        SessionStats stats = SessionStats.current();
+        if (stats != null) {
+            stats.statementExecuted(System.nanoTime() - statementStart);
+        }
+    }
+}
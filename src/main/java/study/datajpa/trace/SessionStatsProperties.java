@@ -0,0 +1,22 @@
+package study.datajpa.trace;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * datajpa.trace.session.*
+ * headers 는 headers-toggle 이 켜져 있을 때만 실행중에 /trace/session 으로 바꿀 수 있다.
+ */
+@ConfigurationProperties(prefix = "datajpa.trace.session")
+@Getter @Setter
+public class SessionStatsProperties {
+    /** 꺼져 있으면 필터/Hibernate 리스너를 등록하지 않는다 */
+    private boolean enabled = true;
+    /** 디버그: 응답 헤더(X-Session-*)에 요청별 통계를 붙인다 (응답 본문을 버퍼링한다) */
+    private boolean headers = false;
+    /** POST /trace/session?headers= 허용 (꺼져 있으면 403) */
+    private boolean headersToggle = false;
+    /** 집계할 엔드포인트 수, 넘으면 "other" 로 모은다 */
+    private int maxEndpoints = 200;
+}
@@ -0,0 +1,19 @@
+package study.datajpa.trace;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * GET /trace/session 응답, endpoints 는 로딩한 엔티티 합계 내림차순
+ */
+@Getter
+public class SessionStatsStatus {
+    private final boolean headers;
+    private final List<SessionStatsSummary> endpoints;
+
+    public SessionStatsStatus(boolean headers, List<SessionStatsSummary> endpoints) {
+        this.headers = headers;
+        this.endpoints = endpoints;
+    }
+}
@@ -0,0 +1,89 @@
+package study.datajpa.trace;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 엔드포인트별 SessionStats 합계/최대값
+ * 시간은 nanos 로 더하고 보여줄 때 ms 로 바꾼다. (요청마다 ms 로 자르면 1ms 미만 요청은 0 으로 더해진다)
+ */
+@Getter
+public class SessionStatsSummary {
+    private final String endpoint;
+    private long requests;
+    private long entitiesLoaded;
+    private long maxEntitiesLoaded;
+    private long collectionsFetched;
+    private long maxCollectionsFetched;
+    private long flushes;
+    @Getter(AccessLevel.NONE)
+    private long flushNanos;
+    private long statements;
+    private long maxStatements;
+    @Getter(AccessLevel.NONE)
+    private long statementNanos;
+    @Getter(AccessLevel.NONE)
+    private long elapsedNanos;
+    private int peakEntities;
+    private int peakCollections;
+
+    SessionStatsSummary(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    synchronized void add(SessionStats stats) {
+        requests++;
+        entitiesLoaded += stats.getEntitiesLoaded();
+        maxEntitiesLoaded = Math.max(maxEntitiesLoaded, stats.getEntitiesLoaded());
+        collectionsFetched += stats.getCollectionsFetched();
+        maxCollectionsFetched = Math.max(maxCollectionsFetched, stats.getCollectionsFetched());
+        flushes += stats.getFlushes();
+        flushNanos += stats.getFlushNanos();
+        statements += stats.getStatements();
+        maxStatements = Math.max(maxStatements, stats.getStatements());
+        statementNanos += stats.getStatementNanos();
+        elapsedNanos += stats.getElapsedNanos();
+        peakEntities = Math.max(peakEntities, stats.getPeakEntities());
+        peakCollections = Math.max(peakCollections, stats.getPeakCollections());
+    }
+
+    synchronized SessionStatsSummary copy() {
+        SessionStatsSummary copy = new SessionStatsSummary(endpoint);
+        copy.requests = requests;
+        copy.entitiesLoaded = entitiesLoaded;
+        copy.maxEntitiesLoaded = maxEntitiesLoaded;
+        copy.collectionsFetched = collectionsFetched;
+        copy.maxCollectionsFetched = maxCollectionsFetched;
+        copy.flushes = flushes;
+        copy.flushNanos = flushNanos;
+        copy.statements = statements;
+        copy.maxStatements = maxStatements;
+        copy.statementNanos = statementNanos;
+        copy.elapsedNanos = elapsedNanos;
+        copy.peakEntities = peakEntities;
+        copy.peakCollections = peakCollections;
+        return copy;
+    }
+
+    public long getFlushMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(flushNanos);
+    }
+
+    public long getStatementMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(statementNanos);
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    public double getAvgEntitiesLoaded() {
+        return requests == 0 ? 0 : (double) entitiesLoaded / requests;
+    }
+
+    public double getAvgStatements() {
+        return requests == 0 ? 0 : (double) statements / requests;
+    }
+}
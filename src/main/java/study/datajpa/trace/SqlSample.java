@@ -0,0 +1,18 @@
+package study.datajpa.trace;
+
+import lombok.Getter;
+
+@Getter
+public class SqlSample {
+    private final long timestamp;
+    private final String sql;
+    private final long elapsedMicros;
+    private final boolean slow;
+
+    public SqlSample(long timestamp, String sql, long elapsedMicros, boolean slow) {
+        this.timestamp = timestamp;
+        this.sql = sql;
+        this.elapsedMicros = elapsedMicros;
+        this.slow = slow;
+    }
+}
@@ -0,0 +1,30 @@
+package study.datajpa.trace;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 재기동 없이 SQL 트레이스 on/off
+ * 예제: POST /trace/sql?enabled=true&sampleRate=10&slowThresholdMillis=50
+ */
+@RestController
+@RequiredArgsConstructor
+public class SqlTraceController {
+    private final SqlTracer sqlTracer;
+
+    @GetMapping("/trace/sql")
+    public SqlTraceStatus status(){
+        return sqlTracer.status();
+    }
+
+    @PostMapping("/trace/sql")
+    public SqlTraceStatus configure(@RequestParam(required = false) Boolean enabled,
+                                    @RequestParam(required = false) Integer sampleRate,
+                                    @RequestParam(required = false) Long slowThresholdMillis){
+        sqlTracer.configure(enabled, sampleRate, slowThresholdMillis);
+        return sqlTracer.status();
+    }
+}
@@ -0,0 +1,22 @@
+package study.datajpa.trace;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * datajpa.trace.sql.*
+ * 기동시 초기값, 실행중에는 /trace/sql 로 변경한다.
+ */
+@ConfigurationProperties(prefix = "datajpa.trace.sql")
+@Getter @Setter
+public class SqlTraceProperties {
+    /** 꺼져 있으면 커넥션을 감싸지 않는다 */
+    private boolean enabled = false;
+    /** N 건 중 1 건 기록, 0 이면 샘플링 안함 */
+    private int sampleRate = 100;
+    /** 이 시간 이상 걸린 쿼리는 샘플링과 상관없이 기록, 0 이면 사용 안함 */
+    private long slowThresholdMillis = 0;
+    /** /trace/sql 에서 보여줄 최근 기록 수 */
+    private int recentSize = 100;
+}
@@ -0,0 +1,28 @@
+package study.datajpa.trace;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class SqlTraceStatus {
+    private final boolean enabled;
+    private final int sampleRate;
+    private final long slowThresholdMillis;
+    /** 트레이스가 켜져 있는 동안 실행된 쿼리 수 */
+    private final long executed;
+    private final long sampled;
+    private final long slow;
+    private final List<SqlSample> recent;
+
+    public SqlTraceStatus(boolean enabled, int sampleRate, long slowThresholdMillis,
+                          long executed, long sampled, long slow, List<SqlSample> recent) {
+        this.enabled = enabled;
+        this.sampleRate = sampleRate;
+        this.slowThresholdMillis = slowThresholdMillis;
+        this.executed = executed;
+        this.sampled = sampled;
+        this.slow = slow;
+        this.recent = recent;
+    }
+}
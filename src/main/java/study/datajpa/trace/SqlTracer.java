@@ -0,0 +1,91 @@
+package study.datajpa.trace;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SQL 샘플링 트레이서
+ *
+ * enabled 가 false 이면 TracingDataSource 가 커넥션을 그대로 돌려주므로 쿼리마다 드는 비용이 없다.
+ * enabled 이면 실행시간을 재고 (1/sampleRate) 또는 slowThreshold 를 넘은 쿼리만 기록한다.
+ */
+@Slf4j
+@Component
+public class SqlTracer {
+    private volatile boolean enabled;
+    private volatile int sampleRate;
+    private volatile long slowThresholdNanos;
+    private final int recentSize;
+
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong sampled = new AtomicLong();
+    private final AtomicLong slow = new AtomicLong();
+    private final Deque<SqlSample> recent = new ArrayDeque<>();
+
+    public SqlTracer(SqlTraceProperties properties) {
+        this.enabled = properties.isEnabled();
+        this.sampleRate = properties.getSampleRate();
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(properties.getSlowThresholdMillis());
+        this.recentSize = properties.getRecentSize();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void configure(Boolean enabled, Integer sampleRate, Long slowThresholdMillis) {
+        if (sampleRate != null) {
+            this.sampleRate = sampleRate;
+        }
+        if (slowThresholdMillis != null) {
+            this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+        }
+        if (enabled != null) {
+            this.enabled = enabled;
+        }
+        log.info("sql trace enabled={}, sampleRate={}, slowThresholdMillis={}",
+                this.enabled, this.sampleRate, TimeUnit.NANOSECONDS.toMillis(this.slowThresholdNanos));
+    }
+
+    void record(String sql, long elapsedNanos) {
+        long seq = executed.incrementAndGet();
+        boolean isSlow = slowThresholdNanos > 0 && elapsedNanos >= slowThresholdNanos;
+        int rate = sampleRate;
+        if (!isSlow && (rate <= 0 || seq % rate != 0)) {
+            return;
+        }
+
+        sampled.incrementAndGet();
+        if (isSlow) {
+            slow.incrementAndGet();
+        }
+        SqlSample sample = new SqlSample(System.currentTimeMillis(), sql, elapsedNanos / 1_000, isSlow);
+        synchronized (recent) {
+            if (recent.size() >= recentSize) {
+                recent.removeFirst();
+            }
+            recent.addLast(sample);
+        }
+        if (isSlow) {
+            log.warn("slow sql {}us: {}", sample.getElapsedMicros(), sql);
+        } else {
+            log.info("sql {}us: {}", sample.getElapsedMicros(), sql);
+        }
+    }
+
+    public SqlTraceStatus status() {
+        List<SqlSample> samples;
+        synchronized (recent) {
+            samples = new ArrayList<>(recent);
+        }
+        return new SqlTraceStatus(enabled, sampleRate, TimeUnit.NANOSECONDS.toMillis(slowThresholdNanos),
+                executed.get(), sampled.get(), slow.get(), samples);
+    }
+}
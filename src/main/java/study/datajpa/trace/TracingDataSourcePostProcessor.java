@@ -0,0 +1,27 @@
+package study.datajpa.trace;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * 애플리케이션 DataSource 를 TracingDataSource 로 감싼다 (p6spy 대체)
+ */
+@Component
+public class TracingDataSourcePostProcessor implements BeanPostProcessor {
+    private final ObjectProvider<SqlTracer> tracer;
+
+    public TracingDataSourcePostProcessor(ObjectProvider<SqlTracer> tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource && !(bean instanceof TracingDataSource)) {
+            return new TracingDataSource((DataSource) bean, tracer.getObject());
+        }
+        return bean;
+    }
+}
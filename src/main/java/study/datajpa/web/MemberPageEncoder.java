@@ -0,0 +1,211 @@
+package study.datajpa.web;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.data.domain.Page;
+import study.datajpa.dto.MemberDto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 회원 페이지를 가벼운 봉투(page, size, totalElements, totalPages, content) 로 바로 출력 스트림에 쓴다.
+ * Page 의 pageable/sort 메타데이터는 싣지 않고, ObjectMapper 나 중간 트리 없이 MemberDto 를 하나씩 쓴다.
+ *
+ * protobuf 형식은 resources/proto/member_page.proto 와 같다.
+ */
+public final class MemberPageEncoder {
+    private static final int BUFFER_SIZE = 8192;
+
+    private MemberPageEncoder() {
+    }
+
+    /**
+     * JSON/CBOR/Smile 공통. null 인 필드는 쓰지 않는다.
+     */
+    public static void write(JsonGenerator gen, Page<MemberDto> page) throws IOException {
+        gen.writeStartObject();
+        gen.writeNumberField("page", page.getNumber());
+        gen.writeNumberField("size", page.getSize());
+        gen.writeNumberField("totalElements", page.getTotalElements());
+        gen.writeNumberField("totalPages", page.getTotalPages());
+        gen.writeArrayFieldStart("content");
+        for (MemberDto dto : page.getContent()) {
+            gen.writeStartObject();
+            if (dto.getId() != null) {
+                gen.writeNumberField("id", dto.getId());
+            }
+            if (dto.getUsername() != null) {
+                gen.writeStringField("username", dto.getUsername());
+            }
+            if (dto.getTeamName() != null) {
+                gen.writeStringField("teamName", dto.getTeamName());
+            }
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+        gen.flush();
+    }
+
+    /**
+     * protobuf wire format. 회원 메시지마다 길이를 먼저 계산해서 length-delimited 로 쓴다.
+     * proto3 처럼 기본값(0, 빈 문자열)과 null 은 생략한다.
+     */
+    public static void writeProtobuf(OutputStream out, Page<MemberDto> page) throws IOException {
+        ProtobufOutput pb = new ProtobufOutput(out);
+        pb.writeVarintField(1, page.getNumber());
+        pb.writeVarintField(2, page.getSize());
+        pb.writeVarintField(3, page.getTotalElements());
+        pb.writeVarintField(4, page.getTotalPages());
+        for (MemberDto dto : page.getContent()) {
+            pb.writeTag(5, 2);
+            pb.writeVarint(memberSize(dto));
+            if (dto.getId() != null) {
+                pb.writeVarintField(1, dto.getId());
+            }
+            pb.writeStringField(2, dto.getUsername());
+            pb.writeStringField(3, dto.getTeamName());
+        }
+        pb.flush();
+    }
+
+    private static int memberSize(MemberDto dto) {
+        int size = 0;
+        if (dto.getId() != null && dto.getId() != 0) {
+            size += 1 + varintSize(dto.getId());
+        }
+        size += stringFieldSize(dto.getUsername());
+        size += stringFieldSize(dto.getTeamName());
+        return size;
+    }
+
+    private static int stringFieldSize(String value) {
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+        int length = utf8Length(value);
+        return 1 + varintSize(length) + length;
+    }
+
+    static int varintSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    static int utf8Length(String s) {
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * 작은 값을 많이 쓰므로 자체 버퍼에 모았다가 내보낸다.
+     */
+    private static final class ProtobufOutput {
+        private final OutputStream out;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int position;
+
+        ProtobufOutput(OutputStream out) {
+            this.out = out;
+        }
+
+        void writeTag(int field, int wireType) throws IOException {
+            writeVarint(((long) field << 3) | wireType);
+        }
+
+        void writeVarintField(int field, long value) throws IOException {
+            if (value == 0) {
+                return;
+            }
+            writeTag(field, 0);
+            writeVarint(value);
+        }
+
+        void writeStringField(int field, String value) throws IOException {
+            if (value == null || value.isEmpty()) {
+                return;
+            }
+            writeTag(field, 2);
+            writeVarint(utf8Length(value));
+            // 문자 하나는 최대 3바이트(surrogate 쌍은 두 문자에 4바이트)
+            if (value.length() * 3 > buffer.length) {
+                for (int i = 0; i < value.length(); i++) {
+                    ensure(4);
+                    i = writeChar(value, i);
+                }
+                return;
+            }
+            ensure(value.length() * 3);
+            for (int i = 0; i < value.length(); i++) {
+                i = writeChar(value, i);
+            }
+        }
+
+        /**
+         * 버퍼 여유는 호출하는 쪽에서 확인한다. 소비한 마지막 문자 위치를 돌려준다.
+         */
+        private int writeChar(String value, int i) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, value.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | (cp >> 18));
+                buffer[position++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (cp & 0x3F));
+            } else {
+                // 짝이 없는 surrogate 도 3바이트로 쓴다. utf8Length 와 맞아야 한다.
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+            return i;
+        }
+
+        void writeVarint(long value) throws IOException {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (position + bytes > buffer.length) {
+                drain();
+            }
+        }
+
+        private void drain() throws IOException {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+
+        void flush() throws IOException {
+            drain();
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package study.datajpa.web;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.Nullable;
+import study.datajpa.dto.MemberDto;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Page&lt;MemberDto&gt; 를 CBOR, Smile, protobuf 로 쓰는 컨버터 (쓰기 전용)
+ * Accept 헤더로 고른다. JSON 응답은 기존처럼 Jackson 컨버터가 Page 전체를 쓴다.
+ *
+ * 예) curl -H 'Accept: application/x-protobuf' localhost:8080/members
+ */
+public class MemberPageHttpMessageConverter extends AbstractGenericHttpMessageConverter<Page<MemberDto>> {
+    public static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+    public static final MediaType PROTOBUF = new MediaType("application", "x-protobuf");
+
+    private final JsonFactory cborFactory = new CBORFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    private final JsonFactory smileFactory = new SmileFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    public MemberPageHttpMessageConverter() {
+        super(MediaType.APPLICATION_CBOR, SMILE, PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Page.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected boolean canRead(@Nullable MediaType mediaType) {
+        return false;
+    }
+
+    /**
+     * 제네릭 타입까지 Page&lt;MemberDto&gt; 인 반환값만 맡는다.
+     */
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        if (!supports(clazz) || !canWrite(mediaType)) {
+            return false;
+        }
+        Class<?> element = ResolvableType.forType(type != null ? type : clazz).as(Page.class).resolveGeneric(0);
+        return element == MemberDto.class;
+    }
+
+    @Override
+    protected void writeInternal(Page<MemberDto> page, @Nullable Type type, HttpOutputMessage outputMessage) throws IOException {
+        MediaType contentType = outputMessage.getHeaders().getContentType();
+        if (PROTOBUF.isCompatibleWith(contentType)) {
+            MemberPageEncoder.writeProtobuf(outputMessage.getBody(), page);
+            return;
+        }
+        JsonFactory factory = SMILE.isCompatibleWith(contentType) ? smileFactory : cborFactory;
+        try (JsonGenerator gen = factory.createGenerator(outputMessage.getBody())) {
+            MemberPageEncoder.write(gen, page);
+        }
+    }
+
+    @Override
+    protected Page<MemberDto> readInternal(Class<? extends Page<MemberDto>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("MemberPage 는 읽기를 지원하지 않습니다.", inputMessage);
+    }
+
+    @Override
+    public Page<MemberDto> read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("MemberPage 는 읽기를 지원하지 않습니다.", inputMessage);
+    }
+}
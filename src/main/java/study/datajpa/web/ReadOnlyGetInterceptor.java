@@ -0,0 +1,59 @@
+package study.datajpa.web;
+
+import org.hibernate.Session;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.persistence.EntityManagerFactory;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * @Transactional(readOnly = true) 가 붙은 핸들러(메서드 또는 컨트롤러)의 GET/HEAD 요청은
+ * OSIV 로 열린 세션에서 읽는 엔티티를 읽기 전용(스냅샷 없이)으로 로딩한다.
+ *
+ * 트랜잭션이 끝난 뒤(응답 직렬화 중 지연 로딩 등)에 읽은 엔티티까지 읽기 전용이 된다.
+ * 읽기 전용으로 선언하지 않은 핸들러는 건드리지 않는다. GET 에서 쓰기 서비스를 호출해도 변경이 버려지지 않아야 하기 때문이다.
+ * 플러시 모드는 바꾸지 않는다. (읽기 전용 트랜잭션 안에서는 HibernateJpaDialect 가 MANUAL 로 바꾼다)
+ */
+@Component
+@ConditionalOnProperty(name = "datajpa.jpa.read-only-get", havingValue = "true", matchIfMissing = true)
+public class ReadOnlyGetInterceptor implements HandlerInterceptor {
+    private final EntityManagerFactory emf;
+
+    public ReadOnlyGetInterceptor(EntityManagerFactory emf) {
+        this.emf = emf;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method) || !isReadOnly(handler)) {
+            return true;
+        }
+
+        EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(emf);
+        if (holder != null) {
+            holder.getEntityManager().unwrap(Session.class).setDefaultReadOnly(true);
+        }
+        return true;
+    }
+
+    static boolean isReadOnly(Object handler) {
+        if (!(handler instanceof HandlerMethod)) {
+            return false;
+        }
+        HandlerMethod handlerMethod = (HandlerMethod) handler;
+        Transactional transactional = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getMethod(), Transactional.class);
+        if (transactional == null) {
+            transactional = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), Transactional.class);
+        }
+        return transactional != null && transactional.readOnly();
+    }
+}
@@ -0,0 +1,37 @@
+package study.datajpa.web;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    private final ObjectProvider<ReadOnlyGetInterceptor> readOnlyGetInterceptor;
+
+    public WebConfig(ObjectProvider<ReadOnlyGetInterceptor> readOnlyGetInterceptor) {
+        this.readOnlyGetInterceptor = readOnlyGetInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // OSIV 인터셉터가 EntityManager 를 바인딩한 다음에 실행되어야 한다.
+        readOnlyGetInterceptor.ifAvailable(interceptor ->
+                registry.addInterceptor(interceptor).order(Ordered.LOWEST_PRECEDENCE));
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // JSON 컨버터 바로 뒤: Accept */* 는 계속 JSON 이고, 기본 CBOR/Smile 컨버터보다는 먼저 Page<MemberDto> 를 맡는다.
+        int json = 0;
+        while (json < converters.size() && !(converters.get(json) instanceof MappingJackson2HttpMessageConverter)) {
+            json++;
+        }
+        converters.add(Math.min(json + 1, converters.size()), new MemberPageHttpMessageConverter());
+    }
+}
@@ -0,0 +1,43 @@
+package study.datajpa.work;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 회원 단위 작업 큐 (스키마 정의용, 읽기/쓰기는 MemberWorkQueue 의 JDBC)
+ * task 별로 회원마다 처리할 일 하나. 회원이 지워져도 작업은 남도록 FK 는 두지 않는다.
+ */
+@Entity
+@Table(name = "member_work_item", indexes = {
+        @Index(name = "idx_member_work_item_claim", columnList = "task, status, lease_until"),
+        @Index(name = "idx_member_work_item_member", columnList = "member_id")
+})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class MemberWorkItem {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(nullable = false, length = 64)
+    private String task;
+    @Column(name = "member_id", nullable = false)
+    private Long memberId;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+    @Column(name = "lease_owner", length = 64)
+    private String leaseOwner;
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+    @Column(nullable = false)
+    private int attempts;
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public enum Status {
+        READY, CLAIMED, DONE, FAILED
+    }
+}
@@ -0,0 +1,245 @@
+package study.datajpa.work;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.work.MemberWorkItem.Status;
+import study.datajpa.work.WorkQueueProperties.ClaimStrategy;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * member_work_item 을 큐처럼 쓰는 작업 분배
+ * 여러 워커가 claim 으로 서로 다른 작업 묶음을 임대(lease)받고, 끝나면 complete, 실패하면 release 한다.
+ *
+ * - claim 은 호출한 쪽 트랜잭션과 상관없이 바로 커밋한다. (작업 처리 트랜잭션 동안 행 잠금을 잡고 있지 않는다)
+ * - 임대가 만료된 작업(워커가 죽은 경우)은 다른 워커가 다시 가져간다. attempts 가 maxAttempts 에 닿으면 FAILED.
+ * - complete/release 는 아직 자기 임대인 작업만 바꾼다. 만료 후 다른 워커가 가져간 작업은 0 건으로 끝난다.
+ *
+ * 예)
+ * List&lt;WorkLease&gt; leases = workQueue.claim("recompute-age", workerId, 100);
+ * ... 처리 ...
+ * workQueue.complete(workerId, leases);
+ */
+@Slf4j
+@Component
+public class MemberWorkQueue {
+    // limit 은 H2, PostgreSQL, MySQL 문법이다. Oracle 처럼 limit 이 없는 DB 는 지원하지 않는다.
+    private static final String CLAIMABLE = "select id, member_id, attempts from member_work_item" +
+            " where task = ? and attempts < ? and (status = 'READY' or (status = 'CLAIMED' and lease_until < ?))" +
+            " order by id limit ?";
+    private static final String LEASE = "update member_work_item set status = 'CLAIMED', lease_owner = ?," +
+            " lease_until = ?, attempts = attempts + 1";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final WorkQueueProperties properties;
+    private final TransactionTemplate requiresNew;
+    private final TransactionTemplate notSupported;
+    private volatile Boolean skipLocked;
+
+    public MemberWorkQueue(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                           WorkQueueProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.notSupported = new TransactionTemplate(transactionManager);
+        this.notSupported.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+    }
+
+    /**
+     * 아직 끝나지 않은(READY/CLAIMED) 작업이 없는 회원만 넣는다.
+     * @return 넣은 작업 수
+     */
+    public int enqueue(String task, Collection<Long> memberIds) {
+        if (memberIds.isEmpty()) {
+            return 0;
+        }
+        String ids = memberIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+        return enqueue(task, "where m.member_id in (" + ids + ")");
+    }
+
+    /**
+     * 모든 회원을 넣는다.
+     */
+    public int enqueueAll(String task) {
+        return enqueue(task, "where 1 = 1");
+    }
+
+    private int enqueue(String task, String where) {
+        return jdbcTemplate.update("insert into member_work_item (task, member_id, status, attempts, created_at)" +
+                        " select ?, m.member_id, 'READY', 0, ? from member m " + where +
+                        " and not exists (select 1 from member_work_item w where w.task = ?" +
+                        " and w.member_id = m.member_id and w.status in ('READY', 'CLAIMED'))",
+                task, Timestamp.valueOf(LocalDateTime.now()), task);
+    }
+
+    /**
+     * 가져갈 수 있는 작업을 최대 batchSize 개 임대한다. 다른 워커가 잡고 있는 행은 기다리지 않고 건너뛴다.
+     * @return 임대받은 작업, 없으면 빈 목록
+     */
+    public List<WorkLease> claim(String task, String worker, int batchSize) {
+        List<WorkLease> leases = strategy() == ClaimStrategy.SKIP_LOCKED
+                ? claimSkipLocked(task, worker, batchSize)
+                : claimConditional(task, worker, batchSize);
+        if (leases.isEmpty()) {
+            failExhausted(task);
+        }
+        return leases;
+    }
+
+    /**
+     * 한 트랜잭션에서 잠글 수 있는 행만 잠그고(skip locked) 바로 임대 상태로 바꾼다.
+     */
+    private List<WorkLease> claimSkipLocked(String task, String worker, int batchSize) {
+        return requiresNew.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<WorkLease> candidates = jdbcTemplate.query(CLAIMABLE + " for update skip locked",
+                    (rs, rowNum) -> new WorkLease(rs.getLong(1), rs.getLong(2), rs.getInt(3) + 1),
+                    task, properties.getMaxAttempts(), Timestamp.valueOf(now), batchSize);
+            if (candidates.isEmpty()) {
+                return candidates;
+            }
+            String ids = candidates.stream().map(lease -> String.valueOf(lease.getId())).collect(Collectors.joining(","));
+            jdbcTemplate.update(LEASE + " where id in (" + ids + ")",
+                    worker, Timestamp.valueOf(now.plus(properties.getLeaseDuration())));
+            return candidates;
+        });
+    }
+
+    /**
+     * 잠금 없이 후보를 넉넉히 읽어서 섞은 다음, 행마다 "아직 가져갈 수 있는 상태면" 조건으로 update 한다.
+     * 다른 워커가 먼저 바꾼 행은 0 건이 되어 건너뛴다. 문장마다 자동 커밋이라 행 잠금은 문장 하나 동안만 잡힌다.
+     */
+    private List<WorkLease> claimConditional(String task, String worker, int batchSize) {
+        return notSupported.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            Timestamp nowTs = Timestamp.valueOf(now);
+            Timestamp leaseUntil = Timestamp.valueOf(now.plus(properties.getLeaseDuration()));
+            List<WorkLease> candidates = jdbcTemplate.query(CLAIMABLE,
+                    (rs, rowNum) -> new WorkLease(rs.getLong(1), rs.getLong(2), rs.getInt(3) + 1),
+                    task, properties.getMaxAttempts(), nowTs, batchSize * Math.max(1, properties.getCandidateFactor()));
+            Collections.shuffle(candidates);
+
+            List<WorkLease> leases = new ArrayList<>(batchSize);
+            int from = 0;
+            while (leases.size() < batchSize && from < candidates.size()) {
+                List<WorkLease> chunk = candidates.subList(from, Math.min(candidates.size(), from + batchSize - leases.size()));
+                from += chunk.size();
+                List<Object[]> args = chunk.stream()
+                        .map(lease -> new Object[]{worker, leaseUntil, lease.getId(), lease.getAttempts() - 1, nowTs})
+                        .collect(Collectors.toList());
+                // attempts 까지 비교해서, 읽은 뒤 다른 워커가 가져갔다가 만료된 행도 놓치지 않고 걸러낸다.
+                int[] counts = jdbcTemplate.batchUpdate(LEASE + " where id = ? and attempts = ?" +
+                        " and (status = 'READY' or (status = 'CLAIMED' and lease_until < ?))", args);
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == 1) {
+                        leases.add(chunk.get(i));
+                    }
+                }
+            }
+            return leases;
+        });
+    }
+
+    /**
+     * 임대가 만료된 채로 maxAttempts 에 닿은 작업은 더 가져가지 않으므로 FAILED 로 정리한다.
+     */
+    private void failExhausted(String task) {
+        jdbcTemplate.update("update member_work_item set status = 'FAILED', lease_owner = null, lease_until = null" +
+                        " where task = ? and status = 'CLAIMED' and lease_until < ? and attempts >= ?",
+                task, Timestamp.valueOf(LocalDateTime.now()), properties.getMaxAttempts());
+    }
+
+    /**
+     * @return DONE 으로 바꾼 수 (임대를 잃은 작업은 빠진다)
+     */
+    public int complete(String worker, Collection<WorkLease> leases) {
+        return updateOwned(worker, leases, "status = 'DONE', lease_owner = null, lease_until = null");
+    }
+
+    /**
+     * 처리하지 못한 작업을 돌려준다. maxAttempts 에 닿았으면 FAILED, 아니면 바로 다시 가져갈 수 있다.
+     */
+    public int release(String worker, Collection<WorkLease> leases) {
+        return updateOwned(worker, leases, "status = case when attempts >= ? then 'FAILED' else 'READY' end," +
+                " lease_owner = null, lease_until = null", properties.getMaxAttempts());
+    }
+
+    /**
+     * 오래 걸리는 작업의 임대를 leaseDuration 만큼 연장한다.
+     */
+    public int renew(String worker, Collection<WorkLease> leases) {
+        return updateOwned(worker, leases, "lease_until = ?",
+                Timestamp.valueOf(LocalDateTime.now().plus(properties.getLeaseDuration())));
+    }
+
+    private int updateOwned(String worker, Collection<WorkLease> leases, String set, Object... setArgs) {
+        if (leases.isEmpty()) {
+            return 0;
+        }
+        String ids = leases.stream().map(lease -> String.valueOf(lease.getId())).collect(Collectors.joining(","));
+        Object[] args = Arrays.copyOf(setArgs, setArgs.length + 1);
+        args[setArgs.length] = worker;
+        return notSupported.execute(status -> jdbcTemplate.update("update member_work_item set " + set +
+                " where id in (" + ids + ") and status = 'CLAIMED' and lease_owner = ?", args));
+    }
+
+    /**
+     * task 의 상태별 작업 수
+     */
+    public Map<Status, Long> counts(String task) {
+        Map<Status, Long> counts = new EnumMap<>(Status.class);
+        for (Status status : Status.values()) {
+            counts.put(status, 0L);
+        }
+        jdbcTemplate.query("select status, count(*) from member_work_item where task = ? group by status",
+                rs -> {
+                    counts.put(Status.valueOf(rs.getString(1)), rs.getLong(2));
+                }, task);
+        return counts;
+    }
+
+    /**
+     * 설정이 AUTO 면 DB 에 한 번 물어본 결과
+     */
+    public ClaimStrategy strategy() {
+        ClaimStrategy strategy = properties.getClaimStrategy();
+        if (strategy != ClaimStrategy.AUTO) {
+            return strategy;
+        }
+        return supportsSkipLocked() ? ClaimStrategy.SKIP_LOCKED : ClaimStrategy.CONDITIONAL_UPDATE;
+    }
+
+    public boolean supportsSkipLocked() {
+        Boolean supported = skipLocked;
+        if (supported == null) {
+            try {
+                // 실제 claim 문장(limit 포함)을 그대로 실행해 본다. attempts < 0 이라 행은 잠그지 않는다.
+                // 실패한 문장이 호출한 쪽 트랜잭션을 망가뜨리지 않도록 별도 트랜잭션에서 확인한다.
+                requiresNew.executeWithoutResult(status -> jdbcTemplate.queryForList(
+                        CLAIMABLE + " for update skip locked",
+                        "", 0, Timestamp.valueOf(LocalDateTime.now()), 1));
+                supported = true;
+            } catch (DataAccessException e) {
+                supported = false;
+            }
+            skipLocked = supported;
+            log.info("member work queue: skip locked {}", supported ? "supported" : "not supported, using conditional update");
+        }
+        return supported;
+    }
+}
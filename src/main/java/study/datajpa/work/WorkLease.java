@@ -0,0 +1,24 @@
+package study.datajpa.work;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 워커가 가져간 작업 하나 (leaseUntil 까지 다른 워커가 가져가지 않는다)
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class WorkLease {
+    private final Long id;
+    private final Long memberId;
+    /** 이번 포함 가져간 횟수 */
+    private final int attempts;
+
+    public WorkLease(Long id, Long memberId, int attempts) {
+        this.id = id;
+        this.memberId = memberId;
+        this.attempts = attempts;
+    }
+}
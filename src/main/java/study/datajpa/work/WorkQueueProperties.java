@@ -0,0 +1,31 @@
+package study.datajpa.work;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * datajpa.work.*
+ */
+@ConfigurationProperties(prefix = "datajpa.work")
+@Getter @Setter
+public class WorkQueueProperties {
+    /** 이 시간 안에 complete/release 하지 않으면 다른 워커가 다시 가져간다 */
+    private Duration leaseDuration = Duration.ofSeconds(30);
+    /** 이만큼 가져가고도 끝나지 않은 작업은 FAILED */
+    private int maxAttempts = 5;
+    private ClaimStrategy claimStrategy = ClaimStrategy.AUTO;
+    /** CONDITIONAL_UPDATE: 배치 크기의 몇 배를 후보로 읽어서 섞을지 (워커끼리 같은 행을 노리지 않도록) */
+    private int candidateFactor = 4;
+
+    public enum ClaimStrategy {
+        /** DB 가 SKIP LOCKED 를 지원하면 SKIP_LOCKED, 아니면 CONDITIONAL_UPDATE */
+        AUTO,
+        /** select ... for update skip locked (PostgreSQL, MySQL 8, H2 2.x). 후보 조회에 limit 을 쓰므로 Oracle 은 지원하지 않는다 */
+        SKIP_LOCKED,
+        /** 잠금 없이 후보를 읽고 행마다 상태 조건부 update, 1건 바뀐 행만 가져간다 */
+        CONDITIONAL_UPDATE
+    }
+}
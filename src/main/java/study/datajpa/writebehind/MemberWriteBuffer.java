@@ -0,0 +1,291 @@
+package study.datajpa.writebehind;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.domain.Member;
+import study.datajpa.domain.Team;
+import study.datajpa.event.EntityChange;
+import study.datajpa.event.EntityChangePublisher;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 회원 age / team 변경 write-behind (datajpa.write-behind.enabled)
+ *
+ * 같은 회원을 짧은 시간에 여러 번 바꾸는 경우 변경마다 트랜잭션과 UPDATE 를 실행하지 않고
+ * 회원별로 마지막 값만 메모리에 모아서(coalescing) flushInterval 마다, 또는 maxPending 을 넘으면 JDBC 배치로 쓴다.
+ * - 변경은 먼저 저널에 한 줄 쓰고 메모리에 반영한다. 기동시 남은 저널을 다시 읽어서 DB 에 쓴다.
+ * - DB 에 쓸 때 이전 age/team_id 를 읽어서 정확한 UPDATE 변경(EntityChange)을 발행하고 2차 캐시를 비운다.
+ * - 아직 쓰지 않은 변경은 MemberRepository 조회 결과에 덧씌운다. (WriteBehindOverlayInterceptor)
+ *   조회 결과 캐시 바깥에서 덧씌우므로 변경을 쌓을 때는 캐시를 비우지 않는다.
+ *   DB 에 쓸 때 발행하는 UPDATE 변경이 바뀐 age/team 값의 결과만 지운다.
+ * > 이 모드에서는 age / team 변경을 모두 이 버퍼로 해야 한다.
+ *   엔티티를 직접 바꿔서 flush 하면 (전체 컬럼 UPDATE) 버퍼의 값과 순서가 섞인다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "datajpa.write-behind", name = "enabled", havingValue = "true")
+public class MemberWriteBuffer implements SmartLifecycle {
+    private static final String SELECT_CURRENT = "select member_id, age, team_id from member where member_id in (:ids)";
+    private static final String UPDATE_AGE = "update member set age = ?, updated_date = ?, last_modified_by = ? where member_id = ?";
+    private static final String UPDATE_TEAM = "update member set team_id = ?, updated_date = ?, last_modified_by = ? where member_id = ?";
+    private static final String UPDATE_BOTH = "update member set age = ?, team_id = ?, updated_date = ?, last_modified_by = ? where member_id = ?";
+    private static final String TEAM_MEMBERS = Team.class.getName() + ".members";
+
+    private final ConcurrentHashMap<Long, PendingMemberChange> pending = new ConcurrentHashMap<>();
+    /** 변경(읽기 락)과 rotate + 스냅샷(쓰기 락)이 섞이지 않도록 */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder written = new LongAdder();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityChangePublisher changePublisher;
+    private final AuditorAware<String> auditorAware;
+    private final EntityManagerFactory emf;
+    private final WriteBehindProperties properties;
+    private WriteBehindJournal journal;
+    private ScheduledExecutorService executor;
+
+    public MemberWriteBuffer(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                             EntityChangePublisher changePublisher, AuditorAware<String> auditorAware,
+                             EntityManagerFactory emf,
+                             WriteBehindProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.changePublisher = changePublisher;
+        this.auditorAware = auditorAware;
+        this.emf = emf;
+        this.properties = properties;
+    }
+
+    public void changeAge(Long memberId, int age) {
+        enqueue(memberId, PendingMemberChange.age(age), "A " + memberId + " " + age);
+    }
+
+    public void changeTeam(Long memberId, Long teamId) {
+        enqueue(memberId, PendingMemberChange.team(teamId), "T " + memberId + " " + (teamId == null ? "-" : teamId));
+    }
+
+    /**
+     * 아직 DB 에 쓰지 않은 변경, 없으면 null
+     */
+    public PendingMemberChange pending(Long memberId) {
+        return pending.get(memberId);
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    public long getEnqueued() {
+        return enqueued.sum();
+    }
+
+    public long getWritten() {
+        return written.sum();
+    }
+
+    /**
+     * 모아둔 변경을 DB 에 쓴다.
+     * @return 쓴 회원 수
+     */
+    public synchronized int flush() {
+        flushRequested.set(false);
+        List<Path> segments;
+        Map<Long, PendingMemberChange> snapshot;
+        lock.writeLock().lock();
+        try {
+            segments = journal.rotate();
+            snapshot = new LinkedHashMap<>(pending);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<Long> ids = new ArrayList<>(snapshot.keySet());
+        for (int from = 0; from < ids.size(); from += properties.getBatchSize()) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + properties.getBatchSize()));
+            List<EntityChange> changes = transactionTemplate.execute(status -> write(chunk, snapshot));
+            evictSecondLevelCache(changes);
+            for (Long id : chunk) {
+                pending.remove(id, snapshot.get(id));
+            }
+            written.add(chunk.size());
+        }
+        journal.delete(segments);
+        return ids.size();
+    }
+
+    @Override
+    public synchronized void start() {
+        journal = new WriteBehindJournal(properties.getJournalDir(), properties.isFsync());
+        recover();
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "write-behind-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getFlushInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        executor = null;
+        flushQuietly();
+        try {
+            journal.close();
+        } catch (IOException e) {
+            log.warn("write-behind journal close failed", e);
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return executor != null;
+    }
+
+    private void enqueue(Long memberId, PendingMemberChange change, String line) {
+        lock.readLock().lock();
+        try {
+            synchronized (journal) {
+                journal.append(line);
+                pending.merge(memberId, change, PendingMemberChange::merge);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        enqueued.increment();
+        if (pending.size() >= properties.getMaxPending() && flushRequested.compareAndSet(false, true)) {
+            ScheduledExecutorService executor = this.executor;
+            if (executor != null) {
+                executor.execute(this::flushQuietly);
+            }
+        }
+    }
+
+    private void recover() {
+        List<String> lines;
+        try {
+            lines = journal.read(journal.segments());
+        } catch (IOException e) {
+            throw new IllegalStateException("cannot read write-behind journal", e);
+        }
+        for (String line : lines) {
+            String[] parts = line.split(" ");
+            if (parts.length != 3) {
+                continue; // 쓰다가 끊긴 마지막 줄
+            }
+            Long memberId = Long.valueOf(parts[1]);
+            PendingMemberChange change = parts[0].equals("A")
+                    ? PendingMemberChange.age(Integer.parseInt(parts[2]))
+                    : PendingMemberChange.team(parts[2].equals("-") ? null : Long.valueOf(parts[2]));
+            pending.merge(memberId, change, PendingMemberChange::merge);
+        }
+        if (!lines.isEmpty()) {
+            log.info("write-behind journal recovered {} changes for {} members", lines.size(), pending.size());
+            flush();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("write-behind flush failed, {} members pending", pending.size(), e);
+        }
+    }
+
+    private List<EntityChange> write(List<Long> ids, Map<Long, PendingMemberChange> snapshot) {
+        Map<Long, Map<String, Object>> current = new HashMap<>();
+        namedJdbcTemplate.query(SELECT_CURRENT, new MapSqlParameterSource("ids", ids), rs -> {
+            Map<String, Object> state = new HashMap<>();
+            state.put("age", rs.getInt("age"));
+            state.put("team", rs.getObject("team_id") == null ? null : rs.getLong("team_id"));
+            current.put(rs.getLong("member_id"), state);
+        });
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String auditor = auditorAware.getCurrentAuditor().orElse(null);
+        List<Object[]> ages = new ArrayList<>();
+        List<Object[]> teams = new ArrayList<>();
+        List<Object[]> both = new ArrayList<>();
+        List<EntityChange> changes = new ArrayList<>();
+        for (Long id : ids) {
+            Map<String, Object> previous = current.get(id);
+            if (previous == null) {
+                continue; // 삭제된 회원
+            }
+            PendingMemberChange change = snapshot.get(id);
+            Map<String, Object> state = new HashMap<>(previous);
+            if (change.getAge() != null && change.isTeamChanged()) {
+                both.add(new Object[]{change.getAge(), change.getTeamId(), now, auditor, id});
+            } else if (change.getAge() != null) {
+                ages.add(new Object[]{change.getAge(), now, auditor, id});
+            } else {
+                teams.add(new Object[]{change.getTeamId(), now, auditor, id});
+            }
+            if (change.getAge() != null) {
+                state.put("age", change.getAge());
+            }
+            if (change.isTeamChanged()) {
+                state.put("team", change.getTeamId());
+            }
+            changes.add(EntityChange.updated(EntityChange.Origin.JDBC, Member.class, id, previous, state));
+        }
+        jdbcTemplate.batchUpdate(UPDATE_AGE, ages);
+        jdbcTemplate.batchUpdate(UPDATE_TEAM, teams);
+        jdbcTemplate.batchUpdate(UPDATE_BOTH, both);
+        changes.forEach(changePublisher::publish);
+        return changes;
+    }
+
+    private void evictSecondLevelCache(List<EntityChange> changes) {
+        org.hibernate.Cache cache = emf.getCache().unwrap(org.hibernate.Cache.class);
+        for (EntityChange change : changes) {
+            cache.evictEntityData(Member.class, (Long) change.getId());
+            Object previousTeam = change.getPreviousState().get("team");
+            Object team = change.getState().get("team");
+            if (previousTeam != null && !previousTeam.equals(team)) {
+                cache.evictCollectionData(TEAM_MEMBERS, (Long) previousTeam);
+            }
+            if (team != null && !team.equals(previousTeam)) {
+                cache.evictCollectionData(TEAM_MEMBERS, (Long) team);
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package study.datajpa.writebehind;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 아직 DB 에 쓰지 않은 회원 변경, 같은 회원의 변경은 merge 로 합친다. (나중 값이 이긴다)
+ * 바뀌지 않은 속성은 null (age), teamChanged=false
+ */
+@Getter
+@ToString
+public class PendingMemberChange {
+    private final Integer age;
+    private final boolean teamChanged;
+    private final Long teamId;
+
+    private PendingMemberChange(Integer age, boolean teamChanged, Long teamId) {
+        this.age = age;
+        this.teamChanged = teamChanged;
+        this.teamId = teamId;
+    }
+
+    public static PendingMemberChange age(int age) {
+        return new PendingMemberChange(age, false, null);
+    }
+
+    public static PendingMemberChange team(Long teamId) {
+        return new PendingMemberChange(null, true, teamId);
+    }
+
+    public PendingMemberChange merge(PendingMemberChange newer) {
+        return new PendingMemberChange(
+                newer.age != null ? newer.age : age,
+                teamChanged || newer.teamChanged,
+                newer.teamChanged ? newer.teamId : teamId);
+    }
+}
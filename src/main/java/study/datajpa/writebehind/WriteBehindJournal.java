@@ -0,0 +1,126 @@
+package study.datajpa.writebehind;
+
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 추가만 하는 변경 저널 (줄 단위 텍스트)
+ *
+ * 세그먼트 파일(journal-<번호>.log)에 쓰고, flush 시작시 rotate 로 새 세그먼트로 넘긴다.
+ * rotate 가 돌려준 이전 세그먼트들은 그 내용이 DB 에 반영된 뒤 지운다.
+ * 기동시 남아 있는 세그먼트가 있으면 이전 프로세스가 DB 에 쓰지 못한 변경이다.
+ */
+class WriteBehindJournal implements Closeable {
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+
+    private final Path dir;
+    private final boolean fsync;
+    private long segment;
+    private FileOutputStream out;
+    private Writer writer;
+
+    WriteBehindJournal(String dir, boolean fsync) {
+        this.dir = Paths.get(dir);
+        this.fsync = fsync;
+        try {
+            Files.createDirectories(this.dir);
+            List<Path> segments = segments();
+            segment = segments.isEmpty() ? 0 : number(segments.get(segments.size() - 1));
+            open(++segment);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    synchronized void append(String line) {
+        try {
+            writer.write(line);
+            writer.write('\n');
+            writer.flush();
+            if (fsync) {
+                out.getChannel().force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 새 세그먼트로 넘기고 이전 세그먼트 목록을 돌려준다.
+     */
+    synchronized List<Path> rotate() {
+        try {
+            writer.close();
+            open(++segment);
+            List<Path> previous = segments();
+            previous.remove(segmentPath(segment));
+            return previous;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    List<String> read(List<Path> segments) {
+        List<String> lines = new ArrayList<>();
+        try {
+            for (Path path : segments) {
+                if (Files.exists(path)) {
+                    lines.addAll(Files.readAllLines(path, StandardCharsets.UTF_8));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return lines;
+    }
+
+    void delete(List<Path> segments) {
+        try {
+            for (Path path : segments) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    synchronized List<Path> segments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+            stream.forEach(segments::add);
+        }
+        segments.sort((a, b) -> Long.compare(number(a), number(b)));
+        return segments;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+
+    private void open(long segment) throws IOException {
+        out = new FileOutputStream(segmentPath(segment).toFile(), true);
+        writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+    }
+
+    private Path segmentPath(long segment) {
+        return dir.resolve(PREFIX + String.format("%012d", segment) + SUFFIX);
+    }
+
+    private static long number(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
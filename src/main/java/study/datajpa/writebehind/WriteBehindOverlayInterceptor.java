@@ -0,0 +1,81 @@
+package study.datajpa.writebehind;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.stereotype.Component;
+import study.datajpa.domain.Member;
+import study.datajpa.domain.Team;
+import study.datajpa.repository.support.RepositoryInterceptorFactory;
+
+import javax.persistence.EntityManager;
+import java.util.Optional;
+
+/**
+ * read-your-writes: Member 리포지토리 조회 결과에 MemberWriteBuffer 의 아직 쓰지 않은 age / team 을 덧씌운다.
+ *
+ * 덧씌운 회원은 영속성 컨텍스트에서 분리(detach)해서 변경 감지로 다시 UPDATE 되지 않게 한다.
+ * 조회 조건(where age = ?)은 DB 값으로 평가되므로 flush 전까지는 조건과 결과 값이 다를 수 있다.
+ * 트랜잭션과 조회 결과 캐시(QueryCacheRepositoryInterceptor) 바깥에서 실행한다.
+ * > 캐시에는 DB 값 기준의 결과가 남고, 캐시 히트에도 매번 덧씌운다.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(prefix = "datajpa.write-behind", name = "enabled", havingValue = "true")
+public class WriteBehindOverlayInterceptor implements RepositoryInterceptorFactory {
+    private final MemberWriteBuffer buffer;
+    private final EntityManager em;
+
+    public WriteBehindOverlayInterceptor(MemberWriteBuffer buffer, EntityManager em) {
+        this.buffer = buffer;
+        this.em = em;
+    }
+
+    @Override
+    public MethodInterceptor forRepository(RepositoryInformation repository) {
+        if (!Member.class.equals(repository.getDomainType())) {
+            return null;
+        }
+        return invocation -> overlay(invocation.proceed());
+    }
+
+    @Override
+    public boolean beforeTransaction() {
+        return true;
+    }
+
+    private Object overlay(Object result) {
+        if (buffer.pendingCount() == 0 || result == null) {
+            return result;
+        }
+        if (result instanceof Member) {
+            overlay((Member) result);
+        } else if (result instanceof Optional) {
+            ((Optional<?>) result).ifPresent(this::overlay);
+        } else if (result instanceof Slice) {
+            ((Slice<?>) result).getContent().forEach(this::overlay);
+        } else if (result instanceof Iterable) {
+            ((Iterable<?>) result).forEach(this::overlay);
+        }
+        return result;
+    }
+
+    private void overlay(Member member) {
+        PendingMemberChange change = buffer.pending(member.getId());
+        if (change == null) {
+            return;
+        }
+        if (em.contains(member)) {
+            em.detach(member);
+        }
+        if (change.getAge() != null) {
+            member.setAge(change.getAge());
+        }
+        if (change.isTeamChanged()) {
+            member.setTeam(change.getTeamId() == null ? null : em.find(Team.class, change.getTeamId()));
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package study.datajpa.writebehind;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * datajpa.write-behind.*
+ */
+@ConfigurationProperties(prefix = "datajpa.write-behind")
+@Getter @Setter
+public class WriteBehindProperties {
+    private boolean enabled = false;
+    /** 모아둔 변경을 DB 에 쓰는 주기 */
+    private Duration flushInterval = Duration.ofMillis(500);
+    /** 대기중인 회원 수가 이만큼 되면 주기를 기다리지 않고 쓴다 */
+    private int maxPending = 10000;
+    /** 한 트랜잭션에서 쓰는 회원 수 */
+    private int batchSize = 1000;
+    /** 저널 디렉토리, 인스턴스마다 달라야 한다 */
+    private String journalDir = "write-behind-journal";
+    /**
+     * true: 변경마다 fsync (전원 장애까지 보존, 느림)
+     * false: OS 버퍼까지만 쓴다 (프로세스 장애는 보존)
+     */
+    private boolean fsync = false;
+}
@@ -0,0 +1,128 @@
+package study.datajpa.archive;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.domain.Member;
+import study.datajpa.domain.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+import study.datajpa.stats.TeamStatsStore;
+import study.datajpa.stats.TeamStatsView;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+
+@SpringBootTest
+@ExtendWith(OutputCaptureExtension.class)
+class MemberArchiverTest {
+    @Autowired
+    MemberArchiver memberArchiver;
+    @Autowired
+    MemberIncludingArchivedRepository includingArchivedRepository;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    TeamStatsStore teamStatsStore;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    Team team;
+    Member old;
+
+    @BeforeEach
+    void setUp(){
+        team = teamRepository.save(new Team("archive-team"));
+        old = memberRepository.save(new Member("archive-old", 10, team));
+        memberRepository.save(new Member("archive-old2", 20, team));
+        memberRepository.save(new Member("archive-new", 30, team));
+        jdbcTemplate.update("update member set updated_date = ? where username like 'archive-old%'",
+                Timestamp.valueOf(LocalDateTime.now().minusDays(400)));
+        // 2차 캐시에 올려둔다.
+        assertThat(memberRepository.findById(old.getId())).isPresent();
+        transactionTemplate.execute(status -> teamRepository.findById(team.getId()).get().getMembers().size());
+    }
+
+    @AfterEach
+    void cleanUp(){
+        jdbcTemplate.update("delete from member_archive where username like 'archive-%'");
+        jdbcTemplate.update("delete from member where username like 'archive-%'");
+    }
+
+    @Test
+    public void movesOldMembersToArchive() {
+        ArchiveResult result = memberArchiver.archive();
+
+        assertThat(result.getMoved()).isGreaterThanOrEqualTo(2);
+        assertThat(memberRepository.findByUsername("archive-old")).isEmpty();
+        assertThat(memberRepository.findById(old.getId())).isEmpty();
+        assertThat(memberRepository.findByUsername("archive-new")).hasSize(1);
+        Integer members = transactionTemplate.execute(status -> teamRepository.findById(team.getId()).get().getMembers().size());
+        assertThat(members).isEqualTo(1);
+
+        TeamStatsView stats = teamStatsStore.find(team.getId()).get();
+        assertThat(stats.getMemberCount()).isEqualTo(1);
+        assertThat(memberArchiver.status().getArchivedMembers()).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    public void includeArchivedReadsBothTables() {
+        memberArchiver.archive();
+
+        List<MemberIncludingArchived> old = includingArchivedRepository.findByUsername("archive-old");
+        assertThat(old).hasSize(1);
+        assertThat(old.get(0).isArchived()).isTrue();
+
+        List<MemberIncludingArchived> all = includingArchivedRepository.findAll(
+                (root, query, cb) -> cb.like(root.get("username"), "archive-%"), Sort.by("username"));
+        assertThat(all).extracting(MemberIncludingArchived::getUsername, MemberIncludingArchived::isArchived)
+                .containsExactly(
+                        tuple("archive-new", false),
+                        tuple("archive-old", true),
+                        tuple("archive-old2", true));
+        assertThat(includingArchivedRepository.findByTeamIdOrderByIdAsc(team.getId())).hasSize(3);
+    }
+
+    @Test
+    public void recentMembersStayHot() {
+        jdbcTemplate.update("update member set updated_date = ? where username like 'archive-old%'",
+                Timestamp.valueOf(LocalDateTime.now()));
+
+        memberArchiver.archive();
+
+        assertThat(memberRepository.findByUsername("archive-old")).hasSize(1);
+        assertThat(includingArchivedRepository.findByUsername("archive-old"))
+                .allSatisfy(member -> assertThat(member.isArchived()).isFalse());
+    }
+
+    /**
+     * member 벌크 update 는 읽기 전용 뷰를 바꾼 것으로 보지 않고(HHH000487 없음) member 2차 캐시만 비운다.
+     */
+    @Test
+    public void bulkUpdateOnMemberLeavesTheViewAlone(CapturedOutput output) {
+        jdbcTemplate.update("update member set age = 5000 where member_id = ?", old.getId());
+
+        memberRepository.bulkAgePlus(5000);
+
+        assertThat(output.getAll()).doesNotContain("HHH000487");
+        assertThat(memberRepository.findById(old.getId()).get().getAge()).isEqualTo(5001);
+        assertThat(includingArchivedRepository.findByUsername("archive-old"))
+                .extracting(MemberIncludingArchived::getAge).containsExactly(5001);
+    }
+}
@@ -0,0 +1,78 @@
+package study.datajpa.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.bulk.BulkLoadResult;
+import study.datajpa.bulk.MemberBulkLoader;
+import study.datajpa.domain.Member;
+import study.datajpa.domain.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.io.BufferedWriter;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * CSV 벌크 적재 rows/s 와 MemberRepository.save 경로 비교
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:bulk-bench;DB_CLOSE_DELAY=-1",
+        "logging.level.org.hibernate.SQL=info"
+})
+class BulkImportBenchmark {
+    private static final int ROWS = Integer.getInteger("benchmark.bulk.rows", 1_000_000);
+    private static final int SAVE_ROWS = Integer.getInteger("benchmark.bulk.saveRows", 20_000);
+    private static final int TEAMS = 1_000;
+
+    @Autowired
+    MemberBulkLoader memberBulkLoader;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void rowsPerSecond() throws Exception {
+        Path csv = dir.resolve("members.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+            writer.write("username,age,team\n");
+            for (int i = 0; i < ROWS; i++) {
+                writer.write("member" + i + "," + (i % 80) + ",team" + (i % TEAMS) + "\n");
+            }
+        }
+
+        BulkLoadResult result;
+        try (Reader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            result = memberBulkLoader.loadCsv(reader);
+        }
+        System.out.printf("[bulk] csv bulk loader  %,d rows in %,d ms = %,d rows/s%n",
+                result.getRows(), result.getElapsedMillis(), result.getRowsPerSecond());
+
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<String, Team> teams = new HashMap<>();
+            for (int i = 0; i < SAVE_ROWS; i++) {
+                Team team = teams.computeIfAbsent("save-team" + (i % TEAMS), name -> teamRepository.save(new Team(name)));
+                memberRepository.save(new Member("save" + i, i % 80, team));
+            }
+        });
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("[bulk] repository.save  %,d rows in %,d ms = %,d rows/s%n",
+                SAVE_ROWS, elapsedMillis, SAVE_ROWS * 1000L / Math.max(1, elapsedMillis));
+    }
+}
@@ -0,0 +1,73 @@
+package study.datajpa.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.bulk.MemberBulkLoader;
+import study.datajpa.bulk.MemberRow;
+import study.datajpa.domain.Member;
+import study.datajpa.repository.ChunkIterationResult;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * forEachChunk 처리량과 힙 사용량 (전체 로딩 findMemberCustom 과 비교)
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:chunk-bench;DB_CLOSE_DELAY=-1",
+        "logging.level.org.hibernate.SQL=info"
+})
+class ChunkIterationBenchmark {
+    private static final int ROWS = Integer.getInteger("benchmark.chunk.rows", 500_000);
+
+    @Autowired
+    MemberBulkLoader memberBulkLoader;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    public void throughputAndHeap(){
+        Iterator<MemberRow> rows = IntStream.range(0, ROWS)
+                .mapToObj(i -> new MemberRow("member" + i, i % 80, "team" + (i % 100)))
+                .iterator();
+        memberBulkLoader.load(rows);
+
+        for (int parallelism : new int[]{1, 4}) {
+            AtomicLong peakHeap = new AtomicLong();
+            AtomicLong ageSum = new AtomicLong();
+            System.gc();
+            ChunkIterationResult result = memberRepository.forEachChunk(null, 1_000, parallelism, chunk -> {
+                chunk.forEach(m -> ageSum.addAndGet(m.getAge()));
+                peakHeap.accumulateAndGet(usedHeap(), Math::max);
+            });
+            System.out.printf("[chunk] forEachChunk parallelism=%d  %,d rows, %,d rows/s, peak heap %,d MB%n",
+                    parallelism, result.getElements(), result.getElementsPerSecond(), peakHeap.get() / 1024 / 1024);
+        }
+
+        System.gc();
+        long start = System.nanoTime();
+        long peak = transactionTemplate.execute(status -> {
+            List<Member> all = memberRepository.findMemberCustom();
+            long used = usedHeap();
+            System.out.printf("[chunk] findMemberCustom loaded %,d rows%n", all.size());
+            return used;
+        });
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("[chunk] findMemberCustom (load all) %,d rows/s, heap %,d MB%n",
+                ROWS * 1000L / Math.max(1, elapsedMillis), peak / 1024 / 1024);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,81 @@
+package study.datajpa.benchmark;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.bulk.MemberBulkLoader;
+import study.datajpa.bulk.MemberRow;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.NestedCloseProjection;
+import study.datajpa.repository.support.FlatProjectionProperties;
+
+import javax.persistence.EntityManagerFactory;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * 중첩 닫힌 프로젝션 조회: 스프링 데이터 기본(연관 엔티티 전체) vs 참조하는 컬럼만 (FlatProjection)
+ * 같은 username 을 가진 회원 rows 명을 메서드 이름 쿼리와 @Query 로 반복 조회한다.
+ *
+ * ./gradlew benchmark --tests '*FlatProjectionBenchmark' -Dbenchmark.flatProjection.rows=1000
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:flat-projection-bench;DB_CLOSE_DELAY=-1",
+        "logging.level.org.hibernate.SQL=info",
+        "datajpa.cache.statistics=true"
+})
+class FlatProjectionBenchmark {
+    private static final int ROWS = Integer.getInteger("benchmark.flatProjection.rows", 1000);
+    private static final int TEAMS = Integer.getInteger("benchmark.flatProjection.teams", 50);
+    private static final int ITERATIONS = Integer.getInteger("benchmark.flatProjection.iterations", 200);
+
+    @Autowired
+    MemberBulkLoader memberBulkLoader;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    FlatProjectionProperties properties;
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Test
+    public void nestedProjection() {
+        memberBulkLoader.load(IntStream.range(0, ROWS)
+                .mapToObj(i -> new MemberRow("flat-member", i % 60, "flat-team" + i % TEAMS))
+                .iterator());
+
+        run("derived", () -> memberRepository.findProjectionsByUsername("flat-member", NestedCloseProjection.class));
+        run("@Query", () -> memberRepository.findProjectionsByQuery("flat-member", NestedCloseProjection.class));
+        properties.setEnabled(true);
+    }
+
+    private void run(String method, Supplier<List<NestedCloseProjection>> query) {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (boolean enabled : new boolean[]{false, true, false, true}) {
+            properties.setEnabled(enabled);
+            IntStream.range(0, ITERATIONS / 10).forEach(i -> query.get());
+
+            long loads = statistics.getEntityLoadCount();
+            long bytes = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            long rows = 0;
+            for (int i = 0; i < ITERATIONS; i++) {
+                rows += query.get().size();
+            }
+            long elapsed = System.nanoTime() - start;
+            bytes = threads.getThreadAllocatedBytes(threadId) - bytes;
+            System.out.printf("[flat-projection] %s enabled=%s rows=%d %d ms %.1f us/query %d KB/query entityLoads=%d%n",
+                    method, enabled, rows / ITERATIONS, TimeUnit.NANOSECONDS.toMillis(elapsed), elapsed / 1000.0 / ITERATIONS,
+                    bytes / 1024 / ITERATIONS, (statistics.getEntityLoadCount() - loads) / ITERATIONS);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package study.datajpa.benchmark;
+
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.bulk.MemberBulkLoader;
+import study.datajpa.bulk.MemberRow;
+import study.datajpa.domain.Member;
+
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * 영속성 컨텍스트에 N 건이 있을 때 flush 비용
+ * 바이트코드 향상(dirty tracking)이 적용되면 변경된 엔티티 수에 비례하고, 아니면 관리중인 엔티티 수에 비례한다.
+ *
+ * ./gradlew benchmark --tests '*FlushBenchmark' -Dbenchmark.flush.sizes=10000,100000,1000000
+ * (1,000,000 건은 -Xmx2g 이상 필요)
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:flush-bench;DB_CLOSE_DELAY=-1",
+        "logging.level.org.hibernate.SQL=info"
+})
+class FlushBenchmark {
+    private static final String SIZES = System.getProperty("benchmark.flush.sizes", "10000,100000,1000000");
+    private static final int CHANGED = Integer.getInteger("benchmark.flush.changed", 100);
+
+    @Autowired
+    MemberBulkLoader memberBulkLoader;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    public void flushCost(){
+        int[] sizes = Arrays.stream(SIZES.split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+        int max = Arrays.stream(sizes).max().getAsInt();
+        memberBulkLoader.load(IntStream.range(0, max)
+                .mapToObj(i -> new MemberRow("member" + i, i % 80, null))
+                .iterator());
+
+        boolean enhanced = SelfDirtinessTracker.class.isAssignableFrom(Member.class);
+        measure(sizes[0], enhanced, false);
+        for (int size : sizes) {
+            measure(size, enhanced, true);
+        }
+    }
+
+    private void measure(int size, boolean enhanced, boolean print){
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Member> members = em.createQuery("select m from Member m", Member.class)
+                    .setMaxResults(size)
+                    .getResultList();
+
+            long clean = timeFlush();
+            for (int i = 0; i < CHANGED; i++) {
+                Member member = members.get(i * (members.size() / CHANGED));
+                member.setAge(member.getAge() + 1);
+            }
+            long dirty = timeFlush();
+
+            if (print) {
+                System.out.printf("[flush] enhanced=%s managed=%,9d  flush(0 changed)=%,7d us  flush(%d changed)=%,7d us%n",
+                        enhanced, size, clean, CHANGED, dirty);
+            }
+            status.setRollbackOnly();
+        });
+    }
+
+    private long timeFlush(){
+        long start = System.nanoTime();
+        em.flush();
+        return (System.nanoTime() - start) / 1_000;
+    }
+}
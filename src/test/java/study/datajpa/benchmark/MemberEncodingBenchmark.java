@@ -0,0 +1,92 @@
+package study.datajpa.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.web.MemberPageEncoder;
+import study.datajpa.web.MemberPageHttpMessageConverter;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * /members 응답 한 페이지의 크기(bytes)와 직렬화 시간: 기존 JSON(Page 전체) vs 가벼운 봉투의 JSON/CBOR/Smile/protobuf
+ * DB 없이 직렬화만 잰다.
+ *
+ * ./gradlew benchmark --tests '*MemberEncodingBenchmark' -Dbenchmark.encoding.pageSize=1000
+ */
+@Tag("benchmark")
+class MemberEncodingBenchmark {
+    private static final int PAGE_SIZE = Integer.getInteger("benchmark.encoding.pageSize", 12);
+    private static final int ITERATIONS = Integer.getInteger("benchmark.encoding.iterations", Math.max(20000, 2000000 / PAGE_SIZE));
+
+    interface Encoder {
+        byte[] encode(Page<MemberDto> page) throws Exception;
+    }
+
+    @Test
+    public void encode() throws Exception {
+        List<MemberDto> content = IntStream.range(0, PAGE_SIZE)
+                .mapToObj(i -> new MemberDto(100000L + i, "member" + i, i % 2 == 0 ? "team" + (i % 10) : null))
+                .collect(Collectors.toList());
+        Page<MemberDto> page = new PageImpl<>(content,
+                PageRequest.of(3, PAGE_SIZE, Sort.by(Sort.Direction.DESC, "username")), 100000);
+
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        JsonFactory jsonFactory = new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        MemberPageHttpMessageConverter converter = new MemberPageHttpMessageConverter();
+
+        MappingJackson2HttpMessageConverter json = new MappingJackson2HttpMessageConverter(objectMapper);
+        Type pageType = ResolvableType.forClassWithGenerics(Page.class, MemberDto.class).getType();
+
+        // 모두 HttpOutputMessage 로 써서 컨버터 공통 비용을 같게 맞춘다.
+        run("json", page, p -> {
+            MockHttpOutputMessage out = new MockHttpOutputMessage();
+            json.write(p, pageType, MediaType.APPLICATION_JSON, out);
+            return out.getBodyAsBytes();
+        });
+        run("lean-json", page, p -> {
+            MockHttpOutputMessage out = new MockHttpOutputMessage();
+            try (JsonGenerator gen = jsonFactory.createGenerator(out.getBody())) {
+                MemberPageEncoder.write(gen, p);
+            }
+            return out.getBodyAsBytes();
+        });
+        for (MediaType mediaType : new MediaType[]{MediaType.APPLICATION_CBOR, MemberPageHttpMessageConverter.SMILE, MemberPageHttpMessageConverter.PROTOBUF}) {
+            run(mediaType.getSubtype(), page, p -> {
+                MockHttpOutputMessage out = new MockHttpOutputMessage();
+                converter.write(p, mediaType, out);
+                return out.getBodyAsBytes();
+            });
+        }
+    }
+
+    private void run(String name, Page<MemberDto> page, Encoder encoder) throws Exception {
+        int bytes = encoder.encode(page).length;
+        for (int i = 0; i < ITERATIONS; i++) {
+            encoder.encode(page);
+        }
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += encoder.encode(page).length;
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("[encoding] %-16s pageSize=%d bytes=%d (%.1f/member) %.2f us/page (%d)%n",
+                name, PAGE_SIZE, bytes, (double) bytes / PAGE_SIZE, elapsed / 1000.0 / ITERATIONS, sink % 10);
+    }
+}
@@ -0,0 +1,157 @@
+package study.datajpa.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import study.datajpa.bulk.BulkLoadResult;
+import study.datajpa.bulk.MemberBulkLoader;
+import study.datajpa.bulk.MemberDatasetGenerator;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 고정 도착률(open model) 부하: 요청을 응답과 상관없이 정해진 시각(시작 + i / rate)에 보낸다.
+ *
+ * 응답을 기다렸다 다음 요청을 보내는 방식(closed model)은 서버가 느려지면 요청도 덜 보내서
+ * 느린 구간의 대기가 측정에서 빠진다. (coordinated omission)
+ * 여기서는 지연을 "보내야 했던 시각"부터 잰다(latency). 실제로 보낸 시각부터 잰 값(service)도 같이 출력한다.
+ * 보내는 스레드가 밀리면(lag) 두 값의 차이가 커진다.
+ *
+ * 데이터는 MemberDatasetGenerator 로 만들어서 MemberBulkLoader 로 적재한다. (외부 의존 없이 내장 H2)
+ * 요청: list-ratio 만큼 GET /members?sort=id&page= (앞쪽 100 페이지), 나머지는 GET /members/{id}
+ *
+ * ./gradlew benchmark --tests '*OpenLoadBenchmark' -Dbenchmark.load.members=1000000 -Dbenchmark.load.rates=200,500,1000
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:load-bench;DB_CLOSE_DELAY=-1",
+        "logging.level.org.hibernate.SQL=info",
+        "server.tomcat.threads.max=${benchmark.load.servlet-threads:64}"
+})
+class OpenLoadBenchmark {
+    private static final int MEMBERS = Integer.getInteger("benchmark.load.members", 500_000);
+    private static final int TEAMS = Integer.getInteger("benchmark.load.teams", 1_000);
+    private static final double TEAM_SKEW = Double.parseDouble(System.getProperty("benchmark.load.team-skew", "1.0"));
+    private static final String RATES = System.getProperty("benchmark.load.rates", "200,500,1000");
+    private static final int SECONDS = Integer.getInteger("benchmark.load.seconds", 10);
+    private static final double LIST_RATIO = Double.parseDouble(System.getProperty("benchmark.load.list-ratio", "0.2"));
+    private static final int CONNECTIONS = Integer.getInteger("benchmark.load.connections", 512);
+
+    @LocalServerPort
+    int port;
+    @Autowired
+    MemberBulkLoader memberBulkLoader;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void fixedArrivalRates() throws InterruptedException {
+        BulkLoadResult loaded = memberBulkLoader.load(new MemberDatasetGenerator(MEMBERS, TEAMS, TEAM_SKEW, 0.05, 42));
+        System.out.printf("[load] dataset %,d members %,d teams in %,d ms%n",
+                loaded.getRows(), loaded.getTeamsCreated(), loaded.getElapsedMillis());
+        long[] ids = jdbcTemplate.queryForList("select member_id from member", Long.class).stream()
+                .mapToLong(Long::longValue).toArray();
+
+        ConnectionProvider connections = ConnectionProvider.builder("load-bench")
+                .maxConnections(CONNECTIONS)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        HttpClient client = HttpClient.create(connections).baseUrl("http://localhost:" + port);
+        try {
+            int[] rates = Arrays.stream(RATES.split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+            // 워밍업 (JIT, 커넥션, 2차 캐시)
+            run(client, ids, rates[0], Math.max(2, SECONDS / 3));
+            for (int rate : rates) {
+                print(rate, run(client, ids, rate, SECONDS));
+            }
+        } finally {
+            connections.disposeLater().block();
+        }
+    }
+
+    private Result run(HttpClient client, long[] ids, int rate, int seconds) throws InterruptedException {
+        int requests = rate * seconds;
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        Result result = new Result(requests);
+        CountDownLatch done = new CountDownLatch(requests);
+        Random random = new Random(rate);
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+        for (int i = 0; i < requests; i++) {
+            long intended = start + i * interval;
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            long sent = System.nanoTime();
+            result.maxLag = Math.max(result.maxLag, sent - intended);
+            String uri = random.nextDouble() < LIST_RATIO
+                    ? "/members?sort=id&page=" + random.nextInt(100)
+                    : "/members/" + ids[random.nextInt(ids.length)];
+            int index = i;
+            client.get().uri(uri)
+                    .responseSingle((response, body) -> body.asByteArray().map(bytes -> response.status().code()))
+                    .subscribe(status -> {
+                        long now = System.nanoTime();
+                        result.latency[index] = now - intended;
+                        result.service[index] = now - sent;
+                        if (status != 200) {
+                            result.errors.incrementAndGet();
+                        }
+                        done.countDown();
+                    }, e -> {
+                        long now = System.nanoTime();
+                        result.latency[index] = now - intended;
+                        result.service[index] = now - sent;
+                        result.errors.incrementAndGet();
+                        done.countDown();
+                    });
+        }
+        if (!done.await(seconds + 120L, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("load did not finish, " + done.getCount() + " requests pending");
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    private static void print(int rate, Result result) {
+        Arrays.sort(result.latency);
+        Arrays.sort(result.service);
+        int requests = result.latency.length;
+        System.out.printf("[load] rate=%,5d/s achieved=%,7.1f/s errors=%d max-lag=%,d us%n", rate,
+                requests * 1e9 / result.elapsedNanos, result.errors.get(), result.maxLag / 1000);
+        System.out.printf("[load]   latency p50=%,8d p90=%,8d p99=%,8d p99.9=%,8d max=%,8d us%n",
+                percentile(result.latency, 0.5), percentile(result.latency, 0.9), percentile(result.latency, 0.99),
+                percentile(result.latency, 0.999), result.latency[requests - 1] / 1000);
+        System.out.printf("[load]   service p50=%,8d p90=%,8d p99=%,8d p99.9=%,8d max=%,8d us%n",
+                percentile(result.service, 0.5), percentile(result.service, 0.9), percentile(result.service, 0.99),
+                percentile(result.service, 0.999), result.service[requests - 1] / 1000);
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(sorted.length * quantile) - 1);
+        return sorted[Math.max(0, index)] / 1000;
+    }
+
+    static class Result {
+        final long[] latency;
+        final long[] service;
+        final AtomicInteger errors = new AtomicInteger();
+        long maxLag;
+        long elapsedNanos;
+
+        Result(int requests) {
+            latency = new long[requests];
+            service = new long[requests];
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package study.datajpa.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import study.datajpa.bulk.MemberBulkLoader;
+import study.datajpa.bulk.MemberRow;
+import study.datajpa.reactive.ReactiveMemberServer;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+/**
+ * 같은 요청을 서블릿(MemberController)과 리액티브(ReactiveMemberHandler) 서버에 동시 요청 C 개로 보낸다.
+ * 서블릿은 Tomcat 스레드 benchmark.reactive.servlet-threads 개, 리액티브는 이벤트 루프 benchmark.reactive.event-loops 개
+ *
+ * ./gradlew benchmark --tests '*ReactiveLoadBenchmark' -Dbenchmark.reactive.concurrency=64,256
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:reactive-bench;DB_CLOSE_DELAY=-1",
+        "logging.level.org.hibernate.SQL=info",
+        "datajpa.reactive.enabled=true",
+        "datajpa.reactive.port=0",
+        "datajpa.reactive.event-loop-threads=${benchmark.reactive.event-loops:4}",
+        "datajpa.reactive.pool-max-size=10",
+        "spring.datasource.hikari.maximum-pool-size=10",
+        "server.tomcat.threads.max=${benchmark.reactive.servlet-threads:16}",
+        "server.tomcat.threads.min-spare=${benchmark.reactive.servlet-threads:16}"
+})
+class ReactiveLoadBenchmark {
+    private static final int MEMBERS = Integer.getInteger("benchmark.reactive.members", 10000);
+    private static final int REQUESTS = Integer.getInteger("benchmark.reactive.requests", 20000);
+    private static final String CONCURRENCY = System.getProperty("benchmark.reactive.concurrency", "16,64,256");
+
+    @LocalServerPort
+    int servletPort;
+    @Autowired
+    ReactiveMemberServer reactiveMemberServer;
+    @Autowired
+    MemberBulkLoader memberBulkLoader;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void compareStacks(){
+        memberBulkLoader.load(IntStream.range(0, MEMBERS)
+                .mapToObj(i -> new MemberRow("member" + i, i % 80, null))
+                .iterator());
+        List<Long> ids = jdbcTemplate.queryForList("select member_id from member", Long.class);
+        int[] concurrencies = Arrays.stream(CONCURRENCY.split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+
+        run("servlet", servletPort, ids, 32, REQUESTS / 10, false);
+        run("reactive", reactiveMemberServer.getPort(), ids, 32, REQUESTS / 10, false);
+        for (int concurrency : concurrencies) {
+            run("servlet", servletPort, ids, concurrency, REQUESTS, true);
+            run("reactive", reactiveMemberServer.getPort(), ids, concurrency, REQUESTS, true);
+        }
+    }
+
+    private void run(String stack, int port, List<Long> ids, int concurrency, int requests, boolean print) {
+        ConnectionProvider connections = ConnectionProvider.builder("bench-" + stack)
+                .maxConnections(concurrency)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        HttpClient client = HttpClient.create(connections).baseUrl("http://localhost:" + port);
+        long[] latencies = new long[requests];
+        long start = System.nanoTime();
+        Flux.range(0, requests)
+                .flatMap(i -> request(client, ids, i, latencies), concurrency)
+                .blockLast();
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        connections.disposeLater().block();
+
+        if (print) {
+            Arrays.sort(latencies);
+            System.out.printf("[reactive] %-8s concurrency=%4d requests=%,d  %,7d req/s  p50=%,6d us  p99=%,7d us  threads=%d%n",
+                    stack, concurrency, requests, requests * 1000L / millis,
+                    latencies[requests / 2] / 1000, latencies[(int) (requests * 0.99)] / 1000, Thread.activeCount());
+        }
+    }
+
+    private static Mono<Integer> request(HttpClient client, List<Long> ids, int i, long[] latencies) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // 절반은 목록, 절반은 단건
+        String uri = i % 2 == 0
+                ? "/members?size=20&sort=id&page=" + random.nextInt(ids.size() / 20)
+                : "/members/" + ids.get(random.nextInt(ids.size()));
+        long start = System.nanoTime();
+        return client.get().uri(uri)
+                .responseSingle((response, body) -> body.asByteArray()
+                        .map(bytes -> {
+                            if (response.status().code() != 200) {
+                                throw new IllegalStateException(uri + " -> " + response.status());
+                            }
+                            latencies[i] = System.nanoTime() - start;
+                            return bytes.length;
+                        }));
+    }
+}
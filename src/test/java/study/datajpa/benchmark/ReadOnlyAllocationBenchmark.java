@@ -0,0 +1,73 @@
+package study.datajpa.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.bulk.MemberBulkLoader;
+import study.datajpa.bulk.MemberRow;
+import study.datajpa.repository.MemberRepository;
+
+import java.lang.management.ManagementFactory;
+import java.util.stream.IntStream;
+
+/**
+ * /members 목록 조회(findAll(pageable))를 읽기/쓰기 트랜잭션과 읽기 전용 트랜잭션에서 실행했을 때
+ * 스레드 할당 바이트 (스냅샷 + 커밋시 dirty checking 포함)
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:readonly-bench;DB_CLOSE_DELAY=-1",
+        "logging.level.org.hibernate.SQL=info"
+})
+class ReadOnlyAllocationBenchmark {
+    private static final int ROWS = Integer.getInteger("benchmark.readonly.rows", 20_000);
+    private static final int PAGE_SIZE = Integer.getInteger("benchmark.readonly.pageSize", 5_000);
+    private static final int ITERATIONS = Integer.getInteger("benchmark.readonly.iterations", 20);
+
+    @Autowired
+    MemberBulkLoader memberBulkLoader;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void allocationPerPage(){
+        memberBulkLoader.load(IntStream.range(0, ROWS)
+                .mapToObj(i -> new MemberRow("member" + i, i % 80, "team" + (i % 100)))
+                .iterator());
+
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        measure("warmup", readWrite);
+        measure("warmup", readOnly);
+        measure("read-write", readWrite);
+        measure("read-only", readOnly);
+    }
+
+    private void measure(String mode, TransactionTemplate tx){
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        PageRequest page = PageRequest.of(0, PAGE_SIZE, Sort.by(Sort.Direction.DESC, "username"));
+
+        long bytes = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            tx.executeWithoutResult(status -> memberRepository.findAll(page).getContent().size());
+        }
+        long elapsed = System.nanoTime() - start;
+        bytes = threads.getThreadAllocatedBytes(threadId) - bytes;
+
+        if (!"warmup".equals(mode)) {
+            System.out.printf("[read-only] %-10s %,d KB allocated/page, %,d us/page (page size %d)%n",
+                    mode, bytes / ITERATIONS / 1024, elapsed / ITERATIONS / 1000, PAGE_SIZE);
+        }
+    }
+}
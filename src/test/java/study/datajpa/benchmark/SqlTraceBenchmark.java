@@ -0,0 +1,65 @@
+package study.datajpa.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.datajpa.trace.SqlTracer;
+
+import javax.sql.DataSource;
+
+/**
+ * SQL 트레이스 모드별 쿼리당 비용
+ * raw(Hikari 직접) / off / 1-in-100 / 임계치만 / 전체 기록
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:trace-bench;DB_CLOSE_DELAY=-1",
+        "logging.level.study.datajpa.trace=warn"
+})
+class SqlTraceBenchmark {
+    private static final int QUERIES = Integer.getInteger("benchmark.trace.queries", 200_000);
+
+    @Autowired
+    DataSource dataSource;
+    @Autowired
+    SqlTracer sqlTracer;
+
+    @AfterEach
+    void off(){
+        sqlTracer.configure(false, 100, 0L);
+    }
+
+    @Test
+    public void costPerMode() throws Exception {
+        JdbcTemplate raw = new JdbcTemplate(dataSource.unwrap(HikariDataSource.class));
+        JdbcTemplate traced = new JdbcTemplate(dataSource);
+
+        run("warmup", traced);
+        run("raw", raw);
+
+        sqlTracer.configure(false, 100, 0L);
+        run("off", traced);
+
+        sqlTracer.configure(true, 100, 0L);
+        run("1-in-100", traced);
+
+        sqlTracer.configure(true, 0, 1_000L);
+        run("slow>1s only", traced);
+
+        sqlTracer.configure(true, 1, 0L);
+        run("every query", traced);
+    }
+
+    private void run(String mode, JdbcTemplate jdbcTemplate){
+        long start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            jdbcTemplate.queryForObject("select ?", Integer.class, i);
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("[sql-trace] %-13s %6d ns/query (%d queries)%n", mode, elapsed / QUERIES, QUERIES);
+    }
+}
@@ -0,0 +1,105 @@
+package study.datajpa.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import study.datajpa.DataJpaApplication;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 기동 시간 측정
+ * 프로파일마다 별도 JVM 을 띄우고, 프로세스 시작부터 첫 요청(/hello, /members)이 200 을 돌려줄 때까지의 시간을 잰다.
+ *
+ * ./gradlew benchmark --tests '*StartupBenchmark' -Dbenchmark.startup.runs=5
+ */
+@Tag("benchmark")
+class StartupBenchmark {
+    private static final int RUNS = Integer.getInteger("benchmark.startup.runs", 3);
+
+    @TempDir
+    Path dbDir;
+
+    @Test
+    public void timeToFirstRequest() throws Exception {
+        String url = "jdbc:h2:file:" + dbDir.resolve("startup").toAbsolutePath();
+
+        // 스키마는 기본 프로파일(ddl-auto: create)로 한 번 만들어 둔다. fast-start 는 스키마를 만들지 않는다.
+        measure("default", url);
+
+        for (String profile : Arrays.asList("default", "fast-start")) {
+            List<Long> hello = new ArrayList<>();
+            List<Long> members = new ArrayList<>();
+            for (int i = 0; i < RUNS; i++) {
+                long[] result = measure(profile, url);
+                hello.add(result[0]);
+                members.add(result[1]);
+            }
+            System.out.printf("[startup] profile=%-10s first /hello median=%dms, first /members median=%dms (runs=%d)%n",
+                    profile, median(hello), median(members), RUNS);
+        }
+    }
+
+    private long[] measure(String profile, String url) throws Exception {
+        int port = freePort();
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        ProcessBuilder builder = new ProcessBuilder(java,
+                "-cp", System.getProperty("java.class.path"),
+                DataJpaApplication.class.getName(),
+                "--server.port=" + port,
+                "--spring.profiles.active=" + profile,
+                "--spring.datasource.url=" + url)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.to(new File(dbDir.toFile(), "startup-" + profile + ".log")));
+
+        long start = System.nanoTime();
+        Process process = builder.start();
+        try {
+            long hello = waitForOk(port, "/hello", start);
+            long members = waitForOk(port, "/members", start);
+            return new long[]{hello, members};
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private long waitForOk(int port, String path, long start) throws InterruptedException {
+        long deadline = start + 120_000_000_000L;
+        while (System.nanoTime() < deadline) {
+            try {
+                HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + path).openConnection();
+                connection.setConnectTimeout(200);
+                connection.setReadTimeout(10_000);
+                if (connection.getResponseCode() == 200) {
+                    return (System.nanoTime() - start) / 1_000_000;
+                }
+            } catch (IOException e) {
+                // 아직 기동중
+            }
+            Thread.sleep(10);
+        }
+        throw new IllegalStateException("no response from " + path);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static long median(List<Long> values) {
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+}
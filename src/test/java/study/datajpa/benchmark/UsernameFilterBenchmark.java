@@ -0,0 +1,69 @@
+package study.datajpa.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.bloom.UsernameFilter;
+import study.datajpa.bloom.UsernameFilterProperties;
+import study.datajpa.bloom.UsernameFilterStats;
+import study.datajpa.bulk.MemberBulkLoader;
+import study.datajpa.bulk.MemberRow;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * 대부분 없는 username 을 findByUsername 으로 조회: bloom filter 끔 vs 켬
+ * hitPercent 만큼은 있는 username 이다.
+ *
+ * ./gradlew benchmark --tests '*UsernameFilterBenchmark' -Dbenchmark.usernameFilter.members=100000
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:username-filter-bench;DB_CLOSE_DELAY=-1",
+        "logging.level.org.hibernate.SQL=info",
+        "datajpa.username-filter.enabled=true"
+})
+class UsernameFilterBenchmark {
+    private static final int MEMBERS = Integer.getInteger("benchmark.usernameFilter.members", 100000);
+    private static final int LOOKUPS = Integer.getInteger("benchmark.usernameFilter.lookups", 10000);
+    private static final int HIT_PERCENT = Integer.getInteger("benchmark.usernameFilter.hitPercent", 5);
+
+    @Autowired
+    MemberBulkLoader memberBulkLoader;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    UsernameFilter usernameFilter;
+    @Autowired
+    UsernameFilterProperties properties;
+
+    @Test
+    public void lookups() {
+        memberBulkLoader.load(IntStream.range(0, MEMBERS)
+                .mapToObj(i -> new MemberRow("member" + i, 20, null))
+                .iterator());
+        UsernameFilterStats built = usernameFilter.rebuild();
+        System.out.printf("[username-filter] members=%d bits=%d (%d KB) k=%d rebuild %d ms%n",
+                MEMBERS, built.getBitSize(), built.getBytes() / 1024, built.getHashFunctions(), built.getLastRebuildMillis());
+
+        for (boolean enabled : new boolean[]{false, true}) {
+            properties.setEnabled(enabled);
+            UsernameFilterStats before = usernameFilter.stats();
+            long found = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < LOOKUPS; i++) {
+                String username = i % 100 < HIT_PERCENT ? "member" + (i % MEMBERS) : "absent" + i;
+                found += memberRepository.findByUsername(username).size();
+            }
+            long elapsed = System.nanoTime() - start;
+            UsernameFilterStats after = usernameFilter.stats();
+            System.out.printf("[username-filter] enabled=%s lookups=%d found=%d %d ms %.1f us/lookup skipped=%d falsePositives=%d%n",
+                    enabled, LOOKUPS, found, TimeUnit.NANOSECONDS.toMillis(elapsed), elapsed / 1000.0 / LOOKUPS,
+                    after.getAbsent() - before.getAbsent(), after.getFalsePositives() - before.getFalsePositives());
+        }
+        properties.setEnabled(true);
+    }
+}
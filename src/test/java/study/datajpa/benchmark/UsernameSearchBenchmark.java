@@ -0,0 +1,104 @@
+package study.datajpa.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.datajpa.bulk.MemberBulkLoader;
+import study.datajpa.bulk.MemberRow;
+import study.datajpa.search.UsernameSearch;
+import study.datajpa.search.UsernameSearchProperties;
+import study.datajpa.search.UsernameSearchStats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * username 부분/접두사 검색: like 전체 스캔 vs 트라이그램 테이블
+ * 회원 이름은 음절 2~3 개 + 숫자, 검색어는 실제 이름의 일부(3~5 글자)와 접두사(2~4 글자)
+ *
+ * H2 메모리 DB 는 트라이그램 행 적재가 느려서(초당 수만 행) 기본값은 20 만 명(트라이그램 약 250 만 행)이다.
+ *
+ * ./gradlew benchmark --tests '*UsernameSearchBenchmark' -Dbenchmark.usernameSearch.members=2000000 -Dbenchmark.heap=4g
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:username-search-bench;DB_CLOSE_DELAY=-1",
+        "logging.level.org.hibernate.SQL=info"
+})
+class UsernameSearchBenchmark {
+    private static final int MEMBERS = Integer.getInteger("benchmark.usernameSearch.members", 200_000);
+    private static final int QUERIES = Integer.getInteger("benchmark.usernameSearch.queries", 30);
+    private static final String[] SYLLABLES = {"kim", "lee", "park", "choi", "jung", "kang", "cho", "yoon", "jang", "lim",
+            "han", "oh", "seo", "shin", "kwon", "hwang", "ahn", "song", "ryu", "hong", "min", "su", "ji", "hye", "woo",
+            "jin", "young", "ho", "hyun", "seung", "eun", "bin", "na", "ra", "do", "ha", "yeon", "joon", "tae", "gyu"};
+
+    @Autowired
+    MemberBulkLoader memberBulkLoader;
+    @Autowired
+    UsernameSearch usernameSearch;
+    @Autowired
+    UsernameSearchProperties properties;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void search() throws InterruptedException {
+        Random random = new Random(42);
+        memberBulkLoader.load(IntStream.range(0, MEMBERS)
+                .mapToObj(i -> new MemberRow(name(random) + (i % 10_000), 20, null))
+                .iterator());
+        // 벌크 적재 후 백그라운드 재생성
+        while (!usernameSearch.isReady()) {
+            Thread.sleep(100);
+        }
+        UsernameSearchStats built = usernameSearch.stats();
+        System.out.printf("[username-search] members=%d gramRows=%d distinctGrams=%d rebuild %d ms%n",
+                MEMBERS, jdbcTemplate.queryForObject("select count(*) from member_username_gram", Long.class),
+                built.getDistinctGrams(), built.getLastRebuildMillis());
+
+        List<String> contains = new ArrayList<>();
+        List<String> prefixes = new ArrayList<>();
+        for (int i = 0; i < QUERIES; i++) {
+            String name = name(random);
+            int length = 3 + random.nextInt(3);
+            int from = random.nextInt(Math.max(1, name.length() - length));
+            contains.add(name.substring(from, Math.min(name.length(), from + length)));
+            prefixes.add(name.substring(0, Math.min(name.length(), 2 + random.nextInt(3))));
+        }
+
+        for (boolean enabled : new boolean[]{false, true}) {
+            properties.setEnabled(enabled);
+            run(enabled, UsernameSearch.Mode.CONTAINS, contains);
+            run(enabled, UsernameSearch.Mode.PREFIX, prefixes);
+        }
+        properties.setEnabled(true);
+    }
+
+    private void run(boolean enabled, UsernameSearch.Mode mode, List<String> queries) {
+        usernameSearch.search(queries.get(0), mode, PageRequest.of(0, 20));
+        long total = 0;
+        long start = System.nanoTime();
+        for (String query : queries) {
+            total += usernameSearch.search(query, mode, PageRequest.of(0, 20)).getTotalElements();
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("[username-search] index=%s mode=%s queries=%d avgMatches=%d %d ms %.1f ms/query%n",
+                enabled, mode, queries.size(), total / queries.size(), TimeUnit.NANOSECONDS.toMillis(elapsed),
+                elapsed / 1_000_000.0 / queries.size());
+    }
+
+    private static String name(Random random) {
+        StringBuilder name = new StringBuilder();
+        int syllables = 2 + random.nextInt(2);
+        for (int i = 0; i < syllables; i++) {
+            name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return name.toString();
+    }
+}
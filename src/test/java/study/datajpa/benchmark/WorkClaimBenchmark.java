@@ -0,0 +1,92 @@
+package study.datajpa.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.datajpa.bulk.MemberBulkLoader;
+import study.datajpa.bulk.MemberRow;
+import study.datajpa.work.MemberWorkQueue;
+import study.datajpa.work.WorkLease;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+/**
+ * 워커 수(1/2/4/8)에 따른 작업 처리량: claim -> 작업마다 itemMicros 만큼 처리(외부 호출 흉내) -> complete
+ * 같은 회원을 두 워커가 처리한 수(duplicates)도 센다. 0 이어야 한다.
+ *
+ * ./gradlew benchmark --tests '*WorkClaimBenchmark' -Dbenchmark.work.items=20000 -Dbenchmark.work.itemMicros=200
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:work-claim-bench;DB_CLOSE_DELAY=-1",
+        "logging.level.org.hibernate.SQL=info"
+})
+class WorkClaimBenchmark {
+    private static final int ITEMS = Integer.getInteger("benchmark.work.items", 10000);
+    private static final int BATCH = Integer.getInteger("benchmark.work.batch", 50);
+    private static final int ITEM_MICROS = Integer.getInteger("benchmark.work.itemMicros", 200);
+
+    @Autowired
+    MemberBulkLoader memberBulkLoader;
+    @Autowired
+    MemberWorkQueue workQueue;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void scaling() throws Exception {
+        memberBulkLoader.load(IntStream.range(0, ITEMS)
+                .mapToObj(i -> new MemberRow("member" + i, 20, null))
+                .iterator());
+        System.out.printf("[work] strategy=%s items=%d batch=%d itemMicros=%d%n",
+                workQueue.strategy(), ITEMS, BATCH, ITEM_MICROS);
+
+        for (int workers : new int[]{1, 2, 4, 8}) {
+            String task = "bench-" + workers;
+            workQueue.enqueueAll(task);
+            ConcurrentHashMap<Long, Boolean> processed = new ConcurrentHashMap<>();
+            AtomicInteger duplicates = new AtomicInteger();
+            AtomicInteger claims = new AtomicInteger();
+
+            ExecutorService executor = Executors.newFixedThreadPool(workers);
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < workers; w++) {
+                String worker = task + "-worker-" + w;
+                futures.add(executor.submit(() -> {
+                    List<WorkLease> leases;
+                    while (!(leases = workQueue.claim(task, worker, BATCH)).isEmpty()) {
+                        claims.incrementAndGet();
+                        for (WorkLease lease : leases) {
+                            if (processed.putIfAbsent(lease.getMemberId(), true) != null) {
+                                duplicates.incrementAndGet();
+                            }
+                            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(ITEM_MICROS));
+                        }
+                        workQueue.complete(worker, leases);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsed = System.nanoTime() - start;
+            executor.shutdown();
+
+            System.out.printf("[work] workers=%d processed=%d duplicates=%d claims=%d %d ms %.0f items/s%n",
+                    workers, processed.size(), duplicates.get(), claims.get(),
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), processed.size() * 1e9 / elapsed);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package study.datajpa.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.bulk.MemberBulkLoader;
+import study.datajpa.bulk.MemberRow;
+import study.datajpa.domain.Member;
+import study.datajpa.writebehind.MemberWriteBuffer;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * 같은 회원들의 age 를 반복해서 바꾸는 처리량: 변경마다 트랜잭션 vs write-behind 버퍼
+ * write-behind 는 마지막 flush 까지 포함한 시간
+ *
+ * ./gradlew benchmark --tests '*WriteBehindBenchmark' -Dbenchmark.writebehind.updates=200000
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:write-behind-bench;DB_CLOSE_DELAY=-1",
+        "logging.level.org.hibernate.SQL=info",
+        "datajpa.write-behind.enabled=true",
+        "datajpa.write-behind.journal-dir=${java.io.tmpdir}/datajpa-write-behind-bench-${random.uuid}"
+})
+class WriteBehindBenchmark {
+    private static final int MEMBERS = Integer.getInteger("benchmark.writebehind.members", 1000);
+    private static final int UPDATES = Integer.getInteger("benchmark.writebehind.updates", 100000);
+    private static final int THREADS = Integer.getInteger("benchmark.writebehind.threads", 4);
+
+    @Autowired
+    MemberBulkLoader memberBulkLoader;
+    @Autowired
+    MemberWriteBuffer buffer;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void throughput() throws InterruptedException {
+        memberBulkLoader.load(IntStream.range(0, MEMBERS)
+                .mapToObj(i -> new MemberRow("member" + i, 20, null))
+                .iterator());
+        List<Long> ids = jdbcTemplate.queryForList("select member_id from member", Long.class);
+
+        BiConsumer<Long, Integer> direct = (id, age) -> transactionTemplate.executeWithoutResult(status ->
+                em.find(Member.class, id).setAge(age));
+        BiConsumer<Long, Integer> writeBehind = buffer::changeAge;
+
+        run("direct", ids, UPDATES / 10, direct, false);
+        run("write-behind", ids, UPDATES / 10, writeBehind, false);
+        run("direct", ids, UPDATES, direct, true);
+        long written = buffer.getWritten();
+        run("write-behind", ids, UPDATES, writeBehind, true);
+        System.out.printf("[write-behind] %,d updates coalesced into %,d row writes%n", UPDATES, buffer.getWritten() - written);
+    }
+
+    private void run(String mode, List<Long> ids, int updates, BiConsumer<Long, Integer> update, boolean print)
+            throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            executor.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < updates / THREADS; i++) {
+                    update.accept(ids.get(random.nextInt(ids.size())), random.nextInt(100));
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.HOURS);
+        buffer.flush();
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        if (print) {
+            System.out.printf("[write-behind] %-12s members=%,d updates=%,d threads=%d  %,6d ms  %,9d updates/s%n",
+                    mode, ids.size(), updates, THREADS, millis, updates * 1000L / millis);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package study.datajpa.bloom;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.datajpa.bulk.MemberBulkLoader;
+import study.datajpa.bulk.MemberRow;
+import study.datajpa.cluster.ClusterProperties;
+import study.datajpa.domain.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "datajpa.username-filter.enabled=true")
+class UsernameFilterTest {
+    @Autowired
+    UsernameFilter usernameFilter;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MemberBulkLoader memberBulkLoader;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp(){
+        memberRepository.save(new Member("filter-existing", 10));
+        usernameFilter.rebuild();
+    }
+
+    @AfterEach
+    void cleanUp(){
+        jdbcTemplate.update("delete from member where username like 'filter-%'");
+    }
+
+    @Test
+    public void bloomFilterHasNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(100_000, 0.01);
+        IntStream.range(0, 100_000).forEach(i -> filter.put("member" + i));
+
+        assertThat(IntStream.range(0, 100_000).allMatch(i -> filter.mightContain("member" + i))).isTrue();
+        long falsePositives = IntStream.range(0, 100_000).filter(i -> filter.mightContain("absent" + i)).count();
+        assertThat(falsePositives).isLessThan(2_000);
+        assertThat(filter.expectedFpp()).isBetween(0.005, 0.015);
+    }
+
+    @Test
+    public void absentUsernameSkipsQuery() {
+        UsernameFilterStats before = usernameFilter.stats();
+        assertThat(before.isReady()).isTrue();
+
+        assertThat(memberRepository.findByUsername("filter-absent")).isEmpty();
+        assertThat(memberRepository.findMembers("filter-absent")).isNull();
+        assertThat(memberRepository.findByUsername("filter-existing")).hasSize(1);
+
+        UsernameFilterStats after = usernameFilter.stats();
+        assertThat(after.getAbsent() - before.getAbsent()).isEqualTo(2);
+        assertThat(after.getMaybe() - before.getMaybe()).isEqualTo(1);
+    }
+
+    @Test
+    public void newMembersAreVisibleImmediately() {
+        memberRepository.save(new Member("filter-new", 10));
+        assertThat(memberRepository.findByUsername("filter-new")).hasSize(1);
+
+        Member renamed = memberRepository.save(new Member("filter-before", 10));
+        renamed.setUsername("filter-after");
+        memberRepository.save(renamed);
+        assertThat(memberRepository.findMembers("filter-after")).isNotNull();
+    }
+
+    @Test
+    public void bulkLoadBypassesUntilRebuilt() {
+        memberBulkLoader.load(Arrays.asList(new MemberRow("filter-bulk1", 10, null), new MemberRow("filter-bulk2", 20, null)).iterator());
+
+        // 재생성 전이면 DB 로, 재생성 후면 필터에 들어있다.
+        assertThat(memberRepository.findByUsername("filter-bulk1")).hasSize(1);
+        usernameFilter.rebuild();
+        assertThat(usernameFilter.stats().isReady()).isTrue();
+        assertThat(memberRepository.findByUsername("filter-bulk2")).hasSize(1);
+    }
+
+    @Test
+    public void multiInstanceRequiresCluster(){
+        UsernameFilterProperties properties = new UsernameFilterProperties();
+        properties.setEnabled(true);
+        properties.setMultiInstance(true);
+        ClusterProperties cluster = new ClusterProperties();
+
+        assertThatThrownBy(() -> new UsernameFilter(jdbcTemplate, properties, cluster))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("datajpa.cluster.enabled");
+        cluster.setEnabled(true);
+        assertThat(new UsernameFilter(jdbcTemplate, properties, cluster).check("filter-existing"))
+                .isEqualTo(UsernameFilter.Check.BYPASS);
+    }
+}
@@ -0,0 +1,69 @@
+package study.datajpa.bulk;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "datajpa.bulk.chunk-size=2")
+class MemberBulkLoaderTest {
+    @Autowired
+    MemberBulkLoader memberBulkLoader;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp(){
+        jdbcTemplate.update("delete from member where username like 'bulk-%'");
+        jdbcTemplate.update("delete from team where name like 'bulk-%'");
+    }
+
+    @Test
+    public void loadCsv() throws Exception {
+//        given
+        String csv = "username,age,team\n" +
+                "bulk-1,10,bulk-teamA\n" +
+                "bulk-2,20,bulk-teamA\n" +
+                "\"bulk-3,quoted\",30,bulk-teamB\n" +
+                "bulk-4,40,\n" +
+                "bulk-5,50,bulk-teamB\n";
+
+//        when
+        BulkLoadResult result = memberBulkLoader.loadCsv(new StringReader(csv));
+
+//        then
+        assertThat(result.getRows()).isEqualTo(5);
+        assertThat(result.getTeamsCreated()).isEqualTo(2);
+
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "select m.username, m.age, t.name as team_name, m.created_date, m.updated_date, m.create_by, m.last_modified_by" +
+                        " from member m left join team t on m.team_id = t.team_id" +
+                        " where m.username like 'bulk-%' order by m.age");
+        assertThat(rows).extracting(r -> r.get("USERNAME"))
+                .containsExactly("bulk-1", "bulk-2", "bulk-3,quoted", "bulk-4", "bulk-5");
+        assertThat(rows).extracting(r -> r.get("TEAM_NAME"))
+                .containsExactly("bulk-teamA", "bulk-teamA", "bulk-teamB", null, "bulk-teamB");
+        assertThat(rows).allSatisfy(r -> {
+            assertThat(r.get("CREATED_DATE")).isNotNull();
+            assertThat(r.get("UPDATED_DATE")).isNotNull();
+            assertThat(r.get("CREATE_BY")).isNotNull();
+            assertThat(r.get("LAST_MODIFIED_BY")).isEqualTo(r.get("CREATE_BY"));
+        });
+    }
+
+    @Test
+    public void rejectsNonPositiveChunkSize() {
+        BulkLoadProperties properties = new BulkLoadProperties();
+        properties.setChunkSize(0);
+        assertThatThrownBy(() -> new MemberBulkLoader(jdbcTemplate, null, null, null, properties, null, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
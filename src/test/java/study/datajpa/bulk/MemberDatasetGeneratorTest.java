@@ -0,0 +1,85 @@
+package study.datajpa.bulk;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemberDatasetGeneratorTest {
+
+    @Test
+    public void sameSeedSameRows() {
+        List<String> first = usernames(new MemberDatasetGenerator(1000, 10, 1.0, 0.05, 7));
+        List<String> second = usernames(new MemberDatasetGenerator(1000, 10, 1.0, 0.05, 7));
+        List<String> other = usernames(new MemberDatasetGenerator(1000, 10, 1.0, 0.05, 8));
+
+        assertThat(first).hasSize(1000).isEqualTo(second).isNotEqualTo(other);
+        assertThat(first).allSatisfy(username -> assertThat(username).matches("[a-z]+[._]?[a-z]+\\d*"));
+    }
+
+    @Test
+    public void rejectsOutOfRangeSettings() {
+        assertThatThrownBy(() -> new MemberDatasetGenerator(-1, 10, 1.0, 0.05, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new MemberDatasetGenerator(10, MemberDatasetGenerator.MAX_TEAMS + 1, 1.0, 0.05, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new MemberDatasetGenerator(10, 10, Double.NaN, 0.05, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new MemberDatasetGenerator(10, 10, -0.5, 0.05, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new MemberDatasetGenerator(10, 10, 1.0, 1.5, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void teamsFollowZipfSkew() {
+        Map<String, Integer> skewed = teamSizes(new MemberDatasetGenerator(100_000, 100, 1.0, 0.0, 1));
+        Map<String, Integer> uniform = teamSizes(new MemberDatasetGenerator(100_000, 100, 0.0, 0.0, 1));
+
+        // 1/k 분포: 1위 팀 비율 1 / H(100) = 약 19%, 2위의 두 배
+        int top = skewed.get(MemberDatasetGenerator.teamName(1));
+        assertThat(top).isBetween(18_000, 21_000);
+        assertThat(top / (double) skewed.get(MemberDatasetGenerator.teamName(2))).isBetween(1.8, 2.2);
+        assertThat(skewed).doesNotContainKey(null);
+        assertThat(uniform.get(MemberDatasetGenerator.teamName(1))).isBetween(800, 1_200);
+    }
+
+    @Test
+    public void agesAreBoundedAroundMean() {
+        MemberDatasetGenerator generator = new MemberDatasetGenerator(50_000, 10, 1.0, 0.05, 3);
+        long sum = 0;
+        int noTeam = 0;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        while (generator.hasNext()) {
+            MemberRow row = generator.next();
+            sum += row.getAge();
+            min = Math.min(min, row.getAge());
+            max = Math.max(max, row.getAge());
+            if (row.getTeamName() == null) {
+                noTeam++;
+            }
+        }
+        assertThat(sum / 50_000.0).isBetween(33.0, 35.0);
+        assertThat(min).isGreaterThanOrEqualTo(14);
+        assertThat(max).isLessThanOrEqualTo(90);
+        assertThat(noTeam).isBetween(2_000, 3_000);
+    }
+
+    private static List<String> usernames(MemberDatasetGenerator generator) {
+        List<String> usernames = new ArrayList<>();
+        generator.forEachRemaining(row -> usernames.add(row.getUsername()));
+        return usernames;
+    }
+
+    private static Map<String, Integer> teamSizes(MemberDatasetGenerator generator) {
+        Map<String, Integer> sizes = new HashMap<>();
+        generator.forEachRemaining(row -> sizes.merge(row.getTeamName(), 1, Integer::sum));
+        return sizes;
+    }
+}
@@ -0,0 +1,72 @@
+package study.datajpa.bulk;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"datajpa.dataset.max-generate-members=1000", "datajpa.bulk.chunk-size=2"})
+@AutoConfigureMockMvc
+class MemberImportControllerTest {
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp(){
+        jdbcTemplate.update("delete from member where username like 'import-%'");
+    }
+
+    @Test
+    public void importRejectsMalformedRowWithLineAndCommittedCount() throws Exception {
+        String csv = "username,age,team\n" +
+                "import-1,10,\n" +
+                "import-2,20,\n" +
+                "import-3,30,\n" +
+                "import-4,40,\n" +
+                "import-5,50,\n" +
+                "import-6,sixty,\n";
+
+        MvcResult result = mockMvc.perform(post("/members/import").contentType("text/csv").content(csv))
+                .andExpect(status().isBadRequest())
+                .andReturn();
+
+        // 2 행씩 두 청크는 커밋했다
+        assertThat(result.getResponse().getErrorMessage()).contains("line 7").contains("4 rows committed");
+        assertThat(jdbcTemplate.queryForObject("select count(*) from member where username like 'import-%'", Long.class))
+                .isEqualTo(4);
+    }
+
+    @Test
+    public void generateRejectsOutOfRangeParameters() throws Exception {
+        long before = jdbcTemplate.queryForObject("select count(*) from member", Long.class);
+
+        generate("members", "0");
+        generate("members", "1001");
+        generate("teams", "-1");
+        generate("teams", "2000000");
+        generate("teamSkew", "-1");
+        generate("teamSkew", "NaN");
+        generate("teamSkew", "Infinity");
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from member", Long.class)).isEqualTo(before);
+    }
+
+    private void generate(String name, String value) throws Exception {
+        MockHttpServletRequestBuilder request = post("/members/generate").param(name, value);
+        if (!name.equals("members")) {
+            request.param("members", "10");
+        }
+        mockMvc.perform(request).andExpect(status().isBadRequest());
+    }
+}
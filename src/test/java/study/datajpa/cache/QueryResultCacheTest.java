@@ -0,0 +1,168 @@
+package study.datajpa.cache;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.domain.Member;
+import study.datajpa.domain.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "datajpa.cache.statistics=true")
+class QueryResultCacheTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    EntityManagerFactory emf;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    QueryResultCache queryResultCache;
+
+    Statistics statistics;
+    Member member1;
+
+    @BeforeEach
+    void setUp(){
+        queryResultCache.clear();
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        member1 = memberRepository.save(new Member("qc-member1", 7001));
+        memberRepository.save(new Member("qc-member2", 7002));
+    }
+
+    @AfterEach
+    void cleanUp(){
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.username like 'qc-%'").executeUpdate();
+            em.flush();
+            em.createQuery("delete from Team t where t.name like 'qc-%'").executeUpdate();
+        });
+    }
+
+    @Test
+    public void invalidateOnlyAffectedKeys(){
+//        given
+        QueryCacheStats before = findByAgeStats();
+        findByAge(7001);
+        findByAge(7002);
+
+//        when: 같은 파라미터는 SQL 없이 캐시에서
+        long statements = statistics.getPrepareStatementCount();
+        assertThat(findByAge(7001).getTotalElements()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+
+//        when: age 7002 회원 추가는 7002 결과만 무효화
+        memberRepository.save(new Member("qc-member3", 7002));
+        statements = statistics.getPrepareStatementCount();
+        findByAge(7001);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+        assertThat(findByAge(7002).getTotalElements()).isEqualTo(2);
+        assertThat(statistics.getPrepareStatementCount()).isGreaterThan(statements);
+
+//        when: 변경 감지 update 는 변경된 회원의 age 결과를 무효화
+        transactionTemplate.executeWithoutResult(status ->
+                em.find(Member.class, member1.getId()).setUsername("qc-renamed"));
+        assertThat(findByAge(7001).getContent().get(0).getUsername()).isEqualTo("qc-renamed");
+
+//        when: 벌크 연산 age >= 7002 는 7001 결과를 남긴다
+//        (벌크 연산이 Member 2차 캐시 리전을 비우므로 회원은 보관한 id 로 다시 읽는다)
+        findByAge(7002);
+        memberRepository.bulkAgePlus(7002);
+        long hits = findByAgeStats().getHits();
+        assertThat(findByAge(7001).getContent()).extracting(Member::getUsername).containsExactly("qc-renamed");
+        assertThat(findByAgeStats().getHits()).isEqualTo(hits + 1);
+        assertThat(findByAge(7002).getTotalElements()).isEqualTo(0);
+        assertThat(findByAge(7003).getTotalElements()).isEqualTo(2);
+
+//        then
+        QueryCacheStats after = findByAgeStats();
+        assertThat(after.getHits() - before.getHits()).isEqualTo(4);
+        assertThat(after.getInvalidations() - before.getInvalidations()).isEqualTo(3);
+    }
+
+    @Test
+    public void invalidateByDependentEntity(){
+//        given
+        int size = memberRepository.findMemberDto().size();
+        long statements = statistics.getPrepareStatementCount();
+        memberRepository.findMemberDto();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+
+//        when: 팀 변경은 Member, Team 에 의존하는 결과를 무효화
+        transactionTemplate.executeWithoutResult(status -> {
+            Team team = new Team("qc-team");
+            em.persist(team);
+            em.find(Member.class, member1.getId()).setTeam(team);
+        });
+
+//        then
+        assertThat(memberRepository.findMemberDto().size()).isEqualTo(size + 1);
+    }
+
+    @Test
+    public void cachedEntitiesAreResolvedPerCall(){
+//        given
+        transactionTemplate.executeWithoutResult(status -> {
+            Team team = new Team("qc-team");
+            em.persist(team);
+            em.find(Member.class, member1.getId()).setTeam(team);
+        });
+        Member first = findByAge(7001).getContent().get(0);
+
+//        when: 캐시 히트로 받은 엔티티를 바꿔도 다음 조회에는 보이지 않는다
+        long statements = statistics.getPrepareStatementCount();
+        Member hit = findByAge(7001).getContent().get(0);
+        hit.setUsername("qc-changed");
+
+//        then
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+        assertThat(hit).isNotSameAs(first);
+        assertThat(findByAge(7001).getContent().get(0).getUsername()).isEqualTo("qc-member1");
+
+//        then: 읽기 전용 트랜잭션 안의 히트는 그 영속성 컨텍스트의 엔티티라 지연 로딩이 된다
+        TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnly.setReadOnly(true);
+        String teamName = readOnly.execute(status -> {
+            Member member = findByAge(7001).getContent().get(0);
+            assertThat(em.contains(member)).isTrue();
+            return member.getTeam().getName();
+        });
+        assertThat(teamName).isEqualTo("qc-team");
+    }
+
+    @Test
+    public void bypassInWriteTransaction(){
+        findByAge(7001);
+        Long count = transactionTemplate.execute(status -> {
+            memberRepository.save(new Member("qc-member4", 7001));
+            return findByAge(7001).getTotalElements();
+        });
+        assertThat(count).isEqualTo(2);
+    }
+
+    private QueryCacheStats findByAgeStats() {
+        return queryResultCache.stats().stream()
+                .filter(s -> s.getMethod().equals("MemberRepository.findByAge"))
+                .findFirst().orElse(new QueryCacheStats("MemberRepository.findByAge", 0, 0, 0, 0, 0, 0));
+    }
+
+    private Page<Member> findByAge(int age) {
+        return memberRepository.findByAge(age, PageRequest.of(0, 10));
+    }
+}
@@ -0,0 +1,72 @@
+package study.datajpa.cache;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.domain.Member;
+import study.datajpa.domain.Team;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "datajpa.cache.statistics=true")
+class SecondLevelCacheTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    EntityManagerFactory emf;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    Long memberId;
+    Long teamId;
+
+    @AfterEach
+    void cleanUp(){
+        transactionTemplate.executeWithoutResult(status -> {
+            em.remove(em.find(Member.class, memberId));
+            em.remove(em.find(Team.class, teamId));
+        });
+    }
+
+    @Test
+    public void cachedAndInvalidatedByBulkUpdate(){
+//        given
+        transactionTemplate.executeWithoutResult(status -> {
+            Team team = new Team("cacheTeam");
+            em.persist(team);
+            Member member = new Member("cacheMember", 1000, team);
+            em.persist(member);
+            teamId = team.getId();
+            memberId = member.getId();
+        });
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        long statements = statistics.getPrepareStatementCount();
+
+//        when: 커밋된 엔티티와 지연 로딩되는 팀은 2차 캐시에서 읽는다
+        String teamName = transactionTemplate.execute(status ->
+                em.find(Member.class, memberId).getTeam().getName());
+
+//        then
+        assertThat(teamName).isEqualTo("cacheTeam");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+        assertThat(emf.getCache().contains(Member.class, memberId)).isTrue();
+
+//        when: JPQL 벌크 연산은 엔티티 생명주기를 거치지 않는다
+        memberRepository.bulkAgePlus(1000);
+
+//        then: 리전이 무효화되어 DB 값을 다시 읽는다
+        assertThat(emf.getCache().contains(Member.class, memberId)).isFalse();
+        Integer age = transactionTemplate.execute(status -> em.find(Member.class, memberId).getAge());
+        assertThat(age).isEqualTo(1001);
+    }
+}
@@ -0,0 +1,91 @@
+package study.datajpa.cluster;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.DataJpaApplication;
+import study.datajpa.domain.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 같은 H2 메모리 DB 를 쓰는 애플리케이션 컨텍스트 두 개로 노드 두 개를 흉내낸다.
+ */
+class ClusterInvalidationTest {
+    ConfigurableApplicationContext nodeA;
+    ConfigurableApplicationContext nodeB;
+
+    @BeforeEach
+    void startNodes(){
+        nodeA = start("node-a", "create");
+        nodeB = start("node-b", "none");
+    }
+
+    @AfterEach
+    void stopNodes(){
+        nodeB.close();
+        nodeA.close();
+    }
+
+    @Test
+    public void invalidateCachesOnOtherNode() throws InterruptedException {
+//        given: 노드 B 가 쿼리 결과 캐시와 2차 캐시에 회원을 올려둔다
+        Member member = nodeA.getBean(MemberRepository.class).save(new Member("cluster-member", 8001));
+        MemberRepository repositoryB = nodeB.getBean(MemberRepository.class);
+        assertThat(repositoryB.findByAge(8001, PageRequest.of(0, 10)).getTotalElements()).isEqualTo(1);
+        assertThat(ageOnNode(nodeB, member.getId())).isEqualTo(8001);
+        assertThat(secondLevelCached(nodeB, member.getId())).isTrue();
+
+//        when: 노드 A 에서 나이 변경
+        nodeA.getBean(TransactionTemplate.class).executeWithoutResult(status ->
+                nodeA.getBean(MemberRepository.class).findById(member.getId()).get().setAge(8002));
+
+//        then: poll-interval 안에 노드 B 가 INSERT, UPDATE 를 받아서 캐시를 비운다
+        // (앞의 INSERT 만으로도 2차 캐시가 비워질 수 있으므로 UPDATE 까지 받았는지 기다린다)
+        ChangeLogPoller pollerB = nodeB.getBean(ChangeLogPoller.class);
+        assertThat(await(() -> pollerB.getApplied() >= 2)).isTrue();
+        assertThat(secondLevelCached(nodeB, member.getId())).isFalse();
+        assertThat(repositoryB.findByAge(8001, PageRequest.of(0, 10)).getTotalElements()).isEqualTo(0);
+        assertThat(ageOnNode(nodeB, member.getId())).isEqualTo(8002);
+    }
+
+    private static ConfigurableApplicationContext start(String nodeId, String ddlAuto) {
+        return new SpringApplicationBuilder(DataJpaApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:cluster-test;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.hibernate.ddl-auto=" + ddlAuto,
+                        "--logging.level.org.hibernate.SQL=info",
+                        "--datajpa.cluster.enabled=true",
+                        "--datajpa.cluster.node-id=" + nodeId,
+                        "--datajpa.cluster.poll-interval=100ms");
+    }
+
+    private static int ageOnNode(ConfigurableApplicationContext node, Long id) {
+        return node.getBean(TransactionTemplate.class).execute(status ->
+                node.getBean(MemberRepository.class).findById(id).get().getAge());
+    }
+
+    private static boolean secondLevelCached(ConfigurableApplicationContext node, Long id) {
+        return node.getBean(EntityManagerFactory.class).getCache().contains(Member.class, id);
+    }
+
+    private static boolean await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return false;
+    }
+}
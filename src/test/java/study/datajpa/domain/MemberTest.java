@@ -3,20 +3,53 @@ package study.datajpa.domain;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 import javax.persistence.PersistenceContext;
 
 import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
 class MemberTest {
     @PersistenceContext
     EntityManager em;
+    @Autowired
+    EntityManagerFactory emf;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    /**
+     * 2차 캐시에 없는 회원을 새 세션에서 읽어 변경해도 lastModifiedBy 가 함께 저장된다.
+     */
+    @Test
+    public void lastModifiedByIsWrittenForEntityLoadedFromDatabase(){
+        Long id = transactionTemplate.execute(status -> {
+            Member member = new Member("audit-member", 10);
+            em.persist(member);
+            return member.getId();
+        });
+        String createdBy = lastModifiedBy(id);
+        emf.getCache().evictAll();
+
+        transactionTemplate.executeWithoutResult(status -> em.find(Member.class, id).setAge(11));
+
+        assertThat(lastModifiedBy(id)).isNotNull().isNotEqualTo(createdBy);
+        jdbcTemplate.update("delete from member where member_id = ?", id);
+    }
+
+    private String lastModifiedBy(Long id) {
+        return jdbcTemplate.queryForObject("select last_modified_by from member where member_id = ?", String.class, id);
+    }
 
     @Test
     @Transactional
@@ -0,0 +1,128 @@
+package study.datajpa.pool;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.repository.MemberRepository;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "datajpa.pool.long-held-threshold=50ms")
+class PoolMetricsTest {
+    @Autowired
+    PoolMetrics poolMetrics;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    public void longHeldConnectionRecordsRepositoryMethod() {
+        transactionTemplate.executeWithoutResult(status -> {
+            memberRepository.findByUsername("pool-metrics");
+            sleep(100);
+        });
+        memberRepository.count();
+
+        PoolStatus status = poolMetrics.status();
+        assertThat(status.getTotal()).isGreaterThan(0);
+        assertThat(status.getMaximumPoolSize()).isGreaterThan(0);
+        assertThat(status.getWait().getCount()).isGreaterThanOrEqualTo(2);
+        assertThat(status.getLongHeldByMethod()).containsKey("MemberRepository.findByUsername")
+                .doesNotContainKey("MemberRepository.count");
+        assertThat(status.getLongHeld()).anySatisfy(connection -> {
+            assertThat(connection.getRepositoryMethods()).containsExactly("MemberRepository.findByUsername");
+            assertThat(connection.getHeldMillis()).isGreaterThanOrEqualTo(100);
+        });
+    }
+
+    @Test
+    public void histogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertThat(snapshot.getCount()).isEqualTo(1000);
+        assertThat(snapshot.getMax()).isEqualTo(1000);
+        assertThat(snapshot.percentile(0.5)).isBetween(500L, 625L);
+        assertThat(snapshot.percentile(0.99)).isBetween(990L, 1000L);
+        for (long value : new long[]{0, 3, 4, 7, 8, 100, 1_000_000}) {
+            int index = LatencyHistogram.index(value);
+            assertThat(LatencyHistogram.upperBound(index)).isGreaterThanOrEqualTo(value);
+            assertThat(index == 0 || LatencyHistogram.upperBound(index - 1) < value).isTrue();
+        }
+
+        histogram.record(5000);
+        assertThat(histogram.snapshot().minus(snapshot).getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void sizerGrowsOnWaitAndShrinksWhenDatabaseSaturated() {
+        PoolMetricsProperties properties = new PoolMetricsProperties();
+        properties.getAdaptive().setMinSize(5);
+        properties.getAdaptive().setMaxSize(12);
+        properties.getAdaptive().setTargetWait(Duration.ofMillis(10));
+        AdaptivePoolSizer sizer = new AdaptivePoolSizer(poolMetrics, properties);
+
+        // 대기 없음 (기준 사용 시간 1ms)
+        assertThat(sizer.decide(10, new PoolWindow(100, 0, 100, 1_000, 9))).isNull();
+        // 대기가 길고 DB 응답 시간은 그대로: 늘린다
+        PoolSizeDecision grow = sizer.decide(10, new PoolWindow(100, 0, 50_000, 1_100, 10));
+        assertThat(grow.getTo()).isEqualTo(12);
+        assertThat(grow.getReason()).isEqualTo("connection wait");
+        // maxSize 이상은 늘리지 않는다
+        assertThat(sizer.decide(12, new PoolWindow(100, 3, 50_000, 1_000, 12))).isNull();
+        // 대기가 길고 DB 응답 시간도 늘었다: 줄인다
+        PoolSizeDecision shrink = sizer.decide(12, new PoolWindow(100, 0, 50_000, 5_000, 12));
+        assertThat(shrink.getTo()).isEqualTo(11);
+        assertThat(shrink.getReason()).isEqualTo("db saturated");
+        assertThat(shrink.getBaselineUsageMicros()).isLessThan(1_100);
+        // 한가하면 minSize 까지 줄인다
+        assertThat(sizer.decide(6, new PoolWindow(100, 0, 10, 1_000, 1)).getTo()).isEqualTo(5);
+        assertThat(sizer.decide(5, new PoolWindow(100, 0, 10, 1_000, 1))).isNull();
+        // 요청이 없으면 그대로
+        assertThat(sizer.decide(10, new PoolWindow(0, 0, 0, 0, 0))).isNull();
+    }
+
+    @Test
+    public void sizerIgnoresSubMillisecondBaseline() {
+        PoolMetricsProperties properties = new PoolMetricsProperties();
+        properties.getAdaptive().setMinSize(5);
+        properties.getAdaptive().setMaxSize(20);
+        properties.getAdaptive().setTargetWait(Duration.ofMillis(10));
+        AdaptivePoolSizer sizer = new AdaptivePoolSizer(poolMetrics, properties);
+
+        // 1ms 미만 쿼리: 기준은 1ms 로
+        assertThat(sizer.decide(10, new PoolWindow(100, 0, 100, 0, 9))).isNull();
+        PoolSizeDecision grow = sizer.decide(10, new PoolWindow(100, 0, 50_000, 500, 10));
+        assertThat(grow.getReason()).isEqualTo("connection wait");
+        assertThat(grow.getBaselineUsageMicros()).isEqualTo(1_000);
+        assertThat(sizer.decide(12, new PoolWindow(100, 0, 50_000, 1_400, 12)).getReason()).isEqualTo("connection wait");
+        // 기준의 1.5 배를 넘으면 포화
+        assertThat(sizer.decide(14, new PoolWindow(100, 0, 50_000, 2_000, 14)).getReason()).isEqualTo("db saturated");
+    }
+
+    @Test
+    public void usageKeepsSubMillisecondBorrows() {
+        poolMetrics.window();
+        for (int i = 0; i < 10; i++) {
+            memberRepository.count();
+        }
+        PoolWindow window = poolMetrics.window();
+        assertThat(window.getAcquisitions()).isGreaterThanOrEqualTo(10);
+        assertThat(window.getUsageMeanMicros()).isGreaterThan(0);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package study.datajpa.reactive;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import study.datajpa.domain.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "datajpa.reactive.enabled=true",
+        "datajpa.reactive.port=0"
+})
+class ReactiveMemberHandlerTest {
+    @Autowired
+    TestRestTemplate restTemplate;
+    @Autowired
+    ReactiveMemberServer reactiveMemberServer;
+    @Autowired
+    ReactiveMemberRepository reactiveMemberRepository;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    ObjectMapper objectMapper;
+
+    WebTestClient reactive;
+
+    @BeforeEach
+    void setUp(){
+        for (int i = 0; i < 15; i++) {
+            memberRepository.save(new Member("reactive" + i, i));
+        }
+        reactive = WebTestClient.bindToServer().baseUrl("http://localhost:" + reactiveMemberServer.getPort()).build();
+    }
+
+    @AfterEach
+    void cleanUp(){
+        jdbcTemplate.update("delete from member where username like 'reactive%'");
+    }
+
+    @Test
+    public void samePageAsServlet() throws Exception {
+        for (String query : new String[]{"?page=1&size=4&sort=id", "?page=0&size=100&sort=age,desc&sort=id", "?page=-1&size=0&sort=id,desc"}) {
+            String servlet = restTemplate.getForObject("/members" + query, String.class);
+            byte[] body = reactive.get().uri("/members" + query).exchange()
+                    .expectStatus().isOk()
+                    .expectBody().returnResult().getResponseBody();
+            assertThat(objectMapper.readTree(body)).isEqualTo(objectMapper.readTree(servlet));
+        }
+    }
+
+    @Test
+    public void findMember(){
+        Long id = memberRepository.findByUsername("reactive3").get(0).getId();
+        reactive.get().uri("/members/" + id).exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo(restTemplate.getForObject("/members/" + id, String.class));
+        reactive.get().uri("/members/-1").exchange().expectStatus().isNotFound();
+    }
+
+    /**
+     * r2dbc-h2 는 블로킹이라 호출한 스레드(이벤트 루프)가 아니라 boundedElastic 에서 읽는다.
+     */
+    @Test
+    public void readsOffTheCallingThread(){
+        Long id = memberRepository.findByUsername("reactive3").get(0).getId();
+        String thread = reactiveMemberRepository.findById(id)
+                .map(member -> Thread.currentThread().getName())
+                .block();
+        assertThat(thread).startsWith("boundedElastic");
+    }
+
+    @Test
+    public void stream(){
+        List<JsonNode> members = reactive.get().uri("/members/stream").accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(JsonNode.class).returnResult().getResponseBody();
+        assertThat(members).hasSize((int) memberRepository.count());
+    }
+
+    @Test
+    public void rejectUnknownSort(){
+        reactive.get().uri("/members?sort=createdDate").exchange().expectStatus().isBadRequest();
+    }
+}
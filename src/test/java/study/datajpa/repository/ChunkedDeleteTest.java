@@ -0,0 +1,97 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.domain.Member;
+import study.datajpa.domain.Team;
+import study.datajpa.stats.TeamStatsStore;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class ChunkedDeleteTest {
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    TeamStatsStore teamStatsStore;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    Team teamA;
+    Team teamB;
+
+    @BeforeEach
+    void setUp(){
+        teamA = teamRepository.save(new Team("chunk-delete-teamA"));
+        teamB = teamRepository.save(new Team("chunk-delete-teamB"));
+        for (int i = 0; i < 25; i++) {
+            memberRepository.save(new Member("chunk-delete-a" + i, i, teamA));
+        }
+        for (int i = 0; i < 5; i++) {
+            memberRepository.save(new Member("chunk-delete-b" + i, 20 + i, teamB));
+            memberRepository.save(new Member("chunk-delete-none" + i, 20 + i));
+        }
+        // 2차 캐시에 Team.members 를 올려둔다.
+        assertThat(members(teamA)).isEqualTo(25);
+    }
+
+    @AfterEach
+    void cleanUp(){
+        jdbcTemplate.update("delete from member where username like 'chunk-delete-%'");
+    }
+
+    @Test
+    public void deleteBySpecificationInChunks() {
+        Specification<Member> spec = MemberSpec.teamName("chunk-delete-teamA")
+                .and((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("age"), 10));
+        List<ChunkedDeleteResult> progress = new ArrayList<>();
+
+        ChunkedDeleteResult result = memberRepository.deleteInChunks(spec, 4, Duration.ofMillis(1), progress::add);
+
+        assertThat(result.getDeleted()).isEqualTo(15);
+        assertThat(result.getChunks()).isEqualTo(4);
+        assertThat(progress).extracting(ChunkedDeleteResult::getDeleted).containsExactly(4L, 8L, 12L, 15L);
+        assertThat(memberRepository.findAll(MemberSpec.teamName("chunk-delete-teamA"))).hasSize(10)
+                .allSatisfy(member -> assertThat(member.getAge()).isLessThan(10));
+        assertThat(members(teamA)).isEqualTo(10);
+        assertThat(members(teamB)).isEqualTo(5);
+        assertThat(teamStatsStore.find(teamA.getId()).get().getMemberCount()).isEqualTo(10);
+    }
+
+    @Test
+    public void deleteMembersWithoutTeam() {
+        ChunkedDeleteResult result = memberRepository.deleteInChunks(
+                (root, query, cb) -> cb.like(root.get("username"), "chunk-delete-none%"), 2);
+
+        assertThat(result.getDeleted()).isEqualTo(5);
+        assertThat(result.getChunks()).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from member where username like 'chunk-delete-%'", Long.class)).isEqualTo(30);
+    }
+
+    @Test
+    public void rejectsNonPositiveChunkSize() {
+        assertThatThrownBy(() -> memberRepository.deleteInChunks(MemberSpec.teamName("chunk-delete-teamA"), 0))
+                .hasRootCauseInstanceOf(IllegalArgumentException.class);
+        assertThat(members(teamA)).isEqualTo(25);
+    }
+
+    private Integer members(Team team) {
+        return transactionTemplate.execute(status -> teamRepository.findById(team.getId()).get().getMembers().size());
+    }
+}
@@ -0,0 +1,88 @@
+package study.datajpa.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.domain.Member;
+import study.datajpa.domain.Team;
+import study.datajpa.repository.support.FlatProjectionProperties;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "datajpa.cache.statistics=true")
+@Transactional
+class FlatProjectionTest {
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    FlatProjectionProperties properties;
+    @Autowired
+    EntityManager em;
+
+    @BeforeEach
+    void setUp(){
+        Team team = new Team("flat-team");
+        em.persist(team);
+        em.persist(new Member("flat-member", 10, team));
+        em.persist(new Member("flat-member", 20, team));
+        em.persist(new Member("flat-member", 30));
+        em.flush();
+        em.clear();
+    }
+
+    @AfterEach
+    void cleanUp(){
+        properties.setEnabled(true);
+    }
+
+    @Test
+    public void derivedQuery() {
+        assertSameResultWithoutEntities(() -> memberRepository.findProjectionsByUsername("flat-member", NestedCloseProjection.class));
+    }
+
+    @Test
+    public void annotatedQuery() {
+        assertSameResultWithoutEntities(() -> memberRepository.findProjectionsByQuery("flat-member", NestedCloseProjection.class));
+    }
+
+    @Test
+    public void otherProjectionsAreUnchanged() {
+        List<UsernameOnly> usernames = memberRepository.findProjectionsByUsername("flat-member", UsernameOnly.class);
+        assertThat(usernames).extracting(UsernameOnly::getUsername).containsOnly("flat-member").hasSize(3);
+        assertThat(memberRepository.findProjectionsByQuery("flat-member", Member.class)).hasSize(3);
+    }
+
+    private void assertSameResultWithoutEntities(Supplier<List<NestedCloseProjection>> query) {
+        properties.setEnabled(false);
+        long[] entityLoads = new long[1];
+        List<String> expected = run(query, entityLoads);
+        assertThat(entityLoads[0]).isGreaterThan(0);
+
+        properties.setEnabled(true);
+        List<String> actual = run(query, entityLoads);
+        assertThat(entityLoads[0]).isZero();
+        assertThat(actual).containsExactlyInAnyOrderElementsOf(expected)
+                .containsExactlyInAnyOrder("flat-member:flat-team", "flat-member:flat-team", "flat-member:null");
+    }
+
+    private List<String> run(Supplier<List<NestedCloseProjection>> query, long[] entityLoads) {
+        em.clear();
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        long before = statistics.getEntityLoadCount();
+        List<String> result = query.get().stream()
+                .map(p -> p.getUsername() + ":" + (p.getTeam() == null ? null : p.getTeam().getName()))
+                .collect(Collectors.toList());
+        entityLoads[0] = statistics.getEntityLoadCount() - before;
+        return result;
+    }
+}
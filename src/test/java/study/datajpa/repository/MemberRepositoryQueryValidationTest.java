@@ -0,0 +1,27 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.repository.config.BootstrapMode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * fast-start 프로파일은 리파지토리를 지연(deferred) 초기화하므로 기동시점에 쿼리 메서드 검증이 일어나지 않는다.
+ * 대신 빌드 단계에서 리파지토리를 즉시(DEFAULT) 생성해서
+ * 메서드 이름 쿼리, @Query, @NamedQuery 오류를 여기서 잡는다.
+ */
+@DataJpaTest(bootstrapMode = BootstrapMode.DEFAULT)
+class MemberRepositoryQueryValidationTest {
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Test
+    public void queryMethodsAreValid(){
+        assertThat(memberRepository.findUsernameList()).isEmpty();
+        assertThat(teamRepository.count()).isZero();
+    }
+}
@@ -9,15 +9,18 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.domain.Member;
 import study.datajpa.domain.Team;
 
 import javax.persistence.EntityManager;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -181,6 +184,59 @@ class MemberRepositoryTest {
     }
 
 
+    @Test
+    public void forEachChunk(){
+//        given
+        for(int i=0; i<7; i++){
+            memberRepository.save(new Member("chunk"+i, i));
+        }
+        em.flush();
+        em.clear();
+
+//        when
+        List<Integer> chunkSizes = new ArrayList<>();
+        List<Member> seen = new ArrayList<>();
+        Specification<Member> spec = (root, query, builder) -> builder.like(root.get("username"), "chunk%");
+        ChunkIterationResult result = memberRepository.forEachChunk(spec, 3, chunk -> {
+            chunkSizes.add(chunk.size());
+            seen.addAll(chunk);
+        });
+
+//        then
+        assertThat(chunkSizes).containsExactly(3, 3, 1);
+        assertThat(result.getElements()).isEqualTo(7);
+        assertThat(seen).noneMatch(em::contains);
+    }
+
+    @Test
+    public void forEachChunkClearsFetchedAssociations(){
+//        given
+        Team team = teamRepository.save(new Team("chunkTeam"));
+        for(int i=0; i<5; i++){
+            memberRepository.save(new Member("chunkFetch"+i, i, team));
+        }
+        em.flush();
+        em.clear();
+
+//        when
+        List<Team> teams = new ArrayList<>();
+        Specification<Member> spec = (root, query, builder) -> {
+            root.fetch("team");
+            return builder.like(root.get("username"), "chunkFetch%");
+        };
+        memberRepository.forEachChunk(spec, 2, chunk -> chunk.forEach(member -> teams.add(member.getTeam())));
+
+//        then
+        assertThat(teams).hasSize(5).noneMatch(em::contains);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void forEachChunkRejectsEmptyChunk(){
+        assertThatThrownBy(() -> memberRepository.forEachChunk(null, 0, chunk -> { }))
+                .hasRootCauseInstanceOf(IllegalArgumentException.class);
+    }
+
     /**
      * #순수 JPA
      * @PrePersist @PreUpdate
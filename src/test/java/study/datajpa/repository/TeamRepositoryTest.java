@@ -0,0 +1,117 @@
+package study.datajpa.repository;
+
+import org.hibernate.Session;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.domain.Member;
+import study.datajpa.domain.Team;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=study.datajpa.repository.TeamRepositoryTest$SqlRecorder")
+@Transactional
+class TeamRepositoryTest {
+    private static final int TEAMS = 20;
+    private static final int MEMBERS_PER_TEAM = 300;
+
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    EntityManager em;
+
+    @BeforeEach
+    void setUp(){
+        for (int t = 0; t < TEAMS; t++) {
+            Team team = new Team(String.format("paging-team%02d", t));
+            em.persist(team);
+            for (int m = 0; m < MEMBERS_PER_TEAM; m++) {
+                em.persist(new Member("paging-member" + t + "-" + m, m, team));
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void findAllWithMembers() {
+        PageRequest pageRequest = PageRequest.of(1, 3, Sort.by(Sort.Direction.DESC, "name"));
+        Page<Team> page = teamRepository.findAllWithMembers(
+                (root, query, cb) -> cb.like(root.get("name"), "paging-team%"), pageRequest);
+
+        assertThat(page.getTotalElements()).isEqualTo(TEAMS);
+        assertThat(page.getContent()).extracting(Team::getName)
+                .containsExactly("paging-team16", "paging-team15", "paging-team14");
+        assertThat(page.getContent()).allSatisfy(team -> {
+            assertThat(em.getEntityManagerFactory().getPersistenceUnitUtil().isLoaded(team, "members")).isTrue();
+            assertThat(team.getMembers()).hasSize(MEMBERS_PER_TEAM);
+        });
+    }
+
+    /**
+     * 컬렉션 fetch join 페이징은 limit 없이 모든 팀/회원을 읽고 메모리에서 자른다.
+     * 2단계 페이징은 id 만 limit 으로 고르고 페이지의 팀과 그 회원만 올린다.
+     */
+    @Test
+    public void twoPhaseLoadsOnlyThePage() {
+        PageRequest pageRequest = PageRequest.of(1, 3, Sort.by(Sort.Direction.DESC, "name"));
+
+        Loaded fetchJoin = load(() -> em.createQuery(
+                        "select distinct t from Team t left join fetch t.members" +
+                                " where t.name like 'paging-team%' order by t.name desc", Team.class)
+                .setFirstResult((int) pageRequest.getOffset())
+                .setMaxResults(pageRequest.getPageSize())
+                .getResultList());
+        Loaded twoPhase = load(() -> teamRepository.findAllWithMembers(
+                (root, query, cb) -> cb.like(root.get("name"), "paging-team%"), pageRequest).getContent());
+
+        assertThat(twoPhase.names).isEqualTo(fetchJoin.names);
+        assertThat(fetchJoin.entities).isGreaterThanOrEqualTo(TEAMS * (MEMBERS_PER_TEAM + 1));
+        assertThat(fetchJoin.sql).singleElement().satisfies(sql -> assertThat(sql).doesNotContain("limit"));
+        assertThat(twoPhase.entities).isEqualTo(3 * (MEMBERS_PER_TEAM + 1));
+        // id 페이지(limit), 페이지 id 의 팀+회원(in), count
+        assertThat(twoPhase.sql).hasSize(3);
+        assertThat(twoPhase.sql.get(0)).contains("limit").doesNotContain("member");
+        assertThat(twoPhase.sql.get(1)).contains("member").contains(" in (").doesNotContain("limit");
+        assertThat(twoPhase.sql.get(2)).contains("count(");
+    }
+
+    private Loaded load(Supplier<List<Team>> query) {
+        em.clear();
+        SqlRecorder.STATEMENTS.clear();
+        List<Team> teams = query.get();
+        Loaded loaded = new Loaded();
+        loaded.sql = new ArrayList<>(SqlRecorder.STATEMENTS);
+        loaded.entities = em.unwrap(Session.class).getStatistics().getEntityCount();
+        loaded.names = teams.stream().map(team -> team.getName() + ":" + team.getMembers().size()).toArray(String[]::new);
+        return loaded;
+    }
+
+    static class Loaded {
+        List<String> sql;
+        int entities;
+        String[] names;
+    }
+
+    public static class SqlRecorder implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql.toLowerCase());
+            return sql;
+        }
+    }
+}
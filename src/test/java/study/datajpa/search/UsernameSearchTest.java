@@ -0,0 +1,128 @@
+package study.datajpa.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.domain.Member;
+import study.datajpa.domain.Team;
+import study.datajpa.event.EntityChange;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.MemberSpec;
+
+import javax.persistence.EntityManager;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 범위 여러 개로 다시 만든다
+@SpringBootTest(properties = "datajpa.username-search.rebuild-chunk-size=2")
+@Transactional
+class UsernameSearchTest {
+    @Autowired
+    UsernameSearch usernameSearch;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    Member park;
+    Member aqzkimbo;
+
+    @BeforeEach
+    void setUp(){
+        Team team = new Team("search-team");
+        em.persist(team);
+        memberRepository.save(new Member("Qzkim Minsu", 10, team));
+        memberRepository.save(new Member("qzkimchi", 20));
+        aqzkimbo = memberRepository.save(new Member("aqzkimbo", 30, team));
+        park = memberRepository.save(new Member("park", 40));
+        em.flush();
+        usernameSearch.rebuild();
+    }
+
+    @Test
+    public void rankedAndPaged() {
+        assertThat(usernameSearch.isReady()).isTrue();
+        long indexed = usernameSearch.stats().getIndexedSearches();
+
+        Page<UsernameMatch> contains = usernameSearch.search("QZK", UsernameSearch.Mode.CONTAINS, PageRequest.of(0, 2));
+        assertThat(contains.getTotalElements()).isEqualTo(3);
+        assertThat(contains.getContent()).extracting(UsernameMatch::getUsername).containsExactly("qzkimchi", "Qzkim Minsu");
+        assertThat(usernameSearch.search("qzk", UsernameSearch.Mode.CONTAINS, PageRequest.of(1, 2)).getContent())
+                .extracting(UsernameMatch::getUsername).containsExactly("aqzkimbo");
+
+        // 1~2 글자 접두사도 인덱스로
+        assertThat(usernameSearch.search("qz", UsernameSearch.Mode.PREFIX, PageRequest.of(0, 10)).getContent())
+                .extracting(UsernameMatch::getUsername).containsExactly("qzkimchi", "Qzkim Minsu");
+        assertThat(usernameSearch.search("qzkim minsu", UsernameSearch.Mode.PREFIX, PageRequest.of(0, 10)).getContent())
+                .extracting(UsernameMatch::getUsername).containsExactly("Qzkim Minsu");
+        assertThat(usernameSearch.stats().getIndexedSearches() - indexed).isEqualTo(4);
+
+        // 2 글자 부분 검색은 like
+        assertThat(usernameSearch.search("qz", UsernameSearch.Mode.CONTAINS, PageRequest.of(0, 10)).getTotalElements()).isEqualTo(3);
+        assertThat(usernameSearch.search("100%", UsernameSearch.Mode.CONTAINS, PageRequest.of(0, 10)).getContent()).isEmpty();
+    }
+
+    @Test
+    public void staysCurrentOnWrites() {
+        park.setUsername("parkqzkim");
+        em.remove(aqzkimbo);
+        memberRepository.save(new Member("newqzk", 50));
+        em.flush();
+
+        assertThat(usernameSearch.search("qzk", UsernameSearch.Mode.CONTAINS, PageRequest.of(0, 10)).getContent())
+                .extracting(UsernameMatch::getUsername)
+                .containsExactly("qzkimchi", "Qzkim Minsu", "newqzk", "parkqzkim");
+    }
+
+    @Test
+    public void rebuildKeepsRangesInSync() {
+        jdbcTemplate.update("insert into member_username_gram (gram, member_id) values ('qzk', ?)", Long.MAX_VALUE);
+        park.setUsername("parkqzk");
+        em.flush();
+        jdbcTemplate.update("delete from member_username_gram where member_id = ?", park.getId());
+
+        usernameSearch.rebuild();
+        assertThat(usernameSearch.isReady()).isTrue();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from member_username_gram where member_id = ?",
+                Long.class, Long.MAX_VALUE)).isZero();
+        assertThat(usernameSearch.search("qzk", UsernameSearch.Mode.CONTAINS, PageRequest.of(0, 10)).getContent())
+                .extracting(UsernameMatch::getUsername)
+                .containsExactly("qzkimchi", "Qzkim Minsu", "parkqzk", "aqzkimbo");
+    }
+
+    @Test
+    public void disabledLeavesGramsAlone() {
+        UsernameSearchProperties properties = new UsernameSearchProperties();
+        properties.setEnabled(false);
+        UsernameSearch disabled = new UsernameSearch(em, jdbcTemplate, transactionTemplate, properties);
+
+        disabled.onChange(EntityChange.inserted(EntityChange.Origin.HIBERNATE, Member.class, park.getId(),
+                Collections.singletonMap("username", "qzkdisabled")));
+        disabled.onChange(EntityChange.bulk(EntityChange.Origin.JDBC, Member.class));
+
+        assertThat(disabled.isReady()).isFalse();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from member_username_gram where gram = 'qzk' and member_id = ?",
+                Long.class, park.getId())).isZero();
+        assertThat(usernameSearch.isReady()).isTrue();
+    }
+
+    @Test
+    public void specification() {
+        assertThat(memberRepository.findAll(MemberSpec.usernameContains(usernameSearch, "qzkim")
+                .and(MemberSpec.teamName("search-team"))))
+                .extracting(Member::getUsername)
+                .containsExactlyInAnyOrder("Qzkim Minsu", "aqzkimbo");
+        assertThat(memberRepository.findAll(MemberSpec.usernameStartsWith(usernameSearch, "QZ"))).hasSize(2);
+    }
+}
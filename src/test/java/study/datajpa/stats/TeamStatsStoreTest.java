@@ -0,0 +1,169 @@
+package study.datajpa.stats;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.domain.Member;
+import study.datajpa.domain.Team;
+import study.datajpa.event.EntityChange;
+import study.datajpa.event.EntityChangePublisher;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+@SpringBootTest
+@Transactional
+class TeamStatsStoreTest {
+    @Autowired
+    TeamStatsStore teamStatsStore;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    EntityChangePublisher changePublisher;
+
+    @BeforeEach
+    void setUp(){
+        // 다른 테스트가 JDBC 로 지운 행을 정리
+        teamStatsStore.rebuild();
+    }
+
+    @Test
+    public void incrementalChanges() {
+        Team teamA = new Team("stats-a");
+        Team teamB = new Team("stats-b");
+        em.persist(teamA);
+        em.persist(teamB);
+        Member member1 = new Member("member1", 15, teamA);
+        Member member2 = new Member("member2", 25, teamA);
+        Member member3 = new Member("member3", 95, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(new Member("member4", 40));
+        em.flush();
+
+        assertStats(teamA, 2, 20.0, 0, 1, 1);
+        assertStats(teamB, 1, 95.0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1);
+
+        member1 = em.find(Member.class, member1.getId());
+        member2 = em.find(Member.class, member2.getId());
+        member1.setAge(27);
+        member2.setTeam(em.find(Team.class, teamB.getId()));
+        em.flush();
+        assertStats(teamA, 1, 27.0, 0, 0, 1);
+        assertStats(teamB, 2, 60.0, 0, 0, 1, 0, 0, 0, 0, 0, 0, 1);
+
+        em.remove(em.find(Member.class, member3.getId()));
+        em.flush();
+        assertStats(teamB, 1, 25.0, 0, 0, 1);
+        assertThat(teamStatsStore.check().getMismatches()).isEmpty();
+    }
+
+    /**
+     * bulkAgePlus 는 바뀐 행만 세어서 같은 트랜잭션에서 구간을 옮긴다.
+     */
+    @Test
+    public void bulkAgePlusShiftsBucketsInTransaction() {
+        Team team = new Team("stats-shift");
+        em.persist(team);
+        em.persist(new Member("member1", 9, team));
+        em.persist(new Member("member2", 19, team));
+        em.persist(new Member("member3", 25, team));
+        em.flush();
+
+        memberRepository.bulkAgePlus(10);
+        assertStats(team, 3, 55 / 3.0, 1, 0, 2);
+        assertThat(teamStatsStore.check().getMismatches()).isEmpty();
+    }
+
+    /**
+     * 범위를 모르는 벌크 변경은 쓰는 쪽 트랜잭션이 아니라 커밋 후에 다시 계산한다.
+     */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void opaqueBulkUpdateRecomputesAfterCommit() throws Exception {
+        Team team = new Team("stats-bulk");
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(team);
+            em.persist(new Member("stats-bulk1", 5000, team));
+            em.persist(new Member("stats-bulk2", 5010, team));
+            em.persist(new Member("stats-bulk3", 5020, team));
+        });
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                assertThat(jdbcTemplate.update("update member set age = age + 1" +
+                        " where username like 'stats-bulk%' and age >= 5010")).isEqualTo(2);
+                changePublisher.publish(EntityChange.bulk(EntityChange.Origin.JDBC, Member.class));
+                assertStats(team, 3, 15030 / 3.0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 3);
+            });
+            teamStatsStore.awaitRecompute();
+            assertStats(team, 3, 15032 / 3.0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 3);
+            assertThat(teamStatsStore.check().isConsistent()).isTrue();
+        } finally {
+            jdbcTemplate.update("delete from member where username like 'stats-bulk%'");
+            jdbcTemplate.update("delete from team_age_bucket where team_id = ?", team.getId());
+            jdbcTemplate.update("delete from team_stats where team_id = ?", team.getId());
+            jdbcTemplate.update("delete from team where team_id = ?", team.getId());
+        }
+    }
+
+    @Test
+    public void missingRowsAreRecomputedForTheTeam() {
+        Team team = new Team("stats-missing");
+        em.persist(team);
+        em.persist(new Member("member1", 10, team));
+        em.flush();
+        jdbcTemplate.update("delete from team_age_bucket where team_id = ? and bucket = 2", team.getId());
+
+        em.persist(new Member("member2", 25, team));
+        em.flush();
+        assertStats(team, 2, 17.5, 0, 1, 1);
+    }
+
+    @Test
+    public void rebuildRepairsDrift() {
+        Team team = new Team("stats-drift");
+        em.persist(team);
+        em.persist(new Member("member1", 10, team));
+        em.flush();
+
+        jdbcTemplate.update("update team_stats set member_count = member_count + 5 where team_id = ?", team.getId());
+        jdbcTemplate.update("delete from team_age_bucket where team_id = ? and bucket = 1", team.getId());
+        TeamStatsCheck check = teamStatsStore.check();
+        assertThat(check.isConsistent()).isFalse();
+        assertThat(check.getMismatches()).hasSize(2);
+
+        assertThat(teamStatsStore.rebuild().isConsistent()).isTrue();
+        assertStats(team, 1, 10.0, 0, 1);
+    }
+
+    /**
+     * counts: 0 번 구간부터, 생략한 뒤 구간은 0
+     */
+    private void assertStats(Team team, long memberCount, double averageAge, long... counts) {
+        em.clear();
+        TeamStatsView view = teamStatsStore.find(team.getId()).orElseThrow(AssertionError::new);
+        assertThat(view.getMemberCount()).isEqualTo(memberCount);
+        assertThat(view.getAverageAge()).isCloseTo(averageAge, offset(0.001));
+        assertThat(view.getHistogram()).hasSize(10);
+        for (int bucket = 0; bucket < view.getHistogram().size(); bucket++) {
+            long expected = bucket < counts.length ? counts[bucket] : 0;
+            assertThat(view.getHistogram().get(bucket).getMemberCount()).as("bucket %d", bucket).isEqualTo(expected);
+        }
+        assertThat(view.getHistogram().get(9).getMaxAge()).isNull();
+    }
+}
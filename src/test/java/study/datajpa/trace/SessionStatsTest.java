@@ -0,0 +1,118 @@
+package study.datajpa.trace;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.domain.Member;
+import study.datajpa.domain.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class SessionStatsTest {
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    SessionStatsCollector collector;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    EntityManager em;
+
+    Team team;
+
+    @BeforeEach
+    void setUp(){
+        team = teamRepository.save(new Team("stats-team"));
+        for (int i = 0; i < 5; i++) {
+            memberRepository.save(new Member("stats" + i, i, team));
+        }
+        collector.reset();
+    }
+
+    @AfterEach
+    void cleanUp(){
+        collector.setHeaders(false);
+        jdbcTemplate.update("delete from member where username like 'stats%'");
+        jdbcTemplate.update("delete from team where name = 'stats-team'");
+    }
+
+    @Test
+    public void headersAndEndpointSummary() throws Exception {
+        MvcResult quiet = mockMvc.perform(get("/members?page=0&size=3")).andReturn();
+        assertThat(quiet.getResponse().getHeader("X-Session-Entities-Loaded")).isNull();
+
+        collector.setHeaders(true);
+        MvcResult result = mockMvc.perform(get("/members?page=0&size=3")).andReturn();
+        assertThat(result.getResponse().getContentAsString()).contains("\"content\"");
+        assertThat(Long.parseLong(result.getResponse().getHeader("X-Session-Entities-Loaded"))).isGreaterThanOrEqualTo(3);
+        // 페이지 조회 + count
+        assertThat(Long.parseLong(result.getResponse().getHeader("X-Session-Statements"))).isGreaterThanOrEqualTo(2);
+        assertThat(Integer.parseInt(result.getResponse().getHeader("X-Session-Peak-Entities"))).isGreaterThanOrEqualTo(3);
+
+        SessionStatsSummary members = collector.status().getEndpoints().stream()
+                .filter(summary -> summary.getEndpoint().equals("GET /members"))
+                .findFirst().orElseThrow(AssertionError::new);
+        assertThat(members.getRequests()).isEqualTo(2);
+        assertThat(members.getEntitiesLoaded()).isGreaterThanOrEqualTo(6);
+    }
+
+    @Test
+    public void headersToggleIsOffByDefault() throws Exception {
+        mockMvc.perform(post("/trace/session").param("headers", "true"))
+                .andExpect(status().isForbidden());
+        assertThat(collector.isHeaders()).isFalse();
+    }
+
+    @Test
+    public void summaryAddsSubMillisecondTimes() {
+        SessionStatsSummary summary = new SessionStatsSummary("GET /fast");
+        for (int i = 0; i < 10; i++) {
+            SessionStats stats = new SessionStats();
+            stats.flushed(400_000, 0, 0);
+            stats.statementExecuted(300_000);
+            summary.add(stats);
+        }
+        assertThat(summary.getFlushMillis()).isEqualTo(4);
+        assertThat(summary.getStatementMillis()).isEqualTo(3);
+    }
+
+    @Test
+    public void countsCollectionsAndFlushes() {
+        SessionStats stats = SessionStats.begin();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Team found = em.find(Team.class, team.getId());
+                assertThat(found.getMembers()).hasSize(5);
+                em.persist(new Member("stats-new", 1, found));
+            });
+        } finally {
+            stats.end();
+        }
+        assertThat(stats.getCollectionsFetched()).isEqualTo(1);
+        assertThat(stats.getFlushes()).isGreaterThanOrEqualTo(1);
+        assertThat(stats.getStatements()).isGreaterThanOrEqualTo(1);
+        assertThat(SessionStats.current()).isNull();
+    }
+}
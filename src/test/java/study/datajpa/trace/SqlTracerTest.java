@@ -0,0 +1,49 @@
+package study.datajpa.trace;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class SqlTracerTest {
+    @Autowired
+    SqlTracer sqlTracer;
+    @Autowired
+    DataSource dataSource;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void off(){
+        sqlTracer.configure(false, 100, 0L);
+    }
+
+    @Test
+    public void toggleAtRuntime(){
+        assertThat(dataSource).isInstanceOf(TracingDataSource.class);
+
+//        when
+        sqlTracer.configure(true, 1, 0L);
+        long before = sqlTracer.status().getSampled();
+        jdbcTemplate.queryForObject("select count(*) from member", Long.class);
+
+//        then
+        SqlTraceStatus status = sqlTracer.status();
+        assertThat(status.getSampled()).isEqualTo(before + 1);
+        assertThat(status.getRecent().get(status.getRecent().size() - 1).getSql())
+                .isEqualTo("select count(*) from member");
+
+//        when off
+        sqlTracer.configure(false, null, null);
+        jdbcTemplate.queryForObject("select count(*) from member", Long.class);
+
+//        then
+        assertThat(sqlTracer.status().getExecuted()).isEqualTo(status.getExecuted());
+    }
+}
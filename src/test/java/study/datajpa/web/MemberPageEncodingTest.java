@@ -0,0 +1,174 @@
+package study.datajpa.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import study.datajpa.domain.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MemberPageEncodingTest {
+    private static final String QUERY = "/members?page=1&size=4&sort=id";
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp(){
+        for (int i = 0; i < 10; i++) {
+            memberRepository.save(new Member("encoding" + i + (i % 3 == 0 ? "회원" : ""), i));
+        }
+    }
+
+    @AfterEach
+    void cleanUp(){
+        jdbcTemplate.update("delete from member where username like 'encoding%'");
+    }
+
+    @Test
+    public void defaultStaysJson() throws Exception {
+        for (String accept : new String[]{MediaType.ALL_VALUE, MediaType.APPLICATION_JSON_VALUE}) {
+            MvcResult result = mockMvc.perform(get(QUERY).header("Accept", accept)).andReturn();
+            assertThat(result.getResponse().getContentType()).startsWith(MediaType.APPLICATION_JSON_VALUE);
+            JsonNode json = objectMapper.readTree(result.getResponse().getContentAsByteArray());
+            assertThat(json.has("pageable")).isTrue();
+        }
+    }
+
+    @Test
+    public void compactEncodingsMatchJson() throws Exception {
+        JsonNode expected = normalize(leanEnvelope(objectMapper.readTree(
+                mockMvc.perform(get(QUERY)).andReturn().getResponse().getContentAsByteArray())));
+        assertThat(expected.get("content").size()).isEqualTo(4);
+
+        assertThat(normalize(new ObjectMapper(new CBORFactory()).readTree(body(MediaType.APPLICATION_CBOR)))).isEqualTo(expected);
+        assertThat(normalize(new ObjectMapper(new SmileFactory()).readTree(body(MemberPageHttpMessageConverter.SMILE)))).isEqualTo(expected);
+        assertThat(normalize(decodeProtobuf(body(MemberPageHttpMessageConverter.PROTOBUF)))).isEqualTo(expected);
+    }
+
+    @Test
+    public void compactIsSmallerThanJson() throws Exception {
+        int json = mockMvc.perform(get(QUERY)).andReturn().getResponse().getContentAsByteArray().length;
+        assertThat(body(MediaType.APPLICATION_CBOR).length).isLessThan(json / 2);
+        assertThat(body(MemberPageHttpMessageConverter.PROTOBUF).length).isLessThan(json / 4);
+    }
+
+    private byte[] body(MediaType mediaType) throws Exception {
+        MvcResult result = mockMvc.perform(get(QUERY).accept(mediaType)).andReturn();
+        assertThat(result.getResponse().getStatus()).isEqualTo(200);
+        assertThat(MediaType.parseMediaType(result.getResponse().getContentType()).isCompatibleWith(mediaType)).isTrue();
+        return result.getResponse().getContentAsByteArray();
+    }
+
+    /**
+     * 포맷마다 정수를 int/long 으로 다르게 읽으므로 JSON 으로 한 번 돌려서 비교한다.
+     */
+    private JsonNode normalize(JsonNode node) throws IOException {
+        return objectMapper.readTree(objectMapper.writeValueAsBytes(node));
+    }
+
+    /**
+     * 기존 JSON 응답에서 가벼운 봉투에 들어가는 값만 남긴다.
+     */
+    private ObjectNode leanEnvelope(JsonNode page) {
+        ObjectNode lean = JsonNodeFactory.instance.objectNode();
+        lean.put("page", page.get("number").asInt());
+        lean.put("size", page.get("size").asInt());
+        lean.put("totalElements", page.get("totalElements").asLong());
+        lean.put("totalPages", page.get("totalPages").asInt());
+        ArrayNode content = lean.putArray("content");
+        for (JsonNode dto : page.get("content")) {
+            ObjectNode member = content.addObject();
+            member.put("id", dto.get("id").asLong());
+            member.put("username", dto.get("username").asText());
+            if (!dto.get("teamName").isNull()) {
+                member.put("teamName", dto.get("teamName").asText());
+            }
+        }
+        return lean;
+    }
+
+    /**
+     * member_page.proto 를 읽는 최소한의 디코더
+     */
+    private ObjectNode decodeProtobuf(byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        ObjectNode page = JsonNodeFactory.instance.objectNode();
+        page.put("page", 0);
+        page.put("size", 0);
+        page.put("totalElements", 0L);
+        page.put("totalPages", 0);
+        ArrayNode content = page.putArray("content");
+        String[] pageFields = {null, "page", "size", "totalElements", "totalPages"};
+        while (in.available() > 0) {
+            long tag = readVarint(in);
+            int field = (int) (tag >>> 3);
+            if (field == 5) {
+                byte[] message = new byte[(int) readVarint(in)];
+                in.readFully(message);
+                content.add(decodeMember(message));
+            } else if (field == 3) {
+                page.put(pageFields[field], readVarint(in));
+            } else {
+                page.put(pageFields[field], (int) readVarint(in));
+            }
+        }
+        return page;
+    }
+
+    private ObjectNode decodeMember(byte[] message) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(message));
+        ObjectNode member = JsonNodeFactory.instance.objectNode();
+        while (in.available() > 0) {
+            int field = (int) (readVarint(in) >>> 3);
+            if (field == 1) {
+                member.put("id", readVarint(in));
+            } else {
+                byte[] utf8 = new byte[(int) readVarint(in)];
+                in.readFully(utf8);
+                member.put(field == 2 ? "username" : "teamName", new String(utf8, StandardCharsets.UTF_8));
+            }
+        }
+        return member;
+    }
+
+    private long readVarint(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+}
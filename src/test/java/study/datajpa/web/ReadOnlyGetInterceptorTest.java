@@ -0,0 +1,157 @@
+package study.datajpa.web;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import study.datajpa.domain.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ReadOnlyGetInterceptorTest {
+    @Autowired
+    ReadOnlyGetInterceptor interceptor;
+    @Autowired
+    EntityManagerFactory emf;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    MockMvc mockMvc;
+
+    EntityManager em;
+
+    @AfterEach
+    void cleanUp(){
+        if (em != null) {
+            TransactionSynchronizationManager.unbindResource(emf);
+            em.close();
+            em = null;
+        }
+        jdbcTemplate.update("delete from member where username = 'read-only-get'");
+    }
+
+    @Test
+    public void writeDuringPlainGetIsKept() throws Exception {
+        Long id = memberRepository.save(new Member("read-only-get", 10)).getId();
+        Session session = openInView();
+
+        interceptor.preHandle(get(), new MockHttpServletResponse(), handler("plain"));
+        transactionTemplate.executeWithoutResult(status -> em.find(Member.class, id).setAge(11));
+
+        assertThat(session.isDefaultReadOnly()).isFalse();
+        assertThat(jdbcTemplate.queryForObject("select age from member where member_id = ?", Integer.class, id)).isEqualTo(11);
+    }
+
+    @Test
+    public void readOnlyHandlerLoadsReadOnlyEntities() throws Exception {
+        Session session = openInView();
+        interceptor.preHandle(get(), new MockHttpServletResponse(), handler("readOnly"));
+        assertThat(session.isDefaultReadOnly()).isTrue();
+
+        cleanUp();
+        Session other = openInView();
+        interceptor.preHandle(get(), new MockHttpServletResponse(), new HandlerMethod(new ReadOnlyHandlers(), "list"));
+        assertThat(other.isDefaultReadOnly()).isTrue();
+    }
+
+    /**
+     * GET /members/{id} 는 읽기 전용 핸들러라서 컨버터가 찾은 회원을 요청 중에 바꾸고 다른 트랜잭션이 플러시해도 반영되지 않는다.
+     */
+    @Test
+    public void memberControllerGetDoesNotFlushDirtyMember() throws Exception {
+        Long id = memberRepository.save(new Member("read-only-get", 10)).getId();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/members/" + id))
+                .andExpect(status().isOk())
+                .andExpect(content().string("read-only-get"));
+
+        assertThat(jdbcTemplate.queryForObject("select age from member where member_id = ?", Integer.class, id)).isEqualTo(10);
+    }
+
+    private Session openInView() {
+        em = emf.createEntityManager();
+        TransactionSynchronizationManager.bindResource(emf, new EntityManagerHolder(em));
+        return em.unwrap(Session.class);
+    }
+
+    private static MockHttpServletRequest get() {
+        return new MockHttpServletRequest("GET", "/members");
+    }
+
+    private static HandlerMethod handler(String method) throws NoSuchMethodException {
+        return new HandlerMethod(new Handlers(), method);
+    }
+
+    static class Handlers {
+        public void plain() {
+        }
+
+        @Transactional(readOnly = true)
+        public void readOnly() {
+        }
+    }
+
+    @Transactional(readOnly = true)
+    static class ReadOnlyHandlers {
+        public void list() {
+        }
+    }
+
+    /**
+     * 핸들러가 끝난 뒤 같은 요청(OSIV 세션)에서 회원을 바꾸고 쓰기 트랜잭션을 커밋한다.
+     */
+    @TestConfiguration
+    static class DirtyingConfig implements WebMvcConfigurer {
+        @Autowired
+        EntityManager em;
+        @Autowired
+        TransactionTemplate transactionTemplate;
+
+        @Override
+        public void addInterceptors(InterceptorRegistry registry) {
+            registry.addInterceptor(new HandlerInterceptor() {
+                @Override
+                public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                       ModelAndView modelAndView) {
+                    Map<?, ?> variables = (Map<?, ?>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+                    Member member = em.find(Member.class, Long.valueOf((String) variables.get("id")));
+                    member.setAge(99);
+                    transactionTemplate.executeWithoutResult(status -> em.flush());
+                }
+            }).addPathPatterns("/members/*");
+        }
+    }
+}
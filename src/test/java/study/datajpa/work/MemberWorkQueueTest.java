@@ -0,0 +1,129 @@
+package study.datajpa.work;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.datajpa.domain.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.work.MemberWorkItem.Status;
+import study.datajpa.work.WorkQueueProperties.ClaimStrategy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class MemberWorkQueueTest {
+    private static final String TASK = "work-test";
+
+    @Autowired
+    MemberWorkQueue workQueue;
+    @Autowired
+    WorkQueueProperties properties;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    List<Long> memberIds = new ArrayList<>();
+    ClaimStrategy configured;
+
+    @BeforeEach
+    void setUp(){
+        configured = properties.getClaimStrategy();
+        for (int i = 0; i < 200; i++) {
+            memberIds.add(memberRepository.save(new Member("work" + i, i)).getId());
+        }
+    }
+
+    @AfterEach
+    void cleanUp(){
+        properties.setClaimStrategy(configured);
+        jdbcTemplate.update("delete from member_work_item where task = ?", TASK);
+        jdbcTemplate.update("delete from member where username like 'work%'");
+    }
+
+    @Test
+    public void concurrentWorkersNeverShareWork() throws Exception {
+        List<ClaimStrategy> strategies = new ArrayList<>(Collections.singletonList(ClaimStrategy.CONDITIONAL_UPDATE));
+        if (workQueue.supportsSkipLocked()) {
+            strategies.add(ClaimStrategy.SKIP_LOCKED);
+        }
+        for (ClaimStrategy strategy : strategies) {
+            properties.setClaimStrategy(strategy);
+            jdbcTemplate.update("delete from member_work_item where task = ?", TASK);
+            assertThat(workQueue.enqueue(TASK, memberIds)).isEqualTo(200);
+
+            ConcurrentHashMap<Long, String> processed = new ConcurrentHashMap<>();
+            AtomicInteger duplicates = new AtomicInteger();
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < 4; w++) {
+                String worker = "worker-" + w;
+                futures.add(executor.submit(() -> {
+                    List<WorkLease> leases;
+                    while (!(leases = workQueue.claim(TASK, worker, 7)).isEmpty()) {
+                        for (WorkLease lease : leases) {
+                            if (processed.putIfAbsent(lease.getMemberId(), worker) != null) {
+                                duplicates.incrementAndGet();
+                            }
+                        }
+                        assertThat(workQueue.complete(worker, leases)).isEqualTo(leases.size());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+
+            assertThat(duplicates.get()).as(strategy.name()).isZero();
+            assertThat(processed.keySet()).containsExactlyInAnyOrderElementsOf(memberIds);
+            assertThat(workQueue.counts(TASK).get(Status.DONE)).isEqualTo(200);
+        }
+    }
+
+    @Test
+    public void expiredLeaseIsReclaimed() {
+        workQueue.enqueue(TASK, memberIds.subList(0, 3));
+        List<WorkLease> first = workQueue.claim(TASK, "crashed", 10);
+        assertThat(first).hasSize(3);
+        assertThat(workQueue.claim(TASK, "other", 10)).isEmpty();
+
+        // 워커가 죽어서 임대가 만료됨
+        jdbcTemplate.update("update member_work_item set lease_until = dateadd('SECOND', -1, current_timestamp) where task = ?", TASK);
+        List<WorkLease> second = workQueue.claim(TASK, "other", 10);
+        assertThat(second).extracting(WorkLease::getMemberId).containsExactlyInAnyOrderElementsOf(memberIds.subList(0, 3));
+        assertThat(second).allMatch(lease -> lease.getAttempts() == 2);
+
+        // 늦게 돌아온 워커는 자기 임대가 아니므로 아무것도 바꾸지 못한다.
+        assertThat(workQueue.complete("crashed", first)).isZero();
+        assertThat(workQueue.complete("other", second)).isEqualTo(3);
+        // 끝난 작업이 없는 회원만 다시 넣는다.
+        assertThat(workQueue.enqueue(TASK, memberIds.subList(0, 4))).isEqualTo(4);
+        assertThat(workQueue.enqueue(TASK, memberIds.subList(0, 4))).isZero();
+    }
+
+    @Test
+    public void releaseRetriesUntilMaxAttempts() {
+        workQueue.enqueue(TASK, memberIds.subList(0, 1));
+        for (int attempt = 1; attempt <= properties.getMaxAttempts(); attempt++) {
+            List<WorkLease> leases = workQueue.claim(TASK, "worker", 1);
+            assertThat(leases).hasSize(1);
+            assertThat(leases.get(0).getAttempts()).isEqualTo(attempt);
+            assertThat(workQueue.release("worker", leases)).isEqualTo(1);
+        }
+        assertThat(workQueue.claim(TASK, "worker", 1)).isEmpty();
+        assertThat(workQueue.counts(TASK).get(Status.FAILED)).isEqualTo(1);
+    }
+}
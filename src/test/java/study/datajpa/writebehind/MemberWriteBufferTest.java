@@ -0,0 +1,143 @@
+package study.datajpa.writebehind;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import study.datajpa.cache.QueryCacheStats;
+import study.datajpa.cache.QueryResultCache;
+import study.datajpa.domain.Member;
+import study.datajpa.domain.Team;
+import study.datajpa.event.EntityChangePublisher;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "datajpa.write-behind.enabled=true",
+        "datajpa.write-behind.flush-interval=1h",
+        "datajpa.write-behind.journal-dir=${java.io.tmpdir}/datajpa-write-behind-${random.uuid}"
+})
+class MemberWriteBufferTest {
+    @Autowired
+    MemberWriteBuffer buffer;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    WriteBehindProperties properties;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    EntityChangePublisher changePublisher;
+    @Autowired
+    QueryResultCache queryResultCache;
+    @Autowired
+    AuditorAware<String> auditorAware;
+    @Autowired
+    EntityManagerFactory emf;
+
+    @AfterEach
+    void cleanUp(){
+        buffer.flush();
+        jdbcTemplate.update("delete from member where username like 'wb-%'");
+        jdbcTemplate.update("delete from team where name like 'wb-%'");
+    }
+
+    @Test
+    public void coalesceAndReadYourWrites(){
+//        given
+        Team team = teamRepository.save(new Team("wb-team"));
+        Member member = memberRepository.save(new Member("wb-member", 10));
+
+//        when: 같은 회원의 변경 100 번
+        for (int age = 11; age <= 110; age++) {
+            buffer.changeAge(member.getId(), age);
+        }
+        buffer.changeTeam(member.getId(), team.getId());
+
+//        then: DB 는 그대로, 리포지토리 조회는 마지막 값
+        assertThat(buffer.pendingCount()).isEqualTo(1);
+        assertThat(ageInDb(member.getId())).isEqualTo(10);
+        Member found = memberRepository.findById(member.getId()).get();
+        assertThat(found.getAge()).isEqualTo(110);
+        assertThat(found.getTeam().getName()).isEqualTo("wb-team");
+
+//        when: flush 는 회원 하나에 UPDATE 한 번
+        assertThat(buffer.flush()).isEqualTo(1);
+
+//        then
+        assertThat(buffer.pendingCount()).isEqualTo(0);
+        assertThat(ageInDb(member.getId())).isEqualTo(110);
+        assertThat(memberRepository.findById(member.getId()).get().getAge()).isEqualTo(110);
+    }
+
+    @Test
+    public void recoverFromJournal(){
+//        given: DB 에 쓰기 전에 프로세스가 죽었다
+        Member member = memberRepository.save(new Member("wb-crashed", 20));
+        buffer.changeAge(member.getId(), 21);
+        buffer.changeAge(member.getId(), 22);
+
+//        when: 같은 저널 디렉토리로 새로 기동
+        MemberWriteBuffer restarted = new MemberWriteBuffer(jdbcTemplate, transactionManager, changePublisher,
+                auditorAware, emf, properties);
+        restarted.start();
+        restarted.stop();
+
+//        then
+        assertThat(ageInDb(member.getId())).isEqualTo(22);
+    }
+
+    @Test
+    public void cachedResultsAreOverlaidAndInvalidatedByKey(){
+//        given
+        Member member = memberRepository.save(new Member("wb-cached", 5001));
+        memberRepository.save(new Member("wb-other", 5002));
+        findByAge(5001);
+        findByAge(5002);
+        QueryCacheStats before = findByAgeStats();
+
+//        when: 쌓아둔 변경은 캐시를 비우지 않고, 캐시 히트에도 덧씌운다
+        buffer.changeAge(member.getId(), 5003);
+        assertThat(findByAge(5001).getContent()).extracting(Member::getAge).containsExactly(5003);
+        findByAge(5002);
+        QueryCacheStats pending = findByAgeStats();
+        assertThat(pending.getHits() - before.getHits()).isEqualTo(2);
+        assertThat(pending.getInvalidations()).isEqualTo(before.getInvalidations());
+
+//        when: DB 에 쓰면 이전/새 age 의 결과만 지운다
+        buffer.flush();
+        assertThat(findByAge(5001).getContent()).isEmpty();
+        findByAge(5002);
+        QueryCacheStats flushed = findByAgeStats();
+        assertThat(flushed.getInvalidations() - pending.getInvalidations()).isEqualTo(1);
+        assertThat(flushed.getHits() - pending.getHits()).isEqualTo(1);
+    }
+
+    private Page<Member> findByAge(int age) {
+        return memberRepository.findByAge(age, PageRequest.of(0, 10));
+    }
+
+    private QueryCacheStats findByAgeStats() {
+        return queryResultCache.stats().stream()
+                .filter(s -> s.getMethod().equals("MemberRepository.findByAge"))
+                .findFirst().orElse(new QueryCacheStats("MemberRepository.findByAge", 0, 0, 0, 0, 0, 0));
+    }
+
+    private int ageInDb(Long id) {
+        return jdbcTemplate.queryForObject("select age from member where member_id = ?", Integer.class, id);
+    }
+}